@@ -0,0 +1,37 @@
+package com.mozi.auditlog;
+
+import com.mozi.auditlog.bench.BenchRow;
+import com.mozi.auditlog.bench.BenchmarkDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MapUtil#convertDbColumnList} 将实体按列名取值（insert 审计每行一次）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapUtilBenchmark {
+    private final BenchRow row = BenchRow.of(1);
+
+    private final List<String> columns = BenchmarkDatabase.COLUMNS;
+
+    @Benchmark
+    public Map<String, Object> convertDbColumnList() throws Exception {
+        return MapUtil.convertDbColumnList(row, columns);
+    }
+}
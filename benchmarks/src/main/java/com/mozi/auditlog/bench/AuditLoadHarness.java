@@ -0,0 +1,369 @@
+package com.mozi.auditlog.bench;
+
+import com.mozi.auditlog.interceptor.SQLAuditLogInterceptor;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 端到端压测：MyBatis + H2（Oracle 兼容模式），分别在不装插件与装 {@link SQLAuditLogInterceptor} 的两个库上
+ * 以 1..N 个线程执行相同的写操作，输出吞吐量与 p50/p99 延迟，用于评估审计开销与多核扩展性。
+ * <p>
+ * 每个 场景 x 线程数 x 模式 的组合先清空并重新写入数据，预热后再清空重写一次正式计时；各线程只操作自己的主键区间，
+ * 避免行锁竞争干扰结果。每次操作都打开独立的 SqlSession（自动提交），与常见的每请求一个会话一致。
+ * <pre>
+ * java -cp target/benchmarks.jar com.mozi.auditlog.bench.AuditLoadHarness threads=8 seconds=10
+ * </pre>
+ * 参数（key=value）：
+ * <ul>
+ * <li>threads：最大线程数（按 1、2、4... 递增到该值）或逗号分隔的线程数列表，默认 1,2,4,8</li>
+ * <li>seconds / warmup：每个组合的计时与预热秒数，默认 10 / 3</li>
+ * <li>rows：每个线程预置的行数（update 场景），默认 20000</li>
+ * <li>deleteRows：每个线程预置的行数（delete 场景），用完后该线程提前结束，默认 50000</li>
+ * <li>batch：foreach 批量写入的行数与范围 update/delete 的行数，默认 20</li>
+ * <li>scenarios：逗号分隔的场景，默认全部：insert,insertList,updateByPrimaryKey,updateRange,deleteRange</li>
+ * </ul>
+ */
+public class AuditLoadHarness {
+    private static final String[] SCENARIOS = {"insert", "insertList", "updateByPrimaryKey", "updateRange", "deleteRange"};
+
+    /**
+     * insert 场景的主键起点，与预置数据错开
+     */
+    private static final int INSERT_ID_BASE = 500_000_000;
+
+    private final Map<String, String> options;
+    private final List<Integer> threadCounts;
+    private final int seconds;
+    private final int warmup;
+    private final int rows;
+    private final int deleteRows;
+    private final int batch;
+
+    private AuditLoadHarness(Map<String, String> options) {
+        this.options = options;
+        this.threadCounts = parseThreads(option("threads", "1,2,4,8"));
+        this.seconds = Integer.parseInt(option("seconds", "10"));
+        this.warmup = Integer.parseInt(option("warmup", "3"));
+        this.rows = Integer.parseInt(option("rows", "20000"));
+        this.deleteRows = Integer.parseInt(option("deleteRows", "50000"));
+        this.batch = Integer.parseInt(option("batch", "20"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got " + arg);
+            }
+            options.put(arg.substring(0, index), arg.substring(index + 1));
+        }
+        new AuditLoadHarness(options).run();
+    }
+
+    private String option(String key, String defaultValue) {
+        String value = options.get(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    private static List<Integer> parseThreads(String threads) {
+        List<Integer> threadCounts = new ArrayList<>();
+        if (threads.contains(",")) {
+            for (String thread : threads.split(",")) {
+                threadCounts.add(Integer.parseInt(thread.trim()));
+            }
+            return threadCounts;
+        }
+        int max = Integer.parseInt(threads);
+        for (int thread = 1; thread < max; thread *= 2) {
+            threadCounts.add(thread);
+        }
+        threadCounts.add(max);
+        return threadCounts;
+    }
+
+    private void run() throws Exception {
+        int maxThreads = 0;
+        for (int threadCount : threadCounts) {
+            maxThreads = Math.max(maxThreads, threadCount);
+        }
+        List<String> scenarios = Arrays.asList(option("scenarios", String.join(",", SCENARIOS)).split(","));
+        System.out.printf("threads=%s seconds=%d warmup=%d rows=%d deleteRows=%d batch=%d cpus=%d%n",
+                threadCounts, seconds, warmup, rows, deleteRows, batch, Runtime.getRuntime().availableProcessors());
+
+        try (Target baseline = new Target("baseline", false, maxThreads);
+             Target audited = new Target("audited", true, maxThreads)) {
+            System.out.printf("%-20s %7s | %12s %9s %9s | %12s %9s %9s %10s | %8s%n", "scenario", "threads",
+                    "base ops/s", "p50 us", "p99 us", "audit ops/s", "p50 us", "p99 us", "ops ratio", "logs");
+            for (String scenario : scenarios) {
+                for (int threadCount : threadCounts) {
+                    Result base = measure(baseline, scenario.trim(), threadCount);
+                    Result audit = measure(audited, scenario.trim(), threadCount);
+                    System.out.printf(Locale.ROOT, "%-20s %7d | %12.0f %9.0f %9.0f | %12.0f %9.0f %9.0f %9.1f%% | %8d%n", scenario.trim(), threadCount,
+                            base.throughput(), base.percentileMicros(0.50), base.percentileMicros(0.99),
+                            audit.throughput(), audit.percentileMicros(0.50), audit.percentileMicros(0.99),
+                            audit.throughput() * 100 / base.throughput(), audit.auditLogs);
+                }
+            }
+        }
+    }
+
+    private Result measure(Target target, String scenario, int threadCount) throws Exception {
+        target.reset(scenario, threadCount);
+        execute(target, scenario, threadCount, warmup);
+        target.reset(scenario, threadCount);
+        Result result = execute(target, scenario, threadCount, seconds);
+        result.auditLogs = target.countAuditLogs();
+        return result;
+    }
+
+    private Result execute(Target target, String scenario, int threadCount, int durationSeconds) throws InterruptedException {
+        Worker[] workers = new Worker[threadCount];
+        CountDownLatch ready = new CountDownLatch(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger insertIds = new AtomicInteger(INSERT_ID_BASE);
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            workers[i] = new Worker(target.factory, scenario, i, insertIds);
+            Worker worker = workers[i];
+            threads[i] = new Thread(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                    worker.run(TimeUnit.SECONDS.toNanos(durationSeconds));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "load-" + scenario + "-" + i);
+            threads[i].start();
+        }
+        ready.await();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Result result = new Result();
+        for (Worker worker : workers) {
+            if (worker.failure != null) {
+                throw new IllegalStateException(scenario + " failed on " + target.name, worker.failure);
+            }
+            result.add(worker);
+        }
+        return result;
+    }
+
+    /**
+     * 一个被测库及其 SqlSessionFactory
+     */
+    private final class Target implements AutoCloseable {
+        private final String name;
+        private final Connection connection;
+        private final PooledDataSource dataSource;
+        private final SqlSessionFactory factory;
+
+        private Target(String name, boolean audited, int maxThreads) throws SQLException {
+            this.name = name;
+            String database = "load-" + name;
+            connection = BenchmarkDatabase.open(database);
+            BenchmarkDatabase.create(connection, 0);
+
+            dataSource = new PooledDataSource("org.h2.Driver", BenchmarkDatabase.url(database), "sa", "");
+            dataSource.setPoolMaximumActiveConnections(maxThreads);
+            dataSource.setPoolMaximumIdleConnections(maxThreads);
+            Configuration configuration = new Configuration(new Environment(name, new JdbcTransactionFactory(), dataSource));
+            configuration.addMapper(BenchMapper.class);
+            if (audited) {
+                SQLAuditLogInterceptor interceptor = new SQLAuditLogInterceptor();
+                Properties properties = new Properties();
+                properties.setProperty("enable", "true");
+                properties.setProperty("monitorTables", BenchmarkDatabase.TABLE);
+                properties.setProperty("jmxName", "load-" + name);
+                interceptor.setProperties(properties);
+                configuration.addInterceptor(interceptor);
+            }
+            factory = new SqlSessionFactoryBuilder().build(configuration);
+        }
+
+        /**
+         * 清空数据，并为每个线程预置其主键区间内的数据
+         */
+        private void reset(String scenario, int threadCount) throws SQLException {
+            BenchmarkDatabase.truncate(connection);
+            int slice = sliceOf(scenario);
+            if (slice > 0) {
+                BenchmarkDatabase.seed(connection, 0, slice * threadCount);
+            }
+        }
+
+        private long countAuditLogs() throws SQLException {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("select count(*) from TB_AUDIT_DIC_LOG")) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            dataSource.forceCloseAll();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("shutdown");
+            }
+            connection.close();
+        }
+    }
+
+    private int sliceOf(String scenario) {
+        if ("deleteRange".equals(scenario)) {
+            return deleteRows;
+        }
+        if ("updateByPrimaryKey".equals(scenario) || "updateRange".equals(scenario)) {
+            return rows;
+        }
+        return 0;
+    }
+
+    /**
+     * 单个压测线程，只访问自己的主键区间 [base, base + slice)
+     */
+    private final class Worker {
+        private final SqlSessionFactory factory;
+        private final String scenario;
+        private final int base;
+        private final int slice;
+        private final AtomicInteger insertIds;
+        private long[] latencies = new long[1 << 14];
+        private int count;
+        private long elapsedNanos;
+        private int cursor;
+        private Throwable failure;
+
+        private Worker(SqlSessionFactory factory, String scenario, int index, AtomicInteger insertIds) {
+            this.factory = factory;
+            this.scenario = scenario;
+            this.slice = sliceOf(scenario);
+            this.base = index * slice;
+            this.insertIds = insertIds;
+        }
+
+        private void run(long durationNanos) {
+            long start = System.nanoTime();
+            long deadline = start + durationNanos;
+            long now = start;
+            try {
+                while (now < deadline) {
+                    boolean more;
+                    try (SqlSession session = factory.openSession(true)) {
+                        more = execute(session.getMapper(BenchMapper.class));
+                    }
+                    long end = System.nanoTime();
+                    record(end - now);
+                    now = end;
+                    if (!more) {
+                        break;
+                    }
+                }
+            } catch (Throwable e) {
+                failure = e;
+            }
+            elapsedNanos = now - start;
+        }
+
+        /**
+         * 执行一次操作
+         *
+         * @return 是否还能继续（delete 场景的区间用完后返回 false）
+         */
+        private boolean execute(BenchMapper mapper) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            switch (scenario) {
+                case "insert":
+                    mapper.insert(BenchRow.of(insertIds.getAndIncrement()));
+                    return true;
+                case "insertList":
+                    List<BenchRow> list = new ArrayList<>(batch);
+                    int first = insertIds.getAndAdd(batch);
+                    for (int i = 0; i < batch; i++) {
+                        list.add(BenchRow.of(first + i));
+                    }
+                    mapper.insertList(list);
+                    return true;
+                case "updateByPrimaryKey":
+                    BenchRow row = BenchRow.of(base + random.nextInt(slice));
+                    row.setName("updated-" + random.nextInt(1000));
+                    row.setStatus(random.nextInt(10));
+                    row.setUpdateTime(new Date());
+                    mapper.updateByPrimaryKey(row);
+                    return true;
+                case "updateRange":
+                    int from = base + random.nextInt(Math.max(1, slice - batch));
+                    mapper.updateRange(BenchmarkDatabase.id(from), BenchmarkDatabase.id(from + batch - 1), random.nextInt(10), new Date());
+                    return true;
+                case "deleteRange":
+                    mapper.deleteRange(BenchmarkDatabase.id(base + cursor), BenchmarkDatabase.id(base + cursor + batch - 1));
+                    cursor += batch;
+                    return cursor + batch <= slice;
+                default:
+                    throw new IllegalArgumentException("Unknown scenario " + scenario);
+            }
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+
+    private static final class Result {
+        private long[] latencies = new long[0];
+        private long operations;
+        private long elapsedNanos;
+        private long auditLogs;
+
+        private void add(Worker worker) {
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + worker.count);
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            operations += worker.count;
+            elapsedNanos = Math.max(elapsedNanos, worker.elapsedNanos);
+        }
+
+        private double throughput() {
+            return elapsedNanos == 0 ? 0 : operations * 1e9 / elapsedNanos;
+        }
+
+        private double percentileMicros(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+            return sorted[Math.max(0, index)] / 1000.0;
+        }
+    }
+}
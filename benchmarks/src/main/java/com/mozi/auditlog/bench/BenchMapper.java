@@ -0,0 +1,40 @@
+package com.mozi.auditlog.bench;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 压测用的 TB_BENCH mapper，覆盖插件支持的典型写法
+ */
+public interface BenchMapper {
+    String COLUMNS = "TC_UL_ID, TC_NAME, TC_CODE, TC_STATUS, TC_AMOUNT, TC_REMARK, TC_CREATE_TIME, TC_UPDATE_TIME, TC_CREATE_BY, TC_VERSION";
+
+    @Insert("insert into TB_BENCH (" + COLUMNS + ")"
+            + " values (#{ulId}, #{name}, #{code}, #{status}, #{amount}, #{remark}, #{createTime}, #{updateTime}, #{createBy}, #{version})")
+    int insert(BenchRow row);
+
+    /**
+     * Oracle 常用的 insert ... select ... from dual union all 批量写法；H2 无法推断 union 中参数的类型，因此显式 cast
+     */
+    @Insert("<script>insert into TB_BENCH (" + COLUMNS + ")"
+            + " <foreach collection=\"list\" item=\"r\" separator=\" union all \">"
+            + "select cast(#{r.ulId} as varchar2(24)), cast(#{r.name} as varchar2(64)), cast(#{r.code} as varchar2(16)),"
+            + " cast(#{r.status} as number(2)), cast(#{r.amount} as number(12,2)), cast(#{r.remark} as varchar2(200)),"
+            + " cast(#{r.createTime} as date), cast(#{r.updateTime} as date), cast(#{r.createBy} as varchar2(24)), cast(#{r.version} as number(10)) from dual"
+            + "</foreach></script>")
+    int insertList(List<BenchRow> rows);
+
+    @Update("update TB_BENCH set TC_NAME = #{name}, TC_STATUS = #{status}, TC_UPDATE_TIME = #{updateTime} where TC_UL_ID = #{ulId}")
+    int updateByPrimaryKey(BenchRow row);
+
+    @Update("update TB_BENCH set TC_STATUS = #{status}, TC_UPDATE_TIME = #{updateTime} where TC_UL_ID between #{from} and #{to}")
+    int updateRange(@Param("from") String from, @Param("to") String to, @Param("status") int status, @Param("updateTime") Date updateTime);
+
+    @Delete("delete from TB_BENCH where TC_UL_ID between #{from} and #{to}")
+    int deleteRange(@Param("from") String from, @Param("to") String to);
+}
@@ -0,0 +1,87 @@
+package com.mozi.auditlog.bench;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * TB_BENCH 对应的实体，字段名为列名去掉 TC_ 前缀后的驼峰形式
+ */
+public class BenchRow {
+    private String ulId;
+    private String name;
+    private String code;
+    private Integer status;
+    private BigDecimal amount;
+    private String remark;
+    private Date createTime;
+    private Date updateTime;
+    private String createBy;
+    private Long version;
+
+    public static BenchRow of(int i) {
+        BenchRow row = new BenchRow();
+        row.ulId = BenchmarkDatabase.id(i);
+        row.name = "name-" + i;
+        row.code = "G";
+        row.status = 0;
+        row.amount = BigDecimal.valueOf(i, 2);
+        row.remark = "remark of row " + i;
+        row.createTime = new Date(1700000000000L + i);
+        row.updateTime = row.createTime;
+        row.createBy = "bench";
+        row.version = 1L;
+        return row;
+    }
+
+    public String getUlId() {
+        return ulId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+
+    public Date getCreateTime() {
+        return createTime;
+    }
+
+    public Date getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(Date updateTime) {
+        this.updateTime = updateTime;
+    }
+
+    public String getCreateBy() {
+        return createBy;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+}
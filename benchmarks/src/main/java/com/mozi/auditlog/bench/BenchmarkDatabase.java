@@ -0,0 +1,156 @@
+package com.mozi.auditlog.bench;
+
+import com.mozi.auditlog.OracleModeH2;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基准测试与压测用的 H2 内存库（Oracle 兼容模式），审计表与注释视图见 {@link OracleModeH2}
+ */
+public class BenchmarkDatabase {
+    public static final String TABLE = "TB_BENCH";
+
+    public static final String PRIMARY_KEY = "TC_UL_ID";
+
+    /**
+     * TB_BENCH 的列，首列为主键
+     */
+    public static final List<String> COLUMNS = Collections.unmodifiableList(Arrays.asList(
+            "TC_UL_ID", "TC_NAME", "TC_CODE", "TC_STATUS", "TC_AMOUNT",
+            "TC_REMARK", "TC_CREATE_TIME", "TC_UPDATE_TIME", "TC_CREATE_BY", "TC_VERSION"));
+
+    private static final String[] BENCH_SCHEMA = {
+            "create table TB_BENCH (TC_UL_ID VARCHAR2(24) primary key, TC_NAME VARCHAR2(64), TC_CODE VARCHAR2(16), TC_STATUS NUMBER(2),"
+                    + " TC_AMOUNT NUMBER(12,2), TC_REMARK VARCHAR2(200), TC_CREATE_TIME DATE, TC_UPDATE_TIME DATE, TC_CREATE_BY VARCHAR2(24),"
+                    + " TC_VERSION NUMBER(10))",
+            "create index TB_BENCH_IX on TB_BENCH(TC_CODE)",
+            "comment on table TB_BENCH is '基准测试表'",
+            "comment on column TB_BENCH.TC_UL_ID is '主键'",
+            "comment on column TB_BENCH.TC_NAME is '名称'",
+            "comment on column TB_BENCH.TC_CODE is '分组'",
+            "comment on column TB_BENCH.TC_STATUS is '状态'",
+            "comment on column TB_BENCH.TC_AMOUNT is '金额'"
+    };
+
+    private static final String[] TRUNCATE = {
+            "truncate table TB_BENCH",
+            "truncate table TB_AUDIT_DIC_LOG",
+            "truncate table TB_AUDIT_DIC_LOG_DTL",
+            "truncate table TB_AUDIT_DIC_LOG_OVF"
+    };
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * 打开（不存在时创建）指定名称的内存库，最后一个连接关闭后库仍保留
+     *
+     * @param name 库名
+     * @return 连接
+     */
+    public static Connection open(String name) throws SQLException {
+        return OracleModeH2.open(name);
+    }
+
+    public static String url(String name) {
+        return OracleModeH2.url(name);
+    }
+
+    /**
+     * 建审计表（sql/auditlog.sql）、TB_BENCH 与注释视图，并写入 rows 行数据（TC_CODE 均为 'G'）
+     *
+     * @param connection 连接
+     * @param rows       行数
+     */
+    public static void create(Connection connection, int rows) throws SQLException {
+        OracleModeH2.createAuditSchema(connection);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : BENCH_SCHEMA) {
+                statement.execute(sql);
+            }
+        }
+        seed(connection, 0, rows);
+    }
+
+    /**
+     * 清空 TB_BENCH 与审计表
+     */
+    public static void truncate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : TRUNCATE) {
+                statement.execute(sql);
+            }
+        }
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+
+    /**
+     * 直接用 JDBC 写入 [from, from + count) 行，不经过插件
+     */
+    public static void seed(Connection connection, int from, int count) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "insert into TB_BENCH values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = from; i < from + count; i++) {
+                BenchRow row = BenchRow.of(i);
+                statement.setString(1, row.getUlId());
+                statement.setString(2, row.getName());
+                statement.setString(3, row.getCode());
+                statement.setInt(4, row.getStatus());
+                statement.setBigDecimal(5, row.getAmount());
+                statement.setString(6, row.getRemark());
+                statement.setTimestamp(7, new Timestamp(row.getCreateTime().getTime()));
+                statement.setTimestamp(8, new Timestamp(row.getUpdateTime().getTime()));
+                statement.setString(9, row.getCreateBy());
+                statement.setLong(10, row.getVersion());
+                statement.addBatch();
+                if ((i - from + 1) % 1000 == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+
+    public static String id(int i) {
+        return String.format("B%023d", i);
+    }
+
+    /**
+     * 插件拦截后（参数已替换为字面量）的 insert 语句
+     */
+    public static String insertSql(int i) {
+        BenchRow row = BenchRow.of(i);
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        return "insert into TB_BENCH (TC_UL_ID, TC_NAME, TC_CODE, TC_STATUS, TC_AMOUNT, TC_REMARK, TC_CREATE_TIME, TC_UPDATE_TIME, TC_CREATE_BY, TC_VERSION)"
+                + " values ('" + row.getUlId() + "', '" + row.getName() + "', '" + row.getCode() + "', " + row.getStatus() + ", " + row.getAmount()
+                + ", '" + row.getRemark() + "', to_date('" + format.format(row.getCreateTime()) + "', 'yyyy-mm-dd hh24:mi:ss')"
+                + ", to_date('" + format.format(row.getUpdateTime()) + "', 'yyyy-mm-dd hh24:mi:ss'), '" + row.getCreateBy() + "', " + row.getVersion() + ")";
+    }
+
+    /**
+     * 插件拦截后的 update 语句，修改 TC_CODE = 'G' 的全部行
+     */
+    public static String updateSql(int status) {
+        return "update TB_BENCH set TC_STATUS = " + status + ", TC_REMARK = 'status " + status + "' where TC_CODE = 'G'";
+    }
+
+    /**
+     * 插件拦截后的 delete 语句
+     */
+    public static String deleteSql(int i) {
+        return "delete from TB_BENCH where TC_UL_ID = '" + id(i) + "'";
+    }
+}
@@ -0,0 +1,26 @@
+package com.mozi.auditlog.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口，参数与 JMH 命令行一致，并始终附加 GC profiler 以输出分配速率（gc.alloc.rate.norm 即每次调用分配的字节数）
+ * <pre>
+ * java -jar target/benchmarks.jar                      全部基准
+ * java -jar target/benchmarks.jar ParameterizedSql     按名称筛选
+ * java -jar target/benchmarks.jar -rf json -rff a.json 输出结果文件，便于前后对比
+ * </pre>
+ */
+public class BenchmarkMain {
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
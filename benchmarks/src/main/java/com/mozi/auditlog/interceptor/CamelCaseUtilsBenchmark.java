@@ -0,0 +1,38 @@
+package com.mozi.auditlog.interceptor;
+
+import com.mozi.auditlog.bench.BenchmarkDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CamelCaseUtils#toCamelCase} 的单次耗时，结果按列平均
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CamelCaseUtilsBenchmark {
+    private final List<String> columns = BenchmarkDatabase.COLUMNS;
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void toCamelCase(Blackhole blackhole) {
+        for (String column : columns) {
+            blackhole.consume(CamelCaseUtils.toCamelCase(column));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.mozi.auditlog.interceptor;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SQLAuditLogInterceptor#getParameterizedSql} 将 #{} 参数替换为字面量的开销，随参数个数变化
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParameterizedSqlBenchmark {
+    /**
+     * SET 子句的参数个数，另有一个 WHERE 主键参数
+     */
+    @Param({"1", "10", "50"})
+    private int parameterCount;
+
+    private SQLAuditLogInterceptor interceptor;
+
+    private Configuration configuration;
+
+    private BoundSql boundSql;
+
+    @Setup
+    public void setup() {
+        interceptor = new SQLAuditLogInterceptor();
+        configuration = new Configuration();
+        StringBuilder sql = new StringBuilder("update TB_BENCH\n   set ");
+        List<ParameterMapping> parameterMappings = new ArrayList<>();
+        Map<String, Object> parameter = new HashMap<>();
+        for (int i = 0; i < parameterCount; i++) {
+            if (i > 0) {
+                sql.append(",\n       ");
+            }
+            sql.append("TC_COL_").append(i).append(" = ?");
+            String property = "col" + i;
+            parameterMappings.add(new ParameterMapping.Builder(configuration, property, Object.class).build());
+            parameter.put(property, i % 3 == 0 ? "value-" + i : i % 3 == 1 ? (Object) i : BigDecimal.valueOf(i, 2));
+        }
+        sql.append("\n where TC_UL_ID = ?");
+        parameterMappings.add(new ParameterMapping.Builder(configuration, "ulId", String.class).build());
+        parameter.put("ulId", "B00000000000000000000001");
+        boundSql = new BoundSql(configuration, sql.toString(), parameterMappings, parameter);
+    }
+
+    @Benchmark
+    public String getParameterizedSql() {
+        return interceptor.getParameterizedSql(configuration, boundSql);
+    }
+}
@@ -0,0 +1,117 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import com.mozi.auditlog.bench.BenchRow;
+import com.mozi.auditlog.bench.BenchmarkDatabase;
+import com.mozi.auditlog.config.AuditConfig;
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.metrics.AuditMetrics;
+import com.mozi.auditlog.util.AuditValueOverflow;
+import com.mozi.auditlog.util.ChangeSetCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 审计记录生成（不落库）的开销，每次调用处理 rows 行：
+ * <ul>
+ * <li>insert：由批量 insert 的参数列表生成审计记录，含注释查询</li>
+ * <li>update：查询前镜像、执行 update、查询后镜像并比较差异，每次调用在两个状态值之间切换以保证每行都有变化</li>
+ * <li>encodeChangeSet：紧凑存储模式下的整行变更编码</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuditRecordBenchmark {
+    @Param({"1", "100"})
+    private int rows;
+
+    private Connection connection;
+
+    private DBMetaDataHolder dbMetaDataHolder;
+
+    private AuditConfig auditConfig;
+
+    private String insertSql;
+
+    private List<BenchRow> insertParameters;
+
+    private List<AuditLog> insertAuditLogs;
+
+    private int status;
+
+    @Setup
+    public void setup() throws SQLException {
+        connection = BenchmarkDatabase.open("record" + rows);
+        BenchmarkDatabase.create(connection, rows);
+        dbMetaDataHolder = new DBMetaDataHolder(new AuditLogTableCreator(false, "TB_AUDIT_DIC_LOG", "TB_AUDIT_DIC_LOG_",
+                AuditStorageMode.row, AuditValueOverflow.DEFAULT_THRESHOLD), new AuditMetrics());
+        dbMetaDataHolder.init(connection);
+        Properties properties = new Properties();
+        properties.setProperty(AuditConfig.ENABLE, "true");
+        properties.setProperty(AuditConfig.MONITOR_TABLES, BenchmarkDatabase.TABLE);
+        auditConfig = AuditConfig.of(properties, 1L);
+
+        insertSql = BenchmarkDatabase.insertSql(rows);
+        insertParameters = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            insertParameters.add(BenchRow.of(rows + i));
+        }
+        insertAuditLogs = insertAuditLogs();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public List<AuditLog> insertAuditLogs() {
+        OracleInsertSqlAuditHandler handler = new OracleInsertSqlAuditHandler(connection, dbMetaDataHolder, insertSql, auditConfig);
+        handler.preHandle();
+        return handler.buildAuditLogs(insertParameters);
+    }
+
+    @Benchmark
+    public List<AuditLog> updateAuditLogs() throws SQLException {
+        status = 1 - status;
+        String updateSql = BenchmarkDatabase.updateSql(status);
+        OracleUpdateSqlAuditHandler handler = new OracleUpdateSqlAuditHandler(connection, dbMetaDataHolder, updateSql, auditConfig);
+        handler.preHandle();
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(updateSql);
+        }
+        return handler.buildAuditLogs(null);
+    }
+
+    @Benchmark
+    public void encodeChangeSet(Blackhole blackhole) {
+        for (AuditLog auditLog : insertAuditLogs) {
+            blackhole.consume(ChangeSetCodec.encode(auditLog.getAuditLogDtlList()));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import com.mozi.auditlog.bench.BenchmarkDatabase;
+import com.mozi.auditlog.config.AuditConfig;
+import com.mozi.auditlog.metrics.AuditMetrics;
+import com.mozi.auditlog.util.AuditValueOverflow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 处理器构造的开销：Druid 解析语句、建立别名映射并判断是否监控，不访问数据库
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandlerParseBenchmark {
+    @Param({"insert", "update", "delete"})
+    private String operation;
+
+    private DBMetaDataHolder dbMetaDataHolder;
+
+    private AuditConfig auditConfig;
+
+    private String sql;
+
+    @Setup
+    public void setup() {
+        dbMetaDataHolder = new DBMetaDataHolder(new AuditLogTableCreator(false, "TB_AUDIT_DIC_LOG", "TB_AUDIT_DIC_LOG_",
+                AuditStorageMode.row, AuditValueOverflow.DEFAULT_THRESHOLD), new AuditMetrics());
+        Properties properties = new Properties();
+        properties.setProperty(AuditConfig.ENABLE, "true");
+        properties.setProperty(AuditConfig.MONITOR_TABLES, BenchmarkDatabase.TABLE);
+        auditConfig = AuditConfig.of(properties, 1L);
+        if ("insert".equals(operation)) {
+            sql = BenchmarkDatabase.insertSql(1);
+        } else if ("update".equals(operation)) {
+            sql = BenchmarkDatabase.updateSql(1);
+        } else {
+            sql = BenchmarkDatabase.deleteSql(1);
+        }
+    }
+
+    @Benchmark
+    public AbstractSQLAuditHandler createHandler() {
+        if ("insert".equals(operation)) {
+            return new OracleInsertSqlAuditHandler(null, dbMetaDataHolder, sql, auditConfig);
+        } else if ("update".equals(operation)) {
+            return new OracleUpdateSqlAuditHandler(null, dbMetaDataHolder, sql, auditConfig);
+        }
+        return new OracleDeleteSqlAuditHandler(null, dbMetaDataHolder, sql, auditConfig);
+    }
+}
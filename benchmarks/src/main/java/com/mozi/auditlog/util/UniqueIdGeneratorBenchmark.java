@@ -0,0 +1,33 @@
+package com.mozi.auditlog.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UniqueIdGenerator#generateUniqueId} 单线程与多线程竞争下的耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UniqueIdGeneratorBenchmark {
+    @Benchmark
+    public String generateUniqueId() {
+        return UniqueIdGenerator.generateUniqueId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateUniqueIdContended() {
+        return UniqueIdGenerator.generateUniqueId();
+    }
+}
@@ -4,6 +4,7 @@ create table TB_AUDIT_DIC_LOG
     TC_IP_ADDRESS        VARCHAR2(64),
     TC_SESSION_ID        VARCHAR2(128),
     TC_OPERATION_TYPE    VARCHAR2(16),
+    TC_BATCH_ID          VARCHAR2(64),
     TC_TABLE_NAME        VARCHAR2(48),
     TC_TABLE_DESCRIPTION NVARCHAR2(48),
     TC_PRIMARY_KEY_VALUE CHAR(24),
@@ -11,6 +12,7 @@ create table TB_AUDIT_DIC_LOG
     TC_CREATE_BY         CHAR(24),
     TC_CREATE_NAME       NVARCHAR2(16),
     TC_CREATE_TIME       DATE,
+    TC_CHANGE_SET        CLOB,
     constraint PK_TB_AUDIT_DIC_LOG primary key (TC_AUDIT_LOG_ID)
 );
 comment on table TB_AUDIT_DIC_LOG is '审计日志主表';
@@ -25,6 +27,9 @@ comment on column TB_AUDIT_DIC_LOG.TC_PRIMARY_KEY_VALUE is '主键值';
 comment on column TB_AUDIT_DIC_LOG.TC_CREATE_BY is '创建人ID';
 comment on column TB_AUDIT_DIC_LOG.TC_CREATE_NAME is '创建人姓名';
 comment on column TB_AUDIT_DIC_LOG.TC_CREATE_TIME is '创建时间';
+comment on column TB_AUDIT_DIC_LOG.TC_CHANGE_SET is '紧凑存储模式下编码后的变更集(列名、旧值、新值)';
+--按业务表+主键查询变更历史（AuditLogQueryService），含 TC_AUDIT_LOG_ID 以支持倒序键集分页
+create index TB_AUDIT_DIC_LOG_IX on TB_AUDIT_DIC_LOG (TC_TABLE_NAME, TC_PRIMARY_KEY_VALUE, TC_AUDIT_LOG_ID);
 
 --drop table TB_AUDIT_DIC_LOG_DTL cascade constraints;
 create table TB_AUDIT_DIC_LOG_DTL
@@ -35,6 +40,8 @@ create table TB_AUDIT_DIC_LOG_DTL
     TC_COLUMN_DESCRIPTION NVARCHAR2(48),
     TC_NEW_VALUE         VARCHAR2(4000),
     TC_OLD_VALUE         VARCHAR2(4000),
+    TC_NEW_OVERFLOW_ID   CHAR(24),
+    TC_OLD_OVERFLOW_ID   CHAR(24),
     constraint PK_TB_AUDIT_DIC_LOG_DTL primary key (TC_AUDIT_LOGD_ID)
 );
 comment on table TB_AUDIT_DIC_LOG_DTL is '审计日志明细表';
@@ -44,3 +51,57 @@ comment on column TB_AUDIT_DIC_LOG_DTL.TC_COLUMN_NAME is '字段名称';
 comment on column TB_AUDIT_DIC_LOG_DTL.TC_COLUMN_DESCRIPTION is '字段描述';
 comment on column TB_AUDIT_DIC_LOG_DTL.TC_NEW_VALUE is '新值';
 comment on column TB_AUDIT_DIC_LOG_DTL.TC_OLD_VALUE is '旧值';
+comment on column TB_AUDIT_DIC_LOG_DTL.TC_NEW_OVERFLOW_ID is '新值超长时的溢出记录ID';
+comment on column TB_AUDIT_DIC_LOG_DTL.TC_OLD_OVERFLOW_ID is '旧值超长时的溢出记录ID';
+create index TB_AUDIT_DIC_LOG_DTL_IX on TB_AUDIT_DIC_LOG_DTL (TC_AUDIT_LOG_ID);
+
+--drop table TB_AUDIT_DIC_LOG_OVF cascade constraints;
+create table TB_AUDIT_DIC_LOG_OVF
+(
+    TC_OVERFLOW_ID       CHAR(24)             not null,
+    TC_AUDIT_LOGD_ID     CHAR(24),
+    TC_CONTENT_HASH      CHAR(64),
+    TC_ORIGINAL_LENGTH   NUMBER(12),
+    TC_CONTENT           BLOB,
+    constraint PK_TB_AUDIT_DIC_LOG_OVF primary key (TC_OVERFLOW_ID)
+);
+comment on table TB_AUDIT_DIC_LOG_OVF is '审计日志超长值溢出表';
+comment on column TB_AUDIT_DIC_LOG_OVF.TC_OVERFLOW_ID is '溢出记录主键ID';
+comment on column TB_AUDIT_DIC_LOG_OVF.TC_AUDIT_LOGD_ID is '审计日志明细主键ID';
+comment on column TB_AUDIT_DIC_LOG_OVF.TC_CONTENT_HASH is '原文SHA-256';
+comment on column TB_AUDIT_DIC_LOG_OVF.TC_ORIGINAL_LENGTH is '原文字符数';
+comment on column TB_AUDIT_DIC_LOG_OVF.TC_CONTENT is 'Deflate压缩后的原文';
+--保留期清理按明细ID删除溢出记录
+create index TB_AUDIT_DIC_LOG_OVF_IX on TB_AUDIT_DIC_LOG_OVF (TC_AUDIT_LOGD_ID);
+
+--drop table TB_AUDIT_DIC_LOG_PURGE cascade constraints;
+create table TB_AUDIT_DIC_LOG_PURGE
+(
+    TC_LOG_TABLE_NAME    VARCHAR2(48)         not null,
+    TC_POLICY            VARCHAR2(48)         not null,
+    TC_LAST_ID           CHAR(24),
+    TC_DELETED_ROWS      NUMBER(18),
+    TC_UPDATE_TIME       DATE,
+    constraint PK_TB_AUDIT_DIC_LOG_PURGE primary key (TC_LOG_TABLE_NAME, TC_POLICY)
+);
+comment on table TB_AUDIT_DIC_LOG_PURGE is '审计日志保留期清理进度表';
+comment on column TB_AUDIT_DIC_LOG_PURGE.TC_LOG_TABLE_NAME is '审计日志主表名';
+comment on column TB_AUDIT_DIC_LOG_PURGE.TC_POLICY is '保留策略（业务表名，*开头为默认策略）';
+comment on column TB_AUDIT_DIC_LOG_PURGE.TC_LAST_ID is '已清理到的审计日志ID';
+comment on column TB_AUDIT_DIC_LOG_PURGE.TC_DELETED_ROWS is '累计删除行数';
+comment on column TB_AUDIT_DIC_LOG_PURGE.TC_UPDATE_TIME is '最后更新时间';
+
+--drop table TB_AUDIT_DIC_DESC cascade constraints;
+create table TB_AUDIT_DIC_DESC
+(
+    TC_TABLE_NAME        VARCHAR2(48)         not null,
+    TC_COLUMN_NAME       VARCHAR2(48)         not null,
+    TC_DESCRIPTION       NVARCHAR2(1000),
+    TC_UPDATE_TIME       DATE,
+    constraint PK_TB_AUDIT_DIC_DESC primary key (TC_TABLE_NAME, TC_COLUMN_NAME)
+);
+comment on table TB_AUDIT_DIC_DESC is '审计表、字段描述字典（descriptionMode=dictionary）';
+comment on column TB_AUDIT_DIC_DESC.TC_TABLE_NAME is '业务表名';
+comment on column TB_AUDIT_DIC_DESC.TC_COLUMN_NAME is '字段名，*为表描述';
+comment on column TB_AUDIT_DIC_DESC.TC_DESCRIPTION is '描述';
+comment on column TB_AUDIT_DIC_DESC.TC_UPDATE_TIME is '最后更新时间';
@@ -6,10 +6,13 @@ import java.util.List;
 import java.util.Map;
 
 import com.mozi.auditlog.interceptor.CamelCaseUtils;
+import com.mozi.auditlog.util.RateLimitedLogger;
 import org.apache.commons.lang.StringUtils;
+import org.slf4j.LoggerFactory;
 
 public class MapUtil {
 	private static final String UNDERLINE ="_";
+	private static final RateLimitedLogger logger = new RateLimitedLogger(LoggerFactory.getLogger(MapUtil.class));
     /**
     *
     * @Title: objectToMap
@@ -44,7 +47,7 @@ public class MapUtil {
                }
            }
        } catch (Exception e) {
-           e.printStackTrace();
+           logger.error(obj.getClass().getName(), "Error converting object to map", e);
        }
        return map;
    }
@@ -0,0 +1,53 @@
+package com.mozi.auditlog.archive;
+
+/**
+ * 归档块索引项，写在文件尾部，扫描时据此跳过时间范围之外的块；主键布隆过滤器在块内，按 bloomOffset 按需读取
+ */
+final class ArchiveBlock {
+    private final long offset;
+    private final int rows;
+    private final int dtlRows;
+    private final long minTime;
+    private final long maxTime;
+    private final long bloomOffset;
+
+    ArchiveBlock(long offset, int rows, int dtlRows, long minTime, long maxTime, long bloomOffset) {
+        this.offset = offset;
+        this.rows = rows;
+        this.dtlRows = dtlRows;
+        this.minTime = minTime;
+        this.maxTime = maxTime;
+        this.bloomOffset = bloomOffset;
+    }
+
+    /**
+     * 块内是否可能有 [from, to) 内的记录，没有创建时间的块总是被时间条件排除
+     */
+    boolean overlaps(long from, long to) {
+        return minTime <= maxTime && maxTime >= from && minTime < to;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    int getDtlRows() {
+        return dtlRows;
+    }
+
+    long getMinTime() {
+        return minTime;
+    }
+
+    long getMaxTime() {
+        return maxTime;
+    }
+
+    long getBloomOffset() {
+        return bloomOffset;
+    }
+}
@@ -0,0 +1,60 @@
+package com.mozi.auditlog.archive;
+
+/**
+ * 归档块的主键布隆过滤器，每个键约 10 位、7 次哈希，误判率约 1%
+ * <p>
+ * 哈希为键的 64 位 FNV-1a，高低 32 位按双重哈希生成各探测位。
+ */
+final class ArchiveBloomFilter {
+    private static final int BITS_PER_KEY = 10;
+    private static final int HASH_COUNT = 7;
+
+    private final long[] words;
+
+    ArchiveBloomFilter(int expectedKeys) {
+        this(new long[Math.max(1, (Math.max(1, expectedKeys) * BITS_PER_KEY + 63) / 64)]);
+    }
+
+    ArchiveBloomFilter(long[] words) {
+        this.words = words;
+    }
+
+    void add(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long bits = (long) words.length * 64;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            long bit = ((h1 + i * h2) & 0x7FFFFFFFL) % bits;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long bits = (long) words.length * 64;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            long bit = ((h1 + i * h2) & 0x7FFFFFFFL) % bits;
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long[] getWords() {
+        return words;
+    }
+
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            hash = (hash ^ (c & 0xFF)) * 0x100000001b3L;
+            hash = (hash ^ (c >>> 8)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+}
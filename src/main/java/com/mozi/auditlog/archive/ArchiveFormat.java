@@ -0,0 +1,122 @@
+package com.mozi.auditlog.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 审计归档文件格式，整数为大端序，varint 为 7 位一组的无符号变长整数：
+ * <pre>
+ * 文件   := 魔数 "MZAA" | int8 版本(2) | 块* | 尾部 | int64 尾部偏移 | 魔数 "MZAA"
+ * 块     := 列段 * {@link #COLUMN_COUNT} | 布隆段
+ * 列段   := int32 压缩字节数 | int32 原始字节数 | deflate 数据
+ * 布隆段 := int32 布隆字数 | int64*
+ * 尾部   := varint 字典项数 | 串* | varint 块数 | 块索引*
+ * 块索引 := int64 块偏移 | int32 日志行数 | int32 明细行数 | int64 最小时间 | int64 最大时间 | int64 布隆段偏移
+ * 串     := varint (UTF-8 字节数 + 1，0 为 null) | 字节
+ * </pre>
+ * 列段按 {@code COL_*} 的顺序排列；表名、字段名、描述与操作类型按文件级字典编码为 varint（0 为 null，字典项从 1 开始编号）。
+ * 创建时间列为与上一行之差的 zigzag varint，null 行记 0 且不参与差分；明细数列给出每条日志在明细列中占用的行数。
+ * 布隆过滤器随块写出而不放在尾部，写入与打开文件时都不必把全部过滤器留在内存中。
+ */
+final class ArchiveFormat {
+    static final byte[] MAGIC = {'M', 'Z', 'A', 'A'};
+    static final byte VERSION = 2;
+
+    static final int COL_AUDIT_LOG_ID = 0;
+    static final int COL_TABLE = 1;
+    static final int COL_PRIMARY_KEY = 2;
+    static final int COL_OPERATION_TYPE = 3;
+    static final int COL_CREATE_TIME = 4;
+    static final int COL_TABLE_DESCRIPTION = 5;
+    static final int COL_PARENT_ID = 6;
+    static final int COL_CREATE_BY = 7;
+    static final int COL_CREATE_NAME = 8;
+    static final int COL_IP_ADDRESS = 9;
+    static final int COL_SESSION_ID = 10;
+    static final int COL_BATCH_ID = 11;
+    static final int COL_DTL_COUNT = 12;
+    static final int COL_DTL_ID = 13;
+    static final int COL_COLUMN = 14;
+    static final int COL_COLUMN_DESCRIPTION = 15;
+    static final int COL_OLD_VALUE = 16;
+    static final int COL_NEW_VALUE = 17;
+    static final int COLUMN_COUNT = 18;
+
+    /**
+     * 列段头：压缩字节数 + 原始字节数
+     */
+    static final int SEGMENT_HEADER_BYTES = 8;
+
+    /**
+     * 文件尾：尾部偏移 + 魔数
+     */
+    static final int TRAILER_BYTES = 12;
+
+    private ArchiveFormat() {
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer buffer) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in audit archive");
+    }
+
+    static int readVarInt(ByteBuffer buffer) throws IOException {
+        long value = readVarLong(buffer);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Varint out of range in audit archive: " + value);
+        }
+        return (int) value;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            out.write(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    static String readString(ByteBuffer buffer) throws IOException {
+        int length = readVarInt(buffer);
+        if (length == 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length - 1, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length - 1);
+        return value;
+    }
+
+    /**
+     * 布隆过滤器的键：表名 + 主键值
+     */
+    static String rowKey(String tableName, String primaryKeyValue) {
+        return tableName + '\u0000' + primaryKeyValue;
+    }
+}
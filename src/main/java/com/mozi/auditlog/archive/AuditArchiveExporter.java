@@ -0,0 +1,113 @@
+package com.mozi.auditlog.archive;
+
+import com.mozi.auditlog.query.AuditLogCriteria;
+import com.mozi.auditlog.query.AuditLogQueryService;
+import com.mozi.auditlog.util.UniqueIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Properties;
+
+/**
+ * 审计日志归档导出
+ * <p>
+ * 把已结束时间段内的审计日志（含明细，紧凑存储与溢出值已还原）按审计日志ID顺序流式写入列式压缩归档文件，
+ * 数据库侧使用 {@link AuditLogQueryService#streamAuditLogs} 的游标读取，内存中只保留当前一个块。
+ * 先写临时文件，完成后原子改名，不会留下看似完整的半个归档。
+ * 归档可用 {@link AuditArchiveScanner} 直接查询；核对 {@link AuditArchiveScanner#getRowCount()} 与导出条数一致后，
+ * 即可由 {@link com.mozi.auditlog.retention.AuditLogPurgeJob} 把该时间段从数据库中清理掉：
+ * <pre>
+ * long rows = new AuditArchiveExporter(dataSource, properties).exportPeriod(YearMonth.of(2024, 1), Paths.get("audit-202401.mzaa"));
+ * </pre>
+ */
+public class AuditArchiveExporter {
+    private static final Logger logger = LoggerFactory.getLogger(AuditArchiveExporter.class);
+
+    public static final String ARCHIVE_BLOCK_ROWS = "archiveBlockRows";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final AuditLogQueryService queryService;
+    private final int blockRows;
+
+    /**
+     * 与 SQLAuditLogInterceptor 共用 split、defaultTableName、preTableName 配置，另有：
+     * archiveBlockRows（每块审计日志条数，默认4096）、queryFetchSize（见 {@link AuditLogQueryService}）
+     *
+     * @param dataSource 数据源
+     * @param properties 配置
+     */
+    public AuditArchiveExporter(DataSource dataSource, Properties properties) {
+        this.queryService = new AuditLogQueryService(dataSource, properties);
+        this.blockRows = Integer.parseInt(properties.getProperty(ARCHIVE_BLOCK_ROWS, String.valueOf(AuditArchiveWriter.DEFAULT_BLOCK_ROWS)).trim());
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException(ARCHIVE_BLOCK_ROWS + " must be positive: " + blockRows);
+        }
+    }
+
+    /**
+     * 导出一个自然月（与分表模式的月表对应，按ID时间戳的固定偏移划分）
+     *
+     * @param period 月份，必须已经结束
+     * @param file   归档文件
+     * @return 导出的审计日志条数
+     */
+    public long exportPeriod(YearMonth period, Path file) throws SQLException, IOException {
+        ZoneOffset zone = UniqueIdGenerator.getTimeOffset();
+        Date from = Date.from(period.atDay(1).atStartOfDay(zone).toInstant());
+        Date to = Date.from(period.plusMonths(1).atDay(1).atStartOfDay(zone).toInstant());
+        return export(from, to, file);
+    }
+
+    /**
+     * 导出 [from, to) 内的审计日志
+     *
+     * @param from 起始时间（含）
+     * @param to   结束时间（不含），不能晚于当前时间，否则导出后仍可能有新审计写入该时间段
+     * @param file 归档文件，已存在时被替换
+     * @return 导出的审计日志条数
+     */
+    public long export(Date from, Date to, Path file) throws SQLException, IOException {
+        if (from == null || to == null || !from.before(to)) {
+            throw new IllegalArgumentException("Illegal archive period: " + from + " - " + to);
+        }
+        if (to.getTime() > System.currentTimeMillis()) {
+            throw new IllegalArgumentException("Archive period is not closed yet: " + to);
+        }
+        AuditLogCriteria criteria = new AuditLogCriteria();
+        criteria.setFrom(from);
+        criteria.setTo(to);
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        Files.deleteIfExists(temp);
+        long rows;
+        try (AuditArchiveWriter writer = new AuditArchiveWriter(temp, blockRows)) {
+            queryService.streamAuditLogs(criteria, false, auditLog -> {
+                try {
+                    writer.write(auditLog);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            rows = writer.getRowCount();
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(temp);
+            throw e.getCause();
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Exported {} audit logs between {} and {} to {}.", rows, from, to, file);
+        return rows;
+    }
+}
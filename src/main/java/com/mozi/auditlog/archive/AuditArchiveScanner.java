@@ -0,0 +1,350 @@
+package com.mozi.auditlog.archive;
+
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.domain.AuditLogDtl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 审计归档文件扫描器，不导入数据库直接在归档文件上查询
+ * <p>
+ * 打开时只读取文件尾部的字典与块索引；查询先按块的最小/最大创建时间跳过无关的块，再读取块内的主键布隆过滤器排除不含目标主键的块，
+ * 再只解压表名、主键两列确认命中，命中的块才解压其余各列。一次只解压一个块，内存占用与块大小相当。
+ * 明细值按文本读回。实例不是线程安全的。
+ */
+public class AuditArchiveScanner implements Closeable {
+    private final Path file;
+    private final FileChannel channel;
+    private final Inflater inflater = new Inflater();
+    private final List<String> dictionary;
+    private final Map<String, Integer> dictionaryIds = new HashMap<>();
+    private final List<ArchiveBlock> blocks;
+
+    public AuditArchiveScanner(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = read(0L, ArchiveFormat.MAGIC.length + 1);
+            byte[] magic = new byte[ArchiveFormat.MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, ArchiveFormat.MAGIC)) {
+                throw new IOException("Not an audit archive: " + file);
+            }
+            byte version = header.get();
+            if (version != ArchiveFormat.VERSION) {
+                throw new IOException("Unsupported audit archive version " + version + " in " + file);
+            }
+            long size = channel.size();
+            ByteBuffer trailer = read(size - ArchiveFormat.TRAILER_BYTES, ArchiveFormat.TRAILER_BYTES);
+            long footerOffset = trailer.getLong();
+            trailer.get(magic);
+            if (!Arrays.equals(magic, ArchiveFormat.MAGIC) || footerOffset < header.capacity() || footerOffset > size - ArchiveFormat.TRAILER_BYTES) {
+                throw new IOException("Incomplete audit archive: " + file);
+            }
+            ByteBuffer footer = read(footerOffset, (int) (size - ArchiveFormat.TRAILER_BYTES - footerOffset));
+            int dictionarySize = ArchiveFormat.readVarInt(footer);
+            this.dictionary = new ArrayList<>(dictionarySize);
+            for (int i = 0; i < dictionarySize; i++) {
+                String value = ArchiveFormat.readString(footer);
+                dictionary.add(value);
+                dictionaryIds.put(value, i + 1);
+            }
+            int blockCount = ArchiveFormat.readVarInt(footer);
+            this.blocks = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                long offset = footer.getLong();
+                int rows = footer.getInt();
+                int dtlRows = footer.getInt();
+                long minTime = footer.getLong();
+                long maxTime = footer.getLong();
+                long bloomOffset = footer.getLong();
+                blocks.add(new ArchiveBlock(offset, rows, dtlRows, minTime, maxTime, bloomOffset));
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            if (e instanceof BufferUnderflowException) {
+                throw new IOException("Truncated audit archive: " + file, e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 查询一行数据的变更历史
+     *
+     * @param tableName       业务表名
+     * @param primaryKeyValue 主键值
+     * @return 审计日志（含明细），新记录在前
+     */
+    public List<AuditLog> findHistory(String tableName, String primaryKeyValue) throws IOException {
+        return findHistory(tableName, primaryKeyValue, null, null);
+    }
+
+    /**
+     * 查询一行数据在时间段内的变更历史
+     *
+     * @param tableName       业务表名
+     * @param primaryKeyValue 主键值
+     * @param from            起始时间（含），null 表示不限
+     * @param to              结束时间（不含），null 表示不限
+     * @return 审计日志（含明细），新记录在前
+     */
+    public List<AuditLog> findHistory(String tableName, String primaryKeyValue, Date from, Date to) throws IOException {
+        Integer tableId = dictionaryIds.get(tableName);
+        if (tableId == null || primaryKeyValue == null) {
+            return Collections.emptyList();
+        }
+        String key = primaryKeyValue.trim();
+        String rowKey = ArchiveFormat.rowKey(tableName, key);
+        List<AuditLog> auditLogList = new ArrayList<>();
+        for (ArchiveBlock block : blocks) {
+            if (!overlaps(block, from, to) || !readBloomFilter(block).mightContain(rowKey)) {
+                continue;
+            }
+            ByteBuffer[] columns = new ByteBuffer[ArchiveFormat.COLUMN_COUNT];
+            readColumns(block, columns, ArchiveFormat.COL_TABLE, ArchiveFormat.COL_PRIMARY_KEY);
+            boolean[] selected = new boolean[block.getRows()];
+            boolean matched = false;
+            for (int row = 0; row < block.getRows(); row++) {
+                boolean match = ArchiveFormat.readVarInt(columns[ArchiveFormat.COL_TABLE]) == tableId
+                        & key.equals(ArchiveFormat.readString(columns[ArchiveFormat.COL_PRIMARY_KEY]));
+                selected[row] = match;
+                matched |= match;
+            }
+            if (!matched) {
+                // 布隆过滤器误判
+                continue;
+            }
+            columns[ArchiveFormat.COL_TABLE].rewind();
+            columns[ArchiveFormat.COL_PRIMARY_KEY].rewind();
+            readColumns(block, columns, 0, ArchiveFormat.COLUMN_COUNT - 1);
+            decodeRows(block, columns, selected, from, to, auditLogList::add);
+        }
+        Collections.reverse(auditLogList);
+        return auditLogList;
+    }
+
+    /**
+     * 按写入顺序读取时间段内的全部审计日志
+     *
+     * @param from     起始时间（含），null 表示不限
+     * @param to       结束时间（不含），null 表示不限
+     * @param consumer 回调
+     * @return 审计日志条数
+     */
+    public long scan(Date from, Date to, Consumer<AuditLog> consumer) throws IOException {
+        long[] count = {0L};
+        for (ArchiveBlock block : blocks) {
+            if (!overlaps(block, from, to)) {
+                continue;
+            }
+            ByteBuffer[] columns = new ByteBuffer[ArchiveFormat.COLUMN_COUNT];
+            readColumns(block, columns, 0, ArchiveFormat.COLUMN_COUNT - 1);
+            decodeRows(block, columns, null, from, to, auditLog -> {
+                consumer.accept(auditLog);
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+
+    private static boolean overlaps(ArchiveBlock block, Date from, Date to) {
+        if (from == null && to == null) {
+            return true;
+        }
+        return block.overlaps(from == null ? Long.MIN_VALUE : from.getTime(), to == null ? Long.MAX_VALUE : to.getTime());
+    }
+
+    /**
+     * 逐行解码块，selected 为 null 表示全部行；各列缓冲区按行顺序推进，未选中的行同样要读过
+     */
+    private void decodeRows(ArchiveBlock block, ByteBuffer[] columns, boolean[] selected, Date from, Date to, Consumer<AuditLog> consumer) throws IOException {
+        long time = 0L;
+        try {
+            for (int row = 0; row < block.getRows(); row++) {
+                String auditLogId = ArchiveFormat.readString(columns[ArchiveFormat.COL_AUDIT_LOG_ID]);
+                String tableName = word(columns[ArchiveFormat.COL_TABLE]);
+                String primaryKeyValue = ArchiveFormat.readString(columns[ArchiveFormat.COL_PRIMARY_KEY]);
+                String operationType = word(columns[ArchiveFormat.COL_OPERATION_TYPE]);
+                long encodedTime = ArchiveFormat.readVarLong(columns[ArchiveFormat.COL_CREATE_TIME]);
+                Date createTime = null;
+                if (encodedTime != 0) {
+                    time += ArchiveFormat.unzigzag(encodedTime - 1);
+                    createTime = new Date(time);
+                }
+                String tableDescription = word(columns[ArchiveFormat.COL_TABLE_DESCRIPTION]);
+                String parentId = ArchiveFormat.readString(columns[ArchiveFormat.COL_PARENT_ID]);
+                String createBy = ArchiveFormat.readString(columns[ArchiveFormat.COL_CREATE_BY]);
+                String createName = ArchiveFormat.readString(columns[ArchiveFormat.COL_CREATE_NAME]);
+                String ipAddress = ArchiveFormat.readString(columns[ArchiveFormat.COL_IP_ADDRESS]);
+                String sessionId = ArchiveFormat.readString(columns[ArchiveFormat.COL_SESSION_ID]);
+                String batchId = ArchiveFormat.readString(columns[ArchiveFormat.COL_BATCH_ID]);
+                int dtlCount = ArchiveFormat.readVarInt(columns[ArchiveFormat.COL_DTL_COUNT]);
+                boolean include = (selected == null || selected[row]) && inRange(createTime, from, to);
+                AuditLog auditLog = null;
+                if (include) {
+                    auditLog = new AuditLog(operationType, tableName, tableDescription, primaryKeyValue, createTime);
+                    auditLog.setAuditLogId(auditLogId);
+                    auditLog.setParentId(parentId);
+                    auditLog.setCreateBy(createBy);
+                    auditLog.setCreateName(createName);
+                    auditLog.setIpAddress(ipAddress);
+                    auditLog.setSessionId(sessionId);
+                    auditLog.setBatchId(batchId);
+                }
+                for (int i = 0; i < dtlCount; i++) {
+                    String auditLogdId = ArchiveFormat.readString(columns[ArchiveFormat.COL_DTL_ID]);
+                    String columnName = word(columns[ArchiveFormat.COL_COLUMN]);
+                    String columnDescription = word(columns[ArchiveFormat.COL_COLUMN_DESCRIPTION]);
+                    String oldValue = ArchiveFormat.readString(columns[ArchiveFormat.COL_OLD_VALUE]);
+                    String newValue = ArchiveFormat.readString(columns[ArchiveFormat.COL_NEW_VALUE]);
+                    if (include) {
+                        AuditLogDtl auditLogDtl = new AuditLogDtl(auditLogId, columnName, columnDescription, newValue, oldValue);
+                        auditLogDtl.setAuditLogdId(auditLogdId);
+                        auditLog.getAuditLogDtlList().add(auditLogDtl);
+                    }
+                }
+                if (include) {
+                    consumer.accept(auditLog);
+                }
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Malformed audit archive block at " + block.getOffset() + " in " + file, e);
+        }
+    }
+
+    private static boolean inRange(Date createTime, Date from, Date to) {
+        if (from == null && to == null) {
+            return true;
+        }
+        return createTime != null && (from == null || !createTime.before(from)) && (to == null || createTime.before(to));
+    }
+
+    private String word(ByteBuffer column) throws IOException {
+        int id = ArchiveFormat.readVarInt(column);
+        return id == 0 ? null : dictionary.get(id - 1);
+    }
+
+    private ArchiveBloomFilter readBloomFilter(ArchiveBlock block) throws IOException {
+        int wordCount = read(block.getBloomOffset(), 4).getInt();
+        if (wordCount <= 0 || wordCount > channel.size() / 8) {
+            throw new IOException("Malformed audit archive block at " + block.getOffset() + " in " + file);
+        }
+        ByteBuffer buffer = read(block.getBloomOffset() + 4, wordCount * 8);
+        long[] words = new long[wordCount];
+        buffer.asLongBuffer().get(words);
+        return new ArchiveBloomFilter(words);
+    }
+
+    /**
+     * 解压块中第 firstColumn 到 lastColumn 列里尚未解压的列；列段依次排列，需要逐个读段头定位
+     */
+    private void readColumns(ArchiveBlock block, ByteBuffer[] columns, int firstColumn, int lastColumn) throws IOException {
+        long position = block.getOffset();
+        for (int i = 0; i <= lastColumn; i++) {
+            ByteBuffer header = read(position, ArchiveFormat.SEGMENT_HEADER_BYTES);
+            int compressedBytes = header.getInt();
+            int rawBytes = header.getInt();
+            position += ArchiveFormat.SEGMENT_HEADER_BYTES;
+            if (i >= firstColumn && columns[i] == null) {
+                columns[i] = inflate(read(position, compressedBytes), rawBytes);
+            }
+            position += compressedBytes;
+        }
+    }
+
+    private ByteBuffer inflate(ByteBuffer compressed, int rawBytes) throws IOException {
+        byte[] raw = new byte[rawBytes];
+        inflater.reset();
+        inflater.setInput(compressed.array(), 0, compressed.limit());
+        try {
+            int length = 0;
+            while (length < rawBytes && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, length, rawBytes - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != rawBytes) {
+                throw new IOException("Corrupted column segment in " + file);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted column segment in " + file, e);
+        }
+        return ByteBuffer.wrap(raw);
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        if (position < 0 || length < 0 || position + length > channel.size()) {
+            throw new IOException("Truncated audit archive: " + file);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated audit archive: " + file);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    public int getBlockCount() {
+        return blocks.size();
+    }
+
+    /**
+     * @return 归档中的审计日志条数
+     */
+    public long getRowCount() {
+        long rows = 0L;
+        for (ArchiveBlock block : blocks) {
+            rows += block.getRows();
+        }
+        return rows;
+    }
+
+    /**
+     * @return 归档中最早的创建时间，没有记录时为 null
+     */
+    public Date getMinTime() {
+        long minTime = Long.MAX_VALUE;
+        for (ArchiveBlock block : blocks) {
+            minTime = Math.min(minTime, block.getMinTime());
+        }
+        return minTime == Long.MAX_VALUE ? null : new Date(minTime);
+    }
+
+    /**
+     * @return 归档中最晚的创建时间，没有记录时为 null
+     */
+    public Date getMaxTime() {
+        long maxTime = Long.MIN_VALUE;
+        for (ArchiveBlock block : blocks) {
+            maxTime = Math.max(maxTime, block.getMaxTime());
+        }
+        return maxTime == Long.MIN_VALUE ? null : new Date(maxTime);
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        channel.close();
+    }
+}
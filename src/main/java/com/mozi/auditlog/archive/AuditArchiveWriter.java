@@ -0,0 +1,297 @@
+package com.mozi.auditlog.archive;
+
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.domain.AuditLogDtl;
+import com.mozi.auditlog.interceptor.TimestampUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * 审计归档文件写入器，格式见 {@link ArchiveFormat}
+ * <p>
+ * 审计日志按列缓冲，每满 blockRows 条或缓冲超过 {@link #MAX_BLOCK_BYTES} 时逐列 deflate 压缩写出一个块，
+ * 块的主键布隆过滤器紧跟列段写出，之后只在内存中保留块的偏移、行数与最小/最大创建时间等几个定长字段。
+ * {@link #close()} 时字典与块索引分段写入文件尾部，不在内存中拼出整个尾部。
+ * 内存占用取决于块大小与字典大小（表名、字段名、描述的种数），此外每个块只占几十字节的索引。
+ */
+public class AuditArchiveWriter implements Closeable {
+    public static final int DEFAULT_BLOCK_ROWS = 4096;
+
+    /**
+     * 单块未压缩数据上限，避免大字段值把一个块撑得过大
+     */
+    static final int MAX_BLOCK_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * 写尾部时缓冲区超过此大小即写出
+     */
+    private static final int FOOTER_CHUNK_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private final int blockRows;
+    private final ColumnBuffer[] columns = new ColumnBuffer[ArchiveFormat.COLUMN_COUNT];
+    private final ColumnBuffer compressed = new ColumnBuffer(64 * 1024);
+    private final byte[] deflateBuffer = new byte[64 * 1024];
+    private final Deflater deflater = new Deflater();
+
+    private final Map<String, Integer> dictionaryIds = new HashMap<>();
+    private final List<String> dictionary = new ArrayList<>();
+    private final List<ArchiveBlock> blocks = new ArrayList<>();
+    private final List<String> rowKeys = new ArrayList<>();
+
+    private int rows;
+    private int dtlRows;
+    private long minTime = Long.MAX_VALUE;
+    private long maxTime = Long.MIN_VALUE;
+    private long previousTime;
+    private long rowCount;
+    private boolean closed;
+
+    /**
+     * @param file      目标文件，已存在时报错
+     * @param blockRows 每块审计日志条数
+     */
+    public AuditArchiveWriter(Path file, int blockRows) throws IOException {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("blockRows must be positive: " + blockRows);
+        }
+        this.blockRows = blockRows;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ColumnBuffer(1024);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(ArchiveFormat.MAGIC.length + 1);
+        header.put(ArchiveFormat.MAGIC).put(ArchiveFormat.VERSION).flip();
+        writeFully(header);
+    }
+
+    /**
+     * 追加一条审计日志（含明细）
+     */
+    public void write(AuditLog auditLog) throws IOException {
+        if (closed) {
+            throw new IOException("Audit archive writer is closed");
+        }
+        ArchiveFormat.writeString(columns[ArchiveFormat.COL_AUDIT_LOG_ID], auditLog.getAuditLogId());
+        ArchiveFormat.writeVarLong(columns[ArchiveFormat.COL_TABLE], dictionaryId(auditLog.getTableName()));
+        ArchiveFormat.writeString(columns[ArchiveFormat.COL_PRIMARY_KEY], auditLog.getPrimaryKeyValue());
+        ArchiveFormat.writeVarLong(columns[ArchiveFormat.COL_OPERATION_TYPE], dictionaryId(auditLog.getOperationType()));
+        writeTime(auditLog);
+        ArchiveFormat.writeVarLong(columns[ArchiveFormat.COL_TABLE_DESCRIPTION], dictionaryId(auditLog.getTableDescription()));
+        ArchiveFormat.writeString(columns[ArchiveFormat.COL_PARENT_ID], auditLog.getParentId());
+        ArchiveFormat.writeString(columns[ArchiveFormat.COL_CREATE_BY], auditLog.getCreateBy());
+        ArchiveFormat.writeString(columns[ArchiveFormat.COL_CREATE_NAME], auditLog.getCreateName());
+        ArchiveFormat.writeString(columns[ArchiveFormat.COL_IP_ADDRESS], auditLog.getIpAddress());
+        ArchiveFormat.writeString(columns[ArchiveFormat.COL_SESSION_ID], auditLog.getSessionId());
+        ArchiveFormat.writeString(columns[ArchiveFormat.COL_BATCH_ID], auditLog.getBatchId());
+        int count = 0;
+        for (AuditLogDtl auditLogDtl : auditLog.getAuditLogDtlList()) {
+            if (auditLogDtl == null) {
+                continue;
+            }
+            ArchiveFormat.writeString(columns[ArchiveFormat.COL_DTL_ID], auditLogDtl.getAuditLogdId());
+            ArchiveFormat.writeVarLong(columns[ArchiveFormat.COL_COLUMN], dictionaryId(auditLogDtl.getColumnName()));
+            ArchiveFormat.writeVarLong(columns[ArchiveFormat.COL_COLUMN_DESCRIPTION], dictionaryId(auditLogDtl.getColumnDescription()));
+            ArchiveFormat.writeString(columns[ArchiveFormat.COL_OLD_VALUE], toText(auditLogDtl.getOldValue()));
+            ArchiveFormat.writeString(columns[ArchiveFormat.COL_NEW_VALUE], toText(auditLogDtl.getNewValue()));
+            count++;
+        }
+        ArchiveFormat.writeVarLong(columns[ArchiveFormat.COL_DTL_COUNT], count);
+        dtlRows += count;
+        if (auditLog.getTableName() != null && auditLog.getPrimaryKeyValue() != null) {
+            rowKeys.add(ArchiveFormat.rowKey(auditLog.getTableName(), auditLog.getPrimaryKeyValue()));
+        }
+        rows++;
+        rowCount++;
+        if (rows >= blockRows || bufferedBytes() >= MAX_BLOCK_BYTES) {
+            flushBlock();
+        }
+    }
+
+    private void writeTime(AuditLog auditLog) {
+        ColumnBuffer column = columns[ArchiveFormat.COL_CREATE_TIME];
+        if (auditLog.getCreateTime() == null) {
+            column.write(0);
+            return;
+        }
+        long time = auditLog.getCreateTime().getTime();
+        ArchiveFormat.writeVarLong(column, ArchiveFormat.zigzag(time - previousTime) + 1);
+        previousTime = time;
+        minTime = Math.min(minTime, time);
+        maxTime = Math.max(maxTime, time);
+    }
+
+    private int dictionaryId(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer id = dictionaryIds.get(value);
+        if (id == null) {
+            dictionary.add(value);
+            id = dictionary.size();
+            dictionaryIds.put(value, id);
+        }
+        return id;
+    }
+
+    private long bufferedBytes() {
+        long bytes = 0L;
+        for (ColumnBuffer column : columns) {
+            bytes += column.size();
+        }
+        return bytes;
+    }
+
+    private void flushBlock() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        long offset = channel.position();
+        for (ColumnBuffer column : columns) {
+            writeSegment(column);
+            column.reset();
+        }
+        long bloomOffset = channel.position();
+        writeBloomFilter();
+        blocks.add(new ArchiveBlock(offset, rows, dtlRows, minTime, maxTime, bloomOffset));
+        rowKeys.clear();
+        rows = 0;
+        dtlRows = 0;
+        minTime = Long.MAX_VALUE;
+        maxTime = Long.MIN_VALUE;
+        previousTime = 0L;
+    }
+
+    private void writeSegment(ColumnBuffer column) throws IOException {
+        compressed.reset();
+        deflater.reset();
+        deflater.setInput(column.array(), 0, column.size());
+        deflater.finish();
+        while (!deflater.finished()) {
+            int length = deflater.deflate(deflateBuffer);
+            compressed.write(deflateBuffer, 0, length);
+        }
+        ByteBuffer header = ByteBuffer.allocate(ArchiveFormat.SEGMENT_HEADER_BYTES);
+        header.putInt(compressed.size()).putInt(column.size()).flip();
+        writeFully(header);
+        writeFully(ByteBuffer.wrap(compressed.array(), 0, compressed.size()));
+    }
+
+    private void writeBloomFilter() throws IOException {
+        ArchiveBloomFilter bloomFilter = new ArchiveBloomFilter(rowKeys.size());
+        for (String rowKey : rowKeys) {
+            bloomFilter.add(rowKey);
+        }
+        long[] words = bloomFilter.getWords();
+        ByteBuffer buffer = ByteBuffer.allocate(4 + words.length * 8);
+        buffer.putInt(words.length);
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+        buffer.flip();
+        writeFully(buffer);
+    }
+
+    private void writeFooter() throws IOException {
+        long footerOffset = channel.position();
+        ColumnBuffer footer = columns[0];
+        footer.reset();
+        ArchiveFormat.writeVarLong(footer, dictionary.size());
+        for (String value : dictionary) {
+            ArchiveFormat.writeString(footer, value);
+            drainFooter(footer, FOOTER_CHUNK_BYTES);
+        }
+        ArchiveFormat.writeVarLong(footer, blocks.size());
+        DataOutputStream out = new DataOutputStream(footer);
+        for (ArchiveBlock block : blocks) {
+            out.writeLong(block.getOffset());
+            out.writeInt(block.getRows());
+            out.writeInt(block.getDtlRows());
+            out.writeLong(block.getMinTime());
+            out.writeLong(block.getMaxTime());
+            out.writeLong(block.getBloomOffset());
+            drainFooter(footer, FOOTER_CHUNK_BYTES);
+        }
+        out.writeLong(footerOffset);
+        out.write(ArchiveFormat.MAGIC);
+        drainFooter(footer, 0);
+    }
+
+    /**
+     * 尾部缓冲区达到 threshold 字节时写出并清空
+     */
+    private void drainFooter(ColumnBuffer footer, int threshold) throws IOException {
+        if (footer.size() > 0 && footer.size() >= threshold) {
+            writeFully(ByteBuffer.wrap(footer.array(), 0, footer.size()));
+            footer.reset();
+        }
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    /**
+     * @return 已写入的审计日志条数
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 写出剩余数据与文件尾部并刷盘
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushBlock();
+            writeFooter();
+            channel.force(true);
+        } finally {
+            deflater.end();
+            channel.close();
+        }
+    }
+
+    private static String toText(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Timestamp) {
+            return TimestampUtils.timestampToString((Timestamp) value);
+        }
+        return value.toString();
+    }
+
+    /**
+     * 可直接访问内部数组的缓冲区，避免压缩前复制
+     */
+    private static final class ColumnBuffer extends ByteArrayOutputStream {
+        ColumnBuffer(int size) {
+            super(size);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.mozi.auditlog.config;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 审计开关与表过滤配置的不可变快照
+ * <p>
+ * 正则在构建快照时预编译，拦截路径每条语句只读取一次快照引用，之后的判断都在同一快照上进行；
+ * 修改配置时构建新快照整体替换，见 {@link AuditConfigManager}。
+ */
+public final class AuditConfig {
+    public static final String ENABLE = "enable";
+    public static final String TABLE_COLUMN_PRE_FIX = "columnPreFix";
+    public static final String MONITOR_TABLE_REGEX = "monitorTableRegex";
+    public static final String MONITOR_TABLES = "monitorTables";
+    public static final String NON_MONITOR_TABLE_REGEX = "nonMonitorTableRegex";
+    public static final String NON_MONITOR_TABLES = "nonMonitorTables";
+
+    /**
+     * 可在运行期修改的配置项
+     */
+    static final String[] KEYS = {ENABLE, TABLE_COLUMN_PRE_FIX, MONITOR_TABLE_REGEX, MONITOR_TABLES, NON_MONITOR_TABLE_REGEX, NON_MONITOR_TABLES};
+
+    private static final String TABLE_SEPARATOR = ",";
+
+    private final long version;
+    private final boolean enable;
+    private final String tableColumnPreFix;
+    private final Pattern monitorTablePattern;
+    private final Set<String> monitorTables;
+    private final Pattern nonMonitorTablePattern;
+    private final Set<String> nonMonitorTables;
+
+    private AuditConfig(long version, Properties properties) {
+        this.version = version;
+        this.enable = Boolean.parseBoolean(StringUtils.trim(properties.getProperty(ENABLE)));
+        this.tableColumnPreFix = StringUtils.trimToNull(properties.getProperty(TABLE_COLUMN_PRE_FIX));
+        this.monitorTablePattern = compile(properties.getProperty(MONITOR_TABLE_REGEX));
+        this.monitorTables = toTableSet(properties.getProperty(MONITOR_TABLES));
+        this.nonMonitorTablePattern = compile(properties.getProperty(NON_MONITOR_TABLE_REGEX));
+        this.nonMonitorTables = toTableSet(properties.getProperty(NON_MONITOR_TABLES));
+    }
+
+    /**
+     * 由配置项构建快照，正则非法时抛出 {@link java.util.regex.PatternSyntaxException}
+     *
+     * @param properties 配置项，只读取 {@link #KEYS}
+     * @param version    快照版本号
+     * @return 快照
+     */
+    public static AuditConfig of(Properties properties, long version) {
+        return new AuditConfig(version, properties);
+    }
+
+    private static Pattern compile(String regex) {
+        return StringUtils.isBlank(regex) ? null : Pattern.compile(regex.trim());
+    }
+
+    private static Set<String> toTableSet(String tables) {
+        if (StringUtils.isBlank(tables)) {
+            return Collections.emptySet();
+        }
+        Set<String> tableSet = new LinkedHashSet<>();
+        for (String table : tables.split(TABLE_SEPARATOR)) {
+            if (StringUtils.isNotBlank(table)) {
+                tableSet.add(table.trim().toUpperCase());
+            }
+        }
+        return Collections.unmodifiableSet(tableSet);
+    }
+
+    private static String regexOf(Pattern pattern) {
+        return pattern == null ? "" : pattern.pattern();
+    }
+
+    /**
+     * 是否审计该表：在监控名单或匹配监控正则，且不在排除名单、不匹配排除正则
+     *
+     * @param tableName 表名
+     * @return 是否审计
+     */
+    public boolean isMonitored(String tableName) {
+        String table = tableName.toUpperCase();
+        boolean monitored = monitorTables.contains(table)
+                || (monitorTablePattern != null && monitorTablePattern.matcher(table).matches());
+        if (!monitored) {
+            return false;
+        }
+        return !(nonMonitorTables.contains(table)
+                || (nonMonitorTablePattern != null && nonMonitorTablePattern.matcher(table).matches()));
+    }
+
+    /**
+     * 转回配置项，用于在当前快照基础上修改个别项
+     *
+     * @return 配置项
+     */
+    public Properties toProperties() {
+        Properties properties = new Properties();
+        properties.setProperty(ENABLE, String.valueOf(enable));
+        properties.setProperty(TABLE_COLUMN_PRE_FIX, StringUtils.defaultString(tableColumnPreFix));
+        properties.setProperty(MONITOR_TABLE_REGEX, regexOf(monitorTablePattern));
+        properties.setProperty(MONITOR_TABLES, StringUtils.join(monitorTables, TABLE_SEPARATOR));
+        properties.setProperty(NON_MONITOR_TABLE_REGEX, regexOf(nonMonitorTablePattern));
+        properties.setProperty(NON_MONITOR_TABLES, StringUtils.join(nonMonitorTables, TABLE_SEPARATOR));
+        return properties;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isEnable() {
+        return enable;
+    }
+
+    public String getTableColumnPreFix() {
+        return tableColumnPreFix;
+    }
+
+    public String getMonitorTableRegex() {
+        return regexOf(monitorTablePattern);
+    }
+
+    public Set<String> getMonitorTables() {
+        return monitorTables;
+    }
+
+    public String getNonMonitorTableRegex() {
+        return regexOf(nonMonitorTablePattern);
+    }
+
+    public Set<String> getNonMonitorTables() {
+        return nonMonitorTables;
+    }
+
+    @Override
+    public String toString() {
+        return "AuditConfig{" +
+                "version=" + version +
+                ", enable=" + enable +
+                ", monitorTableRegex='" + getMonitorTableRegex() + '\'' +
+                ", monitorTables=" + monitorTables +
+                ", nonMonitorTableRegex='" + getNonMonitorTableRegex() + '\'' +
+                ", nonMonitorTables=" + nonMonitorTables +
+                '}';
+    }
+}
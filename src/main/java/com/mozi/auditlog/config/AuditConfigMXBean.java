@@ -0,0 +1,44 @@
+package com.mozi.auditlog.config;
+
+/**
+ * 运行期修改审计开关与表过滤，由 SQLAuditLogInterceptor 注册到平台 MBeanServer：
+ * com.mozi.auditlog:type=AuditConfig,name=&lt;jmxName&gt;
+ * <p>
+ * 每次修改都会发布新的配置快照，对之后拦截到的语句立即生效；表名列表以逗号分隔，正则非法时拒绝修改。
+ */
+public interface AuditConfigMXBean {
+    /**
+     * 当前快照版本号，每次修改加一
+     */
+    long getVersion();
+
+    boolean isEnable();
+
+    void setEnable(boolean enable);
+
+    String getMonitorTableRegex();
+
+    void setMonitorTableRegex(String monitorTableRegex);
+
+    String getMonitorTables();
+
+    void setMonitorTables(String monitorTables);
+
+    String getNonMonitorTableRegex();
+
+    void setNonMonitorTableRegex(String nonMonitorTableRegex);
+
+    String getNonMonitorTables();
+
+    void setNonMonitorTables(String nonMonitorTables);
+
+    /**
+     * 监听的配置文件，未配置 configFile 时为空
+     */
+    String getConfigFile();
+
+    /**
+     * 立即重新读取配置文件
+     */
+    void reload();
+}
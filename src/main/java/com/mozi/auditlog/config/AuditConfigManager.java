@@ -0,0 +1,246 @@
+package com.mozi.auditlog.config;
+
+import com.mozi.auditlog.util.JmxUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Properties;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 审计配置的发布者
+ * <p>
+ * 当前配置保存在 volatile 字段中，拦截路径每条语句调用一次 {@link #get()}；JMX 修改与配置文件变化都在当前快照基础上
+ * 覆盖对应配置项后构建新快照整体替换，写入方之间串行，读取方无锁。
+ * <p>
+ * 配置了 configFile 时，启动时读取一次并由守护线程通过 WatchService 监听所在目录，文件中出现的配置项覆盖当前值，
+ * 未出现的保持不变；文件内容非法（如正则错误）时记录告警并保留原配置。
+ */
+public class AuditConfigManager implements AuditConfigMXBean {
+    private static final Logger logger = LoggerFactory.getLogger(AuditConfigManager.class);
+
+    public static final String CONFIG_FILE = "configFile";
+
+    private volatile AuditConfig current = AuditConfig.of(new Properties(), 0L);
+
+    private volatile Path configFile;
+
+    private WatchService watchService;
+
+    private ObjectName objectName;
+
+    /**
+     * 当前配置快照
+     *
+     * @return 配置快照
+     */
+    public AuditConfig get() {
+        return current;
+    }
+
+    /**
+     * 按插件配置初始化，并启动配置文件监听、注册 MXBean；重复调用时先释放上一次的资源
+     *
+     * @param properties 插件配置
+     * @param jmxName    MBean 名称
+     */
+    public synchronized void configure(Properties properties, String jmxName) {
+        close();
+        Properties initial = new Properties();
+        for (String key : AuditConfig.KEYS) {
+            initial.setProperty(key, StringUtils.defaultString(properties.getProperty(key)));
+        }
+        current = AuditConfig.of(initial, current.getVersion() + 1);
+
+        String configFileOption = properties.getProperty(CONFIG_FILE);
+        if (StringUtils.isNotBlank(configFileOption)) {
+            configFile = Paths.get(configFileOption.trim()).toAbsolutePath();
+            reload();
+            startWatcher();
+        }
+        objectName = JmxUtils.register(this, "AuditConfig", jmxName);
+    }
+
+    /**
+     * 在当前快照基础上覆盖给定的配置项并发布新快照，内容无变化时不发布
+     *
+     * @param changes 要修改的配置项，只处理 {@link AuditConfig#KEYS}
+     * @return 发布后的快照
+     * @throws PatternSyntaxException 正则非法
+     */
+    public synchronized AuditConfig update(Properties changes) {
+        Properties merged = current.toProperties();
+        for (String key : AuditConfig.KEYS) {
+            String value = changes.getProperty(key);
+            if (value != null) {
+                merged.setProperty(key, value);
+            }
+        }
+        AuditConfig next = AuditConfig.of(merged, current.getVersion() + 1);
+        if (next.toProperties().equals(current.toProperties())) {
+            return current;
+        }
+        current = next;
+        logger.info("Audit config updated: {}", next);
+        return next;
+    }
+
+    private AuditConfig update(String key, String value) {
+        Properties changes = new Properties();
+        changes.setProperty(key, StringUtils.defaultString(value));
+        return update(changes);
+    }
+
+    @Override
+    public synchronized void reload() {
+        if (configFile == null) {
+            return;
+        }
+        Properties fileProperties = new Properties();
+        try (InputStream in = Files.newInputStream(configFile)) {
+            fileProperties.load(in);
+        } catch (NoSuchFileException e) {
+            logger.warn("Audit config file {} not found, keeping current config.", configFile);
+            return;
+        } catch (IOException e) {
+            logger.warn("Failed to read audit config file {}, keeping current config.", configFile, e);
+            return;
+        }
+        try {
+            update(fileProperties);
+        } catch (PatternSyntaxException e) {
+            logger.warn("Invalid audit config in {}, keeping current config: {}", configFile, e.getMessage());
+        }
+    }
+
+    private void startWatcher() {
+        Path directory = configFile.getParent();
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.warn("Failed to watch audit config file {}, changes will only apply via JMX reload.", configFile, e);
+            return;
+        }
+        WatchService service = watchService;
+        Path fileName = configFile.getFileName();
+        Thread watcher = new Thread(() -> watch(service, fileName), "audit-config-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watch(WatchService service, Path fileName) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            boolean changed = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                    changed = true;
+                }
+            }
+            if (changed) {
+                reload();
+            }
+            if (!key.reset()) {
+                logger.warn("Audit config directory of {} is no longer accessible, stop watching.", fileName);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 停止配置文件监听并注销 MXBean
+     */
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close audit config watcher.", e);
+            }
+            watchService = null;
+        }
+        configFile = null;
+        JmxUtils.unregister(objectName);
+        objectName = null;
+    }
+
+    @Override
+    public long getVersion() {
+        return current.getVersion();
+    }
+
+    @Override
+    public boolean isEnable() {
+        return current.isEnable();
+    }
+
+    @Override
+    public void setEnable(boolean enable) {
+        update(AuditConfig.ENABLE, String.valueOf(enable));
+    }
+
+    @Override
+    public String getMonitorTableRegex() {
+        return current.getMonitorTableRegex();
+    }
+
+    @Override
+    public void setMonitorTableRegex(String monitorTableRegex) {
+        update(AuditConfig.MONITOR_TABLE_REGEX, monitorTableRegex);
+    }
+
+    @Override
+    public String getMonitorTables() {
+        return current.toProperties().getProperty(AuditConfig.MONITOR_TABLES);
+    }
+
+    @Override
+    public void setMonitorTables(String monitorTables) {
+        update(AuditConfig.MONITOR_TABLES, monitorTables);
+    }
+
+    @Override
+    public String getNonMonitorTableRegex() {
+        return current.getNonMonitorTableRegex();
+    }
+
+    @Override
+    public void setNonMonitorTableRegex(String nonMonitorTableRegex) {
+        update(AuditConfig.NON_MONITOR_TABLE_REGEX, nonMonitorTableRegex);
+    }
+
+    @Override
+    public String getNonMonitorTables() {
+        return current.toProperties().getProperty(AuditConfig.NON_MONITOR_TABLES);
+    }
+
+    @Override
+    public void setNonMonitorTables(String nonMonitorTables) {
+        update(AuditConfig.NON_MONITOR_TABLES, nonMonitorTables);
+    }
+
+    @Override
+    public String getConfigFile() {
+        Path file = configFile;
+        return file == null ? null : file.toString();
+    }
+}
@@ -0,0 +1,94 @@
+package com.mozi.auditlog.context;
+
+import com.mozi.auditlog.domain.AuditLog;
+
+/**
+ * 一条被拦截语句的操作员与请求上下文，不可变
+ * <p>
+ * 由 {@link ContextProvider} 在语句进入拦截器时解析一次，该语句生成的全部审计记录共用同一实例；
+ * 写入时无需再访问 MDC 等线程变量，跨线程写入（异步写入目标、BATCH 模式延后落库）也不会丢失。
+ */
+public final class AuditContext {
+    /**
+     * 没有任何上下文信息
+     */
+    public static final AuditContext EMPTY = new AuditContext(null, null, null, null, null);
+
+    private final String userId;
+    private final String userName;
+    private final String clientIp;
+    private final String sessionId;
+    private final String traceId;
+
+    /**
+     * @param userId    操作员ID，写入 TC_CREATE_BY
+     * @param userName  操作员名称，写入 TC_CREATE_NAME
+     * @param clientIp  客户端IP，写入 TC_IP_ADDRESS
+     * @param sessionId 会话标识（token），写入 TC_SESSION_ID
+     * @param traceId   请求链路ID，写入 TC_BATCH_ID
+     */
+    public AuditContext(String userId, String userName, String clientIp, String sessionId, String traceId) {
+        this.userId = userId;
+        this.userName = userName;
+        this.clientIp = clientIp;
+        this.sessionId = sessionId;
+        this.traceId = traceId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public String getClientIp() {
+        return clientIp;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * @param userId 操作员ID
+     * @return 替换操作员ID后的上下文
+     */
+    public AuditContext withUserId(String userId) {
+        return new AuditContext(userId, userName, clientIp, sessionId, traceId);
+    }
+
+    /**
+     * 填入审计日志的操作员字段，已有值的字段保持不变
+     *
+     * @param auditLog 审计日志
+     */
+    public void applyTo(AuditLog auditLog) {
+        if (auditLog.getCreateBy() == null) {
+            auditLog.setCreateBy(userId);
+        }
+        if (auditLog.getCreateName() == null) {
+            auditLog.setCreateName(userName);
+        }
+        if (auditLog.getIpAddress() == null) {
+            auditLog.setIpAddress(clientIp);
+        }
+        if (auditLog.getSessionId() == null) {
+            auditLog.setSessionId(sessionId);
+        }
+        if (auditLog.getBatchId() == null) {
+            auditLog.setBatchId(traceId);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AuditContext{userId=" + userId + ", userName=" + userName + ", clientIp=" + clientIp
+                + ", sessionId=" + sessionId + ", traceId=" + traceId + '}';
+    }
+}
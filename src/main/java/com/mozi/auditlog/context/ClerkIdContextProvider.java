@@ -0,0 +1,64 @@
+package com.mozi.auditlog.context;
+
+import com.mozi.auditlog.util.RateLimitedLogger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * 由 {@code clerkIdMethod} 指定的静态无参方法提供操作员ID，其余字段取自被包装的上下文来源
+ * <p>
+ * 方法返回 null 或调用失败时保留被包装来源中的操作员ID；调用失败按分钟限频记录日志。
+ */
+public class ClerkIdContextProvider implements ContextProvider {
+    private static final RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(LoggerFactory.getLogger(ClerkIdContextProvider.class));
+
+    private final ContextProvider delegate;
+    private final Method method;
+
+    /**
+     * @param delegate      被包装的上下文来源
+     * @param clerkIdMethod 类的全限定名#静态方法名，如 com.test.utils.ClerkIdGetter#current
+     * @throws IllegalArgumentException 格式错误，或方法不存在、不是静态无参方法
+     */
+    public ClerkIdContextProvider(ContextProvider delegate, String clerkIdMethod) {
+        this.delegate = delegate;
+        this.method = resolveMethod(clerkIdMethod);
+    }
+
+    private static Method resolveMethod(String clerkIdMethod) {
+        int separator = clerkIdMethod.indexOf('#');
+        if (separator <= 0 || separator == clerkIdMethod.length() - 1) {
+            throw new IllegalArgumentException("clerkIdMethod should be <class>#<static method>: " + clerkIdMethod);
+        }
+        String className = clerkIdMethod.substring(0, separator).trim();
+        String methodName = clerkIdMethod.substring(separator + 1).trim();
+        try {
+            Class<?> type = Class.forName(className, true, Thread.currentThread().getContextClassLoader());
+            Method method = type.getMethod(methodName);
+            if (!Modifier.isStatic(method.getModifiers()) || method.getReturnType() == void.class) {
+                throw new IllegalArgumentException("clerkIdMethod should be a static method with a return value: " + clerkIdMethod);
+            }
+            method.setAccessible(true);
+            return method;
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            throw new IllegalArgumentException("Cannot resolve clerkIdMethod " + clerkIdMethod, e);
+        }
+    }
+
+    @Override
+    public AuditContext resolve() {
+        AuditContext context = delegate.resolve();
+        Object clerkId;
+        try {
+            clerkId = method.invoke(null);
+        } catch (IllegalAccessException | InvocationTargetException | RuntimeException e) {
+            Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+            rateLimitedLogger.warn(method.toString(), "Error occurs when invoking clerkIdMethod " + method, cause);
+            return context;
+        }
+        return clerkId == null ? context : context.withUserId(clerkId.toString());
+    }
+}
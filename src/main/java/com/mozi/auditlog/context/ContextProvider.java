@@ -0,0 +1,28 @@
+package com.mozi.auditlog.context;
+
+import java.util.Properties;
+
+/**
+ * 审计上下文的来源
+ * <p>
+ * 插件在业务线程上、每条被审计的语句执行前调用一次 {@link #resolve()}。实现需线程安全，且不应抛出异常或做耗时操作。
+ * 通过插件配置 {@code contextProvider} 选择：mdc（默认），或实现类的全限定名（需有无参构造函数）；
+ * 另可配置 {@code clerkIdMethod} 由静态方法提供操作员ID，见 {@link ContextProviders}。
+ */
+public interface ContextProvider {
+
+    /**
+     * 按插件配置初始化，创建后调用一次
+     *
+     * @param properties 插件配置
+     */
+    default void configure(Properties properties) {
+    }
+
+    /**
+     * 解析当前线程的审计上下文
+     *
+     * @return 审计上下文，没有信息时返回 {@link AuditContext#EMPTY}
+     */
+    AuditContext resolve();
+}
@@ -0,0 +1,46 @@
+package com.mozi.auditlog.context;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Properties;
+
+/**
+ * 按插件配置 {@code contextProvider}、{@code clerkIdMethod} 创建上下文来源
+ */
+public final class ContextProviders {
+    public static final String CONTEXT_PROVIDER = "contextProvider";
+    public static final String CLERK_ID_METHOD = "clerkIdMethod";
+
+    public static final String MDC = "mdc";
+
+    private ContextProviders() {
+    }
+
+    /**
+     * @param properties 插件配置
+     * @return 已按配置初始化的上下文来源
+     * @throws IllegalArgumentException 自定义实现类或 clerkIdMethod 无法加载
+     */
+    public static ContextProvider of(Properties properties) {
+        String name = StringUtils.defaultIfEmpty(StringUtils.trim(properties.getProperty(CONTEXT_PROVIDER)), MDC);
+        ContextProvider contextProvider = MDC.equalsIgnoreCase(name) ? new MdcContextProvider() : instantiate(name);
+        contextProvider.configure(properties);
+        String clerkIdMethod = StringUtils.trim(properties.getProperty(CLERK_ID_METHOD));
+        if (StringUtils.isNotEmpty(clerkIdMethod)) {
+            contextProvider = new ClerkIdContextProvider(contextProvider, clerkIdMethod);
+        }
+        return contextProvider;
+    }
+
+    private static ContextProvider instantiate(String className) {
+        try {
+            Class<?> providerClass = Class.forName(className, true, Thread.currentThread().getContextClassLoader());
+            if (!ContextProvider.class.isAssignableFrom(providerClass)) {
+                throw new IllegalArgumentException(className + " does not implement " + ContextProvider.class.getName());
+            }
+            return (ContextProvider) providerClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot create context provider " + className, e);
+        }
+    }
+}
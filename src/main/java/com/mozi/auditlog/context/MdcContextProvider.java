@@ -0,0 +1,27 @@
+package com.mozi.auditlog.context;
+
+import org.slf4j.MDC;
+
+/**
+ * 默认上下文来源：读取 MDC 中的 userId、userName、clientIp、token、traceId
+ */
+public class MdcContextProvider implements ContextProvider {
+    public static final String USER_ID = "userId";
+    public static final String USER_NAME = "userName";
+    public static final String CLIENT_IP = "clientIp";
+    public static final String TOKEN = "token";
+    public static final String TRACE_ID = "traceId";
+
+    @Override
+    public AuditContext resolve() {
+        String userId = MDC.get(USER_ID);
+        String userName = MDC.get(USER_NAME);
+        String clientIp = MDC.get(CLIENT_IP);
+        String token = MDC.get(TOKEN);
+        String traceId = MDC.get(TRACE_ID);
+        if (userId == null && userName == null && clientIp == null && token == null && traceId == null) {
+            return AuditContext.EMPTY;
+        }
+        return new AuditContext(userId, userName, clientIp, token, traceId);
+    }
+}
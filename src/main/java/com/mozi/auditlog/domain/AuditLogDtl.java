@@ -12,6 +12,12 @@ import java.io.Serializable;
  */
 public class AuditLogDtl implements Serializable {
     private static final long serialVersionUID = 1L;
+
+    /**
+     * 采集方式标记明细的字段名：过载降级的记录（只写主表、摘要）带一条该字段的明细，新值为 headerOnly 或 summary，
+     * 表明记录不含完整前后镜像，数据还原时跳过
+     */
+    public static final String CAPTURE_MARKER_COLUMN = "*CAPTURE";
 	/**
 	* 审计日志明细主键ID
 	*/
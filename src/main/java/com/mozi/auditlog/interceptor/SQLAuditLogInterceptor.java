@@ -1,12 +1,15 @@
 package com.mozi.auditlog.interceptor;
 
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.text.DateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -14,6 +17,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.CachingExecutor;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -24,22 +29,54 @@ import org.apache.ibatis.plugin.Invocation;
 import org.apache.ibatis.plugin.Plugin;
 import org.apache.ibatis.plugin.Signature;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 
+import com.mozi.auditlog.config.AuditConfig;
+import com.mozi.auditlog.config.AuditConfigManager;
+import com.mozi.auditlog.context.ContextProvider;
+import com.mozi.auditlog.context.ContextProviders;
+import com.mozi.auditlog.context.MdcContextProvider;
 import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.interceptor.handler.AbstractSQLHandler;
 import com.mozi.auditlog.interceptor.handler.AuditLogTableCreator;
+import com.mozi.auditlog.interceptor.handler.AuditStorageMode;
+import com.mozi.auditlog.interceptor.handler.BatchAuditCollector;
+import com.mozi.auditlog.interceptor.handler.CaptureMode;
 import com.mozi.auditlog.interceptor.handler.DBMetaDataHolder;
+import com.mozi.auditlog.interceptor.handler.DescriptionMode;
 import com.mozi.auditlog.interceptor.handler.ISQLHandler;
+import com.mozi.auditlog.interceptor.handler.JdbcAuditSink;
 import com.mozi.auditlog.interceptor.handler.OracleDeleteSqlAuditHandler;
 import com.mozi.auditlog.interceptor.handler.OracleInsertSqlAuditHandler;
+import com.mozi.auditlog.interceptor.handler.OracleMergeSqlAuditHandler;
 import com.mozi.auditlog.interceptor.handler.OracleUpdateSqlAuditHandler;
+import com.mozi.auditlog.interceptor.handler.TransactionAuditBuffer;
+import com.mozi.auditlog.metrics.AuditMetrics;
+import com.mozi.auditlog.metrics.AuditPhase;
+import com.mozi.auditlog.overload.AuditMode;
+import com.mozi.auditlog.overload.AuditOverloadGuard;
+import com.mozi.auditlog.overload.CaptureGuard;
+import com.mozi.auditlog.sink.AuditSink;
+import com.mozi.auditlog.sink.AuditSinks;
+import com.mozi.auditlog.util.AuditValueOverflow;
+import com.mozi.auditlog.util.UniqueIdGenerator;
 
 @Intercepts(
         {
                 @Signature(type = Executor.class, method = "update", args = {
                         MappedStatement.class, Object.class
-                })
+                }),
+                @Signature(type = Executor.class, method = "query", args = {
+                        MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class
+                }),
+                @Signature(type = Executor.class, method = "flushStatements", args = {}),
+                @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+                @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+                @Signature(type = Executor.class, method = "close", args = {boolean.class})
         })
 public class SQLAuditLogInterceptor implements Interceptor {
     private static final Logger log = LoggerFactory.getLogger(SQLAuditLogInterceptor.class);
@@ -47,36 +84,63 @@ public class SQLAuditLogInterceptor implements Interceptor {
     private static final Pattern PARAMETER_PLACEHOLDER_PATTERN = Pattern.compile("\\?(?=\\s*[^']*\\s*,?\\s*(\\w|$))");
     private static final Pattern WHITESPACE_PATTERN = Pattern.compile("[\\s]+");
     private static final String EXCLUDE_TABLE_SEPARATOR = ",";
-    private final static String TABLE_COLUMN_PRE_FIX = "columnPreFix";
-    private final static String NON_MONITOR_TABLE_REGEX = "nonMonitorTableRegex";
-    private final static String NON_MONITOR_TABLES = "nonMonitorTables";
-    private final static String MONITOR_TABLE_REGEX = "monitorTableRegex";
-    private final static String MONITOR_TABLES = "monitorTables";
-    private Boolean auditEnable;
+    private final static String NODE_ID = "nodeId";
+    private final static String STORAGE_MODE = "storageMode";
+    private final static String CAPTURE_MODE = "captureMode";
+    private final static String DESCRIPTION_MODE = "descriptionMode";
+    private final static String OVERFLOW_THRESHOLD = "overflowThreshold";
+    private final static String LOB_MAX_LENGTH = "lobMaxLength";
+    private final static String JMX_NAME = "jmxName";
+    private final static String COALESCE = "coalesce";
+    private final static String COALESCE_MAX_ROWS = "coalesceMaxRows";
     private DBMetaDataHolder dbMetaDataHolder;
+
     /**
-     * 需要监控的表前缀
+     * 审计开关与表过滤配置，可通过 JMX 或配置文件在运行期修改
      */
-    private static String monitorTableRegex;
+    private final AuditConfigManager auditConfigManager = new AuditConfigManager();
 
     /**
-     * 字段统一前缀_
+     * 运行指标，setProperties 时注册为 MXBean
      */
-    private static String tableColumnPreFix;
-
+    private AuditMetrics auditMetrics = new AuditMetrics();
     /**
-     * 不需要监控的表前缀
+     * BATCH模式下各Executor待flush的审计收集器
      */
-    private static String nonMonitorTableRegex;
-
-
-    CopyOnWriteArrayList<String> monitorTables = new CopyOnWriteArrayList<String>();
-    CopyOnWriteArrayList<String> nonMonitorTables = new CopyOnWriteArrayList<String>();
+    private final Map<Executor, BatchAuditCollector> batchCollectors = new ConcurrentHashMap<>();
+    /**
+     * 事务内审计合并：各Executor当前事务的缓冲区，提交前写入
+     */
+    private final Map<Executor, TransactionAuditBuffer> transactionBuffers = new ConcurrentHashMap<>();
+    private boolean coalesceEnable;
+    /**
+     * 审计过载保护，setProperties 时按配置重建
+     */
+    private AuditOverloadGuard overloadGuard = AuditOverloadGuard.of(new Properties());
+    /**
+     * 采集查询的时间预算与熔断，setProperties 时按配置重建
+     */
+    private CaptureGuard captureGuard = CaptureGuard.of(new Properties());
+    /**
+     * 审计日志写入目标，setProperties 时按配置重建
+     */
+    private AuditSink auditSink;
+    /**
+     * 审计上下文来源，setProperties 时按配置重建
+     */
+    private ContextProvider contextProvider = new MdcContextProvider();
+    private int coalesceMaxRows;
 
     @Override
     public Object intercept(Invocation invocation) throws Throwable {
-        // 检查审计功能是否启用以及参数是否正确
-        if (!isAuditEnabled(invocation)) {
+        String methodName = invocation.getMethod().getName();
+        if (!"update".equals(methodName)) {
+            return interceptLifecycle(invocation, methodName);
+        }
+
+        // 检查审计功能是否启用以及参数是否正确，本条语句全程使用同一配置快照
+        AuditConfig auditConfig = auditConfigManager.get();
+        if (!isAuditEnabled(auditConfig, invocation)) {
             return invocation.proceed();
         }
 
@@ -88,50 +152,226 @@ public class SQLAuditLogInterceptor implements Interceptor {
             return invocation.proceed();
         }
 
+        String operationType = sqlCommandType.toLowerCase();
         ISQLHandler sqlAuditHandler = null;
+        String tableName = null;
+        TransactionAuditBuffer transactionBuffer = null;
+        AuditOverloadGuard.Admission admission = null;
+        AuditMode auditMode = AuditMode.full;
+        long auditNanos = 0L;
         try {
-            // 初始化处理器
-            sqlAuditHandler = initializeSQLHandler(invocation, mappedStatement, sqlCommandType);
+            // 先用轻量词法分析取目标表，不审计的表不再拼接参数、不做完整解析
+            BoundSql boundSql = mappedStatement.getBoundSql(extractParameter(invocation));
+            tableName = SQLTableLexer.targetTable(boundSql.getSql());
+            if (tableName == null || auditConfig.isMonitored(tableName)) {
+                // 初始化处理器
+                sqlAuditHandler = initializeSQLHandler(invocation, mappedStatement, boundSql, sqlCommandType, auditConfig);
+                if (sqlAuditHandler != null) {
+                    tableName = getTableName(sqlAuditHandler);
+                }
+            }
+            auditMetrics.intercepted(operationType, tableName);
             
             // 如果需要跳过处理，则直接执行原方法
-            if (shouldSkipProcessing(sqlAuditHandler)) {
+            if (sqlAuditHandler == null || shouldSkipProcessing(sqlAuditHandler)) {
+                auditMetrics.skipped(operationType, tableName);
                 logDebugInfo(sqlAuditHandler, mappedStatement);
                 return invocation.proceed();
             }
+
+            // 审计上下文每条语句解析一次，BATCH模式延后落库时同样使用执行时的上下文
+            sqlAuditHandler.setAuditContext(contextProvider.resolve());
+
+            // BATCH模式下只登记处理器，前镜像与落库推迟到 flushStatements
+            if (isBatchExecutor((Executor) invocation.getTarget())) {
+                batchCollectors.computeIfAbsent((Executor) invocation.getTarget(), k -> new BatchAuditCollector())
+                        .add(mappedStatement.getId(), sqlAuditHandler, extractParameter(invocation));
+                return proceed(invocation, operationType, tableName);
+            }
             
-            // 预处理阶段
-            if (sqlAuditHandler != null) {
+            // 过载保护决定本条语句的审计方式；事务内合并的语句在提交时统一写入，不受限制
+            transactionBuffer = getTransactionBuffer((Executor) invocation.getTarget());
+            if (transactionBuffer == null) {
+                admission = overloadGuard.admit(tableName);
+                auditMode = admission.getMode();
+            }
+
+            // 预处理阶段，摘要模式不需要前镜像
+            if (auditMode == AuditMode.full || auditMode == AuditMode.headerOnly) {
+                long start = System.nanoTime();
+                sqlAuditHandler.setHeaderOnly(auditMode == AuditMode.headerOnly);
                 sqlAuditHandler.preHandle();
+                auditNanos = System.nanoTime() - start;
+                auditMetrics.record(AuditPhase.preHandle, operationType, tableName, auditNanos);
             }
         } catch (Throwable ex) {
+            auditMetrics.failed(operationType, tableName);
             log.error("记录修改日志异常", ex);
         }
 
+        if (auditMode == AuditMode.skip) {
+            overloadGuard.release(admission, -1L);
+            auditMetrics.dropped(operationType, tableName);
+            return proceed(invocation, operationType, tableName);
+        }
+
         // 执行原始方法并获取结果
-        Object result = invocation.proceed();
+        Object result;
+        try {
+            result = proceed(invocation, operationType, tableName);
+        } catch (Throwable ex) {
+            overloadGuard.release(admission, -1L);
+            throw ex;
+        }
         Object resultDataArgs = extractResultDataArgs(invocation);
 
-        // 后处理阶段
+        // 后处理阶段，事务内开启合并时只并入缓冲区，提交前统一写入
         try {
             if (sqlAuditHandler != null) {
-                sqlAuditHandler.postHandle(resultDataArgs);
+                long start = System.nanoTime();
+                if (transactionBuffer != null) {
+                    transactionBuffer.add(sqlAuditHandler, resultDataArgs);
+                } else if (auditMode == AuditMode.summary) {
+                    sqlAuditHandler.postHandleSummary(result instanceof Integer ? (Integer) result : -1);
+                } else {
+                    sqlAuditHandler.postHandle(resultDataArgs);
+                }
+                auditNanos += System.nanoTime() - start;
             }
         } catch (Throwable ex) {
+            auditMetrics.failed(operationType, tableName);
             log.error("记录修改日志异常", ex);
+        } finally {
+            overloadGuard.release(admission, auditNanos);
         }
         
         return result;
     }
 
+    private Object proceed(Invocation invocation, String operationType, String tableName) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            auditMetrics.record(AuditPhase.proceed, operationType, tableName, System.nanoTime() - start);
+        }
+    }
+
+    private static String getTableName(ISQLHandler sqlAuditHandler) {
+        return sqlAuditHandler instanceof AbstractSQLHandler ? ((AbstractSQLHandler) sqlAuditHandler).getCurrentDataTable() : null;
+    }
+
+    /**
+     * 事务内合并开启且连接处于手动提交时，返回该Executor当前事务的缓冲区
+     *
+     * @param executor 执行器
+     * @return 缓冲区，不合并时为 null
+     */
+    private TransactionAuditBuffer getTransactionBuffer(Executor executor) throws SQLException {
+        if (!coalesceEnable || executor.getTransaction().getConnection().getAutoCommit()) {
+            return null;
+        }
+        return transactionBuffers.computeIfAbsent(executor, k -> new TransactionAuditBuffer(coalesceMaxRows));
+    }
+
+    /**
+     * 处理 flushStatements/commit/query/rollback/close
+     * <p>
+     * BATCH模式下 flushStatements、commit 以及会触发隐式 flush 的 query 在执行前合并查询前镜像，
+     * 执行后一次批量写入审计日志；事务内合并的缓冲区在 commit 执行前写入。rollback、close 丢弃未写入的审计。
+     *
+     * @param invocation 调用信息
+     * @param methodName 被拦截的方法名
+     * @return 原方法返回值
+     * @throws Throwable 原方法异常
+     */
+    private Object interceptLifecycle(Invocation invocation, String methodName) throws Throwable {
+        Executor executor = (Executor) invocation.getTarget();
+        boolean transactionEnd = "commit".equals(methodName) || "rollback".equals(methodName) || "close".equals(methodName);
+        TransactionAuditBuffer buffer = transactionEnd && !transactionBuffers.isEmpty() ? transactionBuffers.remove(executor) : null;
+        if (buffer != null && !"commit".equals(methodName)) {
+            buffer.clear();
+        }
+        BatchAuditCollector collector = batchCollectors.remove(executor);
+        if (collector == null || collector.isEmpty()) {
+            flush(buffer, methodName);
+            return invocation.proceed();
+        }
+        if ("rollback".equals(methodName) || "close".equals(methodName)) {
+            collector.clear();
+            return invocation.proceed();
+        }
+        if ("flushStatements".equals(methodName)) {
+            collector.beforeFlush();
+            Object result;
+            try {
+                result = invocation.proceed();
+            } catch (Throwable ex) {
+                collector.clear();
+                throw ex;
+            }
+            afterFlush(collector);
+            return result;
+        }
+        // commit 与 query 在 BaseExecutor 内部隐式 flush，拦截不到，这里先行 flush
+        collector.beforeFlush();
+        try {
+            executor.flushStatements();
+        } catch (Throwable ex) {
+            collector.clear();
+            throw ex;
+        }
+        afterFlush(collector);
+        flush(buffer, methodName);
+        return invocation.proceed();
+    }
+
+    private static void flush(TransactionAuditBuffer buffer, String methodName) {
+        if (buffer != null && "commit".equals(methodName)) {
+            buffer.flush();
+        }
+    }
+
+    private void afterFlush(BatchAuditCollector collector) {
+        try {
+            collector.afterFlush();
+        } catch (Throwable ex) {
+            log.error("记录修改日志异常", ex);
+        }
+    }
+
+    /**
+     * 判断Executor是否为BatchExecutor（穿透插件代理与CachingExecutor）
+     *
+     * @param executor 执行器
+     * @return 是否批量执行器
+     */
+    private static boolean isBatchExecutor(Executor executor) {
+        Object target = executor;
+        while (true) {
+            if (Proxy.isProxyClass(target.getClass())) {
+                MetaObject metaObject = SystemMetaObject.forObject(Proxy.getInvocationHandler(target));
+                if (!metaObject.hasGetter("target")) {
+                    return false;
+                }
+                target = metaObject.getValue("target");
+            } else if (target instanceof CachingExecutor) {
+                target = SystemMetaObject.forObject(target).getValue("delegate");
+            } else {
+                return target instanceof BatchExecutor;
+            }
+        }
+    }
+
     /**
      * 检查审计功能是否启用以及参数是否正确
      * 
+     * @param auditConfig 配置快照
      * @param invocation 调用信息
      * @return 是否启用审计
      */
-    private boolean isAuditEnabled(Invocation invocation) {
-        return auditEnable != null 
-                && auditEnable 
+    private boolean isAuditEnabled(AuditConfig auditConfig, Invocation invocation) {
+        return auditConfig.isEnable()
                 && invocation.getArgs()[0] instanceof MappedStatement;
     }
 
@@ -152,43 +392,46 @@ public class SQLAuditLogInterceptor implements Interceptor {
      * 
      * @param invocation 调用信息
      * @param mappedStatement 映射语句
+     * @param boundSql 绑定的SQL
      * @param sqlCommandType SQL命令类型
+     * @param auditConfig 配置快照
      * @return SQL处理器
      * @throws Throwable 异常信息
      */
-    private ISQLHandler initializeSQLHandler(Invocation invocation, MappedStatement mappedStatement, String sqlCommandType) throws Throwable {
+    private ISQLHandler initializeSQLHandler(Invocation invocation, MappedStatement mappedStatement, BoundSql boundSql, String sqlCommandType,
+                                             AuditConfig auditConfig) throws Throwable {
         Executor executor = (Executor) invocation.getTarget();
         Connection connection = executor.getTransaction().getConnection();
         dbMetaDataHolder.init(connection);
         
-        Object parameter = extractParameter(invocation);
-        BoundSql boundSql = mappedStatement.getBoundSql(parameter);
         Configuration configuration = mappedStatement.getConfiguration();
+        String operationType = sqlCommandType.toLowerCase();
+        long start = System.nanoTime();
         String sql = getParameterizedSql(configuration, boundSql);
-        
-        // 检查是否为不支持的操作
-        if (isUnsupportedOperation(sql)) {
-            log.warn("审计日志不支持的操作: {}", sql);
-            return null;
-        }
+        long built = System.nanoTime();
         
         // 检查SQL命令类型是否匹配
         if (!isSqlCommandTypeMatch(sql, sqlCommandType)) {
+            auditMetrics.record(AuditPhase.sqlBuild, operationType, null, built - start);
             log.warn("SQL命令类型与SQL不匹配，请检查: {}", sql);
             return null;
         }
         
         // 创建对应的处理器
-        return createSQLHandler(connection, sql, sqlCommandType);
+        ISQLHandler sqlAuditHandler = createSQLHandler(connection, sql, sqlCommandType, auditConfig);
+        String tableName = getTableName(sqlAuditHandler);
+        auditMetrics.record(AuditPhase.sqlBuild, operationType, tableName, built - start);
+        auditMetrics.record(AuditPhase.parse, operationType, tableName, System.nanoTime() - built);
+        return sqlAuditHandler;
     }
 
     /**
-     * 检查是否为不支持的操作
+     * 检查是否为MERGE语句
      * 
      * @param sql SQL语句
-     * @return 是否为不支持的操作
+     * @return 是否为MERGE语句
      */
-    private boolean isUnsupportedOperation(String sql) {
+    private boolean isMergeStatement(String sql) {
         return sql.toLowerCase().startsWith("merge");
     }
 
@@ -200,6 +443,10 @@ public class SQLAuditLogInterceptor implements Interceptor {
      * @return 是否匹配
      */
     private boolean isSqlCommandTypeMatch(String sql, String sqlCommandType) {
+        if (isMergeStatement(sql)) {
+            // MERGE 可映射为 <insert> 或 <update>
+            return !AuditLog.OperationEnum.delete.name().equalsIgnoreCase(sqlCommandType);
+        }
         return sql.toLowerCase().startsWith(sqlCommandType.toLowerCase());
     }
 
@@ -209,15 +456,18 @@ public class SQLAuditLogInterceptor implements Interceptor {
      * @param connection 数据库连接
      * @param sql SQL语句
      * @param sqlCommandType SQL命令类型
+     * @param auditConfig 配置快照
      * @return SQL处理器
      */
-    private ISQLHandler createSQLHandler(Connection connection, String sql, String sqlCommandType) {
-        if (AuditLog.OperationEnum.insert.name().equalsIgnoreCase(sqlCommandType)) {
-            return new OracleInsertSqlAuditHandler(connection, dbMetaDataHolder, sql,monitorTableRegex, tableColumnPreFix, nonMonitorTableRegex, monitorTables, nonMonitorTables);
+    private ISQLHandler createSQLHandler(Connection connection, String sql, String sqlCommandType, AuditConfig auditConfig) {
+        if (isMergeStatement(sql)) {
+            return new OracleMergeSqlAuditHandler(connection, dbMetaDataHolder, sql, auditConfig);
+        } else if (AuditLog.OperationEnum.insert.name().equalsIgnoreCase(sqlCommandType)) {
+            return new OracleInsertSqlAuditHandler(connection, dbMetaDataHolder, sql, auditConfig);
         } else if (AuditLog.OperationEnum.update.name().equalsIgnoreCase(sqlCommandType)) {
-            return new OracleUpdateSqlAuditHandler(connection, dbMetaDataHolder, sql, monitorTableRegex, tableColumnPreFix, nonMonitorTableRegex, monitorTables, nonMonitorTables);
+            return new OracleUpdateSqlAuditHandler(connection, dbMetaDataHolder, sql, auditConfig);
         } else if (AuditLog.OperationEnum.delete.name().equalsIgnoreCase(sqlCommandType)) {
-            return new OracleDeleteSqlAuditHandler(connection, dbMetaDataHolder, sql, monitorTableRegex, tableColumnPreFix, nonMonitorTableRegex, monitorTables, nonMonitorTables);
+            return new OracleDeleteSqlAuditHandler(connection, dbMetaDataHolder, sql, auditConfig);
         }
         return null;
     }
@@ -277,7 +527,7 @@ public class SQLAuditLogInterceptor implements Interceptor {
      * @param boundSql 绑定SQL
      * @return 带参数值的SQL语句
      */
-    private String getParameterizedSql(Configuration configuration, BoundSql boundSql) {
+    String getParameterizedSql(Configuration configuration, BoundSql boundSql) {
         Object parameterObject = boundSql.getParameterObject();
         List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
         String sql = WHITESPACE_PATTERN.matcher(boundSql.getSql()).replaceAll(" ");
@@ -318,6 +568,13 @@ public class SQLAuditLogInterceptor implements Interceptor {
         String value;
         if (obj instanceof String) {
             value = "'" + obj.toString() + "'";
+        } else if (obj instanceof byte[]) {
+            // RAW 参数按十六进制字面量展开，否则 SQL 无法解析
+            StringBuilder hex = new StringBuilder(((byte[]) obj).length * 2 + 12).append("hextoraw('");
+            for (byte b : (byte[]) obj) {
+                hex.append(Character.forDigit((b >> 4) & 0x0F, 16)).append(Character.forDigit(b & 0x0F, 16));
+            }
+            value = hex.append("')").toString();
         } else if (obj instanceof Date) {
             DateFormat formatter = DateFormat.getDateTimeInstance(
                     DateFormat.DEFAULT, DateFormat.DEFAULT, Locale.CHINA);
@@ -340,36 +597,81 @@ public class SQLAuditLogInterceptor implements Interceptor {
     @Override
     public void setProperties(Properties properties) {
         Boolean splitEnableOption = Boolean.valueOf(properties.getProperty("split", Boolean.FALSE.toString()));
-        String defaultTableNameOption = String.valueOf(properties.getProperty("defaultTableName", "TB_AUDIT_LOG"));
-        String preTableNameOption = String.valueOf(properties.getProperty("preTableName", "TB_AUDIT_LOG_"));
-        String table_column_pre_fix = String.valueOf(properties.getProperty(TABLE_COLUMN_PRE_FIX, ""));
-        String non_monitor_table_regex = String.valueOf(properties.getProperty(NON_MONITOR_TABLE_REGEX, ""));
-        String non_monitor_tables = String.valueOf(properties.getProperty(NON_MONITOR_TABLES, ""));
-        String monitor_table_regex = String.valueOf(properties.getProperty(MONITOR_TABLE_REGEX, ""));
-        String monitor_tables = String.valueOf(properties.getProperty(MONITOR_TABLES, ""));
+        String defaultTableNameOption = String.valueOf(properties.getProperty("defaultTableName", "TB_AUDIT_DIC_LOG"));
+        String preTableNameOption = String.valueOf(properties.getProperty("preTableName", "TB_AUDIT_DIC_LOG_"));
+        AuditStorageMode storageModeOption = AuditStorageMode.of(properties.getProperty(STORAGE_MODE));
+        CaptureMode captureModeOption = CaptureMode.of(properties.getProperty(CAPTURE_MODE));
+        DescriptionMode descriptionModeOption = DescriptionMode.of(properties.getProperty(DESCRIPTION_MODE));
+        int overflowThresholdOption = Integer.parseInt(properties.getProperty(OVERFLOW_THRESHOLD, String.valueOf(AuditValueOverflow.DEFAULT_THRESHOLD)).trim());
+        int lobMaxLengthOption = Integer.parseInt(properties.getProperty(LOB_MAX_LENGTH, String.valueOf(DBMetaDataHolder.DEFAULT_LOB_MAX_LENGTH)).trim());
         
-        if (StringUtils.isNotBlank(table_column_pre_fix)) {
-            tableColumnPreFix=table_column_pre_fix;
-        }
-        if (StringUtils.isNotBlank(monitor_table_regex)) {
-            monitorTableRegex=monitor_table_regex;
+        String nodeIdOption = properties.getProperty(NODE_ID);
+        if (StringUtils.isNotBlank(nodeIdOption)) {
+            UniqueIdGenerator.setNodeId(Integer.parseInt(nodeIdOption.trim()));
         }
-        if (StringUtils.isNotBlank(non_monitor_table_regex)) {
-            nonMonitorTableRegex=non_monitor_table_regex;
-        }
-        if (StringUtils.isNotBlank(non_monitor_tables)) {
-            nonMonitorTableRegex=non_monitor_tables;
-        }
-        if (StringUtils.isNotBlank(monitor_tables)) {
-            String[] monitor_tablesArray = monitor_tables.split(",");
-            monitorTables = new CopyOnWriteArrayList<String>(monitor_tablesArray);
-        }
-        if (StringUtils.isNotBlank(non_monitor_tables)) {
-            String[] non_monitor_tablesArray = non_monitor_tables.split(",");
-            nonMonitorTables = new CopyOnWriteArrayList<String>(non_monitor_tablesArray);
+
+        coalesceEnable = Boolean.parseBoolean(properties.getProperty(COALESCE, Boolean.FALSE.toString()).trim());
+        coalesceMaxRows = Integer.parseInt(properties.getProperty(COALESCE_MAX_ROWS, "10000").trim());
+
+        overloadGuard = AuditOverloadGuard.of(properties);
+        captureGuard = CaptureGuard.of(properties);
+        contextProvider = ContextProviders.of(properties);
+
+        String jmxName = properties.getProperty(JMX_NAME, "default");
+        auditConfigManager.configure(properties, jmxName);
+        auditMetrics.unregister();
+        auditMetrics.register(jmxName);
+        AuditLogTableCreator auditLogTableCreator = new AuditLogTableCreator(splitEnableOption, defaultTableNameOption, preTableNameOption, storageModeOption, overflowThresholdOption,
+                descriptionModeOption);
+        if (auditSink != null) {
+            auditSink.close();
         }
-        
-        auditEnable = Boolean.valueOf(properties.getProperty("enable", Boolean.FALSE.toString()));
-        dbMetaDataHolder = new DBMetaDataHolder(new AuditLogTableCreator(splitEnableOption, defaultTableNameOption, preTableNameOption, monitorTableRegex, tableColumnPreFix, nonMonitorTableRegex, monitorTables, nonMonitorTables));
+        auditSink = AuditSinks.of(properties, new JdbcAuditSink(auditLogTableCreator, captureGuard));
+        dbMetaDataHolder = new DBMetaDataHolder(auditLogTableCreator, auditMetrics, captureGuard, captureModeOption, auditSink, lobMaxLengthOption);
+    }
+
+    /**
+     * 运行指标，同时以 MXBean 形式注册在 com.mozi.auditlog:type=AuditMetrics,name=&lt;jmxName&gt;
+     *
+     * @return 运行指标
+     */
+    public AuditMetrics getAuditMetrics() {
+        return auditMetrics;
+    }
+
+    /**
+     * 审计配置，同时以 MXBean 形式注册在 com.mozi.auditlog:type=AuditConfig,name=&lt;jmxName&gt;
+     *
+     * @return 审计配置
+     */
+    public AuditConfigManager getAuditConfigManager() {
+        return auditConfigManager;
+    }
+
+    /**
+     * 审计过载保护，可读取当前并发审计数、耗时与各表采样率
+     *
+     * @return 过载保护
+     */
+    public AuditOverloadGuard getOverloadGuard() {
+        return overloadGuard;
+    }
+
+    /**
+     * 采集查询的时间预算与熔断，可读取当前处于熔断状态的表与阶段
+     *
+     * @return 时间预算与熔断
+     */
+    public CaptureGuard getCaptureGuard() {
+        return captureGuard;
+    }
+
+    /**
+     * 审计日志写入目标，配置 auditSink=memory 时可由测试读取已写入的审计日志
+     *
+     * @return 写入目标
+     */
+    public AuditSink getAuditSink() {
+        return auditSink;
     }
 }
\ No newline at end of file
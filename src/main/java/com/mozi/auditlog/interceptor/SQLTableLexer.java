@@ -0,0 +1,126 @@
+package com.mozi.auditlog.interceptor;
+
+/**
+ * 轻量 SQL 词法分析：在完整解析之前取出 INSERT INTO / UPDATE / DELETE [FROM] / MERGE INTO 的目标表
+ * <p>
+ * 只向前扫描一遍字符，跳过空白、注释与提示（/*+ ... *&#47;），不构建语法树，除返回的表名外不分配对象。
+ * 支持 schema 前缀（返回表名部分，与完整解析后的 getSimpleName 一致）与双引号标识符（返回引号内的原文）。
+ * 无法确定单一目标表时（INSERT ALL/FIRST、子查询、ONLY (...)、dblink、WITH 开头等）返回 null，由完整解析决定。
+ */
+public final class SQLTableLexer {
+
+    private SQLTableLexer() {
+    }
+
+    /**
+     * @param sql SQL语句，可含 ? 占位符
+     * @return 目标表名，无法确定时返回 null
+     */
+    public static String targetTable(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        int length = sql.length();
+        int i = skipTrivia(sql, 0, length);
+        int end = wordEnd(sql, i, length);
+        if (matches(sql, i, end, "INSERT") || matches(sql, i, end, "MERGE")) {
+            i = skipTrivia(sql, end, length);
+            end = wordEnd(sql, i, length);
+            if (!matches(sql, i, end, "INTO")) {
+                return null;
+            }
+        } else if (matches(sql, i, end, "DELETE")) {
+            i = skipTrivia(sql, end, length);
+            end = wordEnd(sql, i, length);
+            if (!matches(sql, i, end, "FROM")) {
+                return tableName(sql, i, length);
+            }
+        } else if (!matches(sql, i, end, "UPDATE")) {
+            return null;
+        }
+        return tableName(sql, skipTrivia(sql, end, length), length);
+    }
+
+    /**
+     * 读取 [schema.]table，其后只能是空白、注释、左括号、分号或结尾
+     */
+    private static String tableName(String sql, int i, int length) {
+        int start = -1;
+        int end = -1;
+        while (true) {
+            if (i >= length) {
+                return null;
+            }
+            if (sql.charAt(i) == '"') {
+                int close = sql.indexOf('"', i + 1);
+                if (close < 0 || close == i + 1) {
+                    return null;
+                }
+                start = i + 1;
+                end = close;
+                i = close + 1;
+            } else {
+                int wordEnd = wordEnd(sql, i, length);
+                if (wordEnd == i || !Character.isLetter(sql.charAt(i)) || matches(sql, i, wordEnd, "ONLY")) {
+                    return null;
+                }
+                start = i;
+                end = wordEnd;
+                i = wordEnd;
+            }
+            if (i < length && sql.charAt(i) == '.') {
+                i++;
+                continue;
+            }
+            break;
+        }
+        if (i < length) {
+            char c = sql.charAt(i);
+            if (!Character.isWhitespace(c) && c != '(' && c != ';' && c != '/' && c != '-') {
+                // dblink（@）、逗号等无法在此确定
+                return null;
+            }
+        }
+        return sql.substring(start, end);
+    }
+
+    /**
+     * 跳过空白、行注释与块注释（含提示）
+     */
+    private static int skipTrivia(String sql, int i, int length) {
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int lineEnd = sql.indexOf('\n', i + 2);
+                i = lineEnd < 0 ? length : lineEnd + 1;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int commentEnd = sql.indexOf("*/", i + 2);
+                i = commentEnd < 0 ? length : commentEnd + 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * 非引号标识符的结束位置：字母、数字、_、$、#
+     */
+    private static int wordEnd(String sql, int i, int length) {
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#') {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean matches(String sql, int start, int end, String keyword) {
+        return end - start == keyword.length() && sql.regionMatches(true, start, keyword, 0, keyword.length());
+    }
+}
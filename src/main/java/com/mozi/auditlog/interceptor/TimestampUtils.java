@@ -49,6 +49,17 @@ public class TimestampUtils {
         return dateTime.format(formatter);
     }
 
+    /**
+     * 将 {@link #timestampToString(Timestamp)} 的结果还原为 Timestamp，兼容 Timestamp.toString() 的格式
+     */
+    public static Timestamp stringToTimestamp(String value) {
+        if (value == null) return null;
+        if (value.length() == DEFAULT_PATTERN.length()) {
+            return Timestamp.valueOf(LocalDateTime.parse(value, DEFAULT_FORMATTER));
+        }
+        return Timestamp.valueOf(value);
+    }
+
     public static void main(String[] args) {
         Timestamp ts = new Timestamp(System.currentTimeMillis());
 
@@ -1,25 +1,31 @@
 package com.mozi.auditlog.interceptor.handler;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Timestamp;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.alibaba.druid.sql.ast.SQLStatement;
 import com.alibaba.druid.sql.parser.SQLStatementParser;
+import com.mozi.auditlog.config.AuditConfig;
+import com.mozi.auditlog.context.AuditContext;
+import com.mozi.auditlog.context.ContextProvider;
+import com.mozi.auditlog.context.MdcContextProvider;
 import com.mozi.auditlog.domain.AuditLog;
 import com.mozi.auditlog.domain.AuditLogDtl;
-import com.mozi.auditlog.interceptor.TimestampUtils;
+import com.mozi.auditlog.metrics.AuditCache;
+import com.mozi.auditlog.metrics.AuditMetrics;
+import com.mozi.auditlog.metrics.AuditPhase;
+import com.mozi.auditlog.overload.AuditMode;
+import com.mozi.auditlog.overload.CaptureGuard;
+import com.mozi.auditlog.overload.CapturePhase;
+import com.mozi.auditlog.sink.AuditSink;
 
-import com.mozi.auditlog.util.UniqueIdGenerator;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 
 /**
  * 抽象SQL审计处理器，提供审计日志保存的基础功能
@@ -28,22 +34,6 @@ import org.slf4j.MDC;
 abstract class AbstractSQLAuditHandler extends AbstractSQLHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractSQLAuditHandler.class);
-    // Add these cache fields to the class
-    private static final Map<String, Map<String, String>> tableCommentsCache = new ConcurrentHashMap<>();
-    private static final Map<String, Map<String, String>> columnCommentsCache = new ConcurrentHashMap<>();
-    /**
-     * 审计日志主表 TB_AUDIT_DIC_LOG 插入SQL模板
-     */
-    private static final String AUDIT_LOG_INSERT_SQL = "insert into %s " +
-            "(TC_AUDIT_LOG_ID,TC_TABLE_NAME,TC_TABLE_DESCRIPTION, TC_PRIMARY_KEY_VALUE,TC_OPERATION_TYPE, " +
-            "TC_CREATE_BY,TC_CREATE_NAME,TC_CREATE_TIME,TC_IP_ADDRESS,TC_SESSION_ID,TC_BATCH_ID) " +
-            "values(?,?,?,?,?,?,?,?,?,?,?)";
-    /**
-     * 审计日志明细表 TB_AUDIT_DIC_LOG_DTL 插入SQL模板
-     */
-    private static final String AUDIT_LOG_DTL_INSERT_SQL = "insert into %s " +
-            "(TC_AUDIT_LOGD_ID,TC_AUDIT_LOG_ID,TC_COLUMN_NAME, TC_COLUMN_DESCRIPTION,TC_NEW_VALUE, TC_OLD_VALUE) " +
-            "values(?,?,?,?,?,?)";
     /**
      * 获取表名称注释SQL
      */
@@ -64,33 +54,34 @@ abstract class AbstractSQLAuditHandler extends AbstractSQLHandler {
     private final DBMetaDataHolder dbMetaDataHolder;
 
     /**
-     * 需要监控的表前缀
+     * 创建处理器时的审计配置快照
      */
-    private String monitorTableRegex;
+    private final AuditConfig auditConfig;
 
     /**
-     * 字段统一前缀_
+     * 是否跳过当前表的标志
      */
-    private String tableColumnPreFix;
+    private boolean isSkipTable;
 
     /**
-     * 不需要监控的表前缀
+     * 过载降级：只写主表记录
      */
-    private String nonMonitorTableRegex;
+    private boolean headerOnly;
 
     /**
-     * 需要监控的表
+     * 未由拦截器设置审计上下文时的来源
      */
-    private CopyOnWriteArrayList<String> monitorTables;
+    private static final ContextProvider DEFAULT_CONTEXT_PROVIDER = new MdcContextProvider();
+
     /**
-     * 需要排除的表
+     * 本条语句的审计上下文，由拦截器在语句执行前设置
      */
-    private CopyOnWriteArrayList<String> nonMonitorTables;
+    private AuditContext auditContext;
 
     /**
-     * 是否跳过当前表的标志
+     * 摘要记录中影响行数的字段名
      */
-    private boolean isSkipTable;
+    static final String SUMMARY_ROW_COUNT_COLUMN = "ROW_COUNT";
 
     /**
      * 构造函数
@@ -98,20 +89,12 @@ abstract class AbstractSQLAuditHandler extends AbstractSQLHandler {
      * @param connection           数据库连接
      * @param dbMetaDataHolder     数据库元数据持有者
      * @param sql                  SQL语句
-     * @param monitorTableRegex
-     * @param tableColumnPreFix
-     * @param nonMonitorTableRegex
-     * @param monitorTables
-     * @param nonMonitorTables
+     * @param auditConfig          审计配置快照
      */
-    AbstractSQLAuditHandler(Connection connection, DBMetaDataHolder dbMetaDataHolder, String sql, String monitorTableRegex, String tableColumnPreFix, String nonMonitorTableRegex, CopyOnWriteArrayList<String> monitorTables, CopyOnWriteArrayList<String> nonMonitorTables) {
+    AbstractSQLAuditHandler(Connection connection, DBMetaDataHolder dbMetaDataHolder, String sql, AuditConfig auditConfig) {
         super(connection, sql);
         this.dbMetaDataHolder = dbMetaDataHolder;
-        this.monitorTableRegex = monitorTableRegex;
-        this.tableColumnPreFix = tableColumnPreFix;
-        this.nonMonitorTableRegex = nonMonitorTableRegex;
-        this.monitorTables = monitorTables;
-        this.nonMonitorTables = nonMonitorTables;
+        this.auditConfig = auditConfig;
         this.isSkipTable = false;
         judgeIsSkip();
     }
@@ -136,68 +119,210 @@ abstract class AbstractSQLAuditHandler extends AbstractSQLHandler {
     protected SQLStatement parseSQLStatement(SQLStatementParser statementParser) {
         return statementParser.parseInsert();
     }
+
     /**
-     * 保存来自Map的审计日志
+     * 根据执行结果生成审计日志（不落库）
      *
-     * @param auditLogList 审计日志表
+     * @param args 语句参数
+     * @return 审计日志列表
      */
-    void saveAuditLog(List<AuditLog> auditLogList) {
+    abstract List<AuditLog> buildAuditLogs(Object args);
 
-        // 如果没有需要保存的日志，则直接返回
-        if (CollectionUtils.isEmpty(auditLogList) ) {
-            return;
+    /**
+     * 操作类型，用于指标统计
+     *
+     * @return {@link AuditLog.OperationEnum} 名称
+     */
+    abstract String getOperationType();
+
+    /**
+     * 只生成主表记录（过载降级），默认生成完整日志后去掉明细；可覆盖以省去后镜像查询
+     *
+     * @param args 语句参数
+     * @return 不含明细的审计日志列表
+     */
+    List<AuditLog> buildHeaderAuditLogs(Object args) {
+        List<AuditLog> auditLogs = buildAuditLogs(args);
+        if (auditLogs != null) {
+            for (AuditLog auditLog : auditLogs) {
+                if (auditLog != null) {
+                    auditLog.setAuditLogDtlList(new ArrayList<>());
+                }
+            }
         }
+        return auditLogs;
+    }
 
-        boolean originalAutoCommit = true;
-        try {
-            // 获取并保存当前自动提交设置
-            originalAutoCommit = getConnection().getAutoCommit();
-            if (originalAutoCommit) {
-                // 设置为手动提交以保证事务一致性
-                getConnection().setAutoCommit(false);
+    @Override
+    public void setHeaderOnly(boolean headerOnly) {
+        this.headerOnly = headerOnly;
+    }
+
+    @Override
+    public void setAuditContext(AuditContext auditContext) {
+        this.auditContext = auditContext;
+    }
+
+    /**
+     * @return 本条语句的审计上下文，未设置时按 MDC 解析一次
+     */
+    AuditContext getAuditContext() {
+        if (auditContext == null) {
+            auditContext = DEFAULT_CONTEXT_PROVIDER.resolve();
+        }
+        return auditContext;
+    }
+
+    /**
+     * 以本条语句的审计上下文填入操作员信息，已有值的字段保持不变
+     *
+     * @param auditLogs 本条语句生成的审计日志
+     */
+    void applyAuditContext(List<AuditLog> auditLogs) {
+        if (CollectionUtils.isEmpty(auditLogs)) {
+            return;
+        }
+        AuditContext context = getAuditContext();
+        for (AuditLog auditLog : auditLogs) {
+            if (auditLog != null) {
+                context.applyTo(auditLog);
             }
+        }
+    }
 
-            // 遍历并保存所有审计日志
-            for (AuditLog auditLog : auditLogList) {
-                if (Objects.nonNull(auditLog)) {
-                    saveAuditLog(auditLog);
-                    List<AuditLogDtl> auditLogDtlList = auditLog.getAuditLogDtlList();
-                    if (CollectionUtils.isNotEmpty(auditLogDtlList)) {
-                        for (AuditLogDtl auditLogDtl : auditLogDtlList) {
-                            if (Objects.nonNull(auditLogDtl)) {
-                                saveAuditLogDtl(auditLogDtl);
-                            }
-                        }
-                    }
-                }
+    @Override
+    public void postHandleSummary(int rows) {
+        AuditMetrics auditMetrics = dbMetaDataHolder.getAuditMetrics();
+        long start = System.nanoTime();
+        String tableName = getCurrentDataTable() == null ? null : getCurrentDataTable().toUpperCase();
+        Map<String, String> tableComments = getTableCommentsByTableNameWithCache(tableName);
+        AuditLog auditLog = new AuditLog(getOperationType(), tableName, tableComments == null ? null : tableComments.get(tableName), null, new Date());
+        auditLog.getAuditLogDtlList().add(new AuditLogDtl(auditLog.getAuditLogId(), SUMMARY_ROW_COUNT_COLUMN, "影响行数", rows, null));
+        markCapture(Collections.singletonList(auditLog), AuditMode.summary);
+        boolean saved = saveAuditLog(Collections.singletonList(auditLog));
+        auditMetrics.record(AuditPhase.save, getOperationType(), getCurrentDataTable(), System.nanoTime() - start);
+        if (saved) {
+            auditMetrics.degraded(getOperationType(), getCurrentDataTable());
+        } else {
+            auditMetrics.failed(getOperationType(), getCurrentDataTable());
+        }
+    }
+
+    @Override
+    public void postHandle(Object args) {
+        AuditMetrics auditMetrics = dbMetaDataHolder.getAuditMetrics();
+        long start = System.nanoTime();
+        List<AuditLog> auditLogs = headerOnly ? buildHeaderAuditLogs(args) : buildAuditLogs(args);
+        if (headerOnly) {
+            markCapture(auditLogs, AuditMode.headerOnly);
+        }
+        long built = System.nanoTime();
+        auditMetrics.record(AuditPhase.postImage, getOperationType(), getCurrentDataTable(), built - start);
+        boolean saved = saveAuditLog(auditLogs);
+        auditMetrics.record(AuditPhase.save, getOperationType(), getCurrentDataTable(), System.nanoTime() - built);
+        if (saved && headerOnly) {
+            auditMetrics.degraded(getOperationType(), getCurrentDataTable());
+        } else if (saved) {
+            auditMetrics.audited(getOperationType(), getCurrentDataTable());
+        } else {
+            auditMetrics.failed(getOperationType(), getCurrentDataTable());
+        }
+    }
+
+    /**
+     * 给降级记录追加采集方式标记明细（{@link AuditLogDtl#CAPTURE_MARKER_COLUMN}），数据还原据此跳过不含完整镜像的记录
+     *
+     * @param auditLogs 降级生成的审计日志
+     * @param mode      降级方式
+     */
+    static void markCapture(List<AuditLog> auditLogs, AuditMode mode) {
+        if (auditLogs == null) {
+            return;
+        }
+        for (AuditLog auditLog : auditLogs) {
+            if (auditLog != null) {
+                auditLog.getAuditLogDtlList().add(new AuditLogDtl(auditLog.getAuditLogId(), AuditLogDtl.CAPTURE_MARKER_COLUMN, "采集方式", mode.name(), null));
             }
+        }
+    }
 
+    /**
+     * 批量模式下的分组键，分组键相同的语句可以合并前镜像查询
+     *
+     * @return 分组键
+     */
+    String getBatchGroupKey() {
+        return getClass().getSimpleName() + ':' + getCurrentDataTable();
+    }
 
-            // 如果原来是自动提交模式，则提交事务并恢复自动提交设置
-            if (originalAutoCommit) {
-                getConnection().commit();
+    /**
+     * 批量模式下的预处理，默认逐条预处理；需要查询前镜像的处理器可覆盖为合并查询
+     *
+     * @param group 同组处理器（包含当前处理器，且当前处理器位于首位）
+     */
+    void preHandleBatch(List<AbstractSQLAuditHandler> group) {
+        for (AbstractSQLAuditHandler handler : group) {
+            handler.preHandle();
+        }
+    }
+
+    /**
+     * 批量模式下生成同组语句的审计日志，默认逐条生成
+     *
+     * @param group      同组处理器（包含当前处理器，且当前处理器位于首位）
+     * @param parameters 与处理器一一对应的语句参数
+     * @return 审计日志列表
+     */
+    List<AuditLog> buildBatchAuditLogs(List<AbstractSQLAuditHandler> group, List<Object> parameters) {
+        List<AuditLog> auditLogs = new ArrayList<>();
+        for (int i = 0; i < group.size(); i++) {
+            List<AuditLog> handlerAuditLogs = group.get(i).buildAuditLogs(parameters.get(i));
+            group.get(i).applyAuditContext(handlerAuditLogs);
+            if (CollectionUtils.isNotEmpty(handlerAuditLogs)) {
+                auditLogs.addAll(handlerAuditLogs);
             }
-        } catch (SQLException e) {
-            handleSQLException(e, originalAutoCommit);
-        } finally {
-            // 恢复原始的自动提交设置
-            restoreAutoCommit(originalAutoCommit);
         }
+        return auditLogs;
     }
     /**
-     * 保存来自Map的审计日志
+     * 保存审计日志：以本条语句的审计上下文填入操作员信息、按列类型编码明细值后交给写入目标；事务型写入目标在自动提交的连接上开启临时事务
      *
-     * @param auditDicLogList 审计日志表
-     * @param auditLogDtlList 审计日志明细表
+     * @param auditLogList 审计日志表
+     * @return 是否写入成功，没有需要保存的日志时返回 true
      */
-    void saveAuditLog(List<AuditLog> auditDicLogList, List<AuditLogDtl> auditLogDtlList) {
+    boolean saveAuditLog(List<AuditLog> auditLogList) {
 
         // 如果没有需要保存的日志，则直接返回
-        if (CollectionUtils.isEmpty(auditDicLogList) && CollectionUtils.isEmpty(auditLogDtlList)) {
-            return;
+        if (CollectionUtils.isEmpty(auditLogList) ) {
+            return true;
+        }
+        if (!allowCapture(getCurrentDataTable(), CapturePhase.save)) {
+            return false;
+        }
+        AuditContext context = getAuditContext();
+        List<AuditLog> auditLogs = new ArrayList<>(auditLogList.size());
+        for (AuditLog auditLog : auditLogList) {
+            if (Objects.nonNull(auditLog)) {
+                context.applyTo(auditLog);
+                auditLogs.add(auditLog);
+            }
+        }
+        AuditSink auditSink = dbMetaDataHolder.getAuditSink();
+        if (!auditSink.isTransactional()) {
+            try {
+                encodeValues(auditLogs);
+                auditSink.write(getConnection(), auditLogs);
+                getCaptureGuard().success(getCurrentDataTable(), CapturePhase.save);
+                return true;
+            } catch (IOException | SQLException | RuntimeException e) {
+                getCaptureGuard().failure(getCurrentDataTable(), CapturePhase.save, e);
+                return false;
+            }
         }
 
         boolean originalAutoCommit = true;
+        boolean saved = false;
+        Exception error = null;
         try {
             // 获取并保存当前自动提交设置
             originalAutoCommit = getConnection().getAutoCommit();
@@ -206,134 +331,72 @@ abstract class AbstractSQLAuditHandler extends AbstractSQLHandler {
                 getConnection().setAutoCommit(false);
             }
 
-            // 遍历并保存所有审计日志
-            for (AuditLog auditLog : auditDicLogList) {
-                if (Objects.nonNull(auditLog)) {
-                    saveAuditLog(auditLog);
-                }
-            }
-            if (CollectionUtils.isNotEmpty(auditLogDtlList)) {
-                for (AuditLogDtl auditLogDtl : auditLogDtlList) {
-                    if (Objects.nonNull(auditLogDtl)) {
-                        saveAuditLogDtl(auditLogDtl);
-                    }
-                }
-            }
+            encodeValues(auditLogs);
+            auditSink.write(getConnection(), auditLogs);
 
             // 如果原来是自动提交模式，则提交事务并恢复自动提交设置
             if (originalAutoCommit) {
                 getConnection().commit();
             }
-        } catch (SQLException e) {
-            handleSQLException(e, originalAutoCommit);
+            saved = true;
+            return true;
+        } catch (IOException | SQLException | RuntimeException e) {
+            error = e;
+            return false;
         } finally {
+            // 无论以何种方式退出都记录熔断结果；失败时先回滚，避免恢复自动提交时提交半批审计
+            if (saved) {
+                getCaptureGuard().success(getCurrentDataTable(), CapturePhase.save);
+            } else {
+                handleSQLException(error, originalAutoCommit);
+            }
             // 恢复原始的自动提交设置
             restoreAutoCommit(originalAutoCommit);
         }
     }
 
-
     /**
-     * 保存单条审计日志
+     * 将明细值就地替换为按列类型编码的规范文本，所有写入目标收到的都是同一种表示；
+     * 每条审计日志查找一次表的编码、每个明细查找一次列的编码，元数据中没有的表或列按值的类型编码
      *
-     * @param auditLog 审计日志对象
-     * @return 生成的日志ID
-     */
-    private Object saveAuditLog(AuditLog auditLog) {
-        String tableName = dbMetaDataHolder.getAuditLogTableCreator().getCurrentValidTableName();
-
-        // 使用 try-with-resources 简化资源管理
-        try (PreparedStatement preparedStatement = getConnection().prepareStatement(String.format(AUDIT_LOG_INSERT_SQL, "TB_AUDIT_DIC_LOG"))) {
-            int i = 1;
-            preparedStatement.setString(i++, auditLog.getAuditLogId());
-            preparedStatement.setString(i++, auditLog.getTableName());
-            preparedStatement.setString(i++, auditLog.getTableDescription());
-            preparedStatement.setString(i++, auditLog.getPrimaryKeyValue());
-            preparedStatement.setString(i++, auditLog.getOperationType());
-            // 设置操作员信息
-            preparedStatement.setString(i++, MDC.get("userId"));
-            preparedStatement.setString(i++, MDC.get("userName"));
-            preparedStatement.setDate(i++, new java.sql.Date(auditLog.getCreateTime().getTime()));
-
-            preparedStatement.setString(i++, MDC.get("clientIp"));
-            //token
-            preparedStatement.setString(i++, MDC.get("token"));
-            //批次id
-            preparedStatement.setString(i++, MDC.get("traceId"));
-            // 执行插入操作
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
-
-        return auditLog.getAuditLogId();
-    }
-    /**
-     * 保存单条审计日志
-     *
-     * @param auditLogDtl 审计日志对象
-     * @return 生成的日志ID
-     */
-    private Object saveAuditLogDtl(AuditLogDtl  auditLogDtl) {
-        String tableName = dbMetaDataHolder.getAuditLogTableCreator().getCurrentValidTableName();
-
-        // 使用 try-with-resources 简化资源管理
-        try (PreparedStatement preparedStatement = getConnection().prepareStatement(String.format(AUDIT_LOG_DTL_INSERT_SQL, "TB_AUDIT_DIC_LOG_DTL"))) {
-            int i = 1;
-            preparedStatement.setString(i++, auditLogDtl.getAuditLogdId());
-            preparedStatement.setString(i++, auditLogDtl.getAuditLogId());
-            preparedStatement.setString(i++, auditLogDtl.getColumnName());
-            preparedStatement.setString(i++, auditLogDtl.getColumnDescription());
-            preparedStatement.setObject(i++, formatValue(auditLogDtl.getNewValue()));
-            preparedStatement.setObject(i++, formatValue(auditLogDtl.getOldValue()));
-            // 执行插入操作
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
-
-        return auditLogDtl.getAuditLogdId();
-    }
-
-    /**
-     * 格式化值，特别是处理时间戳类型
-     *
-     * @param value 原始值
-     * @return 格式化后的值
+     * @param auditLogs 审计日志
      */
-    private Object formatValue(Object value) {
-        if (value instanceof Timestamp) {
-            return TimestampUtils.timestampToString((Timestamp) value);
+    private void encodeValues(List<AuditLog> auditLogs) throws SQLException {
+        SchemaMetaData schema = dbMetaDataHolder.getSchemaMetaData();
+        Map<String, Map<String, ValueEncoder>> columnEncoders = schema == null ? Collections.emptyMap() : schema.getColumnEncoders();
+        int lobMaxLength = dbMetaDataHolder.getLobMaxLength();
+        for (AuditLog auditLog : auditLogs) {
+            if (CollectionUtils.isEmpty(auditLog.getAuditLogDtlList())) {
+                continue;
+            }
+            Map<String, ValueEncoder> encoders = auditLog.getTableName() == null ? null : columnEncoders.get(auditLog.getTableName());
+            for (AuditLogDtl auditLogDtl : auditLog.getAuditLogDtlList()) {
+                if (auditLogDtl != null) {
+                    ValueEncoder encoder = encoderOf(encoders, auditLogDtl.getColumnName());
+                    auditLogDtl.setNewValue(encoder.encode(auditLogDtl.getNewValue(), lobMaxLength));
+                    auditLogDtl.setOldValue(encoder.encode(auditLogDtl.getOldValue(), lobMaxLength));
+                }
+            }
         }
-        return value;
     }
 
-
-    /**
-     * 生成审计日志序列ID
-     *
-     * @return 生成的序列ID
-     */
-    private Object genAuditLogSeqID() {
-        return UniqueIdGenerator.generateUniqueId();
+    private static ValueEncoder encoderOf(Map<String, ValueEncoder> encoders, String columnName) {
+        if (encoders == null || columnName == null) {
+            return ValueEncoder.text;
+        }
+        ValueEncoder encoder = encoders.get(columnName);
+        if (encoder == null) {
+            encoder = encoders.get(columnName.toUpperCase());
+        }
+        return encoder == null ? ValueEncoder.text : encoder;
     }
 
     /**
      * 判断是否需要跳过当前表
      */
     private void judgeIsSkip() {
-        String currentDataTable = getCurrentDataTable();
-        String tableName = currentDataTable.toUpperCase();
-        // 检查是否在监控白名单中（表名或正则）
-        boolean isInMonitorList = monitorTables.contains(tableName);
-        boolean matchesMonitorRegex = (monitorTableRegex != null && tableName.matches(monitorTableRegex));
-
-        // 检查是否在排除黑名单中（表名或正则）
-        boolean isInNonMonitorList = nonMonitorTables.contains(tableName);
-        boolean matchesNonMonitorRegex = (nonMonitorTableRegex != null && tableName.matches(nonMonitorTableRegex));
-
         // 只有在白名单内且不在黑名单内才监控
-        isSkipTable = !(isInMonitorList || matchesMonitorRegex) && !(isInNonMonitorList || matchesNonMonitorRegex);
+        isSkipTable = !auditConfig.isMonitored(getCurrentDataTable());
     }
 
     /**
@@ -347,14 +410,14 @@ abstract class AbstractSQLAuditHandler extends AbstractSQLHandler {
     }
 
     /**
-     * 处理SQL异常并根据需要回滚事务
+     * 处理写入异常并根据需要回滚事务
      *
-     * @param e                  SQLException异常
+     * @param e                  写入异常，以 Error 退出时为 null
      * @param originalAutoCommit 原始自动提交设置
      */
-    private void handleSQLException(SQLException e, boolean originalAutoCommit) {
-        // 使用日志框架记录异常
-        logger.error("SQL execution error with transaction rollback", e);
+    private void handleSQLException(Exception e, boolean originalAutoCommit) {
+        // 限频记录异常，连续失败时熔断写入
+        getCaptureGuard().failure(getCurrentDataTable(), CapturePhase.save, e);
 
         // 如果原来是自动提交模式，则回滚事务
         if (originalAutoCommit) {
@@ -381,6 +444,26 @@ abstract class AbstractSQLAuditHandler extends AbstractSQLHandler {
         }
     }
 
+    @Override
+    CaptureGuard getCaptureGuard() {
+        return dbMetaDataHolder.getCaptureGuard();
+    }
+
+    /**
+     * 熔断期间跳过该 表 + 阶段 的采集，并计入 CaptureSkippedCount
+     *
+     * @param tableName 表名
+     * @param phase     阶段
+     * @return 是否允许采集
+     */
+    boolean allowCapture(String tableName, CapturePhase phase) {
+        if (getCaptureGuard().allow(tableName, phase)) {
+            return true;
+        }
+        dbMetaDataHolder.getAuditMetrics().captureSkipped(getOperationType(), getCurrentDataTable());
+        return false;
+    }
+
     /**
      * 获取数据库元数据持有者
      *
@@ -408,15 +491,21 @@ abstract class AbstractSQLAuditHandler extends AbstractSQLHandler {
      */
     public Map<String, String> getTableCommentsByTableName(String tableName) {
         Map<String, String> tableComments = new HashMap<>();
+        if (!allowCapture(tableName, CapturePhase.metadata)) {
+            return tableComments;
+        }
         try (PreparedStatement statement = getConnection().prepareStatement(GET_TABLE_COMMENTS_SQL)) {
+            getCaptureGuard().apply(statement, CapturePhase.metadata);
             statement.setString(1, tableName);
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
                     tableComments.put(resultSet.getString("TABLE_NAME"), resultSet.getString("COMMENTS"));
                 }
             }
+            getCaptureGuard().success(tableName, CapturePhase.metadata);
         } catch (SQLException e) {
-            handleSQLException(e);
+            getCaptureGuard().failure(tableName, CapturePhase.metadata, e);
+            return tableComments;
         }
 
         return tableComments;
@@ -430,15 +519,21 @@ abstract class AbstractSQLAuditHandler extends AbstractSQLHandler {
      */
     public Map<String, String> getColCommentsByTableName(String tableName) {
         Map<String, String> colComments = new HashMap<>();
+        if (!allowCapture(tableName, CapturePhase.metadata)) {
+            return colComments;
+        }
         try (PreparedStatement statement = getConnection().prepareStatement(GET_COL_COMMENTS_SQL)) {
+            getCaptureGuard().apply(statement, CapturePhase.metadata);
             statement.setString(1, tableName);
             try (ResultSet resultSet = statement.executeQuery()) {
                 while (resultSet.next()) {
                     colComments.put(resultSet.getString("COLUMN_NAME"), resultSet.getString("COMMENTS"));
                 }
             }
+            getCaptureGuard().success(tableName, CapturePhase.metadata);
         } catch (SQLException e) {
-            handleSQLException(e);
+            getCaptureGuard().failure(tableName, CapturePhase.metadata, e);
+            return colComments;
         }
 
         return colComments;
@@ -453,7 +548,9 @@ abstract class AbstractSQLAuditHandler extends AbstractSQLHandler {
      */
     public Map<String, String> getTableCommentsByTableNameWithCache(String tableName) {
         // Check cache first
+        Map<String, Map<String, String>> tableCommentsCache = dbMetaDataHolder.getSchemaMetaData().getTableComments();
         Map<String, String> cachedResult = tableCommentsCache.get(tableName);
+        dbMetaDataHolder.getAuditMetrics().cacheAccess(AuditCache.tableComment, cachedResult != null);
         if (cachedResult != null) {
             return cachedResult;
         }
@@ -462,15 +559,21 @@ abstract class AbstractSQLAuditHandler extends AbstractSQLHandler {
         Map<String, String> tableComments = new HashMap<>();
         String sql = "SELECT table_name, comments FROM user_tab_comments WHERE table_name = ?";
 
+        if (!allowCapture(tableName, CapturePhase.metadata)) {
+            return tableComments;
+        }
         try (PreparedStatement statement = getConnection().prepareStatement(sql)) {
+            getCaptureGuard().apply(statement, CapturePhase.metadata);
             statement.setString(1, tableName);
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
                     tableComments.put(resultSet.getString("TABLE_NAME"), resultSet.getString("COMMENTS"));
                 }
             }
+            getCaptureGuard().success(tableName, CapturePhase.metadata);
         } catch (SQLException e) {
-            handleSQLException(e);
+            getCaptureGuard().failure(tableName, CapturePhase.metadata, e);
+            return tableComments;
         }
 
         // Cache the result
@@ -486,7 +589,9 @@ abstract class AbstractSQLAuditHandler extends AbstractSQLHandler {
      */
     public Map<String, String> getColCommentsByTableNameWithCache(String tableName) {
         // Check cache first
+        Map<String, Map<String, String>> columnCommentsCache = dbMetaDataHolder.getSchemaMetaData().getColumnComments();
         Map<String, String> cachedResult = columnCommentsCache.get(tableName);
+        dbMetaDataHolder.getAuditMetrics().cacheAccess(AuditCache.columnComment, cachedResult != null);
         if (cachedResult != null) {
             return cachedResult;
         }
@@ -495,15 +600,21 @@ abstract class AbstractSQLAuditHandler extends AbstractSQLHandler {
         Map<String, String> colComments = new HashMap<>();
         String sql = "SELECT column_name, comments FROM user_col_comments WHERE table_name = ?";
 
+        if (!allowCapture(tableName, CapturePhase.metadata)) {
+            return colComments;
+        }
         try (PreparedStatement statement = getConnection().prepareStatement(sql)) {
+            getCaptureGuard().apply(statement, CapturePhase.metadata);
             statement.setString(1, tableName);
             try (ResultSet resultSet = statement.executeQuery()) {
                 while (resultSet.next()) {
                     colComments.put(resultSet.getString("COLUMN_NAME"), resultSet.getString("COMMENTS"));
                 }
             }
+            getCaptureGuard().success(tableName, CapturePhase.metadata);
         } catch (SQLException e) {
-            handleSQLException(e);
+            getCaptureGuard().failure(tableName, CapturePhase.metadata, e);
+            return colComments;
         }
         // Cache the result
         columnCommentsCache.put(tableName, colComments);
@@ -8,7 +8,11 @@ import com.alibaba.druid.sql.ast.statement.SQLTableSource;
 import com.alibaba.druid.sql.dialect.oracle.parser.OracleStatementParser;
 import com.alibaba.druid.sql.parser.SQLStatementParser;
 
+import com.mozi.auditlog.overload.CaptureGuard;
+import com.mozi.auditlog.overload.CapturePhase;
+import com.mozi.auditlog.util.RateLimitedLogger;
 import org.apache.commons.collections.map.CaseInsensitiveMap;
+import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
@@ -22,6 +26,7 @@ import java.util.regex.Pattern;
 
 public abstract class AbstractSQLHandler implements ISQLHandler
 {
+    private static final RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(LoggerFactory.getLogger(AbstractSQLHandler.class));
     private Connection connection;
     private String sql;
     private List<String> tables;
@@ -58,7 +63,7 @@ public abstract class AbstractSQLHandler implements ISQLHandler
 				currentDataTable = tables.get(0);
 			}
 		} catch (Exception e) {
-			e.printStackTrace();
+			rateLimitedLogger.error("init", "Error resolving the audited table of " + sql, e);
 		}
     }
 
@@ -130,25 +135,48 @@ public abstract class AbstractSQLHandler implements ISQLHandler
 
     final String determineTableForColumn(String column)
     {
-        try
+        CaptureGuard captureGuard = getCaptureGuard();
+        for (String table : tables)
         {
-            for (String table : tables)
+            if (captureGuard != null && !captureGuard.allow(table, CapturePhase.metadata))
             {
-                ResultSet resultSet = getConnection().getMetaData().getColumns(null,
-                        getConnection().getMetaData().getUserName(), table, column);
+                continue;
+            }
+            try (ResultSet resultSet = getConnection().getMetaData().getColumns(null,
+                    getConnection().getMetaData().getUserName(), table, column))
+            {
+                if (captureGuard != null)
+                {
+                    captureGuard.success(table, CapturePhase.metadata);
+                }
                 if (resultSet.next())
                 {
-                    resultSet.close();
                     return table;
                 }
+            } catch (SQLException e)
+            {
+                if (captureGuard != null)
+                {
+                    captureGuard.failure(table, CapturePhase.metadata, e);
+                } else
+                {
+                    rateLimitedLogger.error("determineTableForColumn", "Error retrieving columns of " + table, e);
+                }
             }
-        } catch (SQLException e)
-        {
-            e.printStackTrace();
         }
         return null;
     }
 
+    /**
+     * 插件自身数据库访问的时间预算与熔断，默认没有
+     *
+     * @return 时间预算与熔断
+     */
+    CaptureGuard getCaptureGuard()
+    {
+        return null;
+    }
+
     @SuppressWarnings("unchecked")
     private static Map<String, String> buildAliasToTableMap(SQLTableSource tableSource)
     {
@@ -1,83 +1,318 @@
 package com.mozi.auditlog.interceptor.handler;
 
+import com.mozi.auditlog.util.RateLimitedLogger;
+import com.mozi.auditlog.util.UniqueIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.Calendar;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * 审计日志表名解析与按月分表
+ * <p>
+ * 不分表时主表为 defaultTableName；分表（split=true）时主表为 preTableName + yyyyMM。
+ * 明细表、溢出表分别为主表名加 {@link #DTL_SUFFIX}、{@link #OVF_SUFFIX}。
+ * 分表模式下每月首次写入前会提前建好当月与下月的三张表，写入按记录创建时间路由到对应月份。
+ */
 public class AuditLogTableCreator
 {
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogTableCreator.class);
+
+    private static final RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(logger);
+
+    /**
+     * 建表失败（如缺少 DDL 权限）后的重试间隔，期间写入不再检查表、不再争用锁
+     */
+    private static final long ENSURE_RETRY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * 明细表后缀
+     */
+    public static final String DTL_SUFFIX = "_DTL";
+
+    /**
+     * 溢出表后缀
+     */
+    public static final String OVF_SUFFIX = "_OVF";
+
+    /**
+     * ORA-00955: 名称已由现有对象使用
+     */
+    private static final int ORA_NAME_ALREADY_USED = 955;
+
+    /**
+     * 在自治事务中执行DDL，避免DDL的隐式提交影响业务事务
+     */
+    private static final String AUTONOMOUS_DDL = "DECLARE PRAGMA AUTONOMOUS_TRANSACTION; BEGIN EXECUTE IMMEDIATE '%s'; "
+            + "EXCEPTION WHEN OTHERS THEN IF SQLCODE != -" + ORA_NAME_ALREADY_USED + " THEN RAISE; END IF; END;";
+
+    private static final String CREATE_LOG_TABLE_SQL = "create table %s (" +
+            "TC_AUDIT_LOG_ID CHAR(24) not null, TC_IP_ADDRESS VARCHAR2(64), TC_SESSION_ID VARCHAR2(128), " +
+            "TC_OPERATION_TYPE VARCHAR2(16), TC_BATCH_ID VARCHAR2(64), TC_TABLE_NAME VARCHAR2(48), " +
+            "TC_TABLE_DESCRIPTION NVARCHAR2(48), TC_PRIMARY_KEY_VALUE CHAR(24), TC_PARENT_ID CHAR(24), " +
+            "TC_CREATE_BY CHAR(24), TC_CREATE_NAME NVARCHAR2(16), TC_CREATE_TIME DATE, TC_CHANGE_SET CLOB, " +
+            "primary key (TC_AUDIT_LOG_ID))";
+
+    private static final String CREATE_DTL_TABLE_SQL = "create table %s (" +
+            "TC_AUDIT_LOGD_ID CHAR(24) not null, TC_AUDIT_LOG_ID CHAR(24), TC_COLUMN_NAME VARCHAR2(48), " +
+            "TC_COLUMN_DESCRIPTION NVARCHAR2(48), TC_NEW_VALUE VARCHAR2(4000), TC_OLD_VALUE VARCHAR2(4000), " +
+            "TC_NEW_OVERFLOW_ID CHAR(24), TC_OLD_OVERFLOW_ID CHAR(24), " +
+            "primary key (TC_AUDIT_LOGD_ID))";
+
+    private static final String CREATE_OVF_TABLE_SQL = "create table %s (" +
+            "TC_OVERFLOW_ID CHAR(24) not null, TC_AUDIT_LOGD_ID CHAR(24), TC_CONTENT_HASH CHAR(64), " +
+            "TC_ORIGINAL_LENGTH NUMBER(12), TC_CONTENT BLOB, " +
+            "primary key (TC_OVERFLOW_ID))";
+
+    /**
+     * 索引名为表名加 _IX，与 sql/auditlog.sql 一致
+     */
+    private static final String CREATE_LOG_INDEX_SQL = "create index %1$s_IX on %1$s (TC_TABLE_NAME, TC_PRIMARY_KEY_VALUE, TC_AUDIT_LOG_ID)";
+
+    private static final String CREATE_DTL_INDEX_SQL = "create index %1$s_IX on %1$s (TC_AUDIT_LOG_ID)";
+
+    private static final String CREATE_OVF_INDEX_SQL = "create index %1$s_IX on %1$s (TC_AUDIT_LOGD_ID)";
 
     private String defaultTableName;
 
     private String preTableName;
 
-    private String currentValidTableName;
-
     private Boolean splitEnable;
 
     /**
-     * 需要监控的表前缀
+     * 审计明细存储模式
+     */
+    private AuditStorageMode storageMode;
+
+    /**
+     * 明细值溢出存储阈值（UTF-8字节数），不大于0表示不溢出
      */
-    private  String monitorTableRegex;
+    private int overflowThreshold;
 
     /**
-     * 字段统一前缀_
+     * 表描述、字段描述的存储方式
      */
-    private  String tableColumnPreFix;
+    private DescriptionMode descriptionMode;
 
     /**
-     * 不需要监控的表前缀
+     * 最近一次路由到的月份，绝大多数写入命中该缓存
      */
-    private  String nonMonitorTableRegex;
+    private volatile Period currentPeriod;
 
+    /**
+     * 已确认建好（当月与下月）表的月份起始时间
+     */
+    private volatile long ensuredPeriodStart = Long.MIN_VALUE;
 
-    private  CopyOnWriteArrayList<String> monitorTables;
-    private  CopyOnWriteArrayList<String> nonMonitorTables;
+    /**
+     * 上次建表失败的时间（System.nanoTime），0 表示没有失败
+     */
+    private volatile long ensureFailedAt;
+
+    public AuditLogTableCreator(Boolean splitEnable, String defaultTableName, String preTableName, AuditStorageMode storageMode, int overflowThreshold)
+    {
+        this(splitEnable, defaultTableName, preTableName, storageMode, overflowThreshold, DescriptionMode.inline);
+    }
 
-    public AuditLogTableCreator(Boolean splitEnable, String defaultTableName, String preTableName, String monitorTableRegex, String tableColumnPreFix, String nonMonitorTableRegex, CopyOnWriteArrayList<String> monitorTables,CopyOnWriteArrayList<String> nonMonitorTables)
+    public AuditLogTableCreator(Boolean splitEnable, String defaultTableName, String preTableName, AuditStorageMode storageMode, int overflowThreshold,
+                                DescriptionMode descriptionMode)
     {
 
         this.splitEnable = splitEnable;
         this.defaultTableName = defaultTableName;
         this.preTableName = preTableName;
-        this.monitorTableRegex = preTableName;
-        this.tableColumnPreFix = preTableName;
-        this.nonMonitorTableRegex = preTableName;
-        this.monitorTables = monitorTables;
-        this.nonMonitorTables = nonMonitorTables;
-        currentValidTableName = getCurrentTableName();
+        this.storageMode = storageMode;
+        this.overflowThreshold = overflowThreshold;
+        this.descriptionMode = descriptionMode;
+        this.currentPeriod = Period.of(System.currentTimeMillis(), preTableName);
     }
 
+    /**
+     * 当前时间对应的主表名
+     */
     String getCurrentTableName()
     {
-        if (splitEnable)
+        return getLogTableName(System.currentTimeMillis());
+    }
+
+    /**
+     * 按记录创建时间路由主表名
+     *
+     * @param createTime 记录创建时间
+     * @return 主表名
+     */
+    String getLogTableName(Date createTime)
+    {
+        return getLogTableName(createTime == null ? System.currentTimeMillis() : createTime.getTime());
+    }
+
+    private String getLogTableName(long millis)
+    {
+        if (!splitEnable)
         {
-            Calendar calendar = Calendar.getInstance();
-            String calendarMonth;
-            if (calendar.get(Calendar.MONTH) < 9)
-            {
-                calendarMonth = "0" + (calendar.get(Calendar.MONTH) + 1);
-            } else
+            return defaultTableName;
+        }
+        return getPeriod(millis).tableName;
+    }
+
+    private Period getPeriod(long millis)
+    {
+        Period period = currentPeriod;
+        if (!period.contains(millis))
+        {
+            period = Period.of(millis, preTableName);
+            // 只缓存向前滚动的月份，补写历史月份的记录不冲掉当月缓存
+            if (period.start > currentPeriod.start)
             {
-                calendarMonth = String.valueOf((calendar.get(Calendar.MONTH) + 1));
+                currentPeriod = period;
             }
-            return preTableName + calendar.get(Calendar.YEAR) + calendarMonth;
-        } else
+        }
+        return period;
+    }
+
+    String getDtlTableName(String logTableName)
+    {
+        return logTableName + DTL_SUFFIX;
+    }
+
+    String getOverflowTableName(String logTableName)
+    {
+        return logTableName + OVF_SUFFIX;
+    }
+
+    /**
+     * 分表模式下确保当月与下月的审计表存在；同一月份内只检查一次，失败后间隔 {@link #ENSURE_RETRY_NANOS} 再重试
+     *
+     * @param connection 数据库连接
+     */
+    void ensureTables(Connection connection)
+    {
+        if (!splitEnable || connection == null)
         {
-            return defaultTableName;
+            return;
+        }
+        Period period = getPeriod(System.currentTimeMillis());
+        if (ensuredPeriodStart == period.start || isRetryPending())
+        {
+            return;
+        }
+        synchronized (this)
+        {
+            if (ensuredPeriodStart == period.start || isRetryPending())
+            {
+                return;
+            }
+            try
+            {
+                createTablesIfAbsent(connection, period.tableName);
+                createTablesIfAbsent(connection, period.next().tableName);
+                ensuredPeriodStart = period.start;
+                ensureFailedAt = 0L;
+            } catch (SQLException e)
+            {
+                // System.nanoTime 可能为 0，以 1 代替以区分“没有失败”
+                long now = System.nanoTime();
+                ensureFailedAt = now == 0L ? 1L : now;
+                rateLimitedLogger.error(preTableName, "Error occurs when creating audit log tables " + period.tableName + ".", e);
+            }
         }
+    }
+
+    private boolean isRetryPending()
+    {
+        long failedAt = ensureFailedAt;
+        return failedAt != 0L && System.nanoTime() - failedAt < ENSURE_RETRY_NANOS;
+    }
 
+    private void createTablesIfAbsent(Connection connection, String logTableName) throws SQLException
+    {
+        createTableIfAbsent(connection, logTableName, CREATE_LOG_TABLE_SQL, CREATE_LOG_INDEX_SQL);
+        createTableIfAbsent(connection, getDtlTableName(logTableName), CREATE_DTL_TABLE_SQL, CREATE_DTL_INDEX_SQL);
+        createTableIfAbsent(connection, getOverflowTableName(logTableName), CREATE_OVF_TABLE_SQL, CREATE_OVF_INDEX_SQL);
     }
 
-    String getCurrentValidTableName()
+    private void createTableIfAbsent(Connection connection, String tableName, String createSql, String createIndexSql) throws SQLException
     {
-        return currentValidTableName;
+        try (ResultSet resultSet = connection.getMetaData().getTables(connection.getCatalog(),
+                connection.getMetaData().getUserName(), tableName, new String[]{"TABLE"}))
+        {
+            if (resultSet.next())
+            {
+                return;
+            }
+        }
+        try (Statement statement = connection.createStatement())
+        {
+            statement.execute(String.format(AUTONOMOUS_DDL, String.format(createSql, tableName)));
+            statement.execute(String.format(AUTONOMOUS_DDL, String.format(createIndexSql, tableName)));
+            logger.info("Audit log table {} created.", tableName);
+        }
     }
 
     Boolean getSplitEnable()
     {
         return splitEnable;
     }
+
+    AuditStorageMode getStorageMode()
+    {
+        return storageMode;
+    }
+
+    int getOverflowThreshold()
+    {
+        return overflowThreshold;
+    }
+
+    DescriptionMode getDescriptionMode()
+    {
+        return descriptionMode;
+    }
+
+    /**
+     * 自然月区间 [start, end)，按 ID 时间戳的固定偏移划分，与ID中的年月一致
+     */
+    private static final class Period
+    {
+        private final long start;
+        private final long end;
+        private final String tableName;
+        private final String preTableName;
+        private final YearMonth yearMonth;
+
+        private Period(YearMonth yearMonth, String preTableName)
+        {
+            ZoneOffset zone = UniqueIdGenerator.getTimeOffset();
+            this.yearMonth = yearMonth;
+            this.preTableName = preTableName;
+            this.start = yearMonth.atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            this.end = yearMonth.plusMonths(1).atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            this.tableName = preTableName + (yearMonth.getYear() * 100 + yearMonth.getMonthValue());
+        }
+
+        static Period of(long millis, String preTableName)
+        {
+            LocalDate date = Instant.ofEpochMilli(millis).atOffset(UniqueIdGenerator.getTimeOffset()).toLocalDate();
+            return new Period(YearMonth.from(date), preTableName);
+        }
+
+        Period next()
+        {
+            return new Period(yearMonth.plusMonths(1), preTableName);
+        }
+
+        boolean contains(long millis)
+        {
+            return millis >= start && millis < end;
+        }
+    }
 }
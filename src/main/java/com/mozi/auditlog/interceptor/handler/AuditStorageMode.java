@@ -0,0 +1,29 @@
+package com.mozi.auditlog.interceptor.handler;
+
+/**
+ * 审计明细存储模式
+ */
+public enum AuditStorageMode
+{
+    /**
+     * 每个变更字段写一行 TB_AUDIT_DIC_LOG_DTL（默认）
+     */
+    row,
+
+    /**
+     * 一行数据的全部变更编码后写入主表 TC_CHANGE_SET，不写明细表
+     */
+    compact;
+
+    public static AuditStorageMode of(String value)
+    {
+        for (AuditStorageMode mode : values())
+        {
+            if (mode.name().equalsIgnoreCase(value == null ? null : value.trim()))
+            {
+                return mode;
+            }
+        }
+        return row;
+    }
+}
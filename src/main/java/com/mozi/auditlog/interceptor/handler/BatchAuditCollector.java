@@ -0,0 +1,162 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.metrics.AuditMetrics;
+import com.mozi.auditlog.metrics.AuditPhase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BatchExecutor模式下的审计收集器
+ * <p>
+ * BATCH模式下 Executor.update 每行调用一次，真正执行发生在 flushStatements。
+ * 收集器在 update 时只登记处理器，flush 前按 MappedStatement 分组合并前镜像查询，
+ * flush 后统一生成审计日志并一次批量写入。
+ * <p>
+ * 注意：同一批次内先插入后删除/更新同一行时，合并前镜像看不到尚未执行的插入。
+ */
+public class BatchAuditCollector
+{
+    private static final Logger logger = LoggerFactory.getLogger(BatchAuditCollector.class);
+
+    /**
+     * 分组键 -> 同组待处理语句，保持登记顺序
+     */
+    private final Map<String, PendingGroup> pendingGroups = new LinkedHashMap<>();
+
+    /**
+     * 登记一条批量语句
+     *
+     * @param statementId MappedStatement ID
+     * @param handler     SQL处理器
+     * @param parameter   语句参数
+     */
+    public void add(String statementId, ISQLHandler handler, Object parameter)
+    {
+        if (!(handler instanceof AbstractSQLAuditHandler))
+        {
+            return;
+        }
+        AbstractSQLAuditHandler auditHandler = (AbstractSQLAuditHandler) handler;
+        String groupKey = statementId + '#' + auditHandler.getBatchGroupKey();
+        pendingGroups.computeIfAbsent(groupKey, k -> new PendingGroup()).add(auditHandler, parameter);
+    }
+
+    public boolean isEmpty()
+    {
+        return pendingGroups.isEmpty();
+    }
+
+    /**
+     * flush 之前调用：各组合并查询前镜像
+     */
+    public void beforeFlush()
+    {
+        for (PendingGroup group : pendingGroups.values())
+        {
+            AbstractSQLAuditHandler leader = group.leader();
+            long start = System.nanoTime();
+            try
+            {
+                leader.preHandleBatch(group.handlers);
+            } catch (Exception e)
+            {
+                logger.error("记录修改日志异常", e);
+                group.failed = true;
+            }
+            metricsOf(leader).record(AuditPhase.preHandle, leader.getOperationType(), leader.getCurrentDataTable(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * flush 之后调用：生成全部审计日志并一次批量写入，随后清空收集器
+     */
+    public void afterFlush()
+    {
+        try
+        {
+            if (pendingGroups.isEmpty())
+            {
+                return;
+            }
+            List<AuditLog> auditLogs = new ArrayList<>();
+            AbstractSQLAuditHandler writer = null;
+            for (PendingGroup group : pendingGroups.values())
+            {
+                AbstractSQLAuditHandler leader = group.leader();
+                long start = System.nanoTime();
+                try
+                {
+                    auditLogs.addAll(leader.buildBatchAuditLogs(group.handlers, group.parameters));
+                    writer = leader;
+                } catch (Exception e)
+                {
+                    logger.error("记录修改日志异常", e);
+                    group.failed = true;
+                }
+                metricsOf(leader).record(AuditPhase.postImage, leader.getOperationType(), leader.getCurrentDataTable(), System.nanoTime() - start);
+            }
+            boolean saved = true;
+            if (writer != null)
+            {
+                long start = System.nanoTime();
+                saved = writer.saveAuditLog(auditLogs);
+                metricsOf(writer).record(AuditPhase.save, writer.getOperationType(), writer.getCurrentDataTable(), System.nanoTime() - start);
+            }
+            for (PendingGroup group : pendingGroups.values())
+            {
+                AbstractSQLAuditHandler leader = group.leader();
+                AuditMetrics auditMetrics = metricsOf(leader);
+                for (int i = 0; i < group.handlers.size(); i++)
+                {
+                    if (saved && !group.failed)
+                    {
+                        auditMetrics.audited(leader.getOperationType(), leader.getCurrentDataTable());
+                    } else
+                    {
+                        auditMetrics.failed(leader.getOperationType(), leader.getCurrentDataTable());
+                    }
+                }
+            }
+        } finally
+        {
+            clear();
+        }
+    }
+
+    /**
+     * 丢弃所有待处理语句（回滚或关闭时调用）
+     */
+    public void clear()
+    {
+        pendingGroups.clear();
+    }
+
+    private static AuditMetrics metricsOf(AbstractSQLAuditHandler handler)
+    {
+        return handler.getDbMetaDataHolder().getAuditMetrics();
+    }
+
+    private static class PendingGroup
+    {
+        private final List<AbstractSQLAuditHandler> handlers = new ArrayList<>();
+        private final List<Object> parameters = new ArrayList<>();
+        private boolean failed;
+
+        void add(AbstractSQLAuditHandler handler, Object parameter)
+        {
+            handlers.add(handler);
+            parameters.add(parameter);
+        }
+
+        AbstractSQLAuditHandler leader()
+        {
+            return handlers.get(0);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.mozi.auditlog.interceptor.handler;
+
+/**
+ * update/delete 前后镜像的行定位方式
+ */
+public enum CaptureMode
+{
+    /**
+     * 按主键定位（默认），没有主键的表自动改用 ROWID
+     */
+    primaryKey,
+
+    /**
+     * 前镜像同时查询 ROWID，后镜像按绑定的 ROWID 列表回查；主键值仍记录在 TC_PRIMARY_KEY_VALUE
+     */
+    rowid;
+
+    public static CaptureMode of(String value)
+    {
+        for (CaptureMode mode : values())
+        {
+            if (mode.name().equalsIgnoreCase(value == null ? null : value.trim()))
+            {
+                return mode;
+            }
+        }
+        return primaryKey;
+    }
+}
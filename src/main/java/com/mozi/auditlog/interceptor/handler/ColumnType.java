@@ -0,0 +1,81 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import java.sql.Types;
+
+/**
+ * 元数据 DATA_TYPE（{@link Types}）的归类，{@link ValueComparator} 与 {@link ValueEncoder} 据此按列选定比较与编码方式
+ */
+enum ColumnType
+{
+    number, datetime, time, character, binary, clob, blob, other;
+
+    /**
+     * Oracle 驱动的 TIMESTAMP WITH TIME ZONE、TIMESTAMP WITH LOCAL TIME ZONE、BINARY_FLOAT、BINARY_DOUBLE
+     */
+    private static final int ORACLE_TIMESTAMPTZ = -101;
+    private static final int ORACLE_TIMESTAMPLTZ = -102;
+    private static final int ORACLE_BINARY_FLOAT = 100;
+    private static final int ORACLE_BINARY_DOUBLE = 101;
+
+    /**
+     * @param dataType 元数据中的 DATA_TYPE
+     * @return 该类型的归类，未列出的类型为 {@link #other}
+     */
+    static ColumnType of(int dataType)
+    {
+        switch (dataType)
+        {
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+            case ORACLE_BINARY_FLOAT:
+            case ORACLE_BINARY_DOUBLE:
+                return number;
+            case Types.DATE:
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+            case ORACLE_TIMESTAMPTZ:
+            case ORACLE_TIMESTAMPLTZ:
+                return datetime;
+            case Types.TIME:
+            case Types.TIME_WITH_TIMEZONE:
+                return time;
+            case Types.CHAR:
+            case Types.NCHAR:
+                return character;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return binary;
+            case Types.CLOB:
+            case Types.NCLOB:
+                return clob;
+            case Types.BLOB:
+                return blob;
+            default:
+                return other;
+        }
+    }
+
+    /**
+     * 去掉 CHAR 列的尾部填充空格
+     *
+     * @param value 值
+     * @return 去掉尾部空格后的值，没有尾部空格时返回原值
+     */
+    static String stripTrailingSpaces(String value)
+    {
+        int end = value.length();
+        while (end > 0 && value.charAt(end - 1) == ' ')
+        {
+            end--;
+        }
+        return end == value.length() ? value : value.substring(0, end);
+    }
+}
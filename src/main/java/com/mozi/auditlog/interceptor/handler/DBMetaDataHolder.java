@@ -1,133 +1,199 @@
 package com.mozi.auditlog.interceptor.handler;
 
-import org.apache.commons.collections.map.CaseInsensitiveMap;
+import com.mozi.auditlog.metrics.AuditMetrics;
+import com.mozi.auditlog.overload.CaptureGuard;
+import com.mozi.auditlog.sink.AuditSink;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
+/**
+ * 单个拦截器的元数据入口：审计表配置与运行指标属于本实例，表元数据取自按 schema 共享的 {@link SchemaMetaData}
+ */
 public class DBMetaDataHolder
 {
     private static final Logger logger = LoggerFactory.getLogger(DBMetaDataHolder.class);
 
-    @SuppressWarnings("unchecked")
-    private final Map<String, String> primaryKeys = new CaseInsensitiveMap();
+    /**
+     * 见 {@link ValueEncoder#DEFAULT_LOB_MAX_LENGTH}
+     */
+    public static final int DEFAULT_LOB_MAX_LENGTH = ValueEncoder.DEFAULT_LOB_MAX_LENGTH;
 
-    @SuppressWarnings("unchecked")
-    private final Map<String, List<String>> tableColumns = new CaseInsensitiveMap();
-
-    private Boolean initialized = Boolean.FALSE;
+    private volatile SchemaMetaData schemaMetaData;
     private AuditLogTableCreator auditLogTableCreator;
+    private final AuditMetrics auditMetrics;
+    private final CaptureGuard captureGuard;
+    private final CaptureMode captureMode;
+    private final AuditSink auditSink;
+
+    /**
+     * LOB 写入全文的长度上限，见 {@link ValueEncoder}
+     */
+    private final int lobMaxLength;
+
+    public DBMetaDataHolder(AuditLogTableCreator auditLogTableCreator, AuditMetrics auditMetrics)
+    {
+        this(auditLogTableCreator, auditMetrics, CaptureGuard.of(new Properties()));
+    }
+
+    public DBMetaDataHolder(AuditLogTableCreator auditLogTableCreator, AuditMetrics auditMetrics, CaptureGuard captureGuard)
+    {
+        this(auditLogTableCreator, auditMetrics, captureGuard, CaptureMode.primaryKey);
+    }
+
+    public DBMetaDataHolder(AuditLogTableCreator auditLogTableCreator, AuditMetrics auditMetrics, CaptureGuard captureGuard, CaptureMode captureMode)
+    {
+        this(auditLogTableCreator, auditMetrics, captureGuard, captureMode, new JdbcAuditSink(auditLogTableCreator, captureGuard));
+    }
+
+    public DBMetaDataHolder(AuditLogTableCreator auditLogTableCreator, AuditMetrics auditMetrics, CaptureGuard captureGuard, CaptureMode captureMode,
+                            AuditSink auditSink)
+    {
+        this(auditLogTableCreator, auditMetrics, captureGuard, captureMode, auditSink, DEFAULT_LOB_MAX_LENGTH);
+    }
 
-    public DBMetaDataHolder(AuditLogTableCreator auditLogTableCreator)
+    public DBMetaDataHolder(AuditLogTableCreator auditLogTableCreator, AuditMetrics auditMetrics, CaptureGuard captureGuard, CaptureMode captureMode,
+                            AuditSink auditSink, int lobMaxLength)
     {
+        if (lobMaxLength < 0)
+        {
+            throw new IllegalArgumentException("lobMaxLength must not be negative: " + lobMaxLength);
+        }
         this.auditLogTableCreator = auditLogTableCreator;
+        this.auditMetrics = auditMetrics;
+        this.captureGuard = captureGuard;
+        this.captureMode = captureMode;
+        this.auditSink = auditSink;
+        this.lobMaxLength = lobMaxLength;
     }
 
     public void init(Connection connection)
     {
-        if (initialized == Boolean.FALSE || hasNoCurrentAuditLogTable())
+        if (auditSink.isTransactional())
+        {
+            auditLogTableCreator.ensureTables(connection);
+        }
+        if (connection == null)
+        {
+            return;
+        }
+        SchemaMetaData schema = schemaMetaData;
+        if (schema == null)
         {
             synchronized (this)
             {
-                if (connection != null)
+                schema = schemaMetaData;
+                if (schema == null)
                 {
-                    if (initialized == Boolean.FALSE)
+                    try
                     {
-                        try
-                        {
-                            ResultSet resultSet = connection.getMetaData().getTables(connection.getCatalog(),
-                                    connection.getMetaData().getUserName(), "%", new String[]{"TABLE"});
-                            while (resultSet.next())
-                            {
-                                String tableName = resultSet.getString("TABLE_NAME");
-                                buildOneSingleTableMetaData(connection, tableName);
-                            }
-                            resultSet.close();
-                            initialized = Boolean.TRUE;
-                        } catch (SQLException e)
-                        {
-                            logger.error("Error occurs when retrieving audit log table meta data.", e);
-                        }
-                    }
-
-                    if (hasNoCurrentAuditLogTable())
+                        schema = SchemaMetaDataRegistry.of(connection);
+                    } catch (SQLException e)
                     {
-                        throw new RuntimeException("No audit log table found.");
+                        logger.error("Error occurs when resolving schema of audit connection.", e);
+                        return;
                     }
+                    schemaMetaData = schema;
                 }
             }
         }
+        schema.load(connection);
+        if (auditSink.isTransactional() && schema.isLoaded() && hasNoCurrentAuditLogTable(schema) && !schema.loadTable(connection, auditLogTableCreator.getCurrentTableName()))
+        {
+            throw new RuntimeException("No audit log table found.");
+        }
     }
 
-    private Boolean hasNoCurrentAuditLogTable()
+    private boolean hasNoCurrentAuditLogTable(SchemaMetaData schema)
     {
+        if (auditLogTableCreator.getSplitEnable())
+        {
+            // 分表模式下的月表由 AuditLogTableCreator 按需创建
+            return false;
+        }
         String currentTableName = auditLogTableCreator.getCurrentTableName();
-        return !primaryKeys.containsKey(currentTableName) || !tableColumns.containsKey(currentTableName);
+        return !schema.getPrimaryKeys().containsKey(currentTableName) || !schema.getTableColumns().containsKey(currentTableName);
+    }
+
+    Map<String, String> getPrimaryKeys()
+    {
+        return schemaMetaData.getPrimaryKeys();
     }
 
-    private void buildOneSingleTableMetaData(Connection connection, String tableName)
+    Map<String, List<String>> getTableColumns()
     {
-        primaryKeys.put(tableName, retrievePrimaryKey(connection, tableName));
-        tableColumns.put(tableName, retrieveColumns(connection, tableName));
+        return schemaMetaData.getTableColumns();
     }
 
-    private String retrievePrimaryKey(Connection connection, String table)
+    /**
+     * 取出若干列预先选定的比较方式，元数据中没有的表或列按 {@link ValueComparator#generic} 比较
+     *
+     * @param tableName 表名
+     * @param columns   列名
+     * @return 与 columns 一一对应的比较方式
+     */
+    ValueComparator[] getComparators(String tableName, List<String> columns)
     {
-        String primaryKey = null;
-        try
+        Map<String, ValueComparator> tableComparators = schemaMetaData.getColumnComparators().get(tableName);
+        ValueComparator[] comparators = new ValueComparator[columns.size()];
+        for (int i = 0; i < comparators.length; i++)
         {
-            ResultSet resultSet = connection.getMetaData().getPrimaryKeys(null, connection.getMetaData().getUserName(), table);
-            if (resultSet.next())
-                primaryKey = resultSet.getString("COLUMN_NAME");
-            resultSet.close();
-        } catch (SQLException e)
-        {
-            e.printStackTrace();
+            ValueComparator comparator = tableComparators == null ? null : tableComparators.get(columns.get(i));
+            comparators[i] = comparator == null ? ValueComparator.generic : comparator;
         }
-        return primaryKey;
+        return comparators;
     }
 
-    private List<String> retrieveColumns(Connection connection, String table)
+    /**
+     * @return 本实例所在 schema 的共享元数据，首次 {@link #init(Connection)} 之前为 null
+     */
+    public SchemaMetaData getSchemaMetaData()
     {
-        List<String> columns = null;
-        if (!tableColumns.containsKey(table))
-        {
-            try
-            {
-                columns = new ArrayList<>();
-                ResultSet resultSet = connection.getMetaData().getColumns(connection.getCatalog(), connection.getMetaData().getUserName(), table, "%");
-                while (resultSet.next())
-                {
-                    String columnName = resultSet.getString("COLUMN_NAME");
-                    columns.add(columnName);
-                }
-                tableColumns.put(table, columns);
-                resultSet.close();
-            } catch (SQLException e)
-            {
-                e.printStackTrace();
-            }
-        } else
-        {
-            columns = tableColumns.get(table);
-        }
-        return columns;
+        return schemaMetaData;
     }
 
-    Map<String, String> getPrimaryKeys()
+    AuditMetrics getAuditMetrics()
     {
-        return primaryKeys;
+        return auditMetrics;
     }
 
-    Map<String, List<String>> getTableColumns()
+    CaptureGuard getCaptureGuard()
+    {
+        return captureGuard;
+    }
+
+    /**
+     * 表的前后镜像是否按 ROWID 定位：配置为 rowid，或表没有主键
+     *
+     * @param tableName 表名
+     * @return 是否按 ROWID 定位
+     */
+    boolean isRowIdCapture(String tableName)
+    {
+        return captureMode == CaptureMode.rowid || getPrimaryKeys().get(tableName) == null;
+    }
+
+    /**
+     * @return 行地址伪列名，Oracle 为 ROWID，H2 为 _ROWID_
+     */
+    String getRowIdColumn()
+    {
+        return schemaMetaData.getRowIdColumn();
+    }
+
+    int getLobMaxLength()
+    {
+        return lobMaxLength;
+    }
+
+    AuditSink getAuditSink()
     {
-        return tableColumns;
+        return auditSink;
     }
 
     AuditLogTableCreator getAuditLogTableCreator()
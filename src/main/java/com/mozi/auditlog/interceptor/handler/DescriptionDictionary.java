@@ -0,0 +1,121 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.domain.AuditLogDtl;
+import com.mozi.auditlog.overload.CaptureGuard;
+import com.mozi.auditlog.overload.CapturePhase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 表、字段描述字典（descriptionMode=dictionary）
+ * <p>
+ * 描述按 业务表名 + 字段名 存入 {@link #TABLE_NAME}，表描述的字段名记为 {@link #TABLE_LEVEL}；
+ * 审计记录本身已有表名、字段名，以此引用字典，不再重复写描述。
+ * 进程内记住已同步的描述，只有首次出现或注释变化时才 merge。
+ * merge 在自治事务中执行并立即提交，不随业务事务回滚，也不在业务事务结束前一直持有字典行锁；
+ * 并发会话同时插入同一项时唯一约束冲突视为已写入。自治事务提交后才记为已同步。
+ * 字典仍可能缺项（例如 merge 失败），查询侧此时回退到 user_tab_comments/user_col_comments。
+ */
+class DescriptionDictionary
+{
+    static final String TABLE_NAME = "TB_AUDIT_DIC_DESC";
+
+    /**
+     * 表描述在字典中的字段名
+     */
+    static final String TABLE_LEVEL = "*";
+
+    private static final String MERGE_SQL = "merge into " + TABLE_NAME + " d using (select cast(? as VARCHAR2(48)) TC_TABLE_NAME, " +
+            "cast(? as VARCHAR2(48)) TC_COLUMN_NAME, cast(? as NVARCHAR2(1000)) TC_DESCRIPTION from dual) s " +
+            "on (d.TC_TABLE_NAME = s.TC_TABLE_NAME and d.TC_COLUMN_NAME = s.TC_COLUMN_NAME) " +
+            "when matched then update set d.TC_DESCRIPTION = s.TC_DESCRIPTION, d.TC_UPDATE_TIME = ? " +
+            "when not matched then insert (TC_TABLE_NAME, TC_COLUMN_NAME, TC_DESCRIPTION, TC_UPDATE_TIME) " +
+            "values (s.TC_TABLE_NAME, s.TC_COLUMN_NAME, s.TC_DESCRIPTION, ?)";
+
+    /**
+     * 在自治事务中 merge 并提交；另一会话已插入同一项时（ORA-00001）视为成功
+     */
+    private static final String AUTONOMOUS_MERGE = "DECLARE PRAGMA AUTONOMOUS_TRANSACTION; BEGIN " + MERGE_SQL + "; COMMIT; " +
+            "EXCEPTION WHEN DUP_VAL_ON_INDEX THEN ROLLBACK; END;";
+
+    /**
+     * 表名 + 字段名 -> 已同步的描述（空串表示无描述）
+     */
+    private final Map<String, String> synced = new ConcurrentHashMap<>();
+
+    private final CaptureGuard captureGuard;
+
+    DescriptionDictionary(CaptureGuard captureGuard)
+    {
+        this.captureGuard = captureGuard;
+    }
+
+    /**
+     * 把批次中新出现或已变化的描述写入字典，写入在自治事务中提交，与业务事务无关
+     *
+     * @param connection 写审计的连接
+     * @param auditLogs  审计日志
+     */
+    void merge(Connection connection, List<AuditLog> auditLogs) throws SQLException
+    {
+        Map<String, String[]> pending = new LinkedHashMap<>();
+        for (AuditLog auditLog : auditLogs)
+        {
+            if (auditLog == null || auditLog.getTableName() == null)
+            {
+                continue;
+            }
+            collect(pending, auditLog.getTableName(), TABLE_LEVEL, auditLog.getTableDescription());
+            for (AuditLogDtl auditLogDtl : auditLog.getAuditLogDtlList())
+            {
+                if (auditLogDtl != null && auditLogDtl.getColumnName() != null && !AuditLogDtl.CAPTURE_MARKER_COLUMN.equals(auditLogDtl.getColumnName()))
+                {
+                    collect(pending, auditLog.getTableName(), auditLogDtl.getColumnName(), auditLogDtl.getColumnDescription());
+                }
+            }
+        }
+        if (pending.isEmpty())
+        {
+            return;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement statement = connection.prepareStatement(AUTONOMOUS_MERGE))
+        {
+            captureGuard.apply(statement, CapturePhase.save);
+            for (String[] entry : pending.values())
+            {
+                int i = 1;
+                statement.setString(i++, entry[0]);
+                statement.setString(i++, entry[1]);
+                statement.setString(i++, entry[2]);
+                statement.setTimestamp(i++, now);
+                statement.setTimestamp(i, now);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        // 各项已在自治事务中提交
+        for (Map.Entry<String, String[]> entry : pending.entrySet())
+        {
+            synced.put(entry.getKey(), Objects.toString(entry.getValue()[2], ""));
+        }
+    }
+
+    private void collect(Map<String, String[]> pending, String tableName, String columnName, String description)
+    {
+        String key = tableName + '\u0000' + columnName;
+        if (!Objects.toString(description, "").equals(synced.get(key)))
+        {
+            pending.put(key, new String[]{tableName, columnName, description});
+        }
+    }
+}
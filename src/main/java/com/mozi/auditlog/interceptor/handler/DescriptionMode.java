@@ -0,0 +1,29 @@
+package com.mozi.auditlog.interceptor.handler;
+
+/**
+ * 表描述、字段描述的存储方式
+ */
+public enum DescriptionMode
+{
+    /**
+     * 每条审计记录写入 TC_TABLE_DESCRIPTION / TC_COLUMN_DESCRIPTION（默认）
+     */
+    inline,
+
+    /**
+     * 描述只写入字典表 TB_AUDIT_DIC_DESC，审计记录中为 null，查询时按表名、字段名补回
+     */
+    dictionary;
+
+    public static DescriptionMode of(String value)
+    {
+        for (DescriptionMode mode : values())
+        {
+            if (mode.name().equalsIgnoreCase(value == null ? null : value.trim()))
+            {
+                return mode;
+            }
+        }
+        return inline;
+    }
+}
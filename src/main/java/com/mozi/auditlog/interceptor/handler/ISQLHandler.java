@@ -1,8 +1,31 @@
 package com.mozi.auditlog.interceptor.handler;
 
+import com.mozi.auditlog.context.AuditContext;
+
 public interface ISQLHandler
 {
     void preHandle();
     boolean IsSkipTable();
     void postHandle(Object args);
+
+    /**
+     * 只写主表记录、不写明细（过载降级），须在 postHandle 之前设置
+     *
+     * @param headerOnly 是否只写主表记录
+     */
+    void setHeaderOnly(boolean headerOnly);
+
+    /**
+     * 本条语句的审计上下文，该语句生成的全部审计记录共用，须在 postHandle 之前设置
+     *
+     * @param auditContext 审计上下文
+     */
+    void setAuditContext(AuditContext auditContext);
+
+    /**
+     * 不查询前后镜像，只按影响行数写一条摘要记录（过载降级）
+     *
+     * @param rows 影响行数
+     */
+    void postHandleSummary(int rows);
 }
@@ -0,0 +1,325 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.domain.AuditLogDtl;
+import com.mozi.auditlog.overload.CaptureGuard;
+import com.mozi.auditlog.overload.CapturePhase;
+import com.mozi.auditlog.sink.AuditSink;
+import com.mozi.auditlog.util.AuditValueOverflow;
+import com.mozi.auditlog.util.ChangeSetCodec;
+import com.mozi.auditlog.util.UniqueIdGenerator;
+import org.apache.commons.collections.CollectionUtils;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 默认写入目标：在业务连接上写入审计表，主表与明细表各使用一条预编译语句批量写入
+ * <p>
+ * 审计表名按记录创建时间由 {@link AuditLogTableCreator} 解析，存储模式（行存储/紧凑）与超长值溢出按其配置；
+ * 每条语句设置写入阶段的超时，见 {@link CaptureGuard}。描述字典模式下表描述、字段描述写入 {@link DescriptionDictionary}，审计记录中为 null。
+ * 明细值已由审计处理器按列类型编码为规范文本，见 {@link ValueEncoder}。
+ */
+public class JdbcAuditSink implements AuditSink {
+    /**
+     * 审计日志主表插入SQL模板，表名由 AuditLogTableCreator 按记录创建时间解析
+     */
+    private static final String AUDIT_LOG_INSERT_SQL = "insert into %s " +
+            "(TC_AUDIT_LOG_ID,TC_TABLE_NAME,TC_TABLE_DESCRIPTION, TC_PRIMARY_KEY_VALUE,TC_OPERATION_TYPE, " +
+            "TC_CREATE_BY,TC_CREATE_NAME,TC_CREATE_TIME,TC_IP_ADDRESS,TC_SESSION_ID,TC_BATCH_ID) " +
+            "values(?,?,?,?,?,?,?,?,?,?,?)";
+    /**
+     * 紧凑存储模式下审计日志主表插入SQL模板，变更集写入 TC_CHANGE_SET
+     */
+    private static final String AUDIT_LOG_COMPACT_INSERT_SQL = "insert into %s " +
+            "(TC_AUDIT_LOG_ID,TC_TABLE_NAME,TC_TABLE_DESCRIPTION, TC_PRIMARY_KEY_VALUE,TC_OPERATION_TYPE, " +
+            "TC_CREATE_BY,TC_CREATE_NAME,TC_CREATE_TIME,TC_IP_ADDRESS,TC_SESSION_ID,TC_BATCH_ID,TC_CHANGE_SET) " +
+            "values(?,?,?,?,?,?,?,?,?,?,?,?)";
+    /**
+     * 审计日志明细表 TB_AUDIT_DIC_LOG_DTL 插入SQL模板
+     */
+    private static final String AUDIT_LOG_DTL_INSERT_SQL = "insert into %s " +
+            "(TC_AUDIT_LOGD_ID,TC_AUDIT_LOG_ID,TC_COLUMN_NAME, TC_COLUMN_DESCRIPTION,TC_NEW_VALUE, TC_OLD_VALUE, " +
+            "TC_NEW_OVERFLOW_ID, TC_OLD_OVERFLOW_ID) " +
+            "values(?,?,?,?,?,?,?,?)";
+    /**
+     * 超长值溢出表 TB_AUDIT_DIC_LOG_OVF 插入SQL模板
+     */
+    private static final String AUDIT_LOG_OVF_INSERT_SQL = "insert into %s " +
+            "(TC_OVERFLOW_ID,TC_AUDIT_LOGD_ID,TC_CONTENT_HASH,TC_ORIGINAL_LENGTH,TC_CONTENT) " +
+            "values(?,?,?,?,?)";
+    /**
+     * 审计日志批量写入时每批次的最大行数
+     */
+    private static final int AUDIT_BATCH_SIZE = 500;
+
+    private final AuditLogTableCreator auditLogTableCreator;
+
+    private final CaptureGuard captureGuard;
+
+    /**
+     * 描述字典，inline 模式下为 null
+     */
+    private final DescriptionDictionary descriptionDictionary;
+
+    public JdbcAuditSink(AuditLogTableCreator auditLogTableCreator, CaptureGuard captureGuard) {
+        this.auditLogTableCreator = auditLogTableCreator;
+        this.captureGuard = captureGuard;
+        this.descriptionDictionary = auditLogTableCreator.getDescriptionMode() == DescriptionMode.dictionary
+                ? new DescriptionDictionary(captureGuard) : null;
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return true;
+    }
+
+    @Override
+    public void write(Connection connection, List<AuditLog> auditLogs) throws SQLException {
+        if (descriptionDictionary != null) {
+            descriptionDictionary.merge(connection, auditLogs);
+        }
+        for (Map.Entry<String, List<AuditLog>> entry : groupByLogTable(auditLogTableCreator, auditLogs).entrySet()) {
+            if (auditLogTableCreator.getStorageMode() == AuditStorageMode.compact) {
+                saveCompactAuditLog(connection, entry.getKey(), entry.getValue());
+            } else {
+                saveRowAuditLog(connection, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 按记录创建时间将审计日志分到各自的主表，未分表或同月时只有一组
+     *
+     * @param auditLogTableCreator 审计表名解析
+     * @param auditLogList         审计日志表
+     * @return 主表名 -> 审计日志
+     */
+    private static Map<String, List<AuditLog>> groupByLogTable(AuditLogTableCreator auditLogTableCreator, List<AuditLog> auditLogList) {
+        Map<String, List<AuditLog>> auditLogMap = new LinkedHashMap<>();
+        String lastTableName = null;
+        List<AuditLog> lastList = null;
+        for (AuditLog auditLog : auditLogList) {
+            if (Objects.isNull(auditLog)) {
+                continue;
+            }
+            String tableName = auditLogTableCreator.getLogTableName(auditLog.getCreateTime());
+            if (!tableName.equals(lastTableName)) {
+                lastTableName = tableName;
+                lastList = auditLogMap.computeIfAbsent(tableName, k -> new ArrayList<>());
+            }
+            lastList.add(auditLog);
+        }
+        return auditLogMap;
+    }
+
+    /**
+     * 行存储模式：每个变更字段写一行明细
+     *
+     * @param connection   连接
+     * @param logTableName 主表名
+     * @param auditLogList 审计日志表
+     */
+    private void saveRowAuditLog(Connection connection, String logTableName, List<AuditLog> auditLogList) throws SQLException {
+        PreparedStatement ovfStatement = null;
+        String overflowTableName = auditLogTableCreator.getOverflowTableName(logTableName);
+        try (PreparedStatement logStatement = connection.prepareStatement(String.format(AUDIT_LOG_INSERT_SQL, logTableName));
+             PreparedStatement dtlStatement = connection.prepareStatement(String.format(AUDIT_LOG_DTL_INSERT_SQL, auditLogTableCreator.getDtlTableName(logTableName)))) {
+            captureGuard.apply(logStatement, CapturePhase.save);
+            captureGuard.apply(dtlStatement, CapturePhase.save);
+            int logCount = 0;
+            int dtlCount = 0;
+            int ovfCount = 0;
+            int overflowThreshold = auditLogTableCreator.getOverflowThreshold();
+            // 遍历并保存所有审计日志
+            for (AuditLog auditLog : auditLogList) {
+                if (Objects.nonNull(auditLog)) {
+                    addAuditLogBatch(logStatement, auditLog);
+                    if (++logCount % AUDIT_BATCH_SIZE == 0) {
+                        logStatement.executeBatch();
+                    }
+                    List<AuditLogDtl> auditLogDtlList = auditLog.getAuditLogDtlList();
+                    if (CollectionUtils.isNotEmpty(auditLogDtlList)) {
+                        for (AuditLogDtl auditLogDtl : auditLogDtlList) {
+                            if (Objects.nonNull(auditLogDtl)) {
+                                Object newValue = auditLogDtl.getNewValue();
+                                Object oldValue = auditLogDtl.getOldValue();
+                                String newOverflowId = null;
+                                String oldOverflowId = null;
+                                if (isOverflow(newValue, overflowThreshold)) {
+                                    ovfStatement = ovfStatement != null ? ovfStatement : prepareOverflowStatement(connection, overflowTableName);
+                                    newOverflowId = addOverflowBatch(ovfStatement, auditLogDtl, newValue.toString());
+                                    newValue = null;
+                                    ovfCount++;
+                                }
+                                if (isOverflow(oldValue, overflowThreshold)) {
+                                    ovfStatement = ovfStatement != null ? ovfStatement : prepareOverflowStatement(connection, overflowTableName);
+                                    oldOverflowId = addOverflowBatch(ovfStatement, auditLogDtl, oldValue.toString());
+                                    oldValue = null;
+                                    ovfCount++;
+                                }
+                                addAuditLogDtlBatch(dtlStatement, auditLogDtl, newValue, oldValue, newOverflowId, oldOverflowId);
+                                if (++dtlCount % AUDIT_BATCH_SIZE == 0) {
+                                    dtlStatement.executeBatch();
+                                }
+                                if (ovfCount >= AUDIT_BATCH_SIZE) {
+                                    ovfStatement.executeBatch();
+                                    ovfCount = 0;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            if (logCount % AUDIT_BATCH_SIZE != 0) {
+                logStatement.executeBatch();
+            }
+            if (dtlCount % AUDIT_BATCH_SIZE != 0) {
+                dtlStatement.executeBatch();
+            }
+            if (ovfCount > 0) {
+                ovfStatement.executeBatch();
+            }
+        } finally {
+            if (ovfStatement != null) {
+                ovfStatement.close();
+            }
+        }
+    }
+
+    private PreparedStatement prepareOverflowStatement(Connection connection, String overflowTableName) throws SQLException {
+        PreparedStatement preparedStatement = connection.prepareStatement(String.format(AUDIT_LOG_OVF_INSERT_SQL, overflowTableName));
+        captureGuard.apply(preparedStatement, CapturePhase.save);
+        return preparedStatement;
+    }
+
+    /**
+     * 判断编码后的明细值是否需要溢出存储
+     */
+    private static boolean isOverflow(Object value, int overflowThreshold) {
+        return overflowThreshold > 0 && value instanceof CharSequence
+                && AuditValueOverflow.exceeds((CharSequence) value, overflowThreshold);
+    }
+
+    /**
+     * 将超长值压缩后加入溢出表批次
+     *
+     * @param preparedStatement 溢出表插入语句
+     * @param auditLogDtl       所属明细
+     * @param value             超长值
+     * @return 溢出记录ID
+     */
+    private String addOverflowBatch(PreparedStatement preparedStatement, AuditLogDtl auditLogDtl, String value) throws SQLException {
+        String overflowId = UniqueIdGenerator.generateUniqueId();
+        int i = 1;
+        preparedStatement.setString(i++, overflowId);
+        preparedStatement.setString(i++, auditLogDtl.getAuditLogdId());
+        preparedStatement.setString(i++, AuditValueOverflow.hash(value));
+        preparedStatement.setLong(i++, value.length());
+        preparedStatement.setBytes(i++, AuditValueOverflow.compress(value));
+        preparedStatement.addBatch();
+        return overflowId;
+    }
+
+    /**
+     * 紧凑存储模式：每行数据只写一条主表记录，变更集编码后存入 TC_CHANGE_SET
+     *
+     * @param connection   连接
+     * @param logTableName 主表名
+     * @param auditLogList 审计日志表
+     */
+    private void saveCompactAuditLog(Connection connection, String logTableName, List<AuditLog> auditLogList) throws SQLException {
+        try (PreparedStatement logStatement = connection.prepareStatement(String.format(AUDIT_LOG_COMPACT_INSERT_SQL, logTableName))) {
+            captureGuard.apply(logStatement, CapturePhase.save);
+            int logCount = 0;
+            for (AuditLog auditLog : auditLogList) {
+                if (Objects.nonNull(auditLog)) {
+                    int i = setAuditLogParameters(logStatement, auditLog);
+                    String changeSet = ChangeSetCodec.encode(auditLog.getAuditLogDtlList());
+                    if (changeSet == null) {
+                        logStatement.setNull(i, Types.CLOB);
+                    } else {
+                        logStatement.setCharacterStream(i, new StringReader(changeSet), changeSet.length());
+                    }
+                    logStatement.addBatch();
+                    if (++logCount % AUDIT_BATCH_SIZE == 0) {
+                        logStatement.executeBatch();
+                    }
+                }
+            }
+            if (logCount % AUDIT_BATCH_SIZE != 0) {
+                logStatement.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * 将单条审计日志加入主表批次
+     *
+     * @param preparedStatement 主表插入语句
+     * @param auditLog          审计日志对象
+     */
+    private void addAuditLogBatch(PreparedStatement preparedStatement, AuditLog auditLog) throws SQLException {
+        setAuditLogParameters(preparedStatement, auditLog);
+        preparedStatement.addBatch();
+    }
+
+    /**
+     * 设置主表公共字段参数
+     *
+     * @param preparedStatement 主表插入语句
+     * @param auditLog          审计日志对象
+     * @return 下一个参数位置
+     */
+    private int setAuditLogParameters(PreparedStatement preparedStatement, AuditLog auditLog) throws SQLException {
+        int i = 1;
+        preparedStatement.setString(i++, auditLog.getAuditLogId());
+        preparedStatement.setString(i++, auditLog.getTableName());
+        preparedStatement.setString(i++, descriptionDictionary == null ? auditLog.getTableDescription() : null);
+        preparedStatement.setString(i++, auditLog.getPrimaryKeyValue());
+        preparedStatement.setString(i++, auditLog.getOperationType());
+        // 设置操作员信息
+        preparedStatement.setString(i++, auditLog.getCreateBy());
+        preparedStatement.setString(i++, auditLog.getCreateName());
+        preparedStatement.setDate(i++, new java.sql.Date(auditLog.getCreateTime().getTime()));
+
+        preparedStatement.setString(i++, auditLog.getIpAddress());
+        //token
+        preparedStatement.setString(i++, auditLog.getSessionId());
+        //批次id
+        preparedStatement.setString(i++, auditLog.getBatchId());
+        return i;
+    }
+
+    /**
+     * 将单条审计日志明细加入明细表批次
+     *
+     * @param preparedStatement 明细表插入语句
+     * @param auditLogDtl       审计日志明细对象
+     * @param newValue          编码后的新值，溢出时为 null
+     * @param oldValue          编码后的旧值，溢出时为 null
+     * @param newOverflowId     新值溢出记录ID
+     * @param oldOverflowId     旧值溢出记录ID
+     */
+    private void addAuditLogDtlBatch(PreparedStatement preparedStatement, AuditLogDtl auditLogDtl, Object newValue, Object oldValue,
+                                     String newOverflowId, String oldOverflowId) throws SQLException {
+        int i = 1;
+        preparedStatement.setString(i++, auditLogDtl.getAuditLogdId());
+        preparedStatement.setString(i++, auditLogDtl.getAuditLogId());
+        preparedStatement.setString(i++, auditLogDtl.getColumnName());
+        preparedStatement.setString(i++, descriptionDictionary == null ? auditLogDtl.getColumnDescription() : null);
+        preparedStatement.setObject(i++, newValue);
+        preparedStatement.setObject(i++, oldValue);
+        preparedStatement.setString(i++, newOverflowId);
+        preparedStatement.setString(i++, oldOverflowId);
+        preparedStatement.addBatch();
+    }
+}
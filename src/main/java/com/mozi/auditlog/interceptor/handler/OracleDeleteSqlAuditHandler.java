@@ -3,6 +3,7 @@ package com.mozi.auditlog.interceptor.handler;
 import com.alibaba.druid.sql.SQLUtils;
 import com.alibaba.druid.sql.ast.SQLExpr;
 import com.alibaba.druid.sql.ast.SQLStatement;
+import com.alibaba.druid.sql.ast.expr.SQLBinaryOpExpr;
 import com.alibaba.druid.sql.ast.expr.SQLIdentifierExpr;
 import com.alibaba.druid.sql.ast.expr.SQLPropertyExpr;
 import com.alibaba.druid.sql.ast.statement.SQLExprTableSource;
@@ -14,7 +15,7 @@ import com.alibaba.druid.sql.dialect.oracle.ast.stmt.OracleSelectQueryBlock;
 import com.alibaba.druid.sql.parser.SQLStatementParser;
 import com.mozi.auditlog.domain.AuditLog;
 import com.mozi.auditlog.domain.AuditLogDtl;
-import org.apache.commons.collections.map.CaseInsensitiveMap;
+import com.mozi.auditlog.overload.CapturePhase;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,11 +25,14 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
+import java.util.Set;
+import com.mozi.auditlog.config.AuditConfig;
 
 public class OracleDeleteSqlAuditHandler extends AbstractSQLAuditHandler
 {
@@ -40,9 +44,14 @@ public class OracleDeleteSqlAuditHandler extends AbstractSQLAuditHandler
 
     private Boolean preHandled = Boolean.FALSE;
 
-    public OracleDeleteSqlAuditHandler(Connection connection, DBMetaDataHolder dbMetaDataHolder, String sql, String monitorTableRegex, String tableColumnPreFix, String nonMonitorTableRegex, CopyOnWriteArrayList<String> monitorTables, CopyOnWriteArrayList<String> nonMonitorTables)
+    /**
+     * 单次合并查询中最多合并的条件数
+     */
+    private static final int MERGED_CONDITION_SIZE = 500;
+
+    public OracleDeleteSqlAuditHandler(Connection connection, DBMetaDataHolder dbMetaDataHolder, String sql, AuditConfig auditConfig)
     {
-        super(connection, dbMetaDataHolder, sql, monitorTableRegex, tableColumnPreFix, nonMonitorTableRegex, monitorTables, nonMonitorTables);
+        super(connection, dbMetaDataHolder, sql, auditConfig);
     }
 
     @Override
@@ -90,104 +99,173 @@ public class OracleDeleteSqlAuditHandler extends AbstractSQLAuditHandler
     {
         if (getSqlStatement() instanceof OracleDeleteStatement)
         {
-        	OracleDeleteStatement deleteStatement = (OracleDeleteStatement) getSqlStatement();
-            SQLTableSource affectTableSource = deleteStatement.getTableSource() != null ? deleteStatement.getTableSource() : deleteStatement.getFrom();
-            List<String> affectAliasList = buildTableSourceAliases(affectTableSource);
-            SQLTableSource from = deleteStatement.getFrom() != null ? deleteStatement.getFrom() : deleteStatement.getTableSource();
-            SQLExpr where = deleteStatement.getWhere();
-            //SQLOrderBy orderBy = deleteStatement.getOrderBy();
-            //SQLLimit limit = deleteStatement.getLimit();
-            OracleSelectQueryBlock selectQueryBlock = new OracleSelectQueryBlock();
-            for (String alias : affectAliasList)
+            preHandle(Collections.singletonList(((OracleDeleteStatement) getSqlStatement()).getWhere()));
+        }
+    }
+
+    /**
+     * 批量模式下合并同组删除语句的条件，以少量集合查询获取删除前数据
+     *
+     * @param group 同组处理器（当前处理器位于首位）
+     */
+    @Override
+    void preHandleBatch(List<AbstractSQLAuditHandler> group)
+    {
+        if (getSqlStatement() instanceof OracleDeleteStatement)
+        {
+            List<SQLExpr> whereList = new ArrayList<>(group.size());
+            for (AbstractSQLAuditHandler handler : group)
+            {
+                whereList.add(((OracleDeleteStatement) handler.getSqlStatement()).getWhere());
+            }
+            preHandle(whereList);
+        }
+    }
+
+    private void preHandle(List<SQLExpr> whereList)
+    {
+        OracleDeleteStatement deleteStatement = (OracleDeleteStatement) getSqlStatement();
+        SQLTableSource affectTableSource = deleteStatement.getTableSource() != null ? deleteStatement.getTableSource() : deleteStatement.getFrom();
+        List<String> affectAliasList = buildTableSourceAliases(affectTableSource);
+        SQLTableSource from = deleteStatement.getFrom() != null ? deleteStatement.getFrom() : deleteStatement.getTableSource();
+        //SQLOrderBy orderBy = deleteStatement.getOrderBy();
+        //SQLLimit limit = deleteStatement.getLimit();
+        OracleSelectQueryBlock selectQueryBlock = new OracleSelectQueryBlock();
+        for (String alias : affectAliasList)
+        {
+            String tableName = getAliasToTableMap().get(alias);
+            String keyColumn = getDbMetaDataHolder().isRowIdCapture(tableName) ? getDbMetaDataHolder().getRowIdColumn() : getDbMetaDataHolder().getPrimaryKeys().get(tableName);
+            selectQueryBlock.getSelectList().add(new SQLSelectItem(SQLUtils.toSQLExpr(String.format("%s.%s", alias, keyColumn))));
+            for (String columnName : getDbMetaDataHolder().getTableColumns().get(getAliasToTableMap().get(alias)))
             {
                 selectQueryBlock.getSelectList().add(new SQLSelectItem(SQLUtils.toSQLExpr(
-                        String.format("%s.%s", alias, getDbMetaDataHolder().getPrimaryKeys().get(getAliasToTableMap().get(alias))))));
-                for (String columnName : getDbMetaDataHolder().getTableColumns().get(getAliasToTableMap().get(alias)))
-                {
-                    selectQueryBlock.getSelectList().add(new SQLSelectItem(SQLUtils.toSQLExpr(
-                            String.format("%s.%s", alias, columnName))));
-                }
+                        String.format("%s.%s", alias, columnName))));
             }
-            selectQueryBlock.setFrom(from);
-            selectQueryBlock.setWhere(where);
-            //selectQueryBlock.setOrderBy(orderBy);
-            //selectQueryBlock.setLimit(limit);
+        }
+        selectQueryBlock.setFrom(from);
+        //selectQueryBlock.setOrderBy(orderBy);
+        //selectQueryBlock.setLimit(limit);
+        auditLogsBeforeDelete = new ArrayList<>();
+        if (whereList.contains(null))
+        {
             querySql = trimSQLWhitespaces(SQLUtils.toOracleString(selectQueryBlock));
-            auditLogsBeforeDelete=getCurrentDataForTables();
-            preHandled = Boolean.TRUE;
+            addCurrentDataForTables(auditLogsBeforeDelete, new HashSet<>());
+        } else
+        {
+            // 同一行可能被同组多条语句命中，按表名+行定位键去重
+            Set<String> capturedKeys = new HashSet<>();
+            for (int fromIndex = 0; fromIndex < whereList.size(); fromIndex += MERGED_CONDITION_SIZE)
+            {
+                List<SQLExpr> chunk = whereList.subList(fromIndex, Math.min(fromIndex + MERGED_CONDITION_SIZE, whereList.size()));
+                selectQueryBlock.setWhere(chunk.size() == 1 ? chunk.get(0) : SQLBinaryOpExpr.or(new ArrayList<>(chunk)));
+                querySql = trimSQLWhitespaces(SQLUtils.toOracleString(selectQueryBlock));
+                addCurrentDataForTables(auditLogsBeforeDelete, capturedKeys);
+            }
         }
+        preHandled = Boolean.TRUE;
     }
 
     @Override
-    public void postHandle(Object args)
+    String getOperationType()
     {
-        if (preHandled)
+        return AuditLog.OperationEnum.delete.name();
+    }
+
+    @Override
+    List<AuditLog> buildAuditLogs(Object args)
+    {
+        if (preHandled && auditLogsBeforeDelete != null)
         {
-            saveAuditLog(auditLogsBeforeDelete);
+            return auditLogsBeforeDelete;
         }
+        return Collections.emptyList();
     }
 
+    /**
+     * 合并查询的删除前数据已覆盖同组所有语句，由当前处理器统一生成
+     */
+    @Override
+    List<AuditLog> buildBatchAuditLogs(List<AbstractSQLAuditHandler> group, List<Object> parameters)
+    {
+        return buildAuditLogs(null);
+    }
+
+    private void addCurrentDataForTables(List<AuditLog> auditLogs, Set<String> capturedKeys)
+    {
+        for (Map.Entry<String, AuditLog> entry : getCurrentDataForTables().entrySet())
+        {
+            if (capturedKeys.add(entry.getKey()))
+            {
+                auditLogs.add(entry.getValue());
+            }
+        }
+    }
 
-    @SuppressWarnings("unchecked")
-    private  List<AuditLog> getCurrentDataForTables()
+    /**
+     * 查询删除前的数据，每行首列为行定位键（ROWID 或主键），其后为全部列
+     *
+     * @return 表名 + 行定位键 -> 审计日志，熔断或查询失败时为空
+     */
+    private Map<String, AuditLog> getCurrentDataForTables()
     {
-        Map<String, List<List<AuditLog>>> resultListMap = new CaseInsensitiveMap();
+        Map<String, AuditLog> auditLogMap = new LinkedHashMap<>();
+        if (!allowCapture(getCurrentDataTable(), CapturePhase.preImage))
+        {
+            return auditLogMap;
+        }
         PreparedStatement statement = null;
         Date now = new Date();
         try
         {
             statement = getConnection().prepareStatement(querySql);
+            getCaptureGuard().apply(statement, CapturePhase.preImage);
             ResultSet resultSet = statement.executeQuery();
             int columnCount = resultSet.getMetaData().getColumnCount();
-            int row = 0;
             while (resultSet.next())
             {
-                Map<String, Object> primaryKeyMap = new CaseInsensitiveMap();
-                AuditLog auditLog=null;
+                AuditLog auditLog = null;
                 for (int i = 1; i < columnCount + 1; i++)
                 {
-                    //String tableName = resultSet.getMetaData().getTableName(i);
                 	String currentTableName=resultSet.getMetaData().getTableName(i);
                     String tableName = (StringUtils.isBlank(currentTableName))?getTables().get(0):currentTableName;
                     String tableUpper = tableName.toUpperCase();
+                    boolean rowIdCapture = getDbMetaDataHolder().isRowIdCapture(tableName);
 
-                    if (StringUtils.isNotBlank(tableName))
+                    if (auditLog == null)
                     {
-                        List<List<AuditLog>> list = resultListMap.get(tableName);
-                        if (list == null)
-                            list = new ArrayList<>();
-                        if (list.size() <= row)
-                        {
-                            primaryKeyMap.put(tableName, resultSet.getObject(i));
-                            auditLog = new AuditLog(AuditLog.OperationEnum.delete.name(),tableUpper, null, (String) primaryKeyMap.get(tableName), now);
-                            Map<String, String> tableCommentsByTableName = getTableCommentsByTableName(tableUpper);
-                            if (tableCommentsByTableName != null) {
-                                auditLog.setTableDescription(tableCommentsByTableName.get(tableUpper));
-                            }
-                            List<AuditLog> auditDicLogList = new ArrayList<>();
-                            auditDicLogList.add(auditLog);
-                            list.add(auditDicLogList);
-                        } else
+                        String rowKey = resultSet.getString(i);
+                        auditLog = new AuditLog(AuditLog.OperationEnum.delete.name(), tableUpper, null, rowIdCapture ? null : rowKey, now);
+                        Map<String, String> tableCommentsByTableName = getTableCommentsByTableName(tableUpper);
+                        if (tableCommentsByTableName != null) {
+                            auditLog.setTableDescription(tableCommentsByTableName.get(tableUpper));
+                        }
+                        auditLogMap.put(tableUpper + ':' + rowKey, auditLog);
+                    } else
+                    {
+                    	if(null==resultSet.getObject(i)){
+               			    continue;
+               		    }
+                        String columnName = getDbMetaDataHolder().getTableColumns().get(tableName).get(i - 2);
+                        if (rowIdCapture && columnName.equalsIgnoreCase(getDbMetaDataHolder().getPrimaryKeys().get(tableName)))
                         {
-                        	if(null==resultSet.getObject(i)){
-                   			    continue;
-                   		    }
-                            AuditLogDtl auditLogDtl = new AuditLogDtl(auditLog.getAuditLogId(), getDbMetaDataHolder().getTableColumns().get(tableName).get(i - 2), null, null, resultSet.getObject(i));
-                            Map<String, String> colComments = getColCommentsByTableNameWithCache(tableUpper);
-                            if (colComments != null) {
-                                auditLogDtl.setColumnDescription(colComments.get(auditLogDtl.getColumnName()));
-                            }
-                            auditLog.getAuditLogDtlList().add(auditLogDtl);
+                            // 按 ROWID 定位时主键值取自主键列
+                            auditLog.setPrimaryKeyValue(resultSet.getString(i));
+                        }
+                        AuditLogDtl auditLogDtl = new AuditLogDtl(auditLog.getAuditLogId(), columnName, null, null, resultSet.getObject(i));
+                        Map<String, String> colComments = getColCommentsByTableNameWithCache(tableUpper);
+                        if (colComments != null) {
+                            auditLogDtl.setColumnDescription(colComments.get(auditLogDtl.getColumnName()));
                         }
-                        resultListMap.put(tableName, list);
+                        auditLog.getAuditLogDtlList().add(auditLogDtl);
                     }
                 }
-                row++;
             }
             resultSet.close();
+            getCaptureGuard().success(getCurrentDataTable(), CapturePhase.preImage);
         } catch (SQLException e)
         {
-            logger.error("Error retrieving table data", e);
+            getCaptureGuard().failure(getCurrentDataTable(), CapturePhase.preImage, e);
+            auditLogMap.clear();
         } finally
         {
             if (statement != null)
@@ -201,14 +279,7 @@ public class OracleDeleteSqlAuditHandler extends AbstractSQLAuditHandler
                 }
             }
         }
-        if(resultListMap==null||resultListMap.size()==0){
-            return null;
-    }
-        List<AuditLog> allAuditLogs = resultListMap.values().stream()
-                .flatMap(List::stream)      // Stream<List<AuditLogVo>>
-                .flatMap(List::stream)      // Stream<AuditLogVo>
-                .collect(Collectors.toList());
-        return allAuditLogs;
+        return auditLogMap;
     }
 
 }
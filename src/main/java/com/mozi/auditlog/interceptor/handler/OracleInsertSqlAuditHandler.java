@@ -9,7 +9,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
+import com.mozi.auditlog.config.AuditConfig;
 
 import com.alibaba.druid.sql.SQLUtils;
 import com.alibaba.druid.sql.ast.SQLExpr;
@@ -35,14 +35,10 @@ public class OracleInsertSqlAuditHandler extends AbstractSQLAuditHandler {
      * @param connection             the database connection
      * @param dbMetaDataHolder       the database metadata holder
      * @param insertSQL              the INSERT SQL statement
-     * @param monitorTableRegex      the regex pattern for monitoring tables
-     * @param tableColumnPreFix      the prefix for table columns
-     * @param nonMonitorTableRegex   the regex pattern for non-monitoring tables
-     * @param monitorTables          the list of tables to monitor
-     * @param nonMonitorTables       the list of tables not to monitor
+     * @param auditConfig            the audit configuration snapshot
      */
-    public OracleInsertSqlAuditHandler(Connection connection, DBMetaDataHolder dbMetaDataHolder, String insertSQL, String monitorTableRegex, String tableColumnPreFix, String nonMonitorTableRegex, CopyOnWriteArrayList<String> monitorTables, CopyOnWriteArrayList<String> nonMonitorTables) {
-        super(connection, dbMetaDataHolder, insertSQL, monitorTableRegex, tableColumnPreFix, nonMonitorTableRegex, monitorTables, nonMonitorTables);
+    public OracleInsertSqlAuditHandler(Connection connection, DBMetaDataHolder dbMetaDataHolder, String insertSQL, AuditConfig auditConfig) {
+        super(connection, dbMetaDataHolder, insertSQL, auditConfig);
     }
 
     /**
@@ -88,19 +84,25 @@ public class OracleInsertSqlAuditHandler extends AbstractSQLAuditHandler {
         }
     }
 
+    @Override
+    String getOperationType() {
+        return AuditLog.OperationEnum.insert.name();
+    }
+
     /**
-     * Post-handle the INSERT operation to generate audit logs.
+     * Build audit logs for the INSERT operation.
      *
      * @param args the parameters of the INSERT operation
+     * @return the audit logs, empty if the statement was not pre-handled
      */
     @Override
-    public void postHandle(Object args) {
+    List<AuditLog> buildAuditLogs(Object args) {
+        List<AuditLog> auditLogs = new ArrayList<>();
         if (StringUtils.isEmpty(table)) {
             logger.error("Error data at table:null at postHandle:skip!!!!!");
-            return;
+            return auditLogs;
         }
         if (preHandled) {
-           List<AuditLog> auditLogs = new ArrayList<>();
             try {
                 //要求每个表都要有主键
                 String primaryKey = getDbMetaDataHolder().getPrimaryKeys().get(table);
@@ -131,8 +133,8 @@ public class OracleInsertSqlAuditHandler extends AbstractSQLAuditHandler {
             } catch (Exception e) {
                 logger.error("Error processing insert audit log", e);
             }
-            saveAuditLog(auditLogs);
         }
+        return auditLogs;
     }
 
 
@@ -168,7 +170,7 @@ public class OracleInsertSqlAuditHandler extends AbstractSQLAuditHandler {
             if (colComments != null) {
                 columnDescription=colComments.get(column);
             }
-            AuditLogDtl auditLogDtl = new AuditLogDtl(auditDicLog.getAuditLogId(), column, columnDescription, null, columnValue);
+            AuditLogDtl auditLogDtl = new AuditLogDtl(auditDicLog.getAuditLogId(), column, columnDescription, columnValue, null);
             auditLogDtlList.add(auditLogDtl);
         }
         auditDicLog.setAuditLogDtlList(auditLogDtlList);
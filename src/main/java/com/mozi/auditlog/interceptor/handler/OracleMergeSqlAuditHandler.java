@@ -0,0 +1,425 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import com.mozi.auditlog.config.AuditConfig;
+
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.domain.AuditLogDtl;
+import com.mozi.auditlog.overload.CapturePhase;
+import com.mozi.auditlog.util.SqlUtils;
+import org.apache.commons.lang.StringUtils;
+
+import com.alibaba.druid.sql.SQLUtils;
+import com.alibaba.druid.sql.ast.SQLExpr;
+import com.alibaba.druid.sql.ast.SQLStatement;
+import com.alibaba.druid.sql.ast.expr.SQLBinaryOpExpr;
+import com.alibaba.druid.sql.ast.expr.SQLBinaryOperator;
+import com.alibaba.druid.sql.ast.expr.SQLLiteralExpr;
+import com.alibaba.druid.sql.ast.expr.SQLPropertyExpr;
+import com.alibaba.druid.sql.ast.statement.SQLMergeStatement;
+import com.alibaba.druid.sql.ast.statement.SQLTableSource;
+import com.alibaba.druid.sql.ast.statement.SQLUpdateSetItem;
+import com.alibaba.druid.sql.parser.SQLStatementParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MERGE 语句审计处理器
+ * <p>
+ * 执行前以一条集合查询（USING 源 LEFT JOIN 目标表，连接条件即 ON）同时取得命中行的前镜像（UPDATE SET 列）
+ * 与未命中源行的 ON 连接键取值；执行后命中行按 ROWID/主键回查后镜像，按列类型比较生成 update 记录，
+ * 未命中源行按连接键回查目标表生成 insert 记录，带 DELETE WHERE 时命中后不存在的行生成 delete 记录，三类记录一次写入。
+ * <p>
+ * ON 须为以 AND 连接的 目标列 = 源列/常量 才能解析出连接键，否则执行后重新连接 USING 源，以前镜像中没有的命中行作为新插入的行。
+ * 新插入的行按连接键定位，INSERT 子句给连接列赋了其他值（如序列）时无法定位，不生成记录。
+ */
+public class OracleMergeSqlAuditHandler extends AbstractSQLAuditHandler {
+    private static final Logger logger = LoggerFactory.getLogger(OracleMergeSqlAuditHandler.class);
+
+    /**
+     * 单次回查合并的条件数（Oracle IN 列表上限为 1000）
+     */
+    private static final int MERGED_CONDITION_SIZE = 500;
+
+    /**
+     * 命中行采集的列：UPDATE SET 列，带 DELETE WHERE 时为全部列
+     */
+    private final List<String> updateColumnList = new ArrayList<>();
+
+    private final List<String> insertColumnList = new ArrayList<>();
+
+    /**
+     * ON 连接键：目标表列与对应的源表达式，ON 无法解析时为 null
+     */
+    private List<String> onColumnList;
+    private List<SQLExpr> onSourceExprList;
+
+    /**
+     * 命中行：行定位键（ROWID 或主键）-> 前镜像
+     */
+    private final Map<String, Object[]> rowsBeforeMerge = new LinkedHashMap<>();
+
+    /**
+     * 命中行：行定位键 -> 主键值
+     */
+    private final Map<String, String> primaryKeyValueMap = new HashMap<>();
+
+    /**
+     * 未命中源行的连接键取值
+     */
+    private final List<Object[]> unmatchedKeyList = new ArrayList<>();
+
+    private String table;
+    private String alias;
+    private boolean preHandled = false;
+
+    /**
+     * Constructor for OracleMergeSqlAuditHandler.
+     *
+     * @param connection       the database connection
+     * @param dbMetaDataHolder the database metadata holder
+     * @param mergeSQL         the MERGE SQL statement
+     * @param auditConfig      the audit configuration snapshot
+     */
+    public OracleMergeSqlAuditHandler(Connection connection, DBMetaDataHolder dbMetaDataHolder, String mergeSQL, AuditConfig auditConfig) {
+        super(connection, dbMetaDataHolder, mergeSQL, auditConfig);
+    }
+
+    @Override
+    protected SQLTableSource getMajorTableSource(SQLStatement statement) {
+        if (statement instanceof SQLMergeStatement)
+            return ((SQLMergeStatement) statement).getInto();
+        else
+            return null;
+    }
+
+    @Override
+    protected SQLStatement parseSQLStatement(SQLStatementParser statementParser) {
+        return statementParser.parseMerge();
+    }
+
+    /**
+     * 解析 SET 列、INSERT 列与 ON 连接键，并以一条连接 USING 源的查询采集前镜像
+     */
+    @Override
+    public void preHandle() {
+        if (!(getSqlStatement() instanceof SQLMergeStatement) || StringUtils.isBlank(getCurrentDataTable())) {
+            return;
+        }
+        SQLMergeStatement mergeStatement = (SQLMergeStatement) getSqlStatement();
+        table = getCurrentDataTable();
+        alias = StringUtils.defaultIfEmpty(getTableToAliasMap().get(table), table);
+        List<String> tableColumns = getDbMetaDataHolder().getTableColumns().get(table);
+
+        SQLMergeStatement.MergeUpdateClause updateClause = mergeStatement.getUpdateClause();
+        if (updateClause != null && updateClause.getDeleteWhere() != null && tableColumns != null) {
+            // 命中后可能被删除，删除记录需要全部列的旧值
+            updateColumnList.addAll(tableColumns);
+        } else if (updateClause != null) {
+            for (SQLUpdateSetItem sqlUpdateSetItem : updateClause.getItems()) {
+                updateColumnList.add(separateAliasAndColumn(SQLUtils.toOracleString(sqlUpdateSetItem.getColumn()))[1]);
+            }
+        }
+        SQLMergeStatement.MergeInsertClause insertClause = mergeStatement.getInsertClause();
+        if (insertClause != null && insertClause.getColumns().isEmpty() && tableColumns != null) {
+            insertColumnList.addAll(tableColumns);
+        } else if (insertClause != null) {
+            for (SQLExpr columnExpr : insertClause.getColumns()) {
+                insertColumnList.add(separateAliasAndColumn(SQLUtils.toOracleString(columnExpr))[1]);
+            }
+        }
+        List<String> columns = new ArrayList<>();
+        List<SQLExpr> sourceExprs = new ArrayList<>();
+        if (collectOnKeys(mergeStatement.getOn(), columns, sourceExprs)) {
+            onColumnList = columns;
+            onSourceExprList = sourceExprs;
+        }
+
+        // 行定位键、主键（按 ROWID 定位时）、命中行的采集列、未命中源行的连接键
+        boolean rowIdCapture = getDbMetaDataHolder().isRowIdCapture(table);
+        String primaryKey = getDbMetaDataHolder().getPrimaryKeys().get(table);
+        List<String> selectList = new ArrayList<>();
+        selectList.add(alias + '.' + getKeyColumn());
+        if (rowIdCapture && primaryKey != null) {
+            selectList.add(alias + '.' + primaryKey);
+        }
+        for (String column : updateColumnList) {
+            selectList.add(alias + '.' + column);
+        }
+        boolean captureUnmatched = insertClause != null && onColumnList != null;
+        if (captureUnmatched) {
+            for (SQLExpr sourceExpr : onSourceExprList) {
+                selectList.add(SQLUtils.toOracleString(sourceExpr));
+            }
+            // 等值连接命中时目标连接列必不为 null；H2 对外连接补空的行 _ROWID_ 不为 null，不能以行定位键判断
+            selectList.add(alias + '.' + onColumnList.get(0));
+        }
+        String querySql = "SELECT " + StringUtils.join(selectList, ", ") + " FROM " + SQLUtils.toOracleString(mergeStatement.getUsing())
+                + (captureUnmatched ? " LEFT JOIN " : " JOIN ") + getIntoSql() + " ON (" + SQLUtils.toOracleString(mergeStatement.getOn()) + ")";
+        int keyCount = rowIdCapture && primaryKey != null ? 2 : 1;
+        for (Object[] row : query(trimSQLWhitespaces(querySql), Collections.emptyList(), keyCount, CapturePhase.preImage)) {
+            String rowKey = (String) row[0];
+            if (captureUnmatched ? row[row.length - 1] != null : rowKey != null) {
+                rowsBeforeMerge.put(rowKey, Arrays.copyOfRange(row, keyCount, keyCount + updateColumnList.size()));
+                primaryKeyValueMap.put(rowKey, rowIdCapture ? (primaryKey == null ? null : (String) row[1]) : rowKey);
+            } else if (captureUnmatched) {
+                Object[] onKey = Arrays.copyOfRange(row, keyCount + updateColumnList.size(), row.length - 1);
+                // 连接键含 null 的源行不会与任何行匹配，插入后同样无法按键定位
+                if (!Arrays.asList(onKey).contains(null)) {
+                    unmatchedKeyList.add(onKey);
+                }
+            }
+        }
+        preHandled = true;
+    }
+
+    /**
+     * MERGE 按 update 统计；摘要记录同样记为 update
+     */
+    @Override
+    String getOperationType() {
+        return AuditLog.OperationEnum.update.name();
+    }
+
+    /**
+     * 生成命中行的 update（或 delete）记录与新插入行的 insert 记录
+     *
+     * @param args MERGE 语句参数
+     * @return 审计日志，未预处理时为空
+     */
+    @Override
+    List<AuditLog> buildAuditLogs(Object args) {
+        List<AuditLog> auditLogs = new ArrayList<>();
+        if (!preHandled) {
+            return auditLogs;
+        }
+        Date now = new Date();
+        String tableUpper = table.toUpperCase();
+        Map<String, String> tableComments = getTableCommentsByTableNameWithCache(tableUpper);
+        String tableDescription = tableComments == null ? "" : tableComments.get(tableUpper);
+        Map<String, String> colComments = getColCommentsByTableNameWithCache(tableUpper);
+        if (!rowsBeforeMerge.isEmpty()) {
+            buildMatchedAuditLogs(auditLogs, tableUpper, tableDescription, colComments, now);
+        }
+        if (((SQLMergeStatement) getSqlStatement()).getInsertClause() != null) {
+            for (Object[] row : getInsertedRows()) {
+                AuditLog auditLog = new AuditLog(AuditLog.OperationEnum.insert.name(), tableUpper, tableDescription, (String) row[0], now);
+                for (int col = 0; col < insertColumnList.size(); col++) {
+                    Object value = row[col + 1];
+                    if (value != null) {
+                        String columnName = insertColumnList.get(col);
+                        String columnDescription = colComments == null ? "" : colComments.get(columnName);
+                        auditLog.getAuditLogDtlList().add(new AuditLogDtl(auditLog.getAuditLogId(), columnName, columnDescription, value, null));
+                    }
+                }
+                auditLogs.add(auditLog);
+            }
+        }
+        return auditLogs;
+    }
+
+    /**
+     * 命中行按行定位键回查后镜像：有变化的列记为 update，行已不存在（DELETE WHERE）记为 delete
+     */
+    private void buildMatchedAuditLogs(List<AuditLog> auditLogs, String tableUpper, String tableDescription, Map<String, String> colComments, Date now) {
+        boolean deleteClause = ((SQLMergeStatement) getSqlStatement()).getUpdateClause().getDeleteWhere() != null;
+        String keyColumn = getKeyColumn();
+        List<String> selectList = new ArrayList<>();
+        selectList.add(keyColumn);
+        selectList.addAll(updateColumnList);
+        Map<String, Object[]> rowsAfterMerge = new HashMap<>();
+        List<Object> rowKeys = new ArrayList<>(rowsBeforeMerge.keySet());
+        for (int from = 0; from < rowKeys.size(); from += MERGED_CONDITION_SIZE) {
+            List<Object> chunk = rowKeys.subList(from, Math.min(from + MERGED_CONDITION_SIZE, rowKeys.size()));
+            String querySql = "SELECT " + StringUtils.join(selectList, ", ") + " FROM " + table + " WHERE " + keyColumn + " IN ("
+                    + SqlUtils.placeholders(chunk.size()) + ")";
+            for (Object[] row : query(querySql, chunk, 1, CapturePhase.postImage)) {
+                rowsAfterMerge.put((String) row[0], Arrays.copyOfRange(row, 1, row.length));
+            }
+        }
+        ValueComparator[] comparators = getDbMetaDataHolder().getComparators(table, updateColumnList);
+        for (Map.Entry<String, Object[]> entry : rowsBeforeMerge.entrySet()) {
+            Object[] rowBefore = entry.getValue();
+            Object[] rowAfter = rowsAfterMerge.get(entry.getKey());
+            String primaryKeyValue = primaryKeyValueMap.get(entry.getKey());
+            if (rowAfter == null) {
+                if (deleteClause) {
+                    AuditLog auditLog = new AuditLog(AuditLog.OperationEnum.delete.name(), tableUpper, tableDescription, primaryKeyValue, now);
+                    for (int col = 0; col < rowBefore.length; col++) {
+                        if (rowBefore[col] != null) {
+                            String columnName = updateColumnList.get(col);
+                            String columnDescription = colComments == null ? "" : colComments.get(columnName);
+                            auditLog.getAuditLogDtlList().add(new AuditLogDtl(auditLog.getAuditLogId(), columnName, columnDescription, null, rowBefore[col]));
+                        }
+                    }
+                    auditLogs.add(auditLog);
+                }
+                continue;
+            }
+            AuditLog auditLog = null;
+            for (int col = 0; col < rowBefore.length; col++) {
+                if (comparators[col].same(rowBefore[col], rowAfter[col])) {
+                    continue;
+                }
+                if (auditLog == null) {
+                    auditLog = new AuditLog(AuditLog.OperationEnum.update.name(), tableUpper, tableDescription, primaryKeyValue, now);
+                    auditLogs.add(auditLog);
+                }
+                String columnName = updateColumnList.get(col);
+                String columnDescription = colComments == null ? "" : colComments.get(columnName);
+                auditLog.getAuditLogDtlList().add(new AuditLogDtl(auditLog.getAuditLogId(), columnName, columnDescription, rowAfter[col], rowBefore[col]));
+            }
+        }
+    }
+
+    /**
+     * 查询新插入的行，每行首列为主键值（无主键时为 null），其后为 INSERT 列
+     *
+     * @return 新插入的行
+     */
+    private List<Object[]> getInsertedRows() {
+        String primaryKey = getDbMetaDataHolder().getPrimaryKeys().get(table);
+        List<Object[]> insertedRows = new ArrayList<>();
+        if (onColumnList != null) {
+            // 按执行前记下的连接键回查，不再重新计算 USING 源
+            List<String> selectList = new ArrayList<>();
+            selectList.add(primaryKey == null ? "NULL" : primaryKey);
+            selectList.addAll(insertColumnList);
+            String keyExpr = onColumnList.size() == 1 ? onColumnList.get(0) : "(" + StringUtils.join(onColumnList, ", ") + ")";
+            String tuple = onColumnList.size() == 1 ? "?" : "(" + SqlUtils.placeholders(onColumnList.size()) + ")";
+            for (int from = 0; from < unmatchedKeyList.size(); from += MERGED_CONDITION_SIZE) {
+                List<Object[]> chunk = unmatchedKeyList.subList(from, Math.min(from + MERGED_CONDITION_SIZE, unmatchedKeyList.size()));
+                List<Object> parameters = new ArrayList<>(chunk.size() * onColumnList.size());
+                for (Object[] onKey : chunk) {
+                    parameters.addAll(Arrays.asList(onKey));
+                }
+                String querySql = "SELECT " + StringUtils.join(selectList, ", ") + " FROM " + table + " WHERE " + keyExpr + " IN ("
+                        + SqlUtils.placeholders(tuple, chunk.size()) + ")";
+                insertedRows.addAll(query(querySql, parameters, 1, CapturePhase.postImage));
+            }
+            return insertedRows;
+        }
+
+        // ON 无法解析为连接键：重新连接 USING 源，前镜像中没有的命中行即为新插入的行
+        SQLMergeStatement mergeStatement = (SQLMergeStatement) getSqlStatement();
+        List<String> selectList = new ArrayList<>();
+        selectList.add(alias + '.' + getKeyColumn());
+        selectList.add(primaryKey == null ? "NULL" : alias + '.' + primaryKey);
+        for (String column : insertColumnList) {
+            selectList.add(alias + '.' + column);
+        }
+        String querySql = "SELECT " + StringUtils.join(selectList, ", ") + " FROM " + SQLUtils.toOracleString(mergeStatement.getUsing())
+                + " JOIN " + getIntoSql() + " ON (" + SQLUtils.toOracleString(mergeStatement.getOn()) + ")";
+        for (Object[] row : query(trimSQLWhitespaces(querySql), Collections.emptyList(), 2, CapturePhase.postImage)) {
+            if (!rowsBeforeMerge.containsKey(row[0])) {
+                insertedRows.add(Arrays.copyOfRange(row, 1, row.length));
+            }
+        }
+        return insertedRows;
+    }
+
+    /**
+     * 把 ON 条件拆成 目标列 = 源表达式 的连接键，源表达式只接受非目标表的列与常量
+     *
+     * @return ON 是否完全由此类等值条件以 AND 组成
+     */
+    private boolean collectOnKeys(SQLExpr expr, List<String> columns, List<SQLExpr> sourceExprs) {
+        if (!(expr instanceof SQLBinaryOpExpr)) {
+            return false;
+        }
+        SQLBinaryOpExpr binaryOpExpr = (SQLBinaryOpExpr) expr;
+        if (binaryOpExpr.getOperator() == SQLBinaryOperator.BooleanAnd) {
+            return collectOnKeys(binaryOpExpr.getLeft(), columns, sourceExprs) && collectOnKeys(binaryOpExpr.getRight(), columns, sourceExprs);
+        }
+        if (binaryOpExpr.getOperator() != SQLBinaryOperator.Equality) {
+            return false;
+        }
+        String leftColumn = getTargetColumn(binaryOpExpr.getLeft());
+        String rightColumn = getTargetColumn(binaryOpExpr.getRight());
+        if (leftColumn != null && rightColumn == null && isSourceExpr(binaryOpExpr.getRight())) {
+            columns.add(leftColumn);
+            sourceExprs.add(binaryOpExpr.getRight());
+            return true;
+        }
+        if (rightColumn != null && leftColumn == null && isSourceExpr(binaryOpExpr.getLeft())) {
+            columns.add(rightColumn);
+            sourceExprs.add(binaryOpExpr.getLeft());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return 以目标表别名或表名限定的列名，否则为 null
+     */
+    private String getTargetColumn(SQLExpr expr) {
+        if (expr instanceof SQLPropertyExpr) {
+            String owner = ((SQLPropertyExpr) expr).getOwnerName();
+            if (alias.equalsIgnoreCase(owner) || table.equalsIgnoreCase(owner)) {
+                return separateAliasAndColumn(SQLUtils.toOracleString(expr))[1];
+            }
+        }
+        return null;
+    }
+
+    private boolean isSourceExpr(SQLExpr expr) {
+        return expr instanceof SQLPropertyExpr || expr instanceof SQLLiteralExpr;
+    }
+
+    /**
+     * @return 行定位键列：ROWID 或主键
+     */
+    private String getKeyColumn() {
+        return getDbMetaDataHolder().isRowIdCapture(table) ? getDbMetaDataHolder().getRowIdColumn() : getDbMetaDataHolder().getPrimaryKeys().get(table);
+    }
+
+    /**
+     * @return 带别名的目标表
+     */
+    private String getIntoSql() {
+        return alias.equalsIgnoreCase(table) ? table : table + ' ' + alias;
+    }
+
+    /**
+     * 执行采集查询，前 {@code keyCount} 列按字符串读取（行定位键、主键），其余按对象读取
+     *
+     * @param querySql   查询语句
+     * @param parameters 绑定的参数
+     * @param keyCount   按字符串读取的列数
+     * @param phase      采集阶段，用于查询超时与熔断
+     * @return 查询结果，熔断或查询失败时为空
+     */
+    private List<Object[]> query(String querySql, List<?> parameters, int keyCount, CapturePhase phase) {
+        List<Object[]> rows = new ArrayList<>();
+        if (!allowCapture(table, phase)) {
+            return rows;
+        }
+        try (PreparedStatement statement = getConnection().prepareStatement(querySql)) {
+            getCaptureGuard().apply(statement, phase);
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                int columnCount = resultSet.getMetaData().getColumnCount();
+                while (resultSet.next()) {
+                    Object[] row = new Object[columnCount];
+                    for (int i = 0; i < columnCount; i++) {
+                        row[i] = i < keyCount ? resultSet.getString(i + 1) : resultSet.getObject(i + 1);
+                    }
+                    rows.add(row);
+                }
+            }
+            getCaptureGuard().success(table, phase);
+        } catch (SQLException | RuntimeException e) {
+            // 运行时异常同样计入失败，否则熔断试探无结果，该表的采集一直熔断
+            getCaptureGuard().failure(table, phase, e);
+            logger.debug("Error capturing merge rows: {}", querySql);
+            rows.clear();
+        }
+        return rows;
+    }
+}
@@ -5,18 +5,21 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
+import com.mozi.auditlog.config.AuditConfig;
 
 import com.mozi.auditlog.domain.AuditLog;
 import com.mozi.auditlog.domain.AuditLogDtl;
+import com.mozi.auditlog.overload.CapturePhase;
 import org.apache.commons.collections.map.CaseInsensitiveMap;
 import org.apache.commons.lang.StringUtils;
 
 import com.alibaba.druid.sql.SQLUtils;
 import com.alibaba.druid.sql.ast.SQLExpr;
 import com.alibaba.druid.sql.ast.SQLStatement;
+import com.alibaba.druid.sql.ast.expr.SQLBinaryOpExpr;
 import com.alibaba.druid.sql.ast.expr.SQLIdentifierExpr;
 import com.alibaba.druid.sql.ast.expr.SQLInListExpr;
+import com.alibaba.druid.sql.ast.expr.SQLVariantRefExpr;
 import com.alibaba.druid.sql.ast.statement.SQLExprTableSource;
 import com.alibaba.druid.sql.ast.statement.SQLSelectItem;
 import com.alibaba.druid.sql.ast.statement.SQLTableSource;
@@ -39,22 +42,29 @@ public class OracleUpdateSqlAuditHandler extends AbstractSQLAuditHandler {
 
     private final Map<String, Map<Object, Object[]>> rowsBeforeUpdateListMap = new CaseInsensitiveMap();
 
+    /**
+     * Primary key values of the rows located by ROWID, table name -> (ROWID -> primary key value)
+     */
+    @SuppressWarnings("unchecked")
+    private final Map<String, Map<Object, String>> primaryKeyValueListMap = new CaseInsensitiveMap();
+
     private boolean preHandled = false;
 
+    /**
+     * Maximum number of conditions merged into one capture query (Oracle IN lists are limited to 1000)
+     */
+    private static final int MERGED_CONDITION_SIZE = 500;
+
     /**
      * Constructor for OracleUpdateSqlAuditHandler.
      *
      * @param connection           the database connection
      * @param dbMetaDataHolder     the database metadata holder
      * @param updateSQL            the UPDATE SQL statement
-     * @param monitorTableRegex    the regex pattern for monitoring tables
-     * @param tableColumnPreFix    the prefix for table columns
-     * @param nonMonitorTableRegex the regex pattern for non-monitoring tables
-     * @param monitorTables        the list of tables to monitor
-     * @param nonMonitorTables     the list of tables not to monitor
+     * @param auditConfig          the audit configuration snapshot
      */
-    public OracleUpdateSqlAuditHandler(Connection connection, DBMetaDataHolder dbMetaDataHolder, String updateSQL, String monitorTableRegex, String tableColumnPreFix, String nonMonitorTableRegex, CopyOnWriteArrayList<String> monitorTables, CopyOnWriteArrayList<String> nonMonitorTables) {
-        super(connection, dbMetaDataHolder, updateSQL, monitorTableRegex, tableColumnPreFix, nonMonitorTableRegex, monitorTables, nonMonitorTables);
+    public OracleUpdateSqlAuditHandler(Connection connection, DBMetaDataHolder dbMetaDataHolder, String updateSQL, AuditConfig auditConfig) {
+        super(connection, dbMetaDataHolder, updateSQL, auditConfig);
     }
 
     /**
@@ -86,65 +96,128 @@ public class OracleUpdateSqlAuditHandler extends AbstractSQLAuditHandler {
      * Pre-handle the UPDATE SQL statement to extract table and column information.
      * Also retrieves the data before the update operation for audit comparison.
      */
-    @SuppressWarnings("unchecked")
     @Override
     public void preHandle() {
         if (getSqlStatement() instanceof OracleUpdateStatement) {
-            OracleUpdateStatement updateStatement = (OracleUpdateStatement) getSqlStatement();
-            SQLTableSource tableSource = updateStatement.getTableSource();
-            List<SQLUpdateSetItem> updateSetItems = updateStatement.getItems();
-            SQLExpr where = updateStatement.getWhere();
+            preHandle(Collections.singletonList(((OracleUpdateStatement) getSqlStatement()).getWhere()));
+        }
+    }
 
-            // Extract table and column information from update set items
-            for (SQLUpdateSetItem sqlUpdateSetItem : updateSetItems) {
-                String[] aliasAndColumn = separateAliasAndColumn(SQLUtils.toOracleString(sqlUpdateSetItem.getColumn()));
-                String alias = aliasAndColumn[0];
-                String column = aliasAndColumn[1];
-                String tableName = null;
-                if (StringUtils.isNotBlank(alias)) {
-                    tableName = getAliasToTableMap().get(alias);
-                } else if (getTables().size() == 1) {
-                    tableName = getTables().get(0);
-                } else {
-                    tableName = determineTableForColumn(column);
-                }
-                if (StringUtils.isNotBlank(tableName)) {
-                    List<String> columnList = updateColumnListMap.computeIfAbsent(tableName, k -> new ArrayList<>());
-                    columnList.add(column);
-                }
+    /**
+     * Pre-handle a group of batched UPDATE statements sharing the same SET columns.
+     * The WHERE conditions of the group are OR-ed together so that the data before
+     * update is retrieved with a few set-based queries instead of one query per row.
+     *
+     * @param group the handlers of the group, this handler first
+     */
+    @Override
+    void preHandleBatch(List<AbstractSQLAuditHandler> group) {
+        if (getSqlStatement() instanceof OracleUpdateStatement) {
+            List<SQLExpr> whereList = new ArrayList<>(group.size());
+            for (AbstractSQLAuditHandler handler : group) {
+                whereList.add(((OracleUpdateStatement) handler.getSqlStatement()).getWhere());
             }
+            preHandle(whereList);
+        }
+    }
 
-            // Query database values before update
-            OracleSelectQueryBlock selectQueryBlock = new OracleSelectQueryBlock();
-            selectQueryBlock.setFrom(tableSource);
-            selectQueryBlock.setWhere(where);
-            for (Map.Entry<String, List<String>> updateInfoListEntry : updateColumnListMap.entrySet()) {
-                // TODO: bug - PrimaryKeys is wrong!
+    /**
+     * Only batched UPDATE statements with identical SET columns can share a pre-image query.
+     *
+     * @return the batch group key
+     */
+    @Override
+    String getBatchGroupKey() {
+        StringBuilder groupKey = new StringBuilder(super.getBatchGroupKey());
+        if (getSqlStatement() instanceof OracleUpdateStatement) {
+            for (SQLUpdateSetItem sqlUpdateSetItem : ((OracleUpdateStatement) getSqlStatement()).getItems()) {
+                groupKey.append(':').append(SQLUtils.toOracleString(sqlUpdateSetItem.getColumn()));
+            }
+        }
+        return groupKey.toString();
+    }
+
+    /**
+     * Extract the updated columns and retrieve the data before update for the given
+     * WHERE conditions. A {@code null} condition means the whole table is affected.
+     *
+     * @param whereList the WHERE conditions to capture
+     */
+    @SuppressWarnings("unchecked")
+    private void preHandle(List<SQLExpr> whereList) {
+        OracleUpdateStatement updateStatement = (OracleUpdateStatement) getSqlStatement();
+        SQLTableSource tableSource = updateStatement.getTableSource();
+        List<SQLUpdateSetItem> updateSetItems = updateStatement.getItems();
+
+        // Extract table and column information from update set items
+        for (SQLUpdateSetItem sqlUpdateSetItem : updateSetItems) {
+            String[] aliasAndColumn = separateAliasAndColumn(SQLUtils.toOracleString(sqlUpdateSetItem.getColumn()));
+            String alias = aliasAndColumn[0];
+            String column = aliasAndColumn[1];
+            String tableName = null;
+            if (StringUtils.isNotBlank(alias)) {
+                tableName = getAliasToTableMap().get(alias);
+            } else if (getTables().size() == 1) {
+                tableName = getTables().get(0);
+            } else {
+                tableName = determineTableForColumn(column);
+            }
+            if (StringUtils.isNotBlank(tableName)) {
+                List<String> columnList = updateColumnListMap.computeIfAbsent(tableName, k -> new ArrayList<>());
+                columnList.add(column);
+            }
+        }
+
+        // Query database values before update
+        OracleSelectQueryBlock selectQueryBlock = new OracleSelectQueryBlock();
+        selectQueryBlock.setFrom(tableSource);
+        for (Map.Entry<String, List<String>> updateInfoListEntry : updateColumnListMap.entrySet()) {
+            // Rows are located by ROWID (followed by the primary key, if any) or by the primary key
+            String alias = getTableToAliasMap().get(updateInfoListEntry.getKey());
+            String primaryKey = getDbMetaDataHolder().getPrimaryKeys().get(updateInfoListEntry.getKey());
+            if (getDbMetaDataHolder().isRowIdCapture(updateInfoListEntry.getKey())) {
                 selectQueryBlock.getSelectList().add(new SQLSelectItem(SQLUtils.toSQLExpr(
-                        String.format("%s.%s", getTableToAliasMap().get(updateInfoListEntry.getKey()),
-                                getDbMetaDataHolder().getPrimaryKeys().get(updateInfoListEntry.getKey())))));
-                for (String column : updateInfoListEntry.getValue()) {
-                    selectQueryBlock.getSelectList().add(new SQLSelectItem(SQLUtils.toSQLExpr(
-                            String.format("%s.%s", getTableToAliasMap().get(updateInfoListEntry.getKey()), column))));
-                }
+                        String.format("%s.%s", alias, getDbMetaDataHolder().getRowIdColumn()))));
+            }
+            if (primaryKey != null) {
+                selectQueryBlock.getSelectList().add(new SQLSelectItem(SQLUtils.toSQLExpr(String.format("%s.%s", alias, primaryKey))));
+            }
+            for (String column : updateInfoListEntry.getValue()) {
+                selectQueryBlock.getSelectList().add(new SQLSelectItem(SQLUtils.toSQLExpr(
+                        String.format("%s.%s", getTableToAliasMap().get(updateInfoListEntry.getKey()), column))));
             }
-            rowsBeforeUpdateListMap.putAll(getTablesData(trimSQLWhitespaces(SQLUtils.toOracleString(selectQueryBlock)), updateColumnListMap));
-            preHandled = true;
         }
+        if (whereList.contains(null)) {
+            rowsBeforeUpdateListMap.putAll(getTablesData(trimSQLWhitespaces(SQLUtils.toOracleString(selectQueryBlock)), updateColumnListMap, CapturePhase.preImage, Collections.emptyList()));
+        } else {
+            for (int from = 0; from < whereList.size(); from += MERGED_CONDITION_SIZE) {
+                List<SQLExpr> chunk = whereList.subList(from, Math.min(from + MERGED_CONDITION_SIZE, whereList.size()));
+                selectQueryBlock.setWhere(chunk.size() == 1 ? chunk.get(0) : SQLBinaryOpExpr.or(new ArrayList<>(chunk)));
+                mergeTablesData(rowsBeforeUpdateListMap,
+                        getTablesData(trimSQLWhitespaces(SQLUtils.toOracleString(selectQueryBlock)), updateColumnListMap, CapturePhase.preImage, Collections.emptyList()));
+            }
+        }
+        preHandled = true;
+    }
+
+    @Override
+    String getOperationType() {
+        return AuditLog.OperationEnum.update.name();
     }
 
     /**
-     * Post-handle the UPDATE operation to generate audit logs.
-     * Compares data before and after the update to create detailed audit records.
+     * Build audit logs for the UPDATE operation.
+     * Compares data before and after the update with the comparators selected by column type,
+     * so that equal values in different representations (1 and 1.00, Date and Timestamp,
+     * padded CHAR) are not recorded. Rows without any real change produce no audit log.
      *
      * @param args the parameters of the UPDATE operation
+     * @return the audit logs, empty if the statement was not pre-handled
      */
-    @SuppressWarnings("unchecked")
     @Override
-    public void postHandle(Object args) {
+    List<AuditLog> buildAuditLogs(Object args) {
+        List<AuditLog> auditDicLogList = new ArrayList<>();
         if (preHandled) {
-            List<AuditLog> auditDicLogList = new ArrayList<>();
-            List<AuditLogDtl> auditLogDtlList = new ArrayList<>();
             if (rowsBeforeUpdateListMap != null) {
                 Date now = new Date();
                 Map<String, Map<Object, Object[]>> rowsAfterUpdateListMap = getTablesDataAfterUpdate();
@@ -152,43 +225,117 @@ public class OracleUpdateSqlAuditHandler extends AbstractSQLAuditHandler {
                     Map<Object, Object[]> rowsBeforeUpdateRowsMap = rowsBeforeUpdateListMap.get(tableName);
                     Map<Object, Object[]> rowsAfterUpdateRowsMap = rowsAfterUpdateListMap.get(tableName);
                     if (rowsBeforeUpdateRowsMap != null && rowsAfterUpdateRowsMap != null) {
+                        String tableUpper = tableName.toUpperCase();
+                        List<String> columnNames = updateColumnListMap.get(tableName);
+                        ValueComparator[] comparators = getDbMetaDataHolder().getComparators(tableName, columnNames);
                         for (Object pKey : rowsBeforeUpdateRowsMap.keySet()) {
                             Object[] rowBeforeUpdate = rowsBeforeUpdateRowsMap.get(pKey);
                             Object[] rowAfterUpdate = rowsAfterUpdateRowsMap.get(pKey);
-                            String tableUpper = tableName.toUpperCase();
-                            Map<String, String> tableCommentsByTableName = getTableCommentsByTableName(tableUpper);
-                            String tableDescription = "";
-                            if (tableCommentsByTableName != null) {
-                                tableDescription = tableCommentsByTableName.get(tableUpper);
+                            if (rowAfterUpdate == null) {
+                                continue;
                             }
-                            AuditLog auditDicLog = new AuditLog(AuditLog.OperationEnum.update.name(), tableName.toUpperCase(), tableDescription, (String) pKey,now);
-                            auditDicLogList.add(auditDicLog);
-                            List<AuditLog> colList = new ArrayList<>();
+                            AuditLog auditDicLog = null;
                             for (int col = 0; col < rowBeforeUpdate.length; col++) {
-                                if (rowBeforeUpdate[col] != null && !rowBeforeUpdate[col].equals(rowAfterUpdate[col]) || rowBeforeUpdate[col] == null && rowAfterUpdate[col] != null) {
-                             /*       AuditLog auditLog = new AuditLog(tableUpper, updateColumnListMap.get(tableName).get(col), null,
-                                            pKey, AuditLog.OperationEnum.update.name(), rowBeforeUpdate[col], rowAfterUpdate[col]);*/
-
-                                    Map<String, String> colComments = getColCommentsByTableNameWithCache(tableUpper);
-                                    String columnDescription = "";
-                                    String columnName = updateColumnListMap.get(tableName).get(col);
-                                    if (colComments != null) {
-                                        columnDescription = colComments.get(columnName);
+                                if (comparators[col].same(rowBeforeUpdate[col], rowAfterUpdate[col])) {
+                                    continue;
+                                }
+                                if (auditDicLog == null) {
+                                    Map<String, String> tableCommentsByTableName = getTableCommentsByTableName(tableUpper);
+                                    String tableDescription = "";
+                                    if (tableCommentsByTableName != null) {
+                                        tableDescription = tableCommentsByTableName.get(tableUpper);
                                     }
-                                    AuditLogDtl auditLogDtl = new AuditLogDtl(auditDicLog.getAuditLogId(), columnName, columnDescription, rowBeforeUpdate[col], rowAfterUpdate[col]);
-                                    auditLogDtlList.add(auditLogDtl);
+                                    auditDicLog = new AuditLog(AuditLog.OperationEnum.update.name(), tableUpper, tableDescription, getPrimaryKeyValue(tableName, pKey), now);
+                                    auditDicLogList.add(auditDicLog);
+                                }
+                                Map<String, String> colComments = getColCommentsByTableNameWithCache(tableUpper);
+                                String columnDescription = "";
+                                String columnName = columnNames.get(col);
+                                if (colComments != null) {
+                                    columnDescription = colComments.get(columnName);
                                 }
+                                AuditLogDtl auditLogDtl = new AuditLogDtl(auditDicLog.getAuditLogId(), columnName, columnDescription, rowAfterUpdate[col], rowBeforeUpdate[col]);
+                                auditDicLog.getAuditLogDtlList().add(auditLogDtl);
                             }
                         }
                     }
                 }
             }
-            saveAuditLog(auditDicLogList, auditLogDtlList);
+        }
+        return auditDicLogList;
+    }
+
+    /**
+     * Build header-only audit logs from the pre-image keys, skipping the post-image query.
+     *
+     * @param args the parameters of the UPDATE operation
+     * @return one audit log without details per updated row
+     */
+    @Override
+    List<AuditLog> buildHeaderAuditLogs(Object args) {
+        List<AuditLog> auditDicLogList = new ArrayList<>();
+        if (preHandled && rowsBeforeUpdateListMap != null) {
+            Date now = new Date();
+            for (Map.Entry<String, Map<Object, Object[]>> entry : rowsBeforeUpdateListMap.entrySet()) {
+                String tableUpper = entry.getKey().toUpperCase();
+                Map<String, String> tableComments = getTableCommentsByTableNameWithCache(tableUpper);
+                String tableDescription = tableComments == null ? "" : tableComments.get(tableUpper);
+                for (Object pKey : entry.getValue().keySet()) {
+                    auditDicLogList.add(new AuditLog(AuditLog.OperationEnum.update.name(), tableUpper, tableDescription, getPrimaryKeyValue(entry.getKey(), pKey), now));
+                }
+            }
+        }
+        return auditDicLogList;
+    }
+
+    /**
+     * The primary key value recorded for a captured row.
+     *
+     * @param tableName the table name
+     * @param rowKey    the row key of the capture, a ROWID or the primary key value
+     * @return the primary key value, null for a table without primary key
+     */
+    private String getPrimaryKeyValue(String tableName, Object rowKey) {
+        if (!getDbMetaDataHolder().isRowIdCapture(tableName)) {
+            return (String) rowKey;
+        }
+        Map<Object, String> primaryKeyValues = primaryKeyValueListMap.get(tableName);
+        return primaryKeyValues == null ? null : primaryKeyValues.get(rowKey);
+    }
+
+    /**
+     * The merged pre-image of a batch group already covers every row of the group,
+     * so the audit logs are built once by this handler.
+     *
+     * @param group      the handlers of the group, this handler first
+     * @param parameters the statement parameters
+     * @return the audit logs of the whole group
+     */
+    @Override
+    List<AuditLog> buildBatchAuditLogs(List<AbstractSQLAuditHandler> group, List<Object> parameters) {
+        return buildAuditLogs(null);
+    }
+
+    /**
+     * Merge the rows of {@code source} into {@code target} table by table.
+     *
+     * @param target the accumulated table data
+     * @param source the table data to merge
+     */
+    private static void mergeTablesData(Map<String, Map<Object, Object[]>> target, Map<String, Map<Object, Object[]>> source) {
+        for (Map.Entry<String, Map<Object, Object[]>> entry : source.entrySet()) {
+            Map<Object, Object[]> rowsMap = target.get(entry.getKey());
+            if (rowsMap == null) {
+                target.put(entry.getKey(), entry.getValue());
+            } else {
+                rowsMap.putAll(entry.getValue());
+            }
         }
     }
 
     /**
-     * Retrieve table data after the update operation.
+     * Retrieve table data after the update operation, by the ROWIDs (bound as parameters)
+     * or the primary keys captured before the update.
      *
      * @return a map containing the updated table data
      */
@@ -197,24 +344,31 @@ public class OracleUpdateSqlAuditHandler extends AbstractSQLAuditHandler {
         Map<String, Map<Object, Object[]>> resultListMap = new CaseInsensitiveMap();
         for (Map.Entry<String, Map<Object, Object[]>> tableDataEntry : rowsBeforeUpdateListMap.entrySet()) {
             String tableName = tableDataEntry.getKey();
+            boolean rowIdCapture = getDbMetaDataHolder().isRowIdCapture(tableName);
+            String keyColumn = rowIdCapture ? getDbMetaDataHolder().getRowIdColumn() : getDbMetaDataHolder().getPrimaryKeys().get(tableName);
             OracleSelectQueryBlock selectQueryBlock = new OracleSelectQueryBlock();
-            selectQueryBlock.getSelectList().add(new SQLSelectItem(SQLUtils.toSQLExpr(getDbMetaDataHolder().getPrimaryKeys().get(tableName))));
+            selectQueryBlock.getSelectList().add(new SQLSelectItem(SQLUtils.toSQLExpr(keyColumn)));
             for (String column : updateColumnListMap.get(tableName)) {
                 selectQueryBlock.getSelectList().add(new SQLSelectItem(SQLUtils.toSQLExpr(column)));
             }
             selectQueryBlock.setFrom(new SQLExprTableSource(new SQLIdentifierExpr(tableName)));
-            SQLInListExpr sqlInListExpr = new SQLInListExpr();
-            List<SQLExpr> sqlExprList = new ArrayList<>();
-            for (Object primaryKey : tableDataEntry.getValue().keySet()) {
-                sqlExprList.add(SQLUtils.toSQLExpr("'" + primaryKey.toString() + "'"));
-            }
-            sqlInListExpr.setExpr(new SQLIdentifierExpr(getDbMetaDataHolder().getPrimaryKeys().get(tableName)));
-            sqlInListExpr.setTargetList(sqlExprList);
-            selectQueryBlock.setWhere(sqlInListExpr);
             Map<String, List<String>> tableColumnMap = new CaseInsensitiveMap();
             tableColumnMap.put(tableName, updateColumnListMap.get(tableName));
-            Map<String, Map<Object, Object[]>> map = getTablesData(trimSQLWhitespaces(SQLUtils.toOracleString(selectQueryBlock)), tableColumnMap);
-            resultListMap.putAll(map);
+            // Oracle limits an IN list to 1000 expressions
+            List<Object> rowKeys = new ArrayList<>(tableDataEntry.getValue().keySet());
+            for (int from = 0; from < rowKeys.size(); from += MERGED_CONDITION_SIZE) {
+                List<Object> chunk = rowKeys.subList(from, Math.min(from + MERGED_CONDITION_SIZE, rowKeys.size()));
+                SQLInListExpr sqlInListExpr = new SQLInListExpr();
+                List<SQLExpr> sqlExprList = new ArrayList<>();
+                for (Object rowKey : chunk) {
+                    sqlExprList.add(rowIdCapture ? new SQLVariantRefExpr("?") : SQLUtils.toSQLExpr("'" + rowKey.toString() + "'"));
+                }
+                sqlInListExpr.setExpr(new SQLIdentifierExpr(keyColumn));
+                sqlInListExpr.setTargetList(sqlExprList);
+                selectQueryBlock.setWhere(sqlInListExpr);
+                mergeTablesData(resultListMap, getTablesData(trimSQLWhitespaces(SQLUtils.toOracleString(selectQueryBlock)), tableColumnMap,
+                        CapturePhase.postImage, rowIdCapture ? chunk : Collections.emptyList()));
+            }
         }
         return resultListMap;
     }
@@ -224,27 +378,46 @@ public class OracleUpdateSqlAuditHandler extends AbstractSQLAuditHandler {
      *
      * @param querySQL        the SQL query to execute
      * @param tableColumnsMap map of table names to their columns
-     * @return a map containing the retrieved table data
+     * @param phase           the capture phase, for the query timeout and circuit breaker
+     * @param parameters      the values bound to the query, the ROWIDs of the post-image
+     * @return a map containing the retrieved table data keyed by ROWID or primary key,
+     * empty if the capture is suspended or failed
      */
     @SuppressWarnings("unchecked")
-    private Map<String, Map<Object, Object[]>> getTablesData(String querySQL, Map<String, List<String>> tableColumnsMap) {
+    private Map<String, Map<Object, Object[]>> getTablesData(String querySQL, Map<String, List<String>> tableColumnsMap, CapturePhase phase, List<Object> parameters) {
         Map<String, Map<Object, Object[]>> resultListMap = new HashMap<>();
+        String table = getCurrentDataTable() != null ? getCurrentDataTable() : tableColumnsMap.keySet().iterator().next();
+        if (!allowCapture(table, phase)) {
+            return resultListMap;
+        }
         PreparedStatement statement = null;
         try {
             statement = getConnection().prepareStatement(querySQL);
+            getCaptureGuard().apply(statement, phase);
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setString(i + 1, parameters.get(i).toString());
+            }
             ResultSet resultSet = statement.executeQuery();
             int columnCount = resultSet.getMetaData().getColumnCount();
 
             while (resultSet.next()) {
                 Map<String, Object> currRowTablePKeyMap = new HashMap<>();
+                Map<String, Integer> currRowTablePositionMap = new HashMap<>();
                 for (int i = 1; i < columnCount + 1; i++) {
                     String tableName = resultSet.getMetaData().getTableName(i);
                     String currentTableName = (StringUtils.isBlank(tableName)) ? getTables().get(0) : tableName;
 
                     if (StringUtils.isNotBlank(currentTableName)) {
-                        // Store primary key for the table
-                        if (currRowTablePKeyMap.get(currentTableName) == null) {
-                            currRowTablePKeyMap.put(currentTableName, resultSet.getObject(i));
+                        boolean rowIdCapture = getDbMetaDataHolder().isRowIdCapture(currentTableName);
+                        int position = currRowTablePositionMap.merge(currentTableName, 1, Integer::sum);
+                        // Store the row key (ROWID or primary key) for the table
+                        if (position == 1) {
+                            currRowTablePKeyMap.put(currentTableName, rowIdCapture ? resultSet.getString(i) : resultSet.getObject(i));
+                        } else if (position == 2 && rowIdCapture && phase == CapturePhase.preImage
+                                && getDbMetaDataHolder().getPrimaryKeys().get(currentTableName) != null) {
+                            // The primary key selected after the ROWID
+                            primaryKeyValueListMap.computeIfAbsent(currentTableName, k -> new HashMap<>())
+                                    .put(currRowTablePKeyMap.get(currentTableName), resultSet.getString(i));
                         } else {
                             // Store column data for the table
                             Map<Object, Object[]> rowsMap = resultListMap.get(currentTableName);
@@ -262,8 +435,10 @@ public class OracleUpdateSqlAuditHandler extends AbstractSQLAuditHandler {
                 }
             }
             resultSet.close();
+            getCaptureGuard().success(table, phase);
         } catch (SQLException e) {
-            logger.error("Error retrieving table data", e);
+            getCaptureGuard().failure(table, phase, e);
+            resultListMap.clear();
         } finally {
             if (statement != null) {
                 try {
@@ -0,0 +1,271 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import org.apache.commons.collections.map.CaseInsensitiveMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单个 schema 的表元数据（主键、列及列类型）与注释缓存
+ * <p>
+ * 由 {@link SchemaMetaDataRegistry} 按 schema 共享：指向同一 schema 的多个拦截器只扫描一次、只保留一份。
+ * 主键与列映射在首次 {@link #load(Connection)} 时整体构建，之后新出现的表按需补充（写时复制），读取无需加锁。
+ */
+public class SchemaMetaData
+{
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMetaData.class);
+
+    private final String key;
+
+    private volatile Map<String, String> primaryKeys = Collections.emptyMap();
+
+    private volatile Map<String, List<String>> tableColumns = Collections.emptyMap();
+
+    /**
+     * 表名 -> (列名 -> 按列类型预先选定的比较方式)
+     */
+    private volatile Map<String, Map<String, ValueComparator>> columnComparators = Collections.emptyMap();
+
+    /**
+     * 表名 -> (列名 -> 按列类型预先选定的明细值编码)，列名与元数据一致（Oracle 为大写）
+     */
+    private volatile Map<String, Map<String, ValueEncoder>> columnEncoders = Collections.emptyMap();
+
+    private final Map<String, Map<String, String>> tableComments = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, String>> columnComments = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    private volatile String rowIdColumn = "ROWID";
+
+    SchemaMetaData(String key)
+    {
+        this.key = key;
+    }
+
+    /**
+     * 扫描 schema 下全部表的主键与列，已加载时直接返回
+     *
+     * @param connection 连接
+     */
+    @SuppressWarnings("unchecked")
+    void load(Connection connection)
+    {
+        if (loaded)
+        {
+            return;
+        }
+        synchronized (this)
+        {
+            if (loaded)
+            {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            Map<String, String> primaryKeyMap = new CaseInsensitiveMap();
+            Map<String, List<String>> tableColumnMap = new CaseInsensitiveMap();
+            Map<String, Map<String, ValueComparator>> comparatorMap = new CaseInsensitiveMap();
+            Map<String, Map<String, ValueEncoder>> encoderMap = new CaseInsensitiveMap();
+            try
+            {
+                DatabaseMetaData metaData = connection.getMetaData();
+                if ("H2".equalsIgnoreCase(metaData.getDatabaseProductName()))
+                {
+                    // H2 没有 ROWID 伪列，以 _ROWID_ 代替
+                    rowIdColumn = "_ROWID_";
+                }
+                List<String> tables = new ArrayList<>();
+                try (ResultSet resultSet = metaData.getTables(connection.getCatalog(), metaData.getUserName(), "%", new String[]{"TABLE"}))
+                {
+                    while (resultSet.next())
+                    {
+                        tables.add(resultSet.getString("TABLE_NAME"));
+                    }
+                }
+                for (String table : tables)
+                {
+                    primaryKeyMap.put(table, retrievePrimaryKey(connection, table));
+                    Map<String, Integer> columnTypes = retrieveColumns(connection, table);
+                    tableColumnMap.put(table, new ArrayList<>(columnTypes.keySet()));
+                    comparatorMap.put(table, toComparators(columnTypes));
+                    encoderMap.put(table, toEncoders(columnTypes));
+                }
+                primaryKeys = primaryKeyMap;
+                tableColumns = tableColumnMap;
+                columnComparators = comparatorMap;
+                columnEncoders = encoderMap;
+                loaded = true;
+                logger.info("Loaded meta data of {} tables for schema {} in {} ms", tables.size(), key, System.currentTimeMillis() - start);
+            } catch (SQLException e)
+            {
+                logger.error("Error occurs when retrieving audit log table meta data.", e);
+            }
+        }
+    }
+
+    /**
+     * 补充单张表的元数据（首次扫描之后新建的表，如按需创建的审计表）
+     *
+     * @param connection 连接
+     * @param table      表名
+     * @return 表是否存在
+     */
+    @SuppressWarnings("unchecked")
+    synchronized boolean loadTable(Connection connection, String table)
+    {
+        if (tableColumns.containsKey(table))
+        {
+            return true;
+        }
+        Map<String, Integer> columnTypes = retrieveColumns(connection, table.toUpperCase());
+        if (columnTypes.isEmpty())
+        {
+            return false;
+        }
+        Map<String, String> primaryKeyMap = new CaseInsensitiveMap(primaryKeys);
+        Map<String, List<String>> tableColumnMap = new CaseInsensitiveMap(tableColumns);
+        Map<String, Map<String, ValueComparator>> comparatorMap = new CaseInsensitiveMap(columnComparators);
+        Map<String, Map<String, ValueEncoder>> encoderMap = new CaseInsensitiveMap(columnEncoders);
+        primaryKeyMap.put(table.toUpperCase(), retrievePrimaryKey(connection, table.toUpperCase()));
+        tableColumnMap.put(table.toUpperCase(), new ArrayList<>(columnTypes.keySet()));
+        comparatorMap.put(table.toUpperCase(), toComparators(columnTypes));
+        encoderMap.put(table.toUpperCase(), toEncoders(columnTypes));
+        primaryKeys = primaryKeyMap;
+        tableColumns = tableColumnMap;
+        columnComparators = comparatorMap;
+        columnEncoders = encoderMap;
+        return true;
+    }
+
+    private String retrievePrimaryKey(Connection connection, String table)
+    {
+        String primaryKey = null;
+        try
+        {
+            ResultSet resultSet = connection.getMetaData().getPrimaryKeys(null, connection.getMetaData().getUserName(), table);
+            if (resultSet.next())
+                primaryKey = resultSet.getString("COLUMN_NAME");
+            resultSet.close();
+        } catch (SQLException e)
+        {
+            logger.error("Error occurs when retrieving primary key of " + table, e);
+        }
+        return primaryKey;
+    }
+
+    /**
+     * @return 列名 -> DATA_TYPE，按列顺序
+     */
+    private Map<String, Integer> retrieveColumns(Connection connection, String table)
+    {
+        Map<String, Integer> columns = new LinkedHashMap<>();
+        try
+        {
+            ResultSet resultSet = connection.getMetaData().getColumns(connection.getCatalog(), connection.getMetaData().getUserName(), table, "%");
+            while (resultSet.next())
+            {
+                columns.put(resultSet.getString("COLUMN_NAME"), resultSet.getInt("DATA_TYPE"));
+            }
+            resultSet.close();
+        } catch (SQLException e)
+        {
+            logger.error("Error occurs when retrieving columns of " + table, e);
+        }
+        return columns;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, ValueComparator> toComparators(Map<String, Integer> columnTypes)
+    {
+        Map<String, ValueComparator> comparators = new CaseInsensitiveMap();
+        for (Map.Entry<String, Integer> entry : columnTypes.entrySet())
+        {
+            comparators.put(entry.getKey(), ValueComparator.of(entry.getValue()));
+        }
+        return comparators;
+    }
+
+    /**
+     * 按元数据列名建 HashMap，写入时每个明细值查找一次，避免 CaseInsensitiveMap 每次查找都转换大小写
+     */
+    private static Map<String, ValueEncoder> toEncoders(Map<String, Integer> columnTypes)
+    {
+        Map<String, ValueEncoder> encoders = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : columnTypes.entrySet())
+        {
+            encoders.put(entry.getKey(), ValueEncoder.of(entry.getValue()));
+        }
+        return encoders;
+    }
+
+    /**
+     * @return schema 标识（JDBC URL 与用户名）
+     */
+    public String getKey()
+    {
+        return key;
+    }
+
+    public boolean isLoaded()
+    {
+        return loaded;
+    }
+
+    public int getTableCount()
+    {
+        return tableColumns.size();
+    }
+
+    String getRowIdColumn()
+    {
+        return rowIdColumn;
+    }
+
+    Map<String, String> getPrimaryKeys()
+    {
+        return primaryKeys;
+    }
+
+    Map<String, List<String>> getTableColumns()
+    {
+        return tableColumns;
+    }
+
+    Map<String, Map<String, ValueComparator>> getColumnComparators()
+    {
+        return columnComparators;
+    }
+
+    Map<String, Map<String, ValueEncoder>> getColumnEncoders()
+    {
+        return columnEncoders;
+    }
+
+    /**
+     * @return 表注释缓存（表名 -> (表名 -> 注释)）
+     */
+    Map<String, Map<String, String>> getTableComments()
+    {
+        return tableComments;
+    }
+
+    /**
+     * @return 列注释缓存（表名 -> (列名 -> 注释)）
+     */
+    Map<String, Map<String, String>> getColumnComments()
+    {
+        return columnComments;
+    }
+}
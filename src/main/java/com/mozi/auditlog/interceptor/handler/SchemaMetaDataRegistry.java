@@ -0,0 +1,48 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内按 schema 共享的 {@link SchemaMetaData} 注册表
+ * <p>
+ * 以 JDBC URL 加用户名（Oracle 下即 schema）为键。多个 SqlSessionFactory 指向同一 schema 时，
+ * 启动时的整库扫描与元数据内存只发生一次，不随 SqlSessionFactory 的数量成倍增长。
+ */
+public class SchemaMetaDataRegistry
+{
+    private static final Map<String, SchemaMetaData> SCHEMAS = new ConcurrentHashMap<>();
+
+    private SchemaMetaDataRegistry()
+    {
+    }
+
+    /**
+     * 获取连接所在 schema 的元数据（未加载，首次使用前需调用 {@link SchemaMetaData#load(Connection)}）
+     *
+     * @param connection 连接
+     * @return schema 元数据
+     */
+    public static SchemaMetaData of(Connection connection) throws SQLException
+    {
+        return SCHEMAS.computeIfAbsent(keyOf(connection), SchemaMetaData::new);
+    }
+
+    private static String keyOf(Connection connection) throws SQLException
+    {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String userName = metaData.getUserName();
+        return metaData.getURL() + "|" + (userName == null ? "" : userName.toUpperCase());
+    }
+
+    /**
+     * @return 已注册的 schema 数量
+     */
+    public static int size()
+    {
+        return SCHEMAS.size();
+    }
+}
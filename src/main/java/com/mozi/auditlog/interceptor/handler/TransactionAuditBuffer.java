@@ -0,0 +1,306 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.domain.AuditLogDtl;
+import com.mozi.auditlog.metrics.AuditMetrics;
+import com.mozi.auditlog.metrics.AuditPhase;
+import org.apache.commons.collections.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 事务内的审计合并缓冲区（coalesce=true 时启用）
+ * <p>
+ * 同一事务内按 表 + 主键 合并审计日志，提交前一次写入净变化：
+ * <ul>
+ * <li>update + update：每列保留最早的旧值与最新的新值，新旧相同的列去掉，全部相同时整条丢弃</li>
+ * <li>insert + update：合并为一条 insert，新值取最新</li>
+ * <li>insert + delete：整条丢弃</li>
+ * <li>update + delete：合并为一条 delete，旧值取 update 之前的值（含被改为空的列）</li>
+ * <li>delete + insert：合并为一条 update</li>
+ * </ul>
+ * 其余组合以及没有主键值的日志按原顺序单独保留。写入在业务事务提交前、同一连接上完成，与业务数据一起提交或回滚。
+ */
+public class TransactionAuditBuffer
+{
+    private static final Logger logger = LoggerFactory.getLogger(TransactionAuditBuffer.class);
+
+    private final int maxRows;
+
+    /**
+     * 合并键（表名 + 主键值，无主键值时为唯一对象）-> 当前净变化，保持首次出现的顺序
+     */
+    private final Map<Object, AuditLog> entries = new LinkedHashMap<>();
+
+    /**
+     * 操作类型 + 表 -> 已缓冲的语句数，写入后按结果计入审计成功或失败
+     */
+    private final Map<String, Integer> statements = new HashMap<>();
+
+    private AbstractSQLAuditHandler writer;
+
+    /**
+     * @param maxRows 缓冲的净变化行数上限，达到后提前在事务内写入，0 表示不限制
+     */
+    public TransactionAuditBuffer(int maxRows)
+    {
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * 生成语句的审计日志并并入缓冲区
+     *
+     * @param handler SQL处理器
+     * @param args    语句参数
+     */
+    public void add(ISQLHandler handler, Object args)
+    {
+        if (!(handler instanceof AbstractSQLAuditHandler))
+        {
+            handler.postHandle(args);
+            return;
+        }
+        AbstractSQLAuditHandler auditHandler = (AbstractSQLAuditHandler) handler;
+        long start = System.nanoTime();
+        List<AuditLog> auditLogs = auditHandler.buildAuditLogs(args);
+        // 提交时才写入，操作员信息须取自各语句自己的上下文
+        auditHandler.applyAuditContext(auditLogs);
+        metricsOf(auditHandler).record(AuditPhase.postImage, auditHandler.getOperationType(), auditHandler.getCurrentDataTable(), System.nanoTime() - start);
+        if (CollectionUtils.isNotEmpty(auditLogs))
+        {
+            for (AuditLog auditLog : auditLogs)
+            {
+                if (auditLog != null)
+                {
+                    merge(auditLog);
+                }
+            }
+        }
+        statements.merge(auditHandler.getOperationType() + '\u0000' + auditHandler.getCurrentDataTable(), 1, Integer::sum);
+        writer = auditHandler;
+        if (maxRows > 0 && entries.size() >= maxRows)
+        {
+            flush();
+        }
+    }
+
+    public boolean isEmpty()
+    {
+        return statements.isEmpty();
+    }
+
+    /**
+     * 写入缓冲的净变化并清空，应在业务事务提交之前调用
+     */
+    public void flush()
+    {
+        if (writer == null)
+        {
+            return;
+        }
+        AbstractSQLAuditHandler handler = writer;
+        try
+        {
+            long start = System.nanoTime();
+            boolean saved = handler.saveAuditLog(new ArrayList<>(entries.values()));
+            AuditMetrics auditMetrics = metricsOf(handler);
+            auditMetrics.record(AuditPhase.save, handler.getOperationType(), handler.getCurrentDataTable(), System.nanoTime() - start);
+            for (Map.Entry<String, Integer> entry : statements.entrySet())
+            {
+                int separator = entry.getKey().indexOf('\u0000');
+                String operationType = entry.getKey().substring(0, separator);
+                String table = entry.getKey().substring(separator + 1);
+                for (int i = 0; i < entry.getValue(); i++)
+                {
+                    if (saved)
+                    {
+                        auditMetrics.audited(operationType, table);
+                    } else
+                    {
+                        auditMetrics.failed(operationType, table);
+                    }
+                }
+            }
+        } catch (Exception e)
+        {
+            logger.error("记录修改日志异常", e);
+        } finally
+        {
+            clear();
+        }
+    }
+
+    /**
+     * 丢弃缓冲内容（回滚或关闭时调用）
+     */
+    public void clear()
+    {
+        entries.clear();
+        statements.clear();
+        writer = null;
+    }
+
+    private void merge(AuditLog auditLog)
+    {
+        if (auditLog.getPrimaryKeyValue() == null)
+        {
+            entries.put(new Object(), auditLog);
+            return;
+        }
+        String key = auditLog.getTableName().toUpperCase() + '\u0000' + auditLog.getPrimaryKeyValue();
+        AuditLog previous = entries.get(key);
+        if (previous == null)
+        {
+            entries.put(key, auditLog);
+            return;
+        }
+        String before = previous.getOperationType();
+        String after = auditLog.getOperationType();
+        if (is(before, AuditLog.OperationEnum.insert) && is(after, AuditLog.OperationEnum.delete))
+        {
+            entries.remove(key);
+        } else if (is(before, AuditLog.OperationEnum.update) && is(after, AuditLog.OperationEnum.update)
+                || is(before, AuditLog.OperationEnum.insert) && is(after, AuditLog.OperationEnum.update))
+        {
+            mergeColumns(previous, auditLog, true);
+            previous.setCreateTime(auditLog.getCreateTime());
+            if (is(before, AuditLog.OperationEnum.update) && previous.getAuditLogDtlList().isEmpty())
+            {
+                entries.remove(key);
+            }
+        } else if (is(before, AuditLog.OperationEnum.update) && is(after, AuditLog.OperationEnum.delete))
+        {
+            // 删除前的值应为本事务修改之前的值
+            Map<String, AuditLogDtl> updated = byColumn(previous.getAuditLogDtlList());
+            for (AuditLogDtl auditLogDtl : auditLog.getAuditLogDtlList())
+            {
+                AuditLogDtl update = updated.remove(auditLogDtl.getColumnName().toUpperCase());
+                if (update != null)
+                {
+                    auditLogDtl.setOldValue(update.getOldValue());
+                }
+            }
+            // delete 不记录空值列，被本事务改为空的列须按修改前的值补回
+            for (AuditLogDtl update : updated.values())
+            {
+                if (update.getOldValue() != null)
+                {
+                    auditLog.getAuditLogDtlList().add(new AuditLogDtl(null, update.getColumnName(), update.getColumnDescription(), null, update.getOldValue()));
+                }
+            }
+            replace(key, previous, auditLog);
+        } else if (is(before, AuditLog.OperationEnum.delete) && is(after, AuditLog.OperationEnum.insert))
+        {
+            previous.setOperationType(AuditLog.OperationEnum.update.name());
+            mergeColumns(previous, auditLog, false);
+            previous.setCreateTime(auditLog.getCreateTime());
+            if (previous.getAuditLogDtlList().isEmpty())
+            {
+                entries.remove(key);
+            }
+        } else
+        {
+            // 无法合并的组合（如 delete 之后 update），之前的记录原样保留
+            entries.remove(key);
+            entries.put(new Object(), previous);
+            entries.put(key, auditLog);
+        }
+    }
+
+    /**
+     * 把后一条日志的新值并入前一条
+     *
+     * @param previous  前一条日志，结果写回其明细
+     * @param auditLog  后一条日志
+     * @param keepExtra 后一条没有涉及的列是否保留（delete + insert 时 delete 的列都应参与比较）
+     */
+    private static void mergeColumns(AuditLog previous, AuditLog auditLog, boolean keepExtra)
+    {
+        boolean insert = is(previous.getOperationType(), AuditLog.OperationEnum.insert);
+        Map<String, AuditLogDtl> merged = byColumn(previous.getAuditLogDtlList());
+        Map<String, AuditLogDtl> latest = byColumn(auditLog.getAuditLogDtlList());
+        if (!keepExtra)
+        {
+            for (Map.Entry<String, AuditLogDtl> entry : merged.entrySet())
+            {
+                if (!latest.containsKey(entry.getKey()))
+                {
+                    entry.getValue().setNewValue(null);
+                }
+            }
+        }
+        for (Map.Entry<String, AuditLogDtl> entry : latest.entrySet())
+        {
+            AuditLogDtl current = merged.get(entry.getKey());
+            if (current == null)
+            {
+                AuditLogDtl added = entry.getValue();
+                added.setAuditLogId(previous.getAuditLogId());
+                if (insert)
+                {
+                    added.setOldValue(null);
+                }
+                merged.put(entry.getKey(), added);
+            } else
+            {
+                current.setNewValue(entry.getValue().getNewValue());
+            }
+        }
+        List<AuditLogDtl> auditLogDtlList = new ArrayList<>(merged.size());
+        for (AuditLogDtl auditLogDtl : merged.values())
+        {
+            if (insert ? auditLogDtl.getNewValue() != null : !sameValue(auditLogDtl.getOldValue(), auditLogDtl.getNewValue()))
+            {
+                auditLogDtlList.add(auditLogDtl);
+            }
+        }
+        previous.setAuditLogDtlList(auditLogDtlList);
+    }
+
+    private void replace(Object key, AuditLog previous, AuditLog auditLog)
+    {
+        auditLog.setAuditLogId(previous.getAuditLogId());
+        for (AuditLogDtl auditLogDtl : auditLog.getAuditLogDtlList())
+        {
+            auditLogDtl.setAuditLogId(previous.getAuditLogId());
+        }
+        entries.put(key, auditLog);
+    }
+
+    private static Map<String, AuditLogDtl> byColumn(List<AuditLogDtl> auditLogDtlList)
+    {
+        Map<String, AuditLogDtl> columns = new LinkedHashMap<>();
+        if (auditLogDtlList != null)
+        {
+            for (AuditLogDtl auditLogDtl : auditLogDtlList)
+            {
+                if (auditLogDtl != null && auditLogDtl.getColumnName() != null)
+                {
+                    columns.put(auditLogDtl.getColumnName().toUpperCase(), auditLogDtl);
+                }
+            }
+        }
+        return columns;
+    }
+
+    private static boolean sameValue(Object oldValue, Object newValue)
+    {
+        return ValueComparator.generic.same(oldValue, newValue);
+    }
+
+    private static boolean is(String operationType, AuditLog.OperationEnum operation)
+    {
+        return operation.name().equals(operationType);
+    }
+
+    private static AuditMetrics metricsOf(AbstractSQLAuditHandler handler)
+    {
+        return handler.getDbMetaDataHolder().getAuditMetrics();
+    }
+}
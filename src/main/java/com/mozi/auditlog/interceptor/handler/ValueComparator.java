@@ -0,0 +1,198 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * 按列类型比较修改前后的值，避免把等值的不同表示记为变更
+ * <p>
+ * 由元数据 DATA_TYPE 选定，随 {@link SchemaMetaData} 按列预先算好：
+ * NUMBER 忽略小数位数（1 与 1.00），DATE/TIMESTAMP 比较时间点（Date 与 Timestamp），
+ * CHAR 忽略尾部填充空格，RAW 比较字节内容。值的实际类型与列类型不符时退回 {@link #generic}。
+ */
+enum ValueComparator
+{
+    number
+    {
+        @Override
+        boolean sameNonNull(Object oldValue, Object newValue)
+        {
+            BigDecimal oldNumber = toBigDecimal(oldValue);
+            BigDecimal newNumber = toBigDecimal(newValue);
+            if (oldNumber == null || newNumber == null)
+            {
+                // NaN、无穷大等无法归一的数值只能 equals，不能再交给 generic，否则两者互相回退
+                return oldValue instanceof Number && newValue instanceof Number
+                        ? oldValue.equals(newValue) : generic.sameNonNull(oldValue, newValue);
+            }
+            return oldNumber.compareTo(newNumber) == 0;
+        }
+    },
+
+    datetime
+    {
+        @Override
+        boolean sameNonNull(Object oldValue, Object newValue)
+        {
+            Instant oldInstant = toInstant(oldValue);
+            Instant newInstant = toInstant(newValue);
+            if (oldInstant == null || newInstant == null)
+            {
+                return Objects.equals(oldValue, newValue);
+            }
+            return oldInstant.equals(newInstant);
+        }
+    },
+
+    character
+    {
+        @Override
+        boolean sameNonNull(Object oldValue, Object newValue)
+        {
+            if (oldValue instanceof String && newValue instanceof String)
+            {
+                return ColumnType.stripTrailingSpaces((String) oldValue).equals(ColumnType.stripTrailingSpaces((String) newValue));
+            }
+            return generic.sameNonNull(oldValue, newValue);
+        }
+    },
+
+    binary
+    {
+        @Override
+        boolean sameNonNull(Object oldValue, Object newValue)
+        {
+            if (oldValue instanceof byte[] && newValue instanceof byte[])
+            {
+                return Arrays.equals((byte[]) oldValue, (byte[]) newValue);
+            }
+            return Objects.equals(oldValue, newValue);
+        }
+    },
+
+    /**
+     * 类型未知：数值、时间、字节数组按值的实际类型归一，其余 equals
+     */
+    generic
+    {
+        @Override
+        boolean sameNonNull(Object oldValue, Object newValue)
+        {
+            if (oldValue instanceof Number && newValue instanceof Number)
+            {
+                return number.sameNonNull(oldValue, newValue);
+            }
+            if (toInstant(oldValue) != null && toInstant(newValue) != null)
+            {
+                return datetime.sameNonNull(oldValue, newValue);
+            }
+            return binary.sameNonNull(oldValue, newValue);
+        }
+    };
+
+    /**
+     * @param dataType 元数据中的 DATA_TYPE（{@link java.sql.Types}）
+     * @return 该类型的比较方式
+     */
+    static ValueComparator of(int dataType)
+    {
+        switch (ColumnType.of(dataType))
+        {
+            case number:
+                return number;
+            case datetime:
+            case time:
+                return datetime;
+            case character:
+                return character;
+            case binary:
+                return binary;
+            default:
+                return generic;
+        }
+    }
+
+    /**
+     * @param oldValue 修改前的值
+     * @param newValue 修改后的值
+     * @return 两值是否相同（均为 null 视为相同）
+     */
+    boolean same(Object oldValue, Object newValue)
+    {
+        if (oldValue == null || newValue == null)
+        {
+            return oldValue == newValue;
+        }
+        return oldValue == newValue || sameNonNull(oldValue, newValue);
+    }
+
+    abstract boolean sameNonNull(Object oldValue, Object newValue);
+
+    private static BigDecimal toBigDecimal(Object value)
+    {
+        if (value instanceof BigDecimal)
+        {
+            return (BigDecimal) value;
+        }
+        if (value instanceof BigInteger)
+        {
+            return new BigDecimal((BigInteger) value);
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+        {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        if (value instanceof Double || value instanceof Float)
+        {
+            double d = ((Number) value).doubleValue();
+            // NaN、无穷大没有 BigDecimal 表示；float 按其十进制表示转换，避免 0.1f 展开成二进制近似值
+            return Double.isNaN(d) || Double.isInfinite(d) ? null
+                    : value instanceof Float ? new BigDecimal(value.toString()) : BigDecimal.valueOf(d);
+        }
+        return null;
+    }
+
+    private static Instant toInstant(Object value)
+    {
+        if (value instanceof Timestamp)
+        {
+            return ((Timestamp) value).toInstant();
+        }
+        if (value instanceof Date)
+        {
+            // java.sql.Date、java.sql.Time 不支持 toInstant()
+            return Instant.ofEpochMilli(((Date) value).getTime());
+        }
+        if (value instanceof LocalDateTime)
+        {
+            return Timestamp.valueOf((LocalDateTime) value).toInstant();
+        }
+        if (value instanceof LocalDate)
+        {
+            return ((LocalDate) value).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        }
+        if (value instanceof OffsetDateTime)
+        {
+            return ((OffsetDateTime) value).toInstant();
+        }
+        if (value instanceof ZonedDateTime)
+        {
+            return ((ZonedDateTime) value).toInstant();
+        }
+        if (value instanceof Instant)
+        {
+            return (Instant) value;
+        }
+        return null;
+    }
+}
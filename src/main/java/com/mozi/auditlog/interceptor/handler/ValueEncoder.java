@@ -0,0 +1,427 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 审计明细值的文本编码，按列类型选定
+ * <p>
+ * 由元数据 DATA_TYPE 选定，随 {@link SchemaMetaData} 按列预先算好，写入前把明细值转为规范文本，同一个值总是得到同一段文本：
+ * <ul>
+ * <li>NUMBER：去掉末尾的 0，不用科学计数法（1.50 -> 1.5，1E+3 -> 1000）</li>
+ * <li>DATE/TIMESTAMP：yyyy-MM-dd HH:mm:ss，有小数秒时追加 .fffffffff（去掉末尾的 0），与 TimestampUtils 兼容</li>
+ * <li>CHAR/NCHAR：去掉尾部填充空格</li>
+ * <li>RAW：大写十六进制</li>
+ * <li>CLOB/BLOB：不超过长度上限时为全文（BLOB 为十六进制），否则为长度与 SHA-256 摘要，如 CLOB(length=123456,sha256=...)</li>
+ * </ul>
+ * 值的实际类型与列类型不符时按值的类型编码。拼接与读取 LOB 的缓冲区按线程复用。
+ */
+enum ValueEncoder
+{
+    number, datetime, character, text, binary, clob, blob;
+
+    /**
+     * 默认 LOB 长度上限（字符数，BLOB 按十六进制后的字符数计）
+     */
+    static final int DEFAULT_LOB_MAX_LENGTH = 32768;
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final char[] DIGEST_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private static final ThreadLocal<StringBuilder> builder = ThreadLocal.withInitial(() -> new StringBuilder(64));
+    private static final ThreadLocal<char[]> charBuffer = ThreadLocal.withInitial(() -> new char[4096]);
+    private static final ThreadLocal<byte[]> byteBuffer = ThreadLocal.withInitial(() -> new byte[8192]);
+    private static final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(() -> {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /**
+     * 驱动自有的时间类型（如 oracle.sql.TIMESTAMP）的 timestampValue() 方法，没有该方法的类型记为 NO_METHOD
+     */
+    private static final Map<Class<?>, Method> TIMESTAMP_METHODS = new ConcurrentHashMap<>();
+    private static final Method NO_METHOD;
+
+    static
+    {
+        try
+        {
+            NO_METHOD = Object.class.getMethod("toString");
+        } catch (NoSuchMethodException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * @param dataType 元数据中的 DATA_TYPE（{@link java.sql.Types}）
+     * @return 该类型的编码方式
+     */
+    static ValueEncoder of(int dataType)
+    {
+        switch (ColumnType.of(dataType))
+        {
+            case number:
+                return number;
+            case datetime:
+                return datetime;
+            case character:
+                return character;
+            case binary:
+                return binary;
+            case clob:
+                return clob;
+            case blob:
+                return blob;
+            default:
+                return text;
+        }
+    }
+
+    /**
+     * 编码明细值
+     *
+     * @param value        原始值
+     * @param lobMaxLength LOB 写入全文的长度上限，超过时只写长度与摘要
+     * @return 规范文本，null 值返回 null
+     */
+    String encode(Object value, int lobMaxLength) throws SQLException
+    {
+        if (value == null)
+        {
+            return null;
+        }
+        switch (this)
+        {
+            case number:
+                if (value instanceof Number)
+                {
+                    return encodeNumber((Number) value);
+                }
+                break;
+            case datetime:
+                LocalDateTime dateTime = toLocalDateTime(value);
+                if (dateTime != null)
+                {
+                    return encodeDateTime(dateTime);
+                }
+                break;
+            case character:
+                if (value instanceof String)
+                {
+                    return ColumnType.stripTrailingSpaces((String) value);
+                }
+                break;
+            case binary:
+                if (value instanceof byte[])
+                {
+                    return encodeBytes((byte[]) value);
+                }
+                break;
+            case clob:
+                if (value instanceof Clob)
+                {
+                    return encodeClob((Clob) value, lobMaxLength);
+                }
+                break;
+            case blob:
+                if (value instanceof Blob)
+                {
+                    return encodeBlob((Blob) value, lobMaxLength);
+                }
+                break;
+            default:
+                break;
+        }
+        return encodeByValueType(value, lobMaxLength);
+    }
+
+    /**
+     * 列类型未知或与值的类型不符时，按值的类型编码
+     */
+    private static String encodeByValueType(Object value, int lobMaxLength) throws SQLException
+    {
+        if (value instanceof String)
+        {
+            return (String) value;
+        }
+        if (value instanceof Number)
+        {
+            return encodeNumber((Number) value);
+        }
+        if (value instanceof java.sql.Time)
+        {
+            return value.toString();
+        }
+        if (value instanceof byte[])
+        {
+            return encodeBytes((byte[]) value);
+        }
+        if (value instanceof Clob)
+        {
+            return encodeClob((Clob) value, lobMaxLength);
+        }
+        if (value instanceof Blob)
+        {
+            return encodeBlob((Blob) value, lobMaxLength);
+        }
+        LocalDateTime dateTime = toLocalDateTime(value);
+        return dateTime != null ? encodeDateTime(dateTime) : value.toString();
+    }
+
+    private static String encodeBytes(byte[] bytes)
+    {
+        return appendHex(reset(bytes.length * 2), bytes, 0, bytes.length).toString();
+    }
+
+    private static String encodeNumber(Number value)
+    {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte || value instanceof BigInteger)
+        {
+            return value.toString();
+        }
+        BigDecimal decimal;
+        if (value instanceof BigDecimal)
+        {
+            decimal = (BigDecimal) value;
+        } else if (value instanceof Double || value instanceof Float)
+        {
+            double d = value.doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d))
+            {
+                return value.toString();
+            }
+            decimal = value instanceof Float ? new BigDecimal(value.toString()) : BigDecimal.valueOf(d);
+        } else
+        {
+            return value.toString();
+        }
+        if (decimal.signum() == 0)
+        {
+            return "0";
+        }
+        if (decimal.scale() > 0)
+        {
+            decimal = decimal.stripTrailingZeros();
+        }
+        return decimal.scale() < 0 ? decimal.setScale(0).toPlainString() : decimal.toPlainString();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value)
+    {
+        if (value instanceof Timestamp)
+        {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        if (value instanceof Date)
+        {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(((Date) value).getTime()), ZONE);
+        }
+        if (value instanceof LocalDateTime)
+        {
+            return (LocalDateTime) value;
+        }
+        if (value instanceof LocalDate)
+        {
+            return ((LocalDate) value).atStartOfDay();
+        }
+        if (value instanceof OffsetDateTime)
+        {
+            return LocalDateTime.ofInstant(((OffsetDateTime) value).toInstant(), ZONE);
+        }
+        if (value instanceof ZonedDateTime)
+        {
+            return LocalDateTime.ofInstant(((ZonedDateTime) value).toInstant(), ZONE);
+        }
+        if (value instanceof Instant)
+        {
+            return LocalDateTime.ofInstant((Instant) value, ZONE);
+        }
+        Method method = TIMESTAMP_METHODS.computeIfAbsent(value.getClass(), ValueEncoder::timestampMethod);
+        if (method != NO_METHOD)
+        {
+            try
+            {
+                Object timestamp = method.invoke(value);
+                return timestamp instanceof Timestamp ? ((Timestamp) timestamp).toLocalDateTime() : null;
+            } catch (ReflectiveOperationException e)
+            {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static Method timestampMethod(Class<?> type)
+    {
+        try
+        {
+            Method method = type.getMethod("timestampValue");
+            return Timestamp.class.isAssignableFrom(method.getReturnType()) ? method : NO_METHOD;
+        } catch (NoSuchMethodException e)
+        {
+            return NO_METHOD;
+        }
+    }
+
+    private static String encodeDateTime(LocalDateTime dateTime)
+    {
+        StringBuilder buffer = reset(29);
+        appendPadded(buffer, dateTime.getYear(), 4).append('-');
+        appendPadded(buffer, dateTime.getMonthValue(), 2).append('-');
+        appendPadded(buffer, dateTime.getDayOfMonth(), 2).append(' ');
+        appendPadded(buffer, dateTime.getHour(), 2).append(':');
+        appendPadded(buffer, dateTime.getMinute(), 2).append(':');
+        appendPadded(buffer, dateTime.getSecond(), 2);
+        int nanos = dateTime.getNano();
+        if (nanos != 0)
+        {
+            buffer.append('.');
+            appendPadded(buffer, nanos, 9);
+            int end = buffer.length();
+            while (buffer.charAt(end - 1) == '0')
+            {
+                end--;
+            }
+            buffer.setLength(end);
+        }
+        return buffer.toString();
+    }
+
+    private static StringBuilder appendPadded(StringBuilder buffer, int value, int width)
+    {
+        for (int limit = 10, i = 1; i < width; i++, limit *= 10)
+        {
+            if (value < limit)
+            {
+                buffer.append('0');
+            }
+        }
+        return buffer.append(value);
+    }
+
+    private static String encodeClob(Clob value, int lobMaxLength) throws SQLException
+    {
+        long length = value.length();
+        char[] chars = charBuffer.get();
+        try (Reader reader = value.getCharacterStream())
+        {
+            if (length <= lobMaxLength)
+            {
+                StringBuilder buffer = reset((int) length);
+                for (int n; (n = reader.read(chars)) > 0; )
+                {
+                    buffer.append(chars, 0, n);
+                }
+                return buffer.toString();
+            }
+            // 摘要按 UTF-16BE 计算，不必为编码整段文本分配内存
+            MessageDigest digest = sha256.get();
+            digest.reset();
+            byte[] bytes = byteBuffer.get();
+            for (int n; (n = reader.read(chars, 0, Math.min(chars.length, bytes.length / 2))) > 0; )
+            {
+                for (int i = 0; i < n; i++)
+                {
+                    bytes[i * 2] = (byte) (chars[i] >> 8);
+                    bytes[i * 2 + 1] = (byte) chars[i];
+                }
+                digest.update(bytes, 0, n * 2);
+            }
+            return digestText("CLOB", length, digest);
+        } catch (IOException e)
+        {
+            throw new SQLException("Error reading CLOB value", e);
+        }
+    }
+
+    private static String encodeBlob(Blob value, int lobMaxLength) throws SQLException
+    {
+        long length = value.length();
+        byte[] bytes = byteBuffer.get();
+        try (InputStream inputStream = value.getBinaryStream())
+        {
+            if (length * 2 <= lobMaxLength)
+            {
+                StringBuilder buffer = reset((int) length * 2);
+                for (int n; (n = inputStream.read(bytes)) > 0; )
+                {
+                    appendHex(buffer, bytes, 0, n);
+                }
+                return buffer.toString();
+            }
+            MessageDigest digest = sha256.get();
+            digest.reset();
+            for (int n; (n = inputStream.read(bytes)) > 0; )
+            {
+                digest.update(bytes, 0, n);
+            }
+            return digestText("BLOB", length, digest);
+        } catch (IOException e)
+        {
+            throw new SQLException("Error reading BLOB value", e);
+        }
+    }
+
+    private static String digestText(String type, long length, MessageDigest digest)
+    {
+        byte[] hash = digest.digest();
+        StringBuilder buffer = reset(96).append(type).append("(length=").append(length).append(",sha256=");
+        for (byte b : hash)
+        {
+            buffer.append(DIGEST_DIGITS[(b >> 4) & 0x0F]).append(DIGEST_DIGITS[b & 0x0F]);
+        }
+        return buffer.append(')').toString();
+    }
+
+    private static StringBuilder appendHex(StringBuilder buffer, byte[] bytes, int offset, int length)
+    {
+        for (int i = offset; i < offset + length; i++)
+        {
+            buffer.append(HEX_DIGITS[(bytes[i] >> 4) & 0x0F]).append(HEX_DIGITS[bytes[i] & 0x0F]);
+        }
+        return buffer;
+    }
+
+    /**
+     * 取出本线程复用的拼接缓冲区，过大的缓冲区不保留
+     */
+    private static StringBuilder reset(int capacity)
+    {
+        StringBuilder buffer = builder.get();
+        if (buffer.capacity() > DEFAULT_LOB_MAX_LENGTH * 2)
+        {
+            buffer = new StringBuilder(64);
+            builder.set(buffer);
+        }
+        buffer.setLength(0);
+        buffer.ensureCapacity(capacity);
+        return buffer;
+    }
+}
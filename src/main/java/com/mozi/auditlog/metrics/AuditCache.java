@@ -0,0 +1,15 @@
+package com.mozi.auditlog.metrics;
+
+/**
+ * 统计命中率的缓存
+ */
+public enum AuditCache {
+    /**
+     * 表注释缓存
+     */
+    tableComment,
+    /**
+     * 列注释缓存
+     */
+    columnComment
+}
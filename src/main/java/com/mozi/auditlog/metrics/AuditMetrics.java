@@ -0,0 +1,266 @@
+package com.mozi.auditlog.metrics;
+
+import com.mozi.auditlog.util.JmxUtils;
+
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 审计插件运行指标
+ * <p>
+ * 按 操作类型 + 表 分别统计拦截、跳过、审计成功、失败次数与各阶段耗时，写入路径只有 LongAdder 自增与直方图 CAS，无锁。
+ * 表名在解析前未知的语句记在 {@link #UNKNOWN_TABLE} 下。
+ */
+public class AuditMetrics implements AuditMetricsMXBean {
+    public static final String UNKNOWN_TABLE = "?";
+
+    /**
+     * 操作类型 -> 表 -> 指标
+     */
+    private final Map<String, Map<String, TableMetrics>> metrics = new ConcurrentHashMap<>();
+
+    private final Map<AuditCache, LongAdder> cacheHits = new EnumMap<>(AuditCache.class);
+    private final Map<AuditCache, LongAdder> cacheMisses = new EnumMap<>(AuditCache.class);
+
+    private volatile ObjectName objectName;
+
+    public AuditMetrics() {
+        for (AuditCache cache : AuditCache.values()) {
+            cacheHits.put(cache, new LongAdder());
+            cacheMisses.put(cache, new LongAdder());
+        }
+    }
+
+    public void intercepted(String operationType, String tableName) {
+        get(operationType, tableName).intercepted.increment();
+    }
+
+    public void skipped(String operationType, String tableName) {
+        get(operationType, tableName).skipped.increment();
+    }
+
+    public void audited(String operationType, String tableName) {
+        get(operationType, tableName).audited.increment();
+    }
+
+    public void failed(String operationType, String tableName) {
+        get(operationType, tableName).failed.increment();
+    }
+
+    /**
+     * 过载降级为只写主表记录或摘要
+     */
+    public void degraded(String operationType, String tableName) {
+        get(operationType, tableName).degraded.increment();
+    }
+
+    /**
+     * 采集查询因熔断被跳过
+     */
+    public void captureSkipped(String operationType, String tableName) {
+        get(operationType, tableName).captureSkipped.increment();
+    }
+
+    /**
+     * 过载时放弃审计（等待超时或未被采样）
+     */
+    public void dropped(String operationType, String tableName) {
+        get(operationType, tableName).dropped.increment();
+    }
+
+    /**
+     * 记录阶段耗时
+     *
+     * @param phase         阶段
+     * @param operationType 操作类型
+     * @param tableName     表名
+     * @param nanos         耗时（纳秒）
+     */
+    public void record(AuditPhase phase, String operationType, String tableName, long nanos) {
+        get(operationType, tableName).phases[phase.ordinal()].record(nanos);
+    }
+
+    public void cacheAccess(AuditCache cache, boolean hit) {
+        (hit ? cacheHits : cacheMisses).get(cache).increment();
+    }
+
+    private TableMetrics get(String operationType, String tableName) {
+        String table = tableName == null ? UNKNOWN_TABLE : tableName;
+        Map<String, TableMetrics> tables = metrics.get(operationType);
+        if (tables == null) {
+            tables = metrics.computeIfAbsent(operationType, k -> new ConcurrentHashMap<>());
+        }
+        TableMetrics tableMetrics = tables.get(table);
+        if (tableMetrics == null) {
+            tableMetrics = tables.computeIfAbsent(table, k -> new TableMetrics(operationType, k));
+        }
+        return tableMetrics;
+    }
+
+    /**
+     * 注册到平台 MBeanServer，同名已存在时追加实例标识
+     *
+     * @param name MBean 名称
+     */
+    public void register(String name) {
+        objectName = JmxUtils.register(this, "AuditMetrics", name);
+    }
+
+    public void unregister() {
+        JmxUtils.unregister(objectName);
+        objectName = null;
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public long getInterceptedCount() {
+        return sum(tableMetrics -> tableMetrics.intercepted);
+    }
+
+    @Override
+    public long getSkippedCount() {
+        return sum(tableMetrics -> tableMetrics.skipped);
+    }
+
+    @Override
+    public long getAuditedCount() {
+        return sum(tableMetrics -> tableMetrics.audited);
+    }
+
+    @Override
+    public long getFailedCount() {
+        return sum(tableMetrics -> tableMetrics.failed);
+    }
+
+    @Override
+    public long getDegradedCount() {
+        return sum(tableMetrics -> tableMetrics.degraded);
+    }
+
+    @Override
+    public long getCaptureSkippedCount() {
+        return sum(tableMetrics -> tableMetrics.captureSkipped);
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return sum(tableMetrics -> tableMetrics.dropped);
+    }
+
+    @Override
+    public double getTableCommentCacheHitRate() {
+        return hitRate(AuditCache.tableComment);
+    }
+
+    @Override
+    public double getColumnCommentCacheHitRate() {
+        return hitRate(AuditCache.columnComment);
+    }
+
+    @Override
+    public List<AuditPhaseStats> getPhaseTotals() {
+        List<AuditPhaseStats> phaseStats = new ArrayList<>();
+        for (AuditPhase phase : AuditPhase.values()) {
+            LatencyHistogram.Snapshot snapshot = new LatencyHistogram.Snapshot();
+            for (TableMetrics tableMetrics : allTableMetrics()) {
+                tableMetrics.phases[phase.ordinal()].mergeTo(snapshot);
+            }
+            phaseStats.add(new AuditPhaseStats("*", "*", phase, snapshot));
+        }
+        return phaseStats;
+    }
+
+    @Override
+    public List<AuditPhaseStats> getPhaseStats() {
+        List<AuditPhaseStats> phaseStats = new ArrayList<>();
+        for (TableMetrics tableMetrics : allTableMetrics()) {
+            for (AuditPhase phase : AuditPhase.values()) {
+                LatencyHistogram.Snapshot snapshot = tableMetrics.phases[phase.ordinal()].snapshot();
+                if (snapshot.getCount() > 0) {
+                    phaseStats.add(new AuditPhaseStats(tableMetrics.operationType, tableMetrics.tableName, phase, snapshot));
+                }
+            }
+        }
+        return phaseStats;
+    }
+
+    @Override
+    public List<AuditTableStats> getTableStats() {
+        List<AuditTableStats> tableStats = new ArrayList<>();
+        for (TableMetrics tableMetrics : allTableMetrics()) {
+            long overheadNanos = 0L;
+            for (AuditPhase phase : AuditPhase.values()) {
+                if (phase != AuditPhase.proceed) {
+                    overheadNanos += tableMetrics.phases[phase.ordinal()].snapshot().getTotalNanos();
+                }
+            }
+            tableStats.add(new AuditTableStats(tableMetrics.operationType, tableMetrics.tableName, tableMetrics.intercepted.sum(),
+                    tableMetrics.skipped.sum(), tableMetrics.audited.sum(), tableMetrics.failed.sum(), TimeUnit.NANOSECONDS.toMillis(overheadNanos)));
+        }
+        tableStats.sort(Comparator.comparingLong(AuditTableStats::getOverheadMillis).reversed());
+        return tableStats;
+    }
+
+    @Override
+    public void reset() {
+        metrics.clear();
+        for (AuditCache cache : AuditCache.values()) {
+            cacheHits.get(cache).reset();
+            cacheMisses.get(cache).reset();
+        }
+    }
+
+    private List<TableMetrics> allTableMetrics() {
+        List<TableMetrics> all = new ArrayList<>();
+        for (Map<String, TableMetrics> tables : metrics.values()) {
+            all.addAll(tables.values());
+        }
+        return all;
+    }
+
+    private long sum(Function<TableMetrics, LongAdder> counter) {
+        long total = 0L;
+        for (TableMetrics tableMetrics : allTableMetrics()) {
+            total += counter.apply(tableMetrics).sum();
+        }
+        return total;
+    }
+
+    private double hitRate(AuditCache cache) {
+        long hits = cacheHits.get(cache).sum();
+        long total = hits + cacheMisses.get(cache).sum();
+        return total == 0 ? 0D : (double) hits / total;
+    }
+
+    private static final class TableMetrics {
+        private final String operationType;
+        private final String tableName;
+        private final LongAdder intercepted = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder audited = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder degraded = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder captureSkipped = new LongAdder();
+        private final LatencyHistogram[] phases = new LatencyHistogram[AuditPhase.values().length];
+
+        private TableMetrics(String operationType, String tableName) {
+            this.operationType = operationType;
+            this.tableName = tableName;
+            for (int i = 0; i < phases.length; i++) {
+                phases[i] = new LatencyHistogram();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.mozi.auditlog.metrics;
+
+import java.util.List;
+
+/**
+ * 审计插件运行指标，由 SQLAuditLogInterceptor 注册到平台 MBeanServer：
+ * com.mozi.auditlog:type=AuditMetrics,name=&lt;jmxName&gt;
+ */
+public interface AuditMetricsMXBean {
+    /**
+     * 拦截到的增删改语句数
+     */
+    long getInterceptedCount();
+
+    /**
+     * 因表过滤、不支持的语句等未审计的语句数
+     */
+    long getSkippedCount();
+
+    /**
+     * 审计日志写入成功的语句数
+     */
+    long getAuditedCount();
+
+    /**
+     * 审计过程出现异常的语句数
+     */
+    long getFailedCount();
+
+    /**
+     * 过载时降级为只写主表记录或摘要的语句数
+     */
+    long getDegradedCount();
+
+    /**
+     * 过载时放弃审计的语句数（等待超时或未被采样）
+     */
+    long getDroppedCount();
+
+    /**
+     * 因熔断跳过的采集查询数（前后镜像、注释、写入）
+     */
+    long getCaptureSkippedCount();
+
+    double getTableCommentCacheHitRate();
+
+    double getColumnCommentCacheHitRate();
+
+    /**
+     * 各阶段耗时汇总（不区分操作类型与表）
+     */
+    List<AuditPhaseStats> getPhaseTotals();
+
+    /**
+     * 按 操作类型 + 表 + 阶段 的耗时
+     */
+    List<AuditPhaseStats> getPhaseStats();
+
+    /**
+     * 按 操作类型 + 表 的计数与审计额外耗时，按额外耗时倒序
+     */
+    List<AuditTableStats> getTableStats();
+
+    void reset();
+}
@@ -0,0 +1,31 @@
+package com.mozi.auditlog.metrics;
+
+/**
+ * 审计处理阶段
+ */
+public enum AuditPhase {
+    /**
+     * 拼接带参数值的SQL
+     */
+    sqlBuild,
+    /**
+     * Druid 解析SQL
+     */
+    parse,
+    /**
+     * 查询前镜像
+     */
+    preHandle,
+    /**
+     * 执行业务SQL
+     */
+    proceed,
+    /**
+     * 查询后镜像并生成审计日志
+     */
+    postImage,
+    /**
+     * 写入审计日志
+     */
+    save
+}
@@ -0,0 +1,64 @@
+package com.mozi.auditlog.metrics;
+
+/**
+ * 单个阶段的耗时统计，时间单位为微秒
+ */
+public class AuditPhaseStats {
+    private final String operationType;
+    private final String tableName;
+    private final String phase;
+    private final long count;
+    private final long meanMicros;
+    private final long p50Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+
+    AuditPhaseStats(String operationType, String tableName, AuditPhase phase, LatencyHistogram.Snapshot snapshot) {
+        this.operationType = operationType;
+        this.tableName = tableName;
+        this.phase = phase.name();
+        this.count = snapshot.getCount();
+        this.meanMicros = snapshot.getMeanNanos() / 1000;
+        this.p50Micros = snapshot.getQuantileNanos(0.5) / 1000;
+        this.p99Micros = snapshot.getQuantileNanos(0.99) / 1000;
+        this.maxMicros = snapshot.getMaxNanos() / 1000;
+    }
+
+    public String getOperationType() {
+        return operationType;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return operationType + ' ' + tableName + ' ' + phase + " count=" + count + " mean=" + meanMicros + "us p50=" + p50Micros
+                + "us p99=" + p99Micros + "us max=" + maxMicros + "us";
+    }
+}
@@ -0,0 +1,62 @@
+package com.mozi.auditlog.metrics;
+
+/**
+ * 单个 操作类型 + 表 的计数与审计额外耗时
+ */
+public class AuditTableStats {
+    private final String operationType;
+    private final String tableName;
+    private final long intercepted;
+    private final long skipped;
+    private final long audited;
+    private final long failed;
+
+    /**
+     * 除执行业务SQL以外各阶段的累计耗时（毫秒），即审计带来的额外开销
+     */
+    private final long overheadMillis;
+
+    AuditTableStats(String operationType, String tableName, long intercepted, long skipped, long audited, long failed, long overheadMillis) {
+        this.operationType = operationType;
+        this.tableName = tableName;
+        this.intercepted = intercepted;
+        this.skipped = skipped;
+        this.audited = audited;
+        this.failed = failed;
+        this.overheadMillis = overheadMillis;
+    }
+
+    public String getOperationType() {
+        return operationType;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public long getIntercepted() {
+        return intercepted;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getAudited() {
+        return audited;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getOverheadMillis() {
+        return overheadMillis;
+    }
+
+    @Override
+    public String toString() {
+        return operationType + ' ' + tableName + " intercepted=" + intercepted + " skipped=" + skipped + " audited=" + audited
+                + " failed=" + failed + " overhead=" + overheadMillis + "ms";
+    }
+}
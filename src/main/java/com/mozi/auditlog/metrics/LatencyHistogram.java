@@ -0,0 +1,93 @@
+package com.mozi.auditlog.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的 log2 分桶耗时直方图
+ * <p>
+ * 第 i 个桶（i &gt; 0）记录耗时在 [2^(i-1), 2^i) 纳秒之间的次数，写入只有一次 CAS 自增；
+ * 分位数按桶上界估算，误差不超过一倍，用于观察量级与长尾足够。
+ */
+class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * 累加到快照，用于汇总多个直方图
+     */
+    void mergeTo(Snapshot snapshot) {
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot.buckets[i] += buckets.get(i);
+        }
+        snapshot.count += count.sum();
+        snapshot.totalNanos += totalNanos.sum();
+        snapshot.maxNanos = Math.max(snapshot.maxNanos, maxNanos.get());
+    }
+
+    Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot();
+        mergeTo(snapshot);
+        return snapshot;
+    }
+
+    static final class Snapshot {
+        private final long[] buckets = new long[BUCKETS];
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        long getCount() {
+            return count;
+        }
+
+        long getTotalNanos() {
+            return totalNanos;
+        }
+
+        long getMaxNanos() {
+            return maxNanos;
+        }
+
+        long getMeanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        /**
+         * @param quantile 0-1
+         * @return 分位数所在桶的上界（纳秒），不超过最大值
+         */
+        long getQuantileNanos(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return i == 0 ? 0 : Math.min(maxNanos, (1L << i) - 1);
+                }
+            }
+            return maxNanos;
+        }
+    }
+}
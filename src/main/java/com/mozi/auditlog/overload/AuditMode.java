@@ -0,0 +1,26 @@
+package com.mozi.auditlog.overload;
+
+/**
+ * 单条语句的审计方式，由 {@link AuditOverloadGuard#admit(String)} 决定
+ */
+public enum AuditMode {
+    /**
+     * 完整审计：前后镜像与明细
+     */
+    full,
+
+    /**
+     * 只写主表记录，不写明细
+     */
+    headerOnly,
+
+    /**
+     * 只写一条摘要记录
+     */
+    summary,
+
+    /**
+     * 不审计
+     */
+    skip
+}
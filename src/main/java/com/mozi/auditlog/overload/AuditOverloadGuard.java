@@ -0,0 +1,255 @@
+package com.mozi.auditlog.overload;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 审计过载保护
+ * <p>
+ * 审计在业务线程上同步执行，审计库变慢时业务语句随之变慢。本类以两个信号判断过载：
+ * 同时在做审计的语句数（以信号量计，达到 overloadMaxConcurrent 即视为排队）与审计耗时的指数移动平均（超过 overloadLatencyMillis）。
+ * 过载时按 {@link OverloadPolicy} 决定每条语句的 {@link AuditMode}；overloadExemptTables 中的表始终完整审计，不受限制。
+ * <p>
+ * 过载期间若长时间没有完整审计的耗时样本，下一条语句会被放行完整审计作为探测，以便在审计库恢复后及时退出降级。
+ */
+public class AuditOverloadGuard {
+    public static final String POLICY = "overloadPolicy";
+    public static final String MAX_CONCURRENT = "overloadMaxConcurrent";
+    public static final String WAIT_MILLIS = "overloadWaitMillis";
+    public static final String LATENCY_MILLIS = "overloadLatencyMillis";
+    public static final String MIN_SAMPLE_RATE = "overloadMinSampleRate";
+    public static final String EXEMPT_TABLES = "overloadExemptTables";
+
+    /**
+     * 采样率调整与过载探测的最小间隔
+     */
+    private static final long ADJUST_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 耗时移动平均的平滑系数
+     */
+    private static final double ALPHA = 0.2D;
+
+    /**
+     * 恢复时每个间隔提高的采样率
+     */
+    private static final double SAMPLE_RATE_STEP = 0.1D;
+
+    private static final Admission UNGUARDED = new Admission(AuditMode.full, false, null);
+    private static final Admission HEADER_ONLY = new Admission(AuditMode.headerOnly, false, null);
+    private static final Admission SUMMARY = new Admission(AuditMode.summary, false, null);
+    private static final Admission SKIP = new Admission(AuditMode.skip, false, null);
+
+    private final OverloadPolicy policy;
+    private final int maxConcurrent;
+    private final long waitMillis;
+    private final long latencyThresholdNanos;
+    private final double minSampleRate;
+    private final Set<String> exemptTables;
+    private final Semaphore permits;
+    private final Latency latency = new Latency();
+    private final Map<String, Sampler> samplers = new ConcurrentHashMap<>();
+
+    private AuditOverloadGuard(OverloadPolicy policy, int maxConcurrent, long waitMillis, long latencyMillis, double minSampleRate, Set<String> exemptTables) {
+        this.policy = policy;
+        this.maxConcurrent = maxConcurrent;
+        this.waitMillis = waitMillis;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+        this.minSampleRate = minSampleRate;
+        this.exemptTables = exemptTables;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * 由插件配置构建
+     *
+     * @param properties 插件配置
+     * @return 过载保护
+     */
+    public static AuditOverloadGuard of(Properties properties) {
+        OverloadPolicy policy = OverloadPolicy.of(properties.getProperty(POLICY));
+        int maxConcurrent = Integer.parseInt(properties.getProperty(MAX_CONCURRENT, "16").trim());
+        long waitMillis = Long.parseLong(properties.getProperty(WAIT_MILLIS, "100").trim());
+        long latencyMillis = Long.parseLong(properties.getProperty(LATENCY_MILLIS, "200").trim());
+        double minSampleRate = Double.parseDouble(properties.getProperty(MIN_SAMPLE_RATE, "0.01").trim());
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException(MAX_CONCURRENT + " must be positive: " + maxConcurrent);
+        }
+        if (minSampleRate < 0D || minSampleRate > 1D) {
+            throw new IllegalArgumentException(MIN_SAMPLE_RATE + " must be within [0, 1]: " + minSampleRate);
+        }
+        Set<String> exemptTables = new HashSet<>();
+        for (String table : StringUtils.defaultString(properties.getProperty(EXEMPT_TABLES)).split(",")) {
+            if (StringUtils.isNotBlank(table)) {
+                exemptTables.add(table.trim().toUpperCase());
+            }
+        }
+        return new AuditOverloadGuard(policy, maxConcurrent, waitMillis, latencyMillis, minSampleRate, Collections.unmodifiableSet(exemptTables));
+    }
+
+    /**
+     * 决定一条语句的审计方式；返回的凭证必须在审计结束后交给 {@link #release(Admission, long)}
+     *
+     * @param tableName 表名
+     * @return 准入凭证
+     */
+    public Admission admit(String tableName) {
+        if (policy == OverloadPolicy.none) {
+            return UNGUARDED;
+        }
+        String table = tableName == null ? "" : tableName.toUpperCase();
+        if (exemptTables.contains(table)) {
+            return new Admission(AuditMode.full, false, null);
+        }
+        switch (policy) {
+            case block:
+                return acquire(waitMillis) ? new Admission(AuditMode.full, true, null) : SKIP;
+            case headerOnly:
+            case summary:
+                if (!latency.isHigh(latencyThresholdNanos) && acquire(0L)) {
+                    return new Admission(AuditMode.full, true, null);
+                }
+                return policy == OverloadPolicy.headerOnly ? HEADER_ONLY : SUMMARY;
+            case sample:
+                Sampler sampler = samplers.computeIfAbsent(table, k -> new Sampler());
+                sampler.adjust(sampler.latency.isHigh(latencyThresholdNanos) || permits.availablePermits() == 0, minSampleRate);
+                if (ThreadLocalRandom.current().nextDouble() < sampler.rate && acquire(0L)) {
+                    return new Admission(AuditMode.full, true, sampler);
+                }
+                return SKIP;
+            default:
+                return UNGUARDED;
+        }
+    }
+
+    /**
+     * 审计结束，归还并发名额并记录耗时
+     *
+     * @param admission  准入凭证
+     * @param auditNanos 本条语句审计本身的耗时（不含业务语句），未知时传负数
+     */
+    public void release(Admission admission, long auditNanos) {
+        if (admission == null || admission == UNGUARDED) {
+            return;
+        }
+        if (admission.permit) {
+            permits.release();
+        }
+        if (admission.mode == AuditMode.full && auditNanos >= 0) {
+            latency.record(auditNanos);
+            if (admission.sampler != null) {
+                admission.sampler.latency.record(auditNanos);
+            }
+        }
+    }
+
+    private boolean acquire(long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            return permits.tryAcquire();
+        }
+        try {
+            return permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public OverloadPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return 正在审计的语句数
+     */
+    public int getInFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * @return 审计耗时移动平均（毫秒）
+     */
+    public double getAverageLatencyMillis() {
+        return latency.average / 1_000_000D;
+    }
+
+    /**
+     * @param tableName 表名
+     * @return 当前采样率，未采样过的表为 1
+     */
+    public double getSampleRate(String tableName) {
+        Sampler sampler = samplers.get(tableName == null ? "" : tableName.toUpperCase());
+        return sampler == null ? 1D : sampler.rate;
+    }
+
+    /**
+     * 准入凭证
+     */
+    public static final class Admission {
+        private final AuditMode mode;
+        private final boolean permit;
+        private final Sampler sampler;
+
+        private Admission(AuditMode mode, boolean permit, Sampler sampler) {
+            this.mode = mode;
+            this.permit = permit;
+            this.sampler = sampler;
+        }
+
+        public AuditMode getMode() {
+            return mode;
+        }
+    }
+
+    /**
+     * 耗时指数移动平均，并发更新时允许丢失个别样本
+     */
+    private static final class Latency {
+        private volatile double average;
+        private volatile long lastSampleNanos = System.nanoTime();
+
+        void record(long nanos) {
+            average = average == 0D ? nanos : average + ALPHA * (nanos - average);
+            lastSampleNanos = System.nanoTime();
+        }
+
+        /**
+         * 超过阈值且样本仍新鲜；样本过期时返回 false，放行一条语句重新测量
+         */
+        boolean isHigh(long thresholdNanos) {
+            return thresholdNanos > 0 && average > thresholdNanos && System.nanoTime() - lastSampleNanos < ADJUST_INTERVAL_NANOS;
+        }
+    }
+
+    /**
+     * 单表采样率：过载时减半，恢复后每个间隔提高 {@link #SAMPLE_RATE_STEP}，每个间隔最多调整一次
+     */
+    private static final class Sampler {
+        private final Latency latency = new Latency();
+        private volatile double rate = 1D;
+        private volatile long lastAdjustNanos = System.nanoTime();
+
+        void adjust(boolean overloaded, double minRate) {
+            long now = System.nanoTime();
+            if (now - lastAdjustNanos < ADJUST_INTERVAL_NANOS) {
+                return;
+            }
+            synchronized (this) {
+                if (now - lastAdjustNanos < ADJUST_INTERVAL_NANOS) {
+                    return;
+                }
+                lastAdjustNanos = now;
+                rate = overloaded ? Math.max(minRate, rate / 2) : Math.min(1D, rate + SAMPLE_RATE_STEP);
+            }
+        }
+    }
+}
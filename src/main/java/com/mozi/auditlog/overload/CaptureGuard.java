@@ -0,0 +1,182 @@
+package com.mozi.auditlog.overload;
+
+import com.mozi.auditlog.util.RateLimitedLogger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 插件自身数据库访问的时间预算与熔断
+ * <p>
+ * 每条插件发出的语句按 {@link CapturePhase} 设置 queryTimeout，避免无索引的前镜像等查询长时间占住业务事务。
+ * 同一 表 + 阶段 连续失败（超时或其他 SQL 异常）达到 breakerFailureThreshold 次后熔断 breakerOpenSeconds 秒，
+ * 期间直接跳过该阶段的采集；到期后放行一次试探，成功则恢复，失败则继续熔断。异常日志按 表 + 阶段 限频输出。
+ */
+public class CaptureGuard {
+    private static final Logger logger = LoggerFactory.getLogger(CaptureGuard.class);
+
+    public static final String PRE_IMAGE_TIMEOUT_SECONDS = "preImageTimeoutSeconds";
+    public static final String POST_IMAGE_TIMEOUT_SECONDS = "postImageTimeoutSeconds";
+    public static final String METADATA_TIMEOUT_SECONDS = "metadataTimeoutSeconds";
+    public static final String SAVE_TIMEOUT_SECONDS = "saveTimeoutSeconds";
+    public static final String BREAKER_FAILURE_THRESHOLD = "breakerFailureThreshold";
+    public static final String BREAKER_OPEN_SECONDS = "breakerOpenSeconds";
+
+    private final RateLimitedLogger rateLimitedLogger = new RateLimitedLogger(logger);
+    private final Map<CapturePhase, Integer> timeoutSeconds = new EnumMap<>(CapturePhase.class);
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    private CaptureGuard(Properties properties) {
+        timeoutSeconds.put(CapturePhase.preImage, intOf(properties, PRE_IMAGE_TIMEOUT_SECONDS, 10));
+        timeoutSeconds.put(CapturePhase.postImage, intOf(properties, POST_IMAGE_TIMEOUT_SECONDS, 10));
+        timeoutSeconds.put(CapturePhase.metadata, intOf(properties, METADATA_TIMEOUT_SECONDS, 5));
+        timeoutSeconds.put(CapturePhase.save, intOf(properties, SAVE_TIMEOUT_SECONDS, 30));
+        this.failureThreshold = intOf(properties, BREAKER_FAILURE_THRESHOLD, 5);
+        this.openNanos = TimeUnit.SECONDS.toNanos(intOf(properties, BREAKER_OPEN_SECONDS, 60));
+    }
+
+    /**
+     * 由插件配置构建；超时为 0 表示不限制，熔断阈值为 0 表示不熔断
+     *
+     * @param properties 插件配置
+     * @return 时间预算与熔断
+     */
+    public static CaptureGuard of(Properties properties) {
+        return new CaptureGuard(properties);
+    }
+
+    private static int intOf(Properties properties, String key, int defaultValue) {
+        int value = Integer.parseInt(properties.getProperty(key, String.valueOf(defaultValue)).trim());
+        if (value < 0) {
+            throw new IllegalArgumentException(key + " must not be negative: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * 是否允许执行该 表 + 阶段 的采集；熔断期间返回 false
+     *
+     * @param tableName 表名
+     * @param phase     阶段
+     * @return 是否允许
+     */
+    public boolean allow(String tableName, CapturePhase phase) {
+        if (failureThreshold == 0) {
+            return true;
+        }
+        Breaker breaker = breakers.get(key(tableName, phase));
+        return breaker == null || breaker.allow(openNanos);
+    }
+
+    /**
+     * 为插件发出的语句设置该阶段的超时
+     *
+     * @param statement 语句
+     * @param phase     阶段
+     */
+    public void apply(Statement statement, CapturePhase phase) throws SQLException {
+        int seconds = timeoutSeconds.get(phase);
+        if (seconds > 0) {
+            statement.setQueryTimeout(seconds);
+        }
+    }
+
+    public void success(String tableName, CapturePhase phase) {
+        if (failureThreshold == 0) {
+            return;
+        }
+        Breaker breaker = breakers.get(key(tableName, phase));
+        if (breaker != null) {
+            breaker.success();
+        }
+    }
+
+    /**
+     * 记录一次失败并限频输出日志，连续失败达到阈值时熔断
+     *
+     * @param tableName 表名
+     * @param phase     阶段
+     * @param e         异常
+     */
+    public void failure(String tableName, CapturePhase phase, Throwable e) {
+        String key = key(tableName, phase);
+        rateLimitedLogger.error(key, "Audit " + phase + " failed for table " + tableName, e);
+        if (failureThreshold == 0) {
+            return;
+        }
+        if (breakers.computeIfAbsent(key, k -> new Breaker()).failure(failureThreshold)) {
+            logger.warn("Audit {} of table {} is suspended for {}s after {} consecutive failures",
+                    phase, tableName, TimeUnit.NANOSECONDS.toSeconds(openNanos), failureThreshold);
+        }
+    }
+
+    /**
+     * @return 当前处于熔断状态的 表/阶段
+     */
+    public List<String> getOpenCircuits() {
+        List<String> open = new ArrayList<>();
+        for (Map.Entry<String, Breaker> entry : breakers.entrySet()) {
+            if (entry.getValue().openedAt != 0L) {
+                open.add(entry.getKey());
+            }
+        }
+        return open;
+    }
+
+    public int getTimeoutSeconds(CapturePhase phase) {
+        return timeoutSeconds.get(phase);
+    }
+
+    private static String key(String tableName, CapturePhase phase) {
+        return (tableName == null ? "?" : tableName.toUpperCase()) + '/' + phase;
+    }
+
+    /**
+     * 单个 表 + 阶段 的熔断器：openedAt 为 0 表示闭合
+     */
+    private static final class Breaker {
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile long openedAt;
+        private final AtomicInteger probing = new AtomicInteger();
+
+        boolean allow(long openNanos) {
+            long opened = openedAt;
+            if (opened == 0L) {
+                return true;
+            }
+            // 熔断到期后只放行一次试探
+            return System.nanoTime() - opened >= openNanos && probing.compareAndSet(0, 1);
+        }
+
+        void success() {
+            failures.set(0);
+            openedAt = 0L;
+            probing.set(0);
+        }
+
+        /**
+         * @return 是否由闭合转为熔断
+         */
+        boolean failure(int threshold) {
+            boolean wasClosed = openedAt == 0L;
+            if (failures.incrementAndGet() >= threshold || !wasClosed) {
+                openedAt = System.nanoTime();
+                probing.set(0);
+                return wasClosed;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.mozi.auditlog.overload;
+
+/**
+ * 插件自身发出的数据库访问，按阶段分别设置超时与熔断，见 {@link CaptureGuard}
+ */
+public enum CapturePhase {
+    /**
+     * update/delete 的前镜像查询
+     */
+    preImage,
+
+    /**
+     * update 的后镜像查询
+     */
+    postImage,
+
+    /**
+     * 表/字段注释与列归属等元数据查询
+     */
+    metadata,
+
+    /**
+     * 审计记录写入
+     */
+    save
+}
@@ -0,0 +1,40 @@
+package com.mozi.auditlog.overload;
+
+/**
+ * 审计写入跟不上时的过载策略，见 {@link AuditOverloadGuard}
+ */
+public enum OverloadPolicy {
+    /**
+     * 不做限制，每条语句都同步完整审计（默认）
+     */
+    none,
+
+    /**
+     * 并发审计数达到上限时最多等待 overloadWaitMillis，超时则放弃本条审计
+     */
+    block,
+
+    /**
+     * 过载时只写审计主表记录（每行一条，带主键），不写明细；update 不再查询后镜像
+     */
+    headerOnly,
+
+    /**
+     * 过载时每条语句只写一条摘要记录（影响行数），不查询前后镜像
+     */
+    summary,
+
+    /**
+     * 按表自适应采样：表的审计耗时或并发审计数超限时降低采样率，恢复后逐步提高
+     */
+    sample;
+
+    public static OverloadPolicy of(String value) {
+        for (OverloadPolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(value == null ? null : value.trim())) {
+                return policy;
+            }
+        }
+        return none;
+    }
+}
@@ -0,0 +1,93 @@
+package com.mozi.auditlog.query;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 审计日志筛选条件，各条件之间为“且”的关系，至少需要指定一个
+ */
+public class AuditLogCriteria implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 业务表名
+     */
+    private String tableName;
+
+    /**
+     * 起始时间（含），按审计日志ID的时间前缀筛选
+     */
+    private Date from;
+
+    /**
+     * 结束时间（不含）
+     */
+    private Date to;
+
+    /**
+     * 操作批次ID（TC_BATCH_ID，即 traceId）；该列无索引，大表上建议同时指定时间段
+     */
+    private String batchId;
+
+    /**
+     * 审计日志ID
+     */
+    private List<String> auditLogIds = new ArrayList<>();
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public Date getFrom() {
+        return from;
+    }
+
+    public void setFrom(Date from) {
+        this.from = from;
+    }
+
+    public Date getTo() {
+        return to;
+    }
+
+    public void setTo(Date to) {
+        this.to = to;
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
+
+    public List<String> getAuditLogIds() {
+        return auditLogIds;
+    }
+
+    public void setAuditLogIds(List<String> auditLogIds) {
+        this.auditLogIds = auditLogIds == null ? new ArrayList<>() : auditLogIds;
+    }
+
+    boolean isEmpty() {
+        return tableName == null && from == null && to == null && batchId == null && auditLogIds.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "AuditLogCriteria{" +
+                "tableName='" + tableName + '\'' +
+                ", from=" + from +
+                ", to=" + to +
+                ", batchId='" + batchId + '\'' +
+                ", auditLogIds=" + auditLogIds.size() +
+                '}';
+    }
+}
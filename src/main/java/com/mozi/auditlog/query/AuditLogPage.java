@@ -0,0 +1,37 @@
+package com.mozi.auditlog.query;
+
+import com.mozi.auditlog.domain.AuditLog;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 审计历史分页结果，按审计日志ID倒序（新记录在前）
+ */
+public class AuditLogPage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<AuditLog> auditLogList;
+
+    /**
+     * 下一页游标，即本页最后一条的审计日志ID；为 null 表示没有更多数据
+     */
+    private final String nextCursor;
+
+    public AuditLogPage(List<AuditLog> auditLogList, String nextCursor) {
+        this.auditLogList = auditLogList;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<AuditLog> getAuditLogList() {
+        return auditLogList;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
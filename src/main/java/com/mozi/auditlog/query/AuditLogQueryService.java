@@ -0,0 +1,530 @@
+package com.mozi.auditlog.query;
+
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.domain.AuditLogDtl;
+import com.mozi.auditlog.util.AuditValueOverflow;
+import com.mozi.auditlog.util.ChangeSetCodec;
+import com.mozi.auditlog.util.SqlUtils;
+import com.mozi.auditlog.util.UniqueIdGenerator;
+import org.apache.commons.lang.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 审计日志查询服务
+ * <p>
+ * 按 业务表名 + 主键值 查询一行数据的变更历史（键集分页，新记录在前），以及按业务表名 + 时间段流式读取明细。
+ * 紧凑存储模式的变更集与溢出表中的超长值在读取时还原，调用方拿到的明细与行存储模式一致。
+ * 记录中为 null 的表描述、字段描述（紧凑存储、descriptionMode=dictionary）按表名、字段名从描述字典 TB_AUDIT_DIC_DESC 补回，
+ * 字典中没有的再取 user_tab_comments/user_col_comments。
+ * 依赖 sql/auditlog.sql 中的索引 TB_AUDIT_DIC_LOG_IX(TC_TABLE_NAME, TC_PRIMARY_KEY_VALUE, TC_AUDIT_LOG_ID)
+ * 与 TB_AUDIT_DIC_LOG_DTL_IX(TC_AUDIT_LOG_ID)。
+ * <p>
+ * 与 SQLAuditLogInterceptor 共用 split、defaultTableName、preTableName 配置；分表模式下按月表由新到旧依次查询。
+ */
+public class AuditLogQueryService {
+    public static final String QUERY_FETCH_SIZE = "queryFetchSize";
+    public static final String DESCRIPTION_MODE = "descriptionMode";
+
+    private static final int DEFAULT_FETCH_SIZE = 500;
+
+    /**
+     * 单次明细查询的 IN 列表上限
+     */
+    private static final int MAX_IN_SIZE = 500;
+
+    /**
+     * TC_PRIMARY_KEY_VALUE 为 CHAR(24)，绑定变量需补齐空格才能与定长值相等
+     */
+    private static final int PRIMARY_KEY_LENGTH = 24;
+
+    private static final String DTL_SUFFIX = "_DTL";
+    private static final String OVF_SUFFIX = "_OVF";
+
+    /**
+     * 月表清单缓存时间
+     */
+    private static final long TABLE_CACHE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final String LOG_COLUMNS = "h.TC_AUDIT_LOG_ID, h.TC_IP_ADDRESS, h.TC_SESSION_ID, h.TC_OPERATION_TYPE, h.TC_BATCH_ID, " +
+            "h.TC_TABLE_NAME, h.TC_TABLE_DESCRIPTION, h.TC_PRIMARY_KEY_VALUE, h.TC_PARENT_ID, h.TC_CREATE_BY, h.TC_CREATE_NAME, " +
+            "h.TC_CREATE_TIME, h.TC_CHANGE_SET";
+
+    private static final String DTL_COLUMNS = "d.TC_AUDIT_LOGD_ID, d.TC_AUDIT_LOG_ID, d.TC_COLUMN_NAME, d.TC_COLUMN_DESCRIPTION, " +
+            "d.TC_NEW_VALUE, d.TC_OLD_VALUE, n.TC_CONTENT, o.TC_CONTENT";
+
+    private static final String DTL_JOIN = " left join %2$s n on n.TC_OVERFLOW_ID = d.TC_NEW_OVERFLOW_ID left join %2$s o on o.TC_OVERFLOW_ID = d.TC_OLD_OVERFLOW_ID";
+
+    private static final String HISTORY_SQL = "select * from (select " + LOG_COLUMNS + " from %s h " +
+            "where h.TC_TABLE_NAME = ? and h.TC_PRIMARY_KEY_VALUE = ?%s order by h.TC_AUDIT_LOG_ID desc) where rownum <= ?";
+
+    private static final String DTL_SQL = "select " + DTL_COLUMNS + " from %1$s d" + DTL_JOIN +
+            " where d.TC_AUDIT_LOG_ID in (%3$s) order by d.TC_AUDIT_LOG_ID, d.TC_AUDIT_LOGD_ID";
+
+    private static final String STREAM_SQL = "select " + LOG_COLUMNS + ", " + DTL_COLUMNS + " from %3$s h left join %1$s d on d.TC_AUDIT_LOG_ID = h.TC_AUDIT_LOG_ID" + DTL_JOIN +
+            "%4$s order by h.TC_AUDIT_LOG_ID%5$s, d.TC_AUDIT_LOGD_ID";
+
+    private static final String COLUMN_COMMENTS_SQL = "select COLUMN_NAME, COMMENTS from user_col_comments where TABLE_NAME = ?";
+
+    private static final String TABLE_COMMENTS_SQL = "select COMMENTS from user_tab_comments where TABLE_NAME = ?";
+
+    private static final String DICTIONARY_SQL = "select TC_COLUMN_NAME, TC_DESCRIPTION from TB_AUDIT_DIC_DESC where TC_TABLE_NAME = ?";
+
+    /**
+     * 表描述在描述字典中的字段名
+     */
+    private static final String TABLE_LEVEL = "*";
+
+    private final DataSource dataSource;
+    private final Boolean splitEnable;
+    private final String defaultTableName;
+    private final String preTableName;
+    private final int fetchSize;
+    private final boolean descriptionDictionary;
+
+    /**
+     * 补全描述用的缓存：表名 -> (字段名 -> 描述)，表描述的字段名为 {@link #TABLE_LEVEL}
+     */
+    private final Map<String, Map<String, String>> descriptionCache = new ConcurrentHashMap<>();
+
+    private volatile NavigableSet<String> periodTables = Collections.emptyNavigableSet();
+    private volatile long periodTablesLoadTime;
+
+    public AuditLogQueryService(DataSource dataSource, Properties properties) {
+        this.dataSource = dataSource;
+        this.splitEnable = Boolean.valueOf(properties.getProperty("split", Boolean.FALSE.toString()));
+        this.defaultTableName = properties.getProperty("defaultTableName", "TB_AUDIT_DIC_LOG");
+        this.preTableName = properties.getProperty("preTableName", "TB_AUDIT_DIC_LOG_");
+        this.fetchSize = Integer.parseInt(properties.getProperty(QUERY_FETCH_SIZE, String.valueOf(DEFAULT_FETCH_SIZE)).trim());
+        this.descriptionDictionary = "dictionary".equalsIgnoreCase(StringUtils.trim(properties.getProperty(DESCRIPTION_MODE)));
+    }
+
+    /**
+     * 查询一行数据的变更历史
+     *
+     * @param tableName       业务表名
+     * @param primaryKeyValue 主键值
+     * @param cursor          上一页返回的 {@link AuditLogPage#getNextCursor()}，首页传 null
+     * @param pageSize        每页条数
+     * @return 审计日志（含明细），新记录在前
+     */
+    public AuditLogPage findHistory(String tableName, String primaryKeyValue, String cursor, int pageSize) throws SQLException {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+        }
+        List<AuditLog> auditLogList = new ArrayList<>(pageSize);
+        try (Connection connection = dataSource.getConnection()) {
+            String afterId = StringUtils.isBlank(cursor) ? null : cursor.trim();
+            for (String logTableName : getHistoryTables(connection, afterId)) {
+                int remaining = pageSize - auditLogList.size();
+                List<AuditLog> found = queryHistory(connection, logTableName, tableName, primaryKeyValue, afterId, remaining);
+                loadDetails(connection, logTableName, found);
+                for (AuditLog auditLog : found) {
+                    fillDescriptions(connection, auditLog);
+                }
+                auditLogList.addAll(found);
+                if (auditLogList.size() >= pageSize) {
+                    break;
+                }
+            }
+        }
+        String nextCursor = auditLogList.size() < pageSize ? null : auditLogList.get(auditLogList.size() - 1).getAuditLogId();
+        return new AuditLogPage(auditLogList, nextCursor);
+    }
+
+    /**
+     * 按时间段流式读取某业务表的审计明细，按审计日志ID顺序回调，每次从数据库最多取 fetchSize 行
+     *
+     * @param tableName 业务表名
+     * @param from      起始时间（含）
+     * @param to        结束时间（不含）
+     * @param consumer  回调：同一审计日志的明细共享同一个 AuditLog 实例；没有明细的审计日志回调一次，明细为 null
+     * @return 回调次数
+     */
+    public long streamDetails(String tableName, Date from, Date to, BiConsumer<AuditLog, AuditLogDtl> consumer) throws SQLException {
+        AuditLogCriteria criteria = new AuditLogCriteria();
+        criteria.setTableName(tableName);
+        criteria.setFrom(from);
+        criteria.setTo(to);
+        long[] count = {0L};
+        streamAuditLogs(criteria, false, auditLog -> {
+            if (auditLog.getAuditLogDtlList().isEmpty()) {
+                consumer.accept(auditLog, null);
+                count[0]++;
+            }
+            for (AuditLogDtl auditLogDtl : auditLog.getAuditLogDtlList()) {
+                consumer.accept(auditLog, auditLogDtl);
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * 按条件流式读取审计日志（含明细），每次从数据库最多取 fetchSize 行，内存中只保留当前一条审计日志
+     *
+     * @param criteria    筛选条件
+     * @param newestFirst 是否按审计日志ID倒序（新记录在前）
+     * @param consumer    回调
+     * @return 审计日志条数
+     */
+    public long streamAuditLogs(AuditLogCriteria criteria, boolean newestFirst, Consumer<AuditLog> consumer) throws SQLException {
+        if (criteria.isEmpty()) {
+            throw new IllegalArgumentException("At least one audit log criteria is required.");
+        }
+        long count = 0L;
+        try (Connection connection = dataSource.getConnection()) {
+            Map<String, List<String>> tableIds = getCriteriaTables(connection, criteria, newestFirst);
+            for (Map.Entry<String, List<String>> entry : tableIds.entrySet()) {
+                List<String> ids = entry.getValue();
+                if (ids.isEmpty()) {
+                    count += streamAuditLogs(connection, entry.getKey(), criteria, Collections.emptyList(), newestFirst, consumer);
+                    continue;
+                }
+                for (int start = 0; start < ids.size(); start += MAX_IN_SIZE) {
+                    List<String> chunk = ids.subList(start, Math.min(ids.size(), start + MAX_IN_SIZE));
+                    count += streamAuditLogs(connection, entry.getKey(), criteria, chunk, newestFirst, consumer);
+                }
+            }
+        }
+        return count;
+    }
+
+    private long streamAuditLogs(Connection connection, String logTableName, AuditLogCriteria criteria, List<String> ids,
+                                 boolean newestFirst, Consumer<AuditLog> consumer) throws SQLException {
+        StringBuilder where = new StringBuilder(" where 1 = 1");
+        List<String> parameters = new ArrayList<>();
+        if (criteria.getTableName() != null) {
+            where.append(" and h.TC_TABLE_NAME = ?");
+            parameters.add(criteria.getTableName());
+        }
+        if (criteria.getFrom() != null) {
+            where.append(" and h.TC_AUDIT_LOG_ID >= ?");
+            parameters.add(UniqueIdGenerator.timePrefix(criteria.getFrom().getTime()));
+        }
+        if (criteria.getTo() != null) {
+            where.append(" and h.TC_AUDIT_LOG_ID < ?");
+            parameters.add(UniqueIdGenerator.timePrefix(criteria.getTo().getTime()));
+        }
+        if (criteria.getBatchId() != null) {
+            where.append(" and h.TC_BATCH_ID = ?");
+            parameters.add(criteria.getBatchId());
+        }
+        if (!ids.isEmpty()) {
+            where.append(" and h.TC_AUDIT_LOG_ID in (").append(SqlUtils.placeholders(ids.size())).append(')');
+            parameters.addAll(ids);
+        }
+        String sql = String.format(STREAM_SQL, logTableName + DTL_SUFFIX, logTableName + OVF_SUFFIX, logTableName, where,
+                newestFirst ? " desc" : "");
+        long count = 0L;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setString(i + 1, parameters.get(i));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                AuditLog auditLog = null;
+                boolean compact = false;
+                while (resultSet.next()) {
+                    String auditLogId = trim(resultSet.getString(1));
+                    if (auditLog == null || !auditLog.getAuditLogId().equals(auditLogId)) {
+                        if (auditLog != null) {
+                            fillDescriptions(connection, auditLog);
+                            consumer.accept(auditLog);
+                            count++;
+                        }
+                        auditLog = readAuditLog(resultSet);
+                        List<AuditLogDtl> changeSet = decodeChangeSet(auditLog, resultSet.getString(13));
+                        compact = changeSet != null;
+                        if (compact) {
+                            auditLog.setAuditLogDtlList(changeSet);
+                        }
+                    }
+                    if (!compact && resultSet.getString(14) != null) {
+                        auditLog.getAuditLogDtlList().add(readAuditLogDtl(resultSet, 14));
+                    }
+                }
+                if (auditLog != null) {
+                    fillDescriptions(connection, auditLog);
+                    consumer.accept(auditLog);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private List<AuditLog> queryHistory(Connection connection, String logTableName, String tableName, String primaryKeyValue, String afterId, int limit) throws SQLException {
+        String sql = String.format(HISTORY_SQL, logTableName, afterId == null ? "" : " and h.TC_AUDIT_LOG_ID < ?");
+        List<AuditLog> auditLogList = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int index = 1;
+            statement.setString(index++, tableName);
+            statement.setString(index++, StringUtils.rightPad(primaryKeyValue, PRIMARY_KEY_LENGTH));
+            if (afterId != null) {
+                statement.setString(index++, afterId);
+            }
+            statement.setInt(index, limit);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    AuditLog auditLog = readAuditLog(resultSet);
+                    List<AuditLogDtl> changeSet = decodeChangeSet(auditLog, resultSet.getString(13));
+                    if (changeSet != null) {
+                        auditLog.setAuditLogDtlList(changeSet);
+                    }
+                    auditLogList.add(auditLog);
+                }
+            }
+        }
+        return auditLogList;
+    }
+
+    /**
+     * 为行存储模式的审计日志批量加载明细
+     */
+    private void loadDetails(Connection connection, String logTableName, List<AuditLog> auditLogList) throws SQLException {
+        Map<String, AuditLog> auditLogMap = new LinkedHashMap<>();
+        for (AuditLog auditLog : auditLogList) {
+            if (auditLog.getAuditLogDtlList().isEmpty()) {
+                auditLogMap.put(auditLog.getAuditLogId(), auditLog);
+            }
+        }
+        List<String> ids = new ArrayList<>(auditLogMap.keySet());
+        for (int start = 0; start < ids.size(); start += MAX_IN_SIZE) {
+            List<String> chunk = ids.subList(start, Math.min(ids.size(), start + MAX_IN_SIZE));
+            String sql = String.format(DTL_SQL, logTableName + DTL_SUFFIX, logTableName + OVF_SUFFIX, SqlUtils.placeholders(chunk.size()));
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < chunk.size(); i++) {
+                    statement.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        AuditLogDtl auditLogDtl = readAuditLogDtl(resultSet, 1);
+                        auditLogMap.get(auditLogDtl.getAuditLogId()).getAuditLogDtlList().add(auditLogDtl);
+                    }
+                }
+            }
+        }
+    }
+
+    private static AuditLog readAuditLog(ResultSet resultSet) throws SQLException {
+        AuditLog auditLog = new AuditLog(resultSet.getString(4), resultSet.getString(6), resultSet.getString(7),
+                trim(resultSet.getString(8)), resultSet.getTimestamp(12));
+        auditLog.setAuditLogId(trim(resultSet.getString(1)));
+        auditLog.setIpAddress(resultSet.getString(2));
+        auditLog.setSessionId(resultSet.getString(3));
+        auditLog.setBatchId(resultSet.getString(5));
+        auditLog.setParentId(trim(resultSet.getString(9)));
+        auditLog.setCreateBy(trim(resultSet.getString(10)));
+        auditLog.setCreateName(resultSet.getString(11));
+        return auditLog;
+    }
+
+    /**
+     * 读取明细列（DTL_COLUMNS），溢出的值从溢出表解压还原
+     */
+    private static AuditLogDtl readAuditLogDtl(ResultSet resultSet, int offset) throws SQLException {
+        Object newValue = resultSet.getString(offset + 4);
+        Object oldValue = resultSet.getString(offset + 5);
+        byte[] newContent = resultSet.getBytes(offset + 6);
+        byte[] oldContent = resultSet.getBytes(offset + 7);
+        if (newContent != null) {
+            newValue = AuditValueOverflow.decompress(newContent);
+        }
+        if (oldContent != null) {
+            oldValue = AuditValueOverflow.decompress(oldContent);
+        }
+        AuditLogDtl auditLogDtl = new AuditLogDtl(trim(resultSet.getString(offset + 1)), resultSet.getString(offset + 2),
+                resultSet.getString(offset + 3), newValue, oldValue);
+        auditLogDtl.setAuditLogdId(trim(resultSet.getString(offset)));
+        return auditLogDtl;
+    }
+
+    /**
+     * 解码紧凑存储模式的变更集，字段描述由 {@link #fillDescriptions} 补全
+     *
+     * @return 非紧凑存储的记录返回 null
+     */
+    private static List<AuditLogDtl> decodeChangeSet(AuditLog auditLog, String changeSet) {
+        if (changeSet == null) {
+            return null;
+        }
+        return ChangeSetCodec.decode(auditLog.getAuditLogId(), changeSet);
+    }
+
+    /**
+     * 补全为 null 的表描述、字段描述，描述齐全的记录不查询
+     */
+    private void fillDescriptions(Connection connection, AuditLog auditLog) throws SQLException {
+        if (auditLog.getTableName() == null) {
+            return;
+        }
+        Map<String, String> descriptions = null;
+        if (auditLog.getTableDescription() == null) {
+            descriptions = getDescriptions(connection, auditLog.getTableName());
+            auditLog.setTableDescription(descriptions.get(TABLE_LEVEL));
+        }
+        for (AuditLogDtl auditLogDtl : auditLog.getAuditLogDtlList()) {
+            if (auditLogDtl.getColumnDescription() == null) {
+                descriptions = descriptions != null ? descriptions : getDescriptions(connection, auditLog.getTableName());
+                auditLogDtl.setColumnDescription(descriptions.get(auditLogDtl.getColumnName()));
+            }
+        }
+    }
+
+    private Map<String, String> getDescriptions(Connection connection, String tableName) throws SQLException {
+        Map<String, String> descriptions = descriptionCache.get(tableName);
+        if (descriptions != null) {
+            return descriptions;
+        }
+        descriptions = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(TABLE_COMMENTS_SQL)) {
+            statement.setString(1, tableName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    descriptions.put(TABLE_LEVEL, resultSet.getString(1));
+                }
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement(COLUMN_COMMENTS_SQL)) {
+            statement.setString(1, tableName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    descriptions.put(resultSet.getString(1), resultSet.getString(2));
+                }
+            }
+        }
+        if (descriptionDictionary) {
+            // 字典记录的是写入审计时的描述，优先于当前注释
+            try (PreparedStatement statement = connection.prepareStatement(DICTIONARY_SQL)) {
+                statement.setString(1, tableName);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        descriptions.put(resultSet.getString(1), resultSet.getString(2));
+                    }
+                }
+            }
+        }
+        descriptionCache.put(tableName, descriptions);
+        return descriptions;
+    }
+
+    /**
+     * 游标所在月份及更早的月表，由新到旧
+     */
+    private List<String> getHistoryTables(Connection connection, String afterId) throws SQLException {
+        if (!splitEnable) {
+            return Collections.singletonList(defaultTableName);
+        }
+        String upper = afterId == null ? null : periodTableName(afterId);
+        NavigableSet<String> tables = getPeriodTables(connection).descendingSet();
+        return new ArrayList<>(upper == null ? tables : tables.tailSet(upper, true));
+    }
+
+    /**
+     * 条件涉及的主表；指定了审计日志ID时按ID所在月表分组，否则值为空列表
+     */
+    private Map<String, List<String>> getCriteriaTables(Connection connection, AuditLogCriteria criteria, boolean newestFirst) throws SQLException {
+        Map<String, List<String>> tableIds = new LinkedHashMap<>();
+        if (!criteria.getAuditLogIds().isEmpty()) {
+            TreeSet<String> ids = new TreeSet<>();
+            for (String id : criteria.getAuditLogIds()) {
+                ids.add(id.trim());
+            }
+            for (String id : newestFirst ? ids.descendingSet() : ids) {
+                String logTableName = splitEnable ? periodTableName(id) : defaultTableName;
+                if (logTableName != null) {
+                    tableIds.computeIfAbsent(logTableName, k -> new ArrayList<>()).add(id);
+                }
+            }
+            if (splitEnable) {
+                tableIds.keySet().retainAll(getPeriodTables(connection));
+            }
+            return tableIds;
+        }
+        List<String> tables;
+        if (!splitEnable) {
+            tables = Collections.singletonList(defaultTableName);
+        } else {
+            String lower = criteria.getFrom() == null ? null : preTableName + yearMonthOf(criteria.getFrom().getTime());
+            String upper = criteria.getTo() == null ? null : preTableName + yearMonthOf(criteria.getTo().getTime());
+            NavigableSet<String> periodTableSet = getPeriodTables(connection);
+            if (lower != null) {
+                periodTableSet = periodTableSet.tailSet(lower, true);
+            }
+            if (upper != null) {
+                periodTableSet = periodTableSet.headSet(upper, true);
+            }
+            tables = new ArrayList<>(newestFirst ? periodTableSet.descendingSet() : periodTableSet);
+        }
+        for (String logTableName : tables) {
+            tableIds.put(logTableName, Collections.emptyList());
+        }
+        return tableIds;
+    }
+
+    private NavigableSet<String> getPeriodTables(Connection connection) throws SQLException {
+        long now = System.currentTimeMillis();
+        if (now - periodTablesLoadTime < TABLE_CACHE_MILLIS) {
+            return periodTables;
+        }
+        NavigableSet<String> tables = new TreeSet<>();
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet resultSet = metaData.getTables(connection.getCatalog(), metaData.getUserName(), preTableName + "%", new String[]{"TABLE"})) {
+            while (resultSet.next()) {
+                String tableName = resultSet.getString("TABLE_NAME");
+                if (tableName.length() == preTableName.length() + 6 && StringUtils.isNumeric(tableName.substring(preTableName.length()))) {
+                    tableName = tableName.toUpperCase();
+                    tables.add(tableName);
+                }
+            }
+        }
+        periodTables = Collections.unmodifiableNavigableSet(tables);
+        periodTablesLoadTime = now;
+        return periodTables;
+    }
+
+    /**
+     * 由审计日志ID（'9' + yyMMdd...）得到所在月表名
+     */
+    private String periodTableName(String auditLogId) {
+        if (auditLogId.length() < 5 || !StringUtils.isNumeric(auditLogId.substring(1, 5))) {
+            return null;
+        }
+        return preTableName + "20" + auditLogId.substring(1, 5);
+    }
+
+    /**
+     * 时间所在的月表后缀，与 {@link #periodTableName(String)} 同样按ID时间戳的固定偏移划分月份
+     */
+    private static String yearMonthOf(long millis) {
+        YearMonth yearMonth = YearMonth.from(Instant.ofEpochMilli(millis).atOffset(UniqueIdGenerator.getTimeOffset()));
+        return String.valueOf(yearMonth.getYear() * 100 + yearMonth.getMonthValue());
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+}
@@ -0,0 +1,409 @@
+package com.mozi.auditlog.restore;
+
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.domain.AuditLogDtl;
+import com.mozi.auditlog.interceptor.TimestampUtils;
+import com.mozi.auditlog.query.AuditLogCriteria;
+import com.mozi.auditlog.query.AuditLogQueryService;
+import com.mozi.auditlog.util.SqlUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * 按审计记录还原数据
+ * <p>
+ * 按条件（时间段、批次ID、审计日志ID）由新到旧读取审计日志，为每条记录生成补偿语句：
+ * 删除 -> 按删除前的值重新插入；修改 -> 将变更字段改回旧值；新增 -> 按主键删除。
+ * 相同SQL的补偿语句合并为 JDBC 批量执行；同一行在一批中只出现一次，再次出现时先执行已积累的批次，保证同一行按倒序还原。
+ * 全部语句在一个事务中执行，出错整体回滚；dryRun 只生成语句不执行。
+ * 无主键、过载降级（只写主表、摘要）或缺少明细的记录不含完整镜像，跳过并按原因计入 {@link RestoreReport#getSkippedReasons()}。
+ * 超过 lobMaxLength 的 CLOB/BLOB 在审计中只有长度与摘要（如 CLOB(length=123456,sha256=...)），无法还原，含此类值的记录整条跳过；
+ * BLOB/RAW 的十六进制文本按字节还原。
+ * <p>
+ * 还原语句不经过 MyBatis，本身不会产生审计记录。
+ */
+public class AuditRestoreService {
+    private static final Logger logger = LoggerFactory.getLogger(AuditRestoreService.class);
+
+    public static final String RESTORE_BATCH_SIZE = "restoreBatchSize";
+    public static final String RESTORE_PREVIEW_LIMIT = "restorePreviewLimit";
+    public static final String RESTORE_SWAPPED_BEFORE = "restoreSwappedBefore";
+
+    /**
+     * ValueEncoder 为超长 LOB 写入的长度与摘要
+     */
+    private static final Pattern LOB_DIGEST = Pattern.compile("(CLOB|BLOB)\\(length=\\d+,sha256=[0-9a-f]{64}\\)");
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int DEFAULT_PREVIEW_LIMIT = 100;
+
+    private final DataSource dataSource;
+    private final AuditLogQueryService queryService;
+    private final int batchSize;
+    private final int previewLimit;
+
+    /**
+     * 早期版本写入的修改记录新旧值互换，此时间之前的修改记录按 TC_NEW_VALUE 为旧值处理
+     */
+    private final Timestamp swappedBefore;
+
+    private final Map<String, String> primaryKeyCache = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Integer>> columnTypeCache = new ConcurrentHashMap<>();
+
+    /**
+     * 与 AuditLogQueryService 共用配置，另有：restoreBatchSize（默认500）、restorePreviewLimit（默认100）、
+     * restoreSwappedBefore（yyyy-MM-dd HH:mm:ss，为空表示不存在新旧值互换的历史记录）
+     *
+     * @param dataSource 数据源，还原使用独立连接
+     * @param properties 配置
+     */
+    public AuditRestoreService(DataSource dataSource, Properties properties) {
+        this.dataSource = dataSource;
+        this.queryService = new AuditLogQueryService(dataSource, properties);
+        this.batchSize = Integer.parseInt(properties.getProperty(RESTORE_BATCH_SIZE, String.valueOf(DEFAULT_BATCH_SIZE)).trim());
+        this.previewLimit = Integer.parseInt(properties.getProperty(RESTORE_PREVIEW_LIMIT, String.valueOf(DEFAULT_PREVIEW_LIMIT)).trim());
+        String swappedBeforeOption = properties.getProperty(RESTORE_SWAPPED_BEFORE);
+        this.swappedBefore = StringUtils.isBlank(swappedBeforeOption) ? null : TimestampUtils.stringToTimestamp(swappedBeforeOption.trim());
+    }
+
+    /**
+     * 还原符合条件的审计记录
+     *
+     * @param criteria 筛选条件
+     * @param dryRun   只生成补偿语句，不执行
+     * @return 还原结果
+     */
+    public RestoreReport restore(AuditLogCriteria criteria, boolean dryRun) throws SQLException {
+        RestoreReport report = new RestoreReport(dryRun);
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (RestoreBatch restoreBatch = new RestoreBatch(connection, report)) {
+                queryService.streamAuditLogs(criteria, true, restoreBatch);
+                restoreBatch.flush();
+                if (restoreBatch.error != null) {
+                    throw restoreBatch.error;
+                }
+                if (dryRun) {
+                    connection.rollback();
+                } else {
+                    connection.commit();
+                }
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        logger.info("Audit restore finished for {}: {}", criteria, report);
+        return report;
+    }
+
+    /**
+     * 生成一条审计日志的补偿语句
+     *
+     * @param report 无法还原时记录跳过原因
+     * @return 无法还原时返回 null
+     */
+    private CompensatingStatement compensate(Connection connection, AuditLog auditLog, RestoreReport report) throws SQLException {
+        String tableName = auditLog.getTableName();
+        String primaryKey = getPrimaryKey(connection, tableName);
+        if (primaryKey == null || StringUtils.isBlank(auditLog.getPrimaryKeyValue())) {
+            report.addSkipped(RestoreReport.SKIP_NO_PRIMARY_KEY);
+            return null;
+        }
+        for (AuditLogDtl auditLogDtl : auditLog.getAuditLogDtlList()) {
+            if (AuditLogDtl.CAPTURE_MARKER_COLUMN.equals(auditLogDtl.getColumnName())) {
+                report.addSkipped(RestoreReport.SKIP_DEGRADED);
+                return null;
+            }
+        }
+        Map<String, Integer> columnTypes = getColumnTypes(connection, tableName);
+        AuditLog.OperationEnum operation = AuditLog.OperationEnum.valueOf(auditLog.getOperationType());
+        List<String> columns = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        String sql;
+        switch (operation) {
+            case insert:
+                sql = "delete from " + tableName + " where " + primaryKey + " = ?";
+                break;
+            case update: {
+                boolean swapped = swappedBefore != null && auditLog.getCreateTime() != null && auditLog.getCreateTime().before(swappedBefore);
+                for (AuditLogDtl auditLogDtl : auditLog.getAuditLogDtlList()) {
+                    columns.add(auditLogDtl.getColumnName());
+                    values.add(swapped ? auditLogDtl.getNewValue() : auditLogDtl.getOldValue());
+                }
+                if (columns.isEmpty()) {
+                    report.addSkipped(RestoreReport.SKIP_NO_FULL_IMAGE);
+                    return null;
+                }
+                sql = "update " + tableName + " set " + StringUtils.join(columns, " = ?, ") + " = ? where " + primaryKey + " = ?";
+                break;
+            }
+            case delete: {
+                // 完整的删除记录至少含主键列的旧值，没有明细时只能插入只有主键的空行
+                if (auditLog.getAuditLogDtlList().isEmpty()) {
+                    report.addSkipped(RestoreReport.SKIP_NO_FULL_IMAGE);
+                    return null;
+                }
+                for (AuditLogDtl auditLogDtl : auditLog.getAuditLogDtlList()) {
+                    if (!primaryKey.equalsIgnoreCase(auditLogDtl.getColumnName())) {
+                        columns.add(auditLogDtl.getColumnName());
+                        values.add(auditLogDtl.getOldValue());
+                    }
+                }
+                sql = "insert into " + tableName + " (" + StringUtils.join(columns, ", ") + (columns.isEmpty() ? "" : ", ") + primaryKey
+                        + ") values (" + SqlUtils.placeholders(columns.size() + 1) + ")";
+                break;
+            }
+            default:
+                report.addSkipped(RestoreReport.SKIP_NO_FULL_IMAGE);
+                return null;
+        }
+        columns.add(primaryKey);
+        values.add(auditLog.getPrimaryKeyValue());
+        List<Object> parameters = new ArrayList<>(values.size());
+        List<Integer> types = new ArrayList<>(values.size());
+        for (int i = 0; i < columns.size(); i++) {
+            Integer type = columnTypes.get(columns.get(i).toUpperCase());
+            types.add(type == null ? Types.VARCHAR : type);
+            if (isLobDigest(values.get(i), types.get(i))) {
+                report.addSkipped(RestoreReport.SKIP_HASHED_LOB);
+                return null;
+            }
+            parameters.add(toJdbcValue(columns.get(i), values.get(i), types.get(i)));
+        }
+        return new CompensatingStatement(tableName, tableName + ':' + auditLog.getPrimaryKeyValue(), sql, parameters, types);
+    }
+
+    /**
+     * 超长 LOB 的摘要文本，只在 LOB 列上识别，普通文本列中的同样内容按原文还原
+     */
+    private static boolean isLobDigest(Object value, int type) {
+        if (!(value instanceof String) || (type != Types.CLOB && type != Types.NCLOB && type != Types.BLOB)) {
+            return false;
+        }
+        return LOB_DIGEST.matcher((String) value).matches();
+    }
+
+    /**
+     * 审计明细中的值为字符串，按列类型还原；BLOB/RAW 为十六进制文本，还原为字节
+     */
+    private static Object toJdbcValue(String column, Object value, int type) throws SQLException {
+        if (!(value instanceof String)) {
+            return value;
+        }
+        String text = (String) value;
+        switch (type) {
+            case Types.BLOB:
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return decodeHex(column, text);
+            case Types.DATE:
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return TimestampUtils.stringToTimestamp(text);
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL:
+                return new BigDecimal(text);
+            default:
+                return text;
+        }
+    }
+
+    private static byte[] decodeHex(String column, String text) throws SQLException {
+        if (text.length() % 2 != 0) {
+            throw new SQLException("Malformed hexadecimal value of column " + column + ": " + text);
+        }
+        byte[] bytes = new byte[text.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(text.charAt(i * 2), 16);
+            int low = Character.digit(text.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new SQLException("Malformed hexadecimal value of column " + column + ": " + text);
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+
+    private String getPrimaryKey(Connection connection, String tableName) throws SQLException {
+        String primaryKey = primaryKeyCache.get(tableName);
+        if (primaryKey != null) {
+            return primaryKey.isEmpty() ? null : primaryKey;
+        }
+        primaryKey = "";
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet resultSet = metaData.getPrimaryKeys(connection.getCatalog(), metaData.getUserName(), tableName)) {
+            if (resultSet.next()) {
+                primaryKey = resultSet.getString("COLUMN_NAME");
+            }
+        }
+        primaryKeyCache.put(tableName, primaryKey);
+        return primaryKey.isEmpty() ? null : primaryKey;
+    }
+
+    private Map<String, Integer> getColumnTypes(Connection connection, String tableName) throws SQLException {
+        Map<String, Integer> columnTypes = columnTypeCache.get(tableName);
+        if (columnTypes != null) {
+            return columnTypes;
+        }
+        columnTypes = new HashMap<>();
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet resultSet = metaData.getColumns(connection.getCatalog(), metaData.getUserName(), tableName, null)) {
+            while (resultSet.next()) {
+                columnTypes.put(resultSet.getString("COLUMN_NAME").toUpperCase(), resultSet.getInt("DATA_TYPE"));
+            }
+        }
+        columnTypeCache.put(tableName, columnTypes);
+        return columnTypes;
+    }
+
+    private static final class CompensatingStatement {
+        private final String tableName;
+        private final String rowKey;
+        private final String sql;
+        private final List<Object> parameters;
+        private final List<Integer> types;
+
+        private CompensatingStatement(String tableName, String rowKey, String sql, List<Object> parameters, List<Integer> types) {
+            this.tableName = tableName;
+            this.rowKey = rowKey;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.types = types;
+        }
+
+        @Override
+        public String toString() {
+            List<Object> display = new ArrayList<>(parameters.size());
+            for (Object parameter : parameters) {
+                display.add(parameter instanceof byte[] ? "byte[" + ((byte[]) parameter).length + "]" : parameter);
+            }
+            return sql + " " + display;
+        }
+    }
+
+    /**
+     * 按SQL分组积累补偿语句的批次
+     */
+    private final class RestoreBatch implements Consumer<AuditLog>, AutoCloseable {
+        private final Connection connection;
+        private final RestoreReport report;
+        private final Map<String, PreparedStatement> statements = new LinkedHashMap<>();
+        private final Map<String, Integer> pendingCounts = new HashMap<>();
+
+        /**
+         * 当前批次中已出现的行
+         */
+        private final Set<String> pendingRows = new HashSet<>();
+
+        private SQLException error;
+
+        private RestoreBatch(Connection connection, RestoreReport report) {
+            this.connection = connection;
+            this.report = report;
+        }
+
+        @Override
+        public void accept(AuditLog auditLog) {
+            if (error != null) {
+                return;
+            }
+            report.addAuditLog();
+            try {
+                CompensatingStatement statement = compensate(connection, auditLog, report);
+                if (statement == null) {
+                    return;
+                }
+                report.addStatement(statement.tableName);
+                if (report.getPreviews().size() < previewLimit) {
+                    report.addPreview(statement.toString());
+                }
+                if (report.isDryRun()) {
+                    return;
+                }
+                if (!pendingRows.add(statement.rowKey)) {
+                    flush();
+                    pendingRows.add(statement.rowKey);
+                }
+                add(statement);
+            } catch (SQLException e) {
+                error = e;
+            }
+        }
+
+        private void add(CompensatingStatement statement) throws SQLException {
+            PreparedStatement preparedStatement = statements.get(statement.sql);
+            if (preparedStatement == null) {
+                preparedStatement = connection.prepareStatement(statement.sql);
+                statements.put(statement.sql, preparedStatement);
+            }
+            for (int i = 0; i < statement.parameters.size(); i++) {
+                Object value = statement.parameters.get(i);
+                if (value == null) {
+                    preparedStatement.setNull(i + 1, statement.types.get(i));
+                } else if (value instanceof byte[]) {
+                    preparedStatement.setBytes(i + 1, (byte[]) value);
+                } else {
+                    preparedStatement.setObject(i + 1, value);
+                }
+            }
+            preparedStatement.addBatch();
+            int count = pendingCounts.merge(statement.sql, 1, Integer::sum);
+            if (count >= batchSize) {
+                report.addResult(preparedStatement.executeBatch());
+                pendingCounts.put(statement.sql, 0);
+            }
+        }
+
+        private void flush() throws SQLException {
+            for (Map.Entry<String, PreparedStatement> entry : statements.entrySet()) {
+                Integer count = pendingCounts.get(entry.getKey());
+                if (count != null && count > 0) {
+                    report.addResult(entry.getValue().executeBatch());
+                    pendingCounts.put(entry.getKey(), 0);
+                }
+            }
+            pendingRows.clear();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            for (PreparedStatement preparedStatement : statements.values()) {
+                preparedStatement.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.mozi.auditlog.restore;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 还原结果统计
+ */
+public class RestoreReport implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 跳过原因：表无主键或记录无主键值
+     */
+    public static final String SKIP_NO_PRIMARY_KEY = "noPrimaryKey";
+
+    /**
+     * 跳过原因：过载降级的记录（只写主表、摘要），不含完整镜像
+     */
+    public static final String SKIP_DEGRADED = "degraded";
+
+    /**
+     * 跳过原因：缺少还原所需的明细（修改无变更字段、删除无删除前的值）
+     */
+    public static final String SKIP_NO_FULL_IMAGE = "noFullImage";
+
+    /**
+     * 跳过原因：LOB 超过 lobMaxLength，审计中只有长度与 SHA-256 摘要，无法还原原值
+     */
+    public static final String SKIP_HASHED_LOB = "hashedLob";
+
+    private final boolean dryRun;
+
+    /**
+     * 读取的审计日志条数
+     */
+    private long auditLogs;
+
+    /**
+     * 无法还原而跳过的审计日志条数（无主键、无明细等）
+     */
+    private long skipped;
+
+    /**
+     * 按原因统计的跳过条数
+     */
+    private final Map<String, Long> skippedReasons = new LinkedHashMap<>();
+
+    /**
+     * 生成的补偿语句条数
+     */
+    private long statements;
+
+    /**
+     * 实际影响的行数
+     */
+    private long affectedRows;
+
+    /**
+     * 未影响任何行的补偿语句条数（目标行已被删除或主键已变化）
+     */
+    private long missingRows;
+
+    /**
+     * 按业务表统计的补偿语句条数
+     */
+    private final Map<String, Long> tableStatements = new LinkedHashMap<>();
+
+    /**
+     * 前若干条补偿语句（含参数），用于预览
+     */
+    private final List<String> previews = new ArrayList<>();
+
+    public RestoreReport(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    void addAuditLog() {
+        auditLogs++;
+    }
+
+    void addSkipped(String reason) {
+        skipped++;
+        skippedReasons.merge(reason, 1L, Long::sum);
+    }
+
+    void addStatement(String tableName) {
+        statements++;
+        tableStatements.merge(tableName, 1L, Long::sum);
+    }
+
+    void addResult(int[] updateCounts) {
+        for (int updateCount : updateCounts) {
+            if (updateCount > 0) {
+                affectedRows += updateCount;
+            } else if (updateCount == 0) {
+                missingRows++;
+            }
+        }
+    }
+
+    void addPreview(String preview) {
+        previews.add(preview);
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public long getAuditLogs() {
+        return auditLogs;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public Map<String, Long> getSkippedReasons() {
+        return skippedReasons;
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getAffectedRows() {
+        return affectedRows;
+    }
+
+    public long getMissingRows() {
+        return missingRows;
+    }
+
+    public Map<String, Long> getTableStatements() {
+        return tableStatements;
+    }
+
+    public List<String> getPreviews() {
+        return previews;
+    }
+
+    @Override
+    public String toString() {
+        return "RestoreReport{" +
+                "dryRun=" + dryRun +
+                ", auditLogs=" + auditLogs +
+                ", skipped=" + skipped +
+                ", skippedReasons=" + skippedReasons +
+                ", statements=" + statements +
+                ", affectedRows=" + affectedRows +
+                ", missingRows=" + missingRows +
+                ", tableStatements=" + tableStatements +
+                '}';
+    }
+}
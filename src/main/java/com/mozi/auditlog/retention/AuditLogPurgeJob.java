@@ -0,0 +1,473 @@
+package com.mozi.auditlog.retention;
+
+import com.mozi.auditlog.util.SqlUtils;
+import com.mozi.auditlog.util.UniqueIdGenerator;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 审计日志保留期清理任务
+ * <p>
+ * 分表模式下，整月都已超过最长保留期的月表（含明细表、溢出表）直接 drop；
+ * 其余数据按策略分块删除：按 TC_AUDIT_LOG_ID 键集顺序每次取 chunkSize 条主表记录，
+ * 依次删除溢出表、明细表、主表并提交，同时把水位写入进度表 {@link #PROGRESS_TABLE_NAME}，中断后下次从水位继续。
+ * 水位按 主表 + 策略 记录；单表策略增删后默认策略覆盖的业务表随之变化，旧水位不再适用，改用新的进度键从头清理，并删除失效的进度。
+ * <p>
+ * 支持按行数/秒限速与执行时间窗（如 01:00-05:00，可跨零点），窗口外直接返回，适合由调度器在业务低峰期定时触发：
+ * <pre>
+ * scheduler.scheduleWithFixedDelay(new AuditLogPurgeJob(dataSource, properties), 0, 10, TimeUnit.MINUTES);
+ * </pre>
+ */
+public class AuditLogPurgeJob implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogPurgeJob.class);
+
+    public static final String PROGRESS_TABLE_NAME = "TB_AUDIT_DIC_LOG_PURGE";
+
+    public static final String RETENTION_DAYS = "retentionDays";
+    public static final String RETENTION_POLICIES = "retentionPolicies";
+    public static final String PURGE_CHUNK_SIZE = "purgeChunkSize";
+    public static final String PURGE_ROWS_PER_SECOND = "purgeRowsPerSecond";
+    public static final String PURGE_WINDOW = "purgeWindow";
+
+    /**
+     * 单块上限，同时受 Oracle IN 列表 1000 项的限制
+     */
+    private static final int MAX_CHUNK_SIZE = 500;
+
+    private static final String DTL_SUFFIX = "_DTL";
+    private static final String OVF_SUFFIX = "_OVF";
+
+    /**
+     * 键集起点，Oracle 中空串即 null，不能用 '' 作为下界
+     */
+    private static final String MIN_ID = " ";
+
+    private static final String SELECT_CHUNK_SQL = "select TC_AUDIT_LOG_ID from (select TC_AUDIT_LOG_ID from %s " +
+            "where TC_AUDIT_LOG_ID > ? and TC_AUDIT_LOG_ID < ? and TC_CREATE_TIME < ?%s order by TC_AUDIT_LOG_ID) where rownum <= ?";
+    private static final String DELETE_OVF_SQL = "delete from %s where TC_AUDIT_LOGD_ID in (select TC_AUDIT_LOGD_ID from %s where TC_AUDIT_LOG_ID in (%s))";
+    private static final String DELETE_DTL_SQL = "delete from %s where TC_AUDIT_LOG_ID in (%s)";
+    private static final String DELETE_LOG_SQL = "delete from %s where TC_AUDIT_LOG_ID in (%s)";
+
+    private static final String CREATE_PROGRESS_TABLE_SQL = "create table " + PROGRESS_TABLE_NAME + " (" +
+            "TC_LOG_TABLE_NAME VARCHAR2(48) not null, TC_POLICY VARCHAR2(48) not null, TC_LAST_ID CHAR(24), " +
+            "TC_DELETED_ROWS NUMBER(18), TC_UPDATE_TIME DATE, primary key (TC_LOG_TABLE_NAME, TC_POLICY))";
+    private static final String SELECT_PROGRESS_SQL = "select TC_LAST_ID from " + PROGRESS_TABLE_NAME + " where TC_LOG_TABLE_NAME = ? and TC_POLICY = ?";
+    private static final String UPDATE_PROGRESS_SQL = "update " + PROGRESS_TABLE_NAME + " set TC_LAST_ID = ?, TC_DELETED_ROWS = TC_DELETED_ROWS + ?, TC_UPDATE_TIME = ? " +
+            "where TC_LOG_TABLE_NAME = ? and TC_POLICY = ?";
+    private static final String INSERT_PROGRESS_SQL = "insert into " + PROGRESS_TABLE_NAME + " (TC_LOG_TABLE_NAME, TC_POLICY, TC_LAST_ID, TC_DELETED_ROWS, TC_UPDATE_TIME) values (?, ?, ?, ?, ?)";
+    private static final String DELETE_PROGRESS_SQL = "delete from " + PROGRESS_TABLE_NAME + " where TC_LOG_TABLE_NAME = ?";
+    private static final String DELETE_STALE_PROGRESS_SQL = DELETE_PROGRESS_SQL + " and TC_POLICY not in (%s)";
+
+    private final DataSource dataSource;
+    private final Boolean splitEnable;
+    private final String defaultTableName;
+    private final String preTableName;
+    private final List<RetentionPolicy> policies;
+
+    /**
+     * 默认策略的进度键，随排除的业务表集合变化，见 {@link #progressKey(RetentionPolicy)}
+     */
+    private final String defaultProgressKey;
+    private final int chunkSize;
+    private final int rowsPerSecond;
+    private final LocalTime windowStart;
+    private final LocalTime windowEnd;
+
+    /**
+     * 与 SQLAuditLogInterceptor 共用 split、defaultTableName、preTableName 配置，另有：
+     * retentionDays（默认保留天数，不大于0表示永久保留）、retentionPolicies（TB_A:30,TB_B:365）、
+     * purgeChunkSize（默认500）、purgeRowsPerSecond（不大于0表示不限速）、purgeWindow（HH:mm-HH:mm，为空表示不限时段）
+     *
+     * @param dataSource 数据源，任务使用独立连接并自行提交
+     * @param properties 配置
+     */
+    public AuditLogPurgeJob(DataSource dataSource, Properties properties) {
+        this.dataSource = dataSource;
+        this.splitEnable = Boolean.valueOf(properties.getProperty("split", Boolean.FALSE.toString()));
+        this.defaultTableName = properties.getProperty("defaultTableName", "TB_AUDIT_DIC_LOG");
+        this.preTableName = properties.getProperty("preTableName", "TB_AUDIT_DIC_LOG_");
+        this.policies = RetentionPolicy.parse(Integer.parseInt(properties.getProperty(RETENTION_DAYS, "0").trim()), properties.getProperty(RETENTION_POLICIES));
+        this.defaultProgressKey = defaultProgressKey(policies);
+        this.chunkSize = Math.max(1, Math.min(MAX_CHUNK_SIZE, Integer.parseInt(properties.getProperty(PURGE_CHUNK_SIZE, String.valueOf(MAX_CHUNK_SIZE)).trim())));
+        this.rowsPerSecond = Integer.parseInt(properties.getProperty(PURGE_ROWS_PER_SECOND, "0").trim());
+        String window = properties.getProperty(PURGE_WINDOW);
+        if (StringUtils.isNotBlank(window)) {
+            String[] times = window.split("-");
+            if (times.length != 2) {
+                throw new IllegalArgumentException("Illegal purge window: " + window);
+            }
+            this.windowStart = LocalTime.parse(times[0].trim());
+            this.windowEnd = LocalTime.parse(times[1].trim());
+        } else {
+            this.windowStart = null;
+            this.windowEnd = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            purge();
+        } catch (SQLException e) {
+            logger.error("Error occurs when purging audit logs.", e);
+        }
+    }
+
+    /**
+     * 执行一轮清理，直至没有过期数据、离开时间窗或线程被中断
+     *
+     * @return 本轮删除的行数（主表、明细表、溢出表合计，drop 的表不计）
+     */
+    public long purge() throws SQLException {
+        if (!isInWindow()) {
+            return 0L;
+        }
+        long now = System.currentTimeMillis();
+        long deletedRows = 0L;
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                ensureProgressTable(connection);
+                List<String> logTableNames = splitEnable ? dropExpiredPeriodTables(connection, now) : Collections.singletonList(defaultTableName);
+                for (String logTableName : logTableNames) {
+                    deleteStaleProgress(connection, logTableName);
+                    for (RetentionPolicy policy : policies) {
+                        if (!isInWindow() || Thread.currentThread().isInterrupted()) {
+                            return deletedRows;
+                        }
+                        if (policy.isKeepForever()) {
+                            continue;
+                        }
+                        long cutoff = now - TimeUnit.DAYS.toMillis(policy.getRetentionDays());
+                        if (splitEnable && periodStart(logTableName) >= cutoff) {
+                            continue;
+                        }
+                        deletedRows += purgeRows(connection, logTableName, policy, cutoff);
+                    }
+                }
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        return deletedRows;
+    }
+
+    /**
+     * drop 整月超过最长保留期的月表，返回剩余需要逐行清理的主表
+     */
+    private List<String> dropExpiredPeriodTables(Connection connection, long now) throws SQLException {
+        long maxRetentionDays = 0L;
+        for (RetentionPolicy policy : policies) {
+            if (policy.isKeepForever()) {
+                maxRetentionDays = -1L;
+                break;
+            }
+            maxRetentionDays = Math.max(maxRetentionDays, policy.getRetentionDays());
+        }
+        long dropBefore = maxRetentionDays < 0 ? Long.MIN_VALUE : now - TimeUnit.DAYS.toMillis(maxRetentionDays);
+
+        Set<String> existingTables = new HashSet<>();
+        List<String> logTableNames = new ArrayList<>();
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet resultSet = metaData.getTables(connection.getCatalog(), metaData.getUserName(), preTableName + "%", new String[]{"TABLE"})) {
+            while (resultSet.next()) {
+                String tableName = resultSet.getString("TABLE_NAME");
+                existingTables.add(tableName);
+                if (periodOf(tableName) != null) {
+                    logTableNames.add(tableName);
+                }
+            }
+        }
+        Collections.sort(logTableNames);
+
+        List<String> remaining = new ArrayList<>();
+        for (String logTableName : logTableNames) {
+            if (periodEnd(logTableName) > dropBefore) {
+                remaining.add(logTableName);
+                continue;
+            }
+            try (Statement statement = connection.createStatement()) {
+                // 先子表后主表
+                for (String tableName : new String[]{logTableName + OVF_SUFFIX, logTableName + DTL_SUFFIX, logTableName}) {
+                    if (existingTables.contains(tableName)) {
+                        statement.execute(dropTableSql(tableName));
+                    }
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(DELETE_PROGRESS_SQL)) {
+                statement.setString(1, logTableName);
+                statement.executeUpdate();
+            }
+            connection.commit();
+            logger.info("Audit log table {} dropped by retention policy.", logTableName);
+        }
+        return remaining;
+    }
+
+    /**
+     * drop 时跳过回收站，立即释放空间
+     */
+    String dropTableSql(String tableName) {
+        return "drop table " + tableName + " purge";
+    }
+
+    /**
+     * 按键集顺序分块删除单个主表中某一策略下的过期数据
+     */
+    private long purgeRows(Connection connection, String logTableName, RetentionPolicy policy, long cutoff) throws SQLException {
+        String selectSql = String.format(SELECT_CHUNK_SQL, logTableName, tableCondition(policy));
+        String cutoffId = UniqueIdGenerator.timePrefix(cutoff);
+        Timestamp cutoffTime = new Timestamp(cutoff);
+        String progressKey = progressKey(policy);
+        String lastId = loadProgress(connection, logTableName, progressKey);
+        boolean progressExists = lastId != null;
+        long deletedRows = 0L;
+        while (isInWindow()) {
+            long chunkStart = System.nanoTime();
+            List<String> ids = new ArrayList<>(chunkSize);
+            try (PreparedStatement statement = connection.prepareStatement(selectSql)) {
+                int index = 1;
+                statement.setString(index++, lastId == null ? MIN_ID : lastId);
+                statement.setString(index++, cutoffId);
+                statement.setTimestamp(index++, cutoffTime);
+                index = bindTableCondition(statement, index, policy);
+                statement.setInt(index, chunkSize);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        ids.add(resultSet.getString(1).trim());
+                    }
+                }
+            }
+            if (ids.isEmpty()) {
+                connection.commit();
+                break;
+            }
+            int chunkRows = deleteChunk(connection, logTableName, ids);
+            lastId = ids.get(ids.size() - 1);
+            saveProgress(connection, logTableName, progressKey, lastId, chunkRows, progressExists);
+            progressExists = true;
+            connection.commit();
+            deletedRows += chunkRows;
+            if (!throttle(chunkRows, chunkStart) || ids.size() < chunkSize) {
+                break;
+            }
+        }
+        if (deletedRows > 0) {
+            logger.info("Purged {} audit log rows from {} by policy {}.", deletedRows, logTableName, policy);
+        }
+        return deletedRows;
+    }
+
+    private int deleteChunk(Connection connection, String logTableName, List<String> ids) throws SQLException {
+        String placeholders = SqlUtils.placeholders(ids.size());
+        String dtlTableName = logTableName + DTL_SUFFIX;
+        int rows = 0;
+        rows += executeDelete(connection, String.format(DELETE_OVF_SQL, logTableName + OVF_SUFFIX, dtlTableName, placeholders), ids);
+        rows += executeDelete(connection, String.format(DELETE_DTL_SQL, dtlTableName, placeholders), ids);
+        rows += executeDelete(connection, String.format(DELETE_LOG_SQL, logTableName, placeholders), ids);
+        return rows;
+    }
+
+    private static int executeDelete(Connection connection, String sql, List<String> ids) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++) {
+                statement.setString(i + 1, ids.get(i));
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * 默认策略排除已单独配置策略的业务表
+     */
+    private String tableCondition(RetentionPolicy policy) {
+        if (!policy.isDefault()) {
+            return " and TC_TABLE_NAME = ?";
+        }
+        int explicitCount = policies.size() - 1;
+        return explicitCount == 0 ? "" : " and TC_TABLE_NAME not in (" + SqlUtils.placeholders(explicitCount) + ")";
+    }
+
+    private int bindTableCondition(PreparedStatement statement, int index, RetentionPolicy policy) throws SQLException {
+        if (!policy.isDefault()) {
+            statement.setString(index++, policy.getTableName());
+            return index;
+        }
+        for (RetentionPolicy other : policies) {
+            if (!other.isDefault()) {
+                statement.setString(index++, other.getTableName());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 按配置的行数/秒休眠
+     *
+     * @return false 表示线程被中断，应停止本轮清理
+     */
+    private boolean throttle(int rows, long chunkStart) {
+        if (rowsPerSecond <= 0) {
+            return true;
+        }
+        long expectedNanos = TimeUnit.SECONDS.toNanos(rows) / rowsPerSecond;
+        long sleepNanos = expectedNanos - (System.nanoTime() - chunkStart);
+        if (sleepNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isInWindow() {
+        if (windowStart == null) {
+            return true;
+        }
+        LocalTime now = LocalTime.now();
+        if (windowStart.isBefore(windowEnd)) {
+            return !now.isBefore(windowStart) && now.isBefore(windowEnd);
+        }
+        // 跨零点，如 22:00-04:00
+        return !now.isBefore(windowStart) || now.isBefore(windowEnd);
+    }
+
+    private void ensureProgressTable(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet resultSet = metaData.getTables(connection.getCatalog(), metaData.getUserName(), PROGRESS_TABLE_NAME, new String[]{"TABLE"})) {
+            if (resultSet.next()) {
+                return;
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_PROGRESS_TABLE_SQL);
+        }
+        connection.commit();
+    }
+
+    /**
+     * 进度键：单表策略为业务表名；默认策略在没有单表策略时为 *，否则为 * 加排除表集合的散列，
+     * 排除表集合变化后旧水位之前可能还有新纳入的业务表的过期数据，须从头清理
+     */
+    private String progressKey(RetentionPolicy policy) {
+        return policy.isDefault() ? defaultProgressKey : policy.getPolicyKey();
+    }
+
+    private static String defaultProgressKey(List<RetentionPolicy> policies) {
+        List<String> excluded = new ArrayList<>();
+        for (RetentionPolicy policy : policies) {
+            if (!policy.isDefault()) {
+                excluded.add(policy.getTableName());
+            }
+        }
+        if (excluded.isEmpty()) {
+            return RetentionPolicy.DEFAULT_POLICY_KEY;
+        }
+        Collections.sort(excluded);
+        return RetentionPolicy.DEFAULT_POLICY_KEY + Integer.toHexString(StringUtils.join(excluded, ',').hashCode());
+    }
+
+    /**
+     * 删除当前策略集合中已不存在的进度，策略重新加入时从头清理
+     */
+    private void deleteStaleProgress(Connection connection, String logTableName) throws SQLException {
+        List<String> keys = new ArrayList<>(policies.size());
+        for (RetentionPolicy policy : policies) {
+            keys.add(progressKey(policy));
+        }
+        try (PreparedStatement statement = connection.prepareStatement(String.format(DELETE_STALE_PROGRESS_SQL, SqlUtils.placeholders(keys.size())))) {
+            statement.setString(1, logTableName);
+            for (int i = 0; i < keys.size(); i++) {
+                statement.setString(i + 2, keys.get(i));
+            }
+            if (statement.executeUpdate() > 0) {
+                logger.info("Stale purge progress of {} reset after retention policies changed.", logTableName);
+            }
+        }
+        connection.commit();
+    }
+
+    private static String loadProgress(Connection connection, String logTableName, String progressKey) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_PROGRESS_SQL)) {
+            statement.setString(1, logTableName);
+            statement.setString(2, progressKey);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    String lastId = resultSet.getString(1);
+                    return lastId == null ? MIN_ID : lastId.trim();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void saveProgress(Connection connection, String logTableName, String progressKey, String lastId, int rows, boolean progressExists) throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        if (progressExists) {
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE_PROGRESS_SQL)) {
+                statement.setString(1, lastId);
+                statement.setLong(2, rows);
+                statement.setTimestamp(3, now);
+                statement.setString(4, logTableName);
+                statement.setString(5, progressKey);
+                statement.executeUpdate();
+            }
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_PROGRESS_SQL)) {
+            statement.setString(1, logTableName);
+            statement.setString(2, progressKey);
+            statement.setString(3, lastId);
+            statement.setLong(4, rows);
+            statement.setTimestamp(5, now);
+            statement.executeUpdate();
+        }
+    }
+
+    private YearMonth periodOf(String tableName) {
+        if (!tableName.startsWith(preTableName) || tableName.length() != preTableName.length() + 6) {
+            return null;
+        }
+        String suffix = tableName.substring(preTableName.length());
+        for (int i = 0; i < suffix.length(); i++) {
+            if (!Character.isDigit(suffix.charAt(i))) {
+                return null;
+            }
+        }
+        int month = Integer.parseInt(suffix.substring(4));
+        return month >= 1 && month <= 12 ? YearMonth.of(Integer.parseInt(suffix.substring(0, 4)), month) : null;
+    }
+
+    private long periodStart(String logTableName) {
+        YearMonth yearMonth = periodOf(logTableName);
+        return yearMonth == null ? Long.MIN_VALUE : yearMonth.atDay(1).atStartOfDay(UniqueIdGenerator.getTimeOffset()).toInstant().toEpochMilli();
+    }
+
+    private long periodEnd(String logTableName) {
+        YearMonth yearMonth = periodOf(logTableName);
+        return yearMonth == null ? Long.MAX_VALUE : yearMonth.plusMonths(1).atDay(1).atStartOfDay(UniqueIdGenerator.getTimeOffset()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,77 @@
+package com.mozi.auditlog.retention;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 审计日志保留策略
+ * <p>
+ * tableName 为被审计的业务表名（对应 TC_TABLE_NAME），为 null 时表示默认策略，
+ * 作用于没有单独配置策略的所有业务表。retentionDays 不大于0表示永久保留。
+ */
+public class RetentionPolicy {
+    /**
+     * 默认策略在清理进度表中的键
+     */
+    static final String DEFAULT_POLICY_KEY = "*";
+
+    private final String tableName;
+    private final int retentionDays;
+
+    public RetentionPolicy(String tableName, int retentionDays) {
+        this.tableName = tableName == null ? null : tableName.trim().toUpperCase();
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * 解析策略配置
+     *
+     * @param defaultRetentionDays 默认保留天数
+     * @param tablePolicies        单表策略，格式: TB_A:30,TB_B:365
+     * @return 单表策略在前、默认策略在后
+     */
+    public static List<RetentionPolicy> parse(int defaultRetentionDays, String tablePolicies) {
+        List<RetentionPolicy> policies = new ArrayList<>();
+        if (StringUtils.isNotBlank(tablePolicies)) {
+            for (String item : tablePolicies.split(",")) {
+                if (StringUtils.isBlank(item)) {
+                    continue;
+                }
+                int separator = item.lastIndexOf(':');
+                if (separator <= 0) {
+                    throw new IllegalArgumentException("Illegal retention policy: " + item);
+                }
+                policies.add(new RetentionPolicy(item.substring(0, separator), Integer.parseInt(item.substring(separator + 1).trim())));
+            }
+        }
+        policies.add(new RetentionPolicy(null, defaultRetentionDays));
+        return policies;
+    }
+
+    public boolean isDefault() {
+        return tableName == null;
+    }
+
+    public boolean isKeepForever() {
+        return retentionDays <= 0;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    String getPolicyKey() {
+        return isDefault() ? DEFAULT_POLICY_KEY : tableName;
+    }
+
+    @Override
+    public String toString() {
+        return getPolicyKey() + ":" + retentionDays;
+    }
+}
@@ -0,0 +1,278 @@
+package com.mozi.auditlog.sink;
+
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.domain.AuditLogDtl;
+import com.mozi.auditlog.interceptor.TimestampUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 文件写入目标的记录格式
+ * <p>
+ * json：每行一个 JSON 对象，字段名与 {@link AuditLog}/{@link AuditLogDtl} 的属性名一致，明细在 auditLogDtlList 中；
+ * 数值写为 JSON 数字，时间写为 yyyy-MM-dd HH:mm:ss[.SSS] 字符串。
+ * <p>
+ * binary：长度前缀的记录，整数为大端序：
+ * <pre>
+ * 记录 := int32 载荷长度 | 载荷
+ * 载荷 := int8 版本(1) | 串 auditLogId | 串 tableName | 串 tableDescription | 串 primaryKeyValue | 串 operationType
+ *        | 串 createBy | 串 createName | 串 ipAddress | 串 sessionId | 串 batchId | int64 createTime 毫秒（-1 为 null）
+ *        | int32 明细数 | 明细*
+ * 明细 := 串 auditLogdId | 串 columnName | 串 columnDescription | 串 oldValue | 串 newValue
+ * 串   := int32 UTF-8 字节数（-1 为 null）| 字节
+ * </pre>
+ * 明细值按文本写入（时间戳的格式与审计表一致），读回后为字符串。
+ */
+public final class AuditRecordCodec {
+    private static final byte BINARY_VERSION = 1;
+
+    private static final DateTimeFormatter TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private AuditRecordCodec() {
+    }
+
+    /**
+     * 追加一条 JSON 记录（不含换行）
+     */
+    public static void appendJson(StringBuilder builder, AuditLog auditLog) {
+        builder.append('{');
+        appendJsonField(builder, "auditLogId", auditLog.getAuditLogId(), false);
+        appendJsonField(builder, "tableName", auditLog.getTableName(), true);
+        appendJsonField(builder, "tableDescription", auditLog.getTableDescription(), true);
+        appendJsonField(builder, "primaryKeyValue", auditLog.getPrimaryKeyValue(), true);
+        appendJsonField(builder, "operationType", auditLog.getOperationType(), true);
+        appendJsonField(builder, "createBy", auditLog.getCreateBy(), true);
+        appendJsonField(builder, "createName", auditLog.getCreateName(), true);
+        appendJsonField(builder, "createTime", auditLog.getCreateTime(), true);
+        appendJsonField(builder, "ipAddress", auditLog.getIpAddress(), true);
+        appendJsonField(builder, "sessionId", auditLog.getSessionId(), true);
+        appendJsonField(builder, "batchId", auditLog.getBatchId(), true);
+        builder.append(",\"auditLogDtlList\":[");
+        boolean first = true;
+        for (AuditLogDtl auditLogDtl : auditLog.getAuditLogDtlList()) {
+            if (auditLogDtl == null) {
+                continue;
+            }
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            builder.append('{');
+            appendJsonField(builder, "auditLogdId", auditLogDtl.getAuditLogdId(), false);
+            appendJsonField(builder, "columnName", auditLogDtl.getColumnName(), true);
+            appendJsonField(builder, "columnDescription", auditLogDtl.getColumnDescription(), true);
+            appendJsonField(builder, "oldValue", auditLogDtl.getOldValue(), true);
+            appendJsonField(builder, "newValue", auditLogDtl.getNewValue(), true);
+            builder.append('}');
+        }
+        builder.append("]}");
+    }
+
+    private static void appendJsonField(StringBuilder builder, String name, Object value, boolean separator) {
+        if (separator) {
+            builder.append(',');
+        }
+        builder.append('"').append(name).append("\":");
+        appendJsonValue(builder, value);
+    }
+
+    private static void appendJsonValue(StringBuilder builder, Object value) {
+        if (value == null) {
+            builder.append("null");
+        } else if (value instanceof BigDecimal) {
+            builder.append(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            builder.append(value);
+        } else if ((value instanceof Double || value instanceof Float) && !Double.isNaN(((Number) value).doubleValue())
+                && !Double.isInfinite(((Number) value).doubleValue())) {
+            builder.append(value);
+        } else if (value instanceof Boolean) {
+            builder.append(value);
+        } else if (value instanceof byte[]) {
+            appendJsonString(builder, Base64.getEncoder().encodeToString((byte[]) value));
+        } else {
+            appendJsonString(builder, toText(value));
+        }
+    }
+
+    private static void appendJsonString(StringBuilder builder, String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        builder.append('"');
+    }
+
+    /**
+     * 编码一条二进制记录（含长度前缀）
+     */
+    public static byte[] toBinary(AuditLog auditLog) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0);
+            out.writeByte(BINARY_VERSION);
+            writeString(out, auditLog.getAuditLogId());
+            writeString(out, auditLog.getTableName());
+            writeString(out, auditLog.getTableDescription());
+            writeString(out, auditLog.getPrimaryKeyValue());
+            writeString(out, auditLog.getOperationType());
+            writeString(out, auditLog.getCreateBy());
+            writeString(out, auditLog.getCreateName());
+            writeString(out, auditLog.getIpAddress());
+            writeString(out, auditLog.getSessionId());
+            writeString(out, auditLog.getBatchId());
+            out.writeLong(auditLog.getCreateTime() == null ? -1L : auditLog.getCreateTime().getTime());
+            List<AuditLogDtl> auditLogDtlList = new ArrayList<>(auditLog.getAuditLogDtlList().size());
+            for (AuditLogDtl auditLogDtl : auditLog.getAuditLogDtlList()) {
+                if (auditLogDtl != null) {
+                    auditLogDtlList.add(auditLogDtl);
+                }
+            }
+            out.writeInt(auditLogDtlList.size());
+            for (AuditLogDtl auditLogDtl : auditLogDtlList) {
+                writeString(out, auditLogDtl.getAuditLogdId());
+                writeString(out, auditLogDtl.getColumnName());
+                writeString(out, auditLogDtl.getColumnDescription());
+                writeString(out, toText(auditLogDtl.getOldValue()));
+                writeString(out, toText(auditLogDtl.getNewValue()));
+            }
+        } catch (IOException e) {
+            // ByteArrayOutputStream 不会抛出 IOException
+            throw new IllegalStateException(e);
+        }
+        byte[] record = bytes.toByteArray();
+        ByteBuffer.wrap(record).putInt(record.length - Integer.BYTES);
+        return record;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * 读取二进制格式的审计文件
+     *
+     * @param file 文件
+     * @return 审计日志，明细值为字符串
+     * @throws IOException 读取失败或记录格式错误
+     */
+    public static List<AuditLog> readBinary(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        List<AuditLog> auditLogs = new ArrayList<>();
+        try {
+            while (buffer.hasRemaining()) {
+                int length = buffer.getInt();
+                int end = buffer.position() + length;
+                byte version = buffer.get();
+                if (version != BINARY_VERSION) {
+                    throw new IOException("Unsupported audit record version " + version + " in " + file);
+                }
+                String auditLogId = readString(buffer);
+                String tableName = readString(buffer);
+                String tableDescription = readString(buffer);
+                String primaryKeyValue = readString(buffer);
+                String operationType = readString(buffer);
+                String createBy = readString(buffer);
+                String createName = readString(buffer);
+                String ipAddress = readString(buffer);
+                String sessionId = readString(buffer);
+                String batchId = readString(buffer);
+                long createTime = buffer.getLong();
+                AuditLog auditLog = new AuditLog(operationType, tableName, tableDescription, primaryKeyValue, createTime == -1L ? null : new Date(createTime));
+                auditLog.setAuditLogId(auditLogId);
+                auditLog.setCreateBy(createBy);
+                auditLog.setCreateName(createName);
+                auditLog.setIpAddress(ipAddress);
+                auditLog.setSessionId(sessionId);
+                auditLog.setBatchId(batchId);
+                int count = buffer.getInt();
+                for (int i = 0; i < count; i++) {
+                    String auditLogdId = readString(buffer);
+                    String columnName = readString(buffer);
+                    String columnDescription = readString(buffer);
+                    String oldValue = readString(buffer);
+                    String newValue = readString(buffer);
+                    AuditLogDtl auditLogDtl = new AuditLogDtl(auditLog.getAuditLogId(), columnName, columnDescription, newValue, oldValue);
+                    auditLogDtl.setAuditLogdId(auditLogdId);
+                    auditLog.getAuditLogDtlList().add(auditLogDtl);
+                }
+                if (buffer.position() != end) {
+                    throw new IOException("Malformed audit record at " + (end - length) + " in " + file);
+                }
+                auditLogs.add(auditLog);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated audit record in " + file, e);
+        }
+        return auditLogs;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String toText(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Timestamp) {
+            return TimestampUtils.timestampToString((Timestamp) value);
+        }
+        if (value instanceof Date && !(value instanceof java.sql.Date) && !(value instanceof java.sql.Time)) {
+            return TIME_FORMATTER.format(Instant.ofEpochMilli(((Date) value).getTime()));
+        }
+        return value.toString();
+    }
+}
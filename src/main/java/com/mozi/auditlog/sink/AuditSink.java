@@ -0,0 +1,53 @@
+package com.mozi.auditlog.sink;
+
+import com.mozi.auditlog.domain.AuditLog;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 审计日志的写入目标
+ * <p>
+ * 插件在业务线程上同步调用 {@link #write}，每次传入一批带明细的审计日志，操作员字段（createBy、ipAddress 等）已按语句执行时的审计上下文填好，
+ * 见 {@link com.mozi.auditlog.context.ContextProvider}。
+ * 实现需线程安全。通过插件配置 {@code auditSink} 选择：jdbc（默认）、file、memory，或实现类的全限定名（需有无参构造函数）。
+ *
+ * @see AuditSinks
+ */
+public interface AuditSink {
+
+    /**
+     * 按插件配置初始化，创建后调用一次
+     *
+     * @param properties 插件配置
+     */
+    default void configure(Properties properties) {
+    }
+
+    /**
+     * 写入一批审计日志
+     *
+     * @param connection 业务语句所在的连接，非事务型写入目标可忽略
+     * @param auditLogs  审计日志，不含 null
+     */
+    void write(Connection connection, List<AuditLog> auditLogs) throws SQLException, IOException;
+
+    /**
+     * 是否在业务连接上写入审计表：为 true 时审计随业务事务提交或回滚，自动提交的连接由插件开启临时事务，
+     * 启动时检查并创建审计表；为 false 时审计在业务事务之外写出，不依赖审计表
+     *
+     * @return 是否在业务连接上写入
+     */
+    default boolean isTransactional() {
+        return false;
+    }
+
+    /**
+     * 释放文件等资源，插件重新配置时调用
+     */
+    default void close() {
+    }
+}
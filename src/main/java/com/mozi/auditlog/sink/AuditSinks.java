@@ -0,0 +1,53 @@
+package com.mozi.auditlog.sink;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Properties;
+
+/**
+ * 按插件配置 {@code auditSink} 创建写入目标
+ */
+public final class AuditSinks {
+    public static final String AUDIT_SINK = "auditSink";
+
+    public static final String JDBC = "jdbc";
+    public static final String FILE = "file";
+    public static final String MEMORY = "memory";
+
+    private AuditSinks() {
+    }
+
+    /**
+     * @param properties 插件配置
+     * @param jdbcSink   jdbc（默认）对应的写入目标
+     * @return 已按配置初始化的写入目标
+     * @throws IllegalArgumentException 自定义实现类无法加载或实例化
+     */
+    public static AuditSink of(Properties properties, AuditSink jdbcSink) {
+        String name = StringUtils.defaultIfEmpty(StringUtils.trim(properties.getProperty(AUDIT_SINK)), JDBC);
+        AuditSink auditSink;
+        if (JDBC.equalsIgnoreCase(name)) {
+            auditSink = jdbcSink;
+        } else if (FILE.equalsIgnoreCase(name)) {
+            auditSink = new FileAuditSink();
+        } else if (MEMORY.equalsIgnoreCase(name)) {
+            auditSink = new InMemoryAuditSink();
+        } else {
+            auditSink = instantiate(name);
+        }
+        auditSink.configure(properties);
+        return auditSink;
+    }
+
+    private static AuditSink instantiate(String className) {
+        try {
+            Class<?> sinkClass = Class.forName(className, true, Thread.currentThread().getContextClassLoader());
+            if (!AuditSink.class.isAssignableFrom(sinkClass)) {
+                throw new IllegalArgumentException(className + " does not implement " + AuditSink.class.getName());
+            }
+            return (AuditSink) sinkClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot create audit sink " + className, e);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.mozi.auditlog.sink;
+
+import com.mozi.auditlog.domain.AuditLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 追加写文件的写入目标，供本地采集器（filebeat 等）收集，不给业务库增加写入
+ * <p>
+ * 记录先编码进 {@code auditSinkBufferBytes}（默认64KB）的直接缓冲区，缓冲区满或每批结束时经 {@link FileChannel} 写出；
+ * {@code auditSinkFsync=true} 时每批写出后 force 到磁盘。当前文件达到 {@code auditSinkMaxFileBytes}（默认64MB，0 表示不滚动）后
+ * 在批次边界滚动，文件名为 {@code <auditSinkFilePrefix>-yyyyMMdd-HHmmss-SSS.jsonl|.bin}，位于 {@code auditSinkDir}（默认 audit-log）。
+ * 格式见 {@link AuditRecordCodec}，由 {@code auditSinkFormat}（json/binary，默认 json）选择。
+ * <p>
+ * 审计在业务事务之外写出：业务回滚时已写出的审计不会撤回。
+ */
+public class FileAuditSink implements AuditSink {
+    private static final Logger logger = LoggerFactory.getLogger(FileAuditSink.class);
+
+    public static final String DIR = "auditSinkDir";
+    public static final String FILE_PREFIX = "auditSinkFilePrefix";
+    public static final String FORMAT = "auditSinkFormat";
+    public static final String MAX_FILE_BYTES = "auditSinkMaxFileBytes";
+    public static final String BUFFER_BYTES = "auditSinkBufferBytes";
+    public static final String FSYNC = "auditSinkFsync";
+
+    private Path directory = Paths.get("audit-log");
+    private String prefix = "audit";
+    private boolean binary;
+    private long maxFileBytes = 64L * 1024 * 1024;
+    private boolean fsync;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+    private final StringBuilder json = new StringBuilder(1024);
+    private FileChannel channel;
+    private Path currentFile;
+    private long fileBytes;
+
+    @Override
+    public synchronized void configure(Properties properties) {
+        directory = Paths.get(properties.getProperty(DIR, directory.toString()).trim());
+        prefix = properties.getProperty(FILE_PREFIX, prefix).trim();
+        String format = properties.getProperty(FORMAT, "json").trim();
+        if (!"json".equalsIgnoreCase(format) && !"binary".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException(FORMAT + " must be json or binary: " + format);
+        }
+        binary = "binary".equalsIgnoreCase(format);
+        maxFileBytes = Long.parseLong(properties.getProperty(MAX_FILE_BYTES, String.valueOf(maxFileBytes)).trim());
+        int bufferBytes = Integer.parseInt(properties.getProperty(BUFFER_BYTES, String.valueOf(buffer.capacity())).trim());
+        if (maxFileBytes < 0 || bufferBytes <= 0) {
+            throw new IllegalArgumentException(MAX_FILE_BYTES + " must not be negative and " + BUFFER_BYTES + " must be positive");
+        }
+        buffer = ByteBuffer.allocateDirect(bufferBytes);
+        fsync = Boolean.parseBoolean(properties.getProperty(FSYNC, "false").trim());
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create audit sink directory " + directory, e);
+        }
+    }
+
+    @Override
+    public synchronized void write(Connection connection, List<AuditLog> auditLogs) throws IOException {
+        if (channel == null) {
+            open();
+        }
+        try {
+            for (AuditLog auditLog : auditLogs) {
+                append(encode(auditLog));
+            }
+            drain();
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            // 写出失败的文件可能以半条记录结尾，下次写入换新文件
+            buffer.clear();
+            closeChannel();
+            throw e;
+        }
+        if (maxFileBytes > 0 && fileBytes >= maxFileBytes) {
+            closeChannel();
+        }
+    }
+
+    private byte[] encode(AuditLog auditLog) {
+        if (binary) {
+            return AuditRecordCodec.toBinary(auditLog);
+        }
+        json.setLength(0);
+        AuditRecordCodec.appendJson(json, auditLog);
+        json.append('\n');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void append(byte[] record) throws IOException {
+        if (record.length > buffer.remaining()) {
+            drain();
+        }
+        if (record.length > buffer.capacity()) {
+            writeFully(ByteBuffer.wrap(record));
+        } else {
+            buffer.put(record);
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            fileBytes += channel.write(source);
+        }
+    }
+
+    private void open() throws IOException {
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        String suffix = binary ? ".bin" : ".jsonl";
+        Path file = directory.resolve(prefix + '-' + timestamp + suffix);
+        for (int i = 1; Files.exists(file); i++) {
+            file = directory.resolve(prefix + '-' + timestamp + '-' + i + suffix);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        currentFile = file;
+        fileBytes = 0;
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close audit file " + currentFile, e);
+        }
+        channel = null;
+    }
+
+    /**
+     * @return 正在写入的文件，尚未写入或刚滚动时为 null
+     */
+    public synchronized Path getCurrentFile() {
+        return channel == null ? null : currentFile;
+    }
+
+    public synchronized Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void close() {
+        closeChannel();
+    }
+}
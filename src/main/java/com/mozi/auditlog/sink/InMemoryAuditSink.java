@@ -0,0 +1,53 @@
+package com.mozi.auditlog.sink;
+
+import com.mozi.auditlog.domain.AuditLog;
+
+import java.sql.Connection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 内存写入目标，用于测试：保留最近 {@code auditSinkCapacity}（默认10000）条审计日志，超出时丢弃最早的
+ */
+public class InMemoryAuditSink implements AuditSink {
+    public static final String CAPACITY = "auditSinkCapacity";
+
+    private final Deque<AuditLog> auditLogs = new ArrayDeque<>();
+    private int capacity = 10000;
+
+    @Override
+    public void configure(Properties properties) {
+        capacity = Integer.parseInt(properties.getProperty(CAPACITY, String.valueOf(capacity)).trim());
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(CAPACITY + " must be positive: " + capacity);
+        }
+    }
+
+    @Override
+    public synchronized void write(Connection connection, List<AuditLog> auditLogs) {
+        for (AuditLog auditLog : auditLogs) {
+            if (this.auditLogs.size() == capacity) {
+                this.auditLogs.pollFirst();
+            }
+            this.auditLogs.addLast(auditLog);
+        }
+    }
+
+    /**
+     * @return 已写入的审计日志（按写入顺序）的副本
+     */
+    public synchronized List<AuditLog> getAuditLogs() {
+        return new ArrayList<>(auditLogs);
+    }
+
+    public synchronized int size() {
+        return auditLogs.size();
+    }
+
+    public synchronized void clear() {
+        auditLogs.clear();
+    }
+}
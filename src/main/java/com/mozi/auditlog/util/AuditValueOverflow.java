@@ -0,0 +1,142 @@
+package com.mozi.auditlog.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 超长明细值的溢出存储工具
+ * <p>
+ * TC_NEW_VALUE/TC_OLD_VALUE 为 VARCHAR2(4000)（按字节计），超过阈值的值经 Deflate 压缩后写入溢出表
+ * TB_AUDIT_DIC_LOG_OVF，明细行只保存溢出记录ID；溢出表同时保存原文的 SHA-256，便于不解压即可判断内容是否变化。
+ */
+public class AuditValueOverflow {
+    /**
+     * 默认阈值：VARCHAR2(4000) 的字节上限
+     */
+    public static final int DEFAULT_THRESHOLD = 4000;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<Deflater> deflater = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+    private static final ThreadLocal<Inflater> inflater = ThreadLocal.withInitial(Inflater::new);
+    private static final ThreadLocal<byte[]> buffer = ThreadLocal.withInitial(() -> new byte[8192]);
+    private static final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private AuditValueOverflow() {
+        // 工具类，防止实例化
+    }
+
+    /**
+     * 判断字符串按 UTF-8 编码后是否超过阈值，短字符串不做逐字符统计
+     *
+     * @param value     字符串
+     * @param threshold 字节阈值
+     * @return 是否需要溢出存储
+     */
+    public static boolean exceeds(CharSequence value, int threshold) {
+        int length = value.length();
+        if (length <= threshold / 3) {
+            return false;
+        }
+        if (length > threshold) {
+            return true;
+        }
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+            if (bytes > threshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Deflate 压缩
+     *
+     * @param value 原文
+     * @return 压缩后的字节
+     */
+    public static byte[] compress(String value) {
+        byte[] input = value.getBytes(StandardCharsets.UTF_8);
+        Deflater currentDeflater = deflater.get();
+        byte[] currentBuffer = buffer.get();
+        ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+        try {
+            currentDeflater.setInput(input);
+            currentDeflater.finish();
+            while (!currentDeflater.finished()) {
+                int count = currentDeflater.deflate(currentBuffer);
+                output.write(currentBuffer, 0, count);
+            }
+        } finally {
+            currentDeflater.reset();
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * 解压 {@link #compress(String)} 的结果
+     *
+     * @param content 压缩后的字节
+     * @return 原文
+     * @throws IllegalArgumentException 数据损坏
+     */
+    public static String decompress(byte[] content) {
+        Inflater currentInflater = inflater.get();
+        byte[] currentBuffer = buffer.get();
+        ByteArrayOutputStream output = new ByteArrayOutputStream(content.length * 4);
+        try {
+            currentInflater.setInput(content);
+            while (!currentInflater.finished()) {
+                int count = currentInflater.inflate(currentBuffer);
+                if (count == 0 && (currentInflater.needsInput() || currentInflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated overflow content");
+                }
+                output.write(currentBuffer, 0, count);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupted overflow content", e);
+        } finally {
+            currentInflater.reset();
+        }
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 计算原文的 SHA-256（十六进制，64位）
+     *
+     * @param value 原文
+     * @return 十六进制摘要
+     */
+    public static String hash(String value) {
+        byte[] digest = sha256.get().digest(value.getBytes(StandardCharsets.UTF_8));
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0x0F];
+            hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0x0F];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,127 @@
+package com.mozi.auditlog.util;
+
+import com.mozi.auditlog.domain.AuditLogDtl;
+import com.mozi.auditlog.interceptor.TimestampUtils;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 紧凑存储模式下的变更集编解码工具
+ * <p>
+ * 一行数据的全部变更（字段名、旧值、新值）编码为一个字符串，存入主表 TC_CHANGE_SET：
+ * <pre>
+ * 1;&lt;字段&gt;&lt;字段&gt;...
+ * 字段 := 长度 ':' 内容 | '~'（null）
+ * </pre>
+ * 每条变更依次为 列名、旧值、新值 三个字段，长度按字符计，内容不做转义。
+ * 字段描述不写入变更集，读取时由表注释补全。
+ */
+public class ChangeSetCodec {
+    private static final String VERSION = "1;";
+    private static final char NULL_FIELD = '~';
+    private static final char LENGTH_SEPARATOR = ':';
+
+    private ChangeSetCodec() {
+        // 工具类，防止实例化
+    }
+
+    /**
+     * 编码变更集
+     *
+     * @param auditLogDtlList 审计日志明细
+     * @return 编码后的变更集，明细为空时返回 null
+     */
+    public static String encode(List<AuditLogDtl> auditLogDtlList) {
+        if (auditLogDtlList == null || auditLogDtlList.isEmpty()) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder(64 * auditLogDtlList.size());
+        builder.append(VERSION);
+        for (AuditLogDtl auditLogDtl : auditLogDtlList) {
+            if (auditLogDtl == null) {
+                continue;
+            }
+            appendField(builder, auditLogDtl.getColumnName());
+            appendField(builder, toText(auditLogDtl.getOldValue()));
+            appendField(builder, toText(auditLogDtl.getNewValue()));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 将变更集解码为审计日志明细，明细ID为 null
+     *
+     * @param auditLogId 审计日志主键ID
+     * @param changeSet  编码后的变更集
+     * @return 审计日志明细
+     * @throws IllegalArgumentException 变更集格式错误
+     */
+    public static List<AuditLogDtl> decode(String auditLogId, String changeSet) {
+        if (changeSet == null || changeSet.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (!changeSet.startsWith(VERSION)) {
+            throw new IllegalArgumentException("Unsupported change set version: " + changeSet.substring(0, Math.min(8, changeSet.length())));
+        }
+        List<AuditLogDtl> auditLogDtlList = new ArrayList<>();
+        int[] position = {VERSION.length()};
+        while (position[0] < changeSet.length()) {
+            String columnName = readField(changeSet, position);
+            String oldValue = readField(changeSet, position);
+            String newValue = readField(changeSet, position);
+            AuditLogDtl auditLogDtl = new AuditLogDtl(auditLogId, columnName, null, newValue, oldValue);
+            auditLogDtl.setAuditLogdId(null);
+            auditLogDtlList.add(auditLogDtl);
+        }
+        return auditLogDtlList;
+    }
+
+    private static void appendField(StringBuilder builder, String value) {
+        if (value == null) {
+            builder.append(NULL_FIELD);
+        } else {
+            builder.append(value.length()).append(LENGTH_SEPARATOR).append(value);
+        }
+    }
+
+    private static String readField(String changeSet, int[] position) {
+        int start = position[0];
+        if (start >= changeSet.length()) {
+            throw new IllegalArgumentException("Truncated change set at " + start);
+        }
+        if (changeSet.charAt(start) == NULL_FIELD) {
+            position[0] = start + 1;
+            return null;
+        }
+        int length = 0;
+        int i = start;
+        char c;
+        while (i < changeSet.length() && (c = changeSet.charAt(i)) != LENGTH_SEPARATOR) {
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Malformed change set at " + i);
+            }
+            length = length * 10 + (c - '0');
+            i++;
+        }
+        int valueStart = i + 1;
+        int valueEnd = valueStart + length;
+        if (i == start || valueEnd > changeSet.length()) {
+            throw new IllegalArgumentException("Malformed change set at " + start);
+        }
+        position[0] = valueEnd;
+        return changeSet.substring(valueStart, valueEnd);
+    }
+
+    private static String toText(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Timestamp) {
+            return TimestampUtils.timestampToString((Timestamp) value);
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,59 @@
+package com.mozi.auditlog.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * 插件 MBean 注册工具，名称形如 com.mozi.auditlog:type=&lt;type&gt;,name=&lt;name&gt;
+ */
+public class JmxUtils {
+    private static final Logger logger = LoggerFactory.getLogger(JmxUtils.class);
+
+    private static final String DOMAIN = "com.mozi.auditlog";
+
+    private JmxUtils() {
+        // 工具类，防止实例化
+    }
+
+    /**
+     * 注册到平台 MBeanServer，同名已存在时追加实例标识
+     *
+     * @param mbean MBean 实例
+     * @param type  类型
+     * @param name  名称
+     * @return 实际注册的名称，注册失败返回 null
+     */
+    public static ObjectName register(Object mbean, String type, String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String prefix = DOMAIN + ":type=" + type + ",name=";
+        try {
+            ObjectName candidate = new ObjectName(prefix + ObjectName.quote(name));
+            try {
+                server.registerMBean(mbean, candidate);
+            } catch (InstanceAlreadyExistsException e) {
+                candidate = new ObjectName(prefix + ObjectName.quote(name + '-' + Integer.toHexString(System.identityHashCode(mbean))));
+                server.registerMBean(mbean, candidate);
+            }
+            return candidate;
+        } catch (Exception e) {
+            logger.warn("Failed to register MBean {} {}.", type, name, e);
+            return null;
+        }
+    }
+
+    public static void unregister(ObjectName objectName) {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            logger.warn("Failed to unregister MBean {}.", objectName, e);
+        }
+    }
+}
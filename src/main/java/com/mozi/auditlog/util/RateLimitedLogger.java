@@ -0,0 +1,75 @@
+package com.mozi.auditlog.util;
+
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 限频日志：同一 key 在一个时间窗口内只输出一次，其余计数后在下一次输出时一并说明
+ * <p>
+ * 用于审计路径上可能每条语句都重复出现的异常（如审计库不可用），避免日志风暴拖慢业务线程。
+ */
+public class RateLimitedLogger {
+    private final Logger logger;
+    private final long intervalNanos;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    public RateLimitedLogger(Logger logger, long interval, TimeUnit unit) {
+        this.logger = logger;
+        this.intervalNanos = unit.toNanos(interval);
+    }
+
+    /**
+     * 每分钟同一 key 最多输出一次
+     *
+     * @param logger 日志
+     */
+    public RateLimitedLogger(Logger logger) {
+        this(logger, 1, TimeUnit.MINUTES);
+    }
+
+    public void error(String key, String message, Throwable e) {
+        if (logger.isErrorEnabled()) {
+            long suppressed = acquire(key);
+            if (suppressed >= 0) {
+                logger.error(withSuppressed(message, suppressed), e);
+            }
+        }
+    }
+
+    public void warn(String key, String message, Throwable e) {
+        if (logger.isWarnEnabled()) {
+            long suppressed = acquire(key);
+            if (suppressed >= 0) {
+                logger.warn(withSuppressed(message, suppressed), e);
+            }
+        }
+    }
+
+    /**
+     * @return 允许输出时返回上次输出以来被抑制的条数，否则返回 -1
+     */
+    private long acquire(String key) {
+        Window window = windows.computeIfAbsent(key, k -> new Window());
+        long now = System.nanoTime();
+        long last = window.lastLogged.get();
+        if (last != Long.MIN_VALUE && now - last < intervalNanos || !window.lastLogged.compareAndSet(last, now)) {
+            window.suppressed.incrementAndGet();
+            return -1L;
+        }
+        return window.suppressed.getAndSet(0L);
+    }
+
+    private String withSuppressed(String message, long suppressed) {
+        return suppressed == 0 ? message
+                : message + " (" + suppressed + " similar messages suppressed in the last " + TimeUnit.NANOSECONDS.toSeconds(intervalNanos) + "s)";
+    }
+
+    private static final class Window {
+        private final AtomicLong lastLogged = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLong suppressed = new AtomicLong();
+    }
+}
@@ -0,0 +1,32 @@
+package com.mozi.auditlog.util;
+
+/**
+ * 拼接 SQL 的工具方法
+ */
+public class SqlUtils {
+
+    private SqlUtils() {
+        // 工具类，防止实例化
+    }
+
+    /**
+     * @param count 参数个数
+     * @return 以逗号分隔的 {@code count} 个 ?，用于 IN 列表与 VALUES
+     */
+    public static String placeholders(int count) {
+        return placeholders("?", count);
+    }
+
+    /**
+     * @param item  单项，如 ? 或 (?, ?)
+     * @param count 项数
+     * @return 以逗号分隔的 {@code count} 个 {@code item}
+     */
+    public static String placeholders(String item, int count) {
+        StringBuilder builder = new StringBuilder(count * (item.length() + 2));
+        for (int i = 0; i < count; i++) {
+            builder.append(i == 0 ? "" : ", ").append(item);
+        }
+        return builder.toString();
+    }
+}
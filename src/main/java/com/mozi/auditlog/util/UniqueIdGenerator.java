@@ -1,9 +1,20 @@
 package com.mozi.auditlog.util;
 
-import java.security.SecureRandom;
-import java.text.SimpleDateFormat;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * 24位唯一ID生成器，适配 CHAR(24) 主键
+ * <p>
+ * 格式: '9' + 15位时间戳(yyMMddHHmmssSSS) + 3位节点ID + 5位毫秒内序列。
+ * 同一节点每毫秒最多生成 100000 个ID，超出时借用下一毫秒；时钟回拨时沿用上次的时间，保证单调。
+ * 时间戳按默认时区的标准偏移（不含夏令时）格式化：夏令时结束回拨一小时时，不同的毫秒不会得到相同的时间戳。
+ * 按月分表、按月查询与归档同样以该偏移划分自然月（见 {@link #getTimeOffset()}），ID 的 yyMM 即其记录所在的月表。
+ * 不同节点通过 nodeId 区分，节点ID相同的多个实例之间不保证唯一。
  *
  * @author chenhf
  * @date 2025-11-23 10:03
@@ -11,26 +22,152 @@ import java.text.SimpleDateFormat;
 public class UniqueIdGenerator {
     private static final int TOTAL_LENGTH = 24;
     private static final int TIME_PART_LENGTH = 15; // 格式: yyMMddHHmmssSSS
-    private static final int RANDOM_PART_LENGTH = TOTAL_LENGTH - TIME_PART_LENGTH - 1; // 减去开头的 '9'
-    private static final int MAX_RANDOM = (int) Math.pow(10, RANDOM_PART_LENGTH);
+    private static final int NODE_PART_LENGTH = 3;
+    private static final int SEQUENCE_PART_LENGTH = TOTAL_LENGTH - TIME_PART_LENGTH - NODE_PART_LENGTH - 1; // 减去开头的 '9'
+    private static final int MAX_NODE_ID = 999;
+    private static final long MAX_SEQUENCE = 100000L;
+
+    /**
+     * 时间戳使用的固定偏移：默认时区的标准偏移，无夏令时的时区（如 UTC+8）与本地时间一致
+     */
+    private static final ZoneOffset TIME_OFFSET = ZoneOffset.ofTotalSeconds(TimeZone.getDefault().getRawOffset() / 1000);
+
+    /**
+     * 节点ID，默认由进程名（pid@host）散列得到，可通过 {@link #setNodeId(int)} 指定
+     */
+    private static volatile int nodeId = defaultNodeId();
+
+    /**
+     * 毫秒时间戳 * MAX_SEQUENCE + 毫秒内序列
+     */
+    private static final AtomicLong state = new AtomicLong();
+
+    /**
+     * 最近一毫秒的时间前缀缓存
+     */
+    private static volatile TimePrefix timePrefix = new TimePrefix(-1L, new char[TIME_PART_LENGTH]);
 
-    // 使用SecureRandom增强随机性，并通过ThreadLocal缓存实例
-    private static final ThreadLocal<SecureRandom> secureRandom = ThreadLocal.withInitial(SecureRandom::new);
     /**
      * 生成24位唯一ID的方法
-     * @return 唯一ID字符串，格式为 '9' + 15位时间戳 + 8位随机数字
+     * @return 唯一ID字符串，格式为 '9' + 15位时间戳 + 3位节点ID + 5位序列
      */
     public static String generateUniqueId() {
-        // 预分配StringBuilder的容量，提高性能
-        StringBuilder id = new StringBuilder(TOTAL_LENGTH);
-        id.append('9'); // 开头为 '9'
-        // 快速获取时间戳（比 LocalDateTime.now() 更快）
-        long timestamp = System.currentTimeMillis();
-        id.append(new SimpleDateFormat("yyMMddHHmmssSSS").format(timestamp));
-        // 生成随机部分
-        int randomPart = secureRandom.get().nextInt(MAX_RANDOM);
-        // 使用String.format进行零填充
-        id.append(String.format("%0" + RANDOM_PART_LENGTH + "d", randomPart));
-        return id.toString();
+        return generateUniqueId(System.currentTimeMillis());
+    }
+
+    /**
+     * 以指定的当前时间生成ID
+     *
+     * @param now 当前毫秒时间戳
+     * @return 唯一ID字符串
+     */
+    static String generateUniqueId(long now) {
+        long next;
+        while (true) {
+            long current = state.get();
+            long lastMillis = current / MAX_SEQUENCE;
+            if (now > lastMillis) {
+                next = now * MAX_SEQUENCE;
+            } else {
+                // 同一毫秒（或时钟回拨）内递增序列，序列溢出时自然进位到下一毫秒
+                next = current + 1;
+            }
+            if (state.compareAndSet(current, next)) {
+                break;
+            }
+        }
+        long millis = next / MAX_SEQUENCE;
+        int sequence = (int) (next % MAX_SEQUENCE);
+
+        char[] id = new char[TOTAL_LENGTH];
+        id[0] = '9'; // 开头为 '9'
+        System.arraycopy(getTimePrefix(millis), 0, id, 1, TIME_PART_LENGTH);
+        writeDigits(id, 1 + TIME_PART_LENGTH, NODE_PART_LENGTH, nodeId);
+        writeDigits(id, 1 + TIME_PART_LENGTH + NODE_PART_LENGTH, SEQUENCE_PART_LENGTH, sequence);
+        return new String(id);
+    }
+
+    /**
+     * 设置节点ID，集群内各实例应各不相同
+     *
+     * @param id 节点ID，取值 0-999
+     */
+    public static void setNodeId(int id) {
+        if (id < 0 || id > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID + ": " + id);
+        }
+        nodeId = id;
+    }
+
+    public static int getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @return ID 时间戳使用的固定偏移，按月路由审计表时须使用同一偏移，否则夏令时期间月初一小时内的记录与其ID分属两个月
+     */
+    public static ZoneOffset getTimeOffset() {
+        return TIME_OFFSET;
+    }
+
+    /**
+     * 指定时间的ID前缀（'9' + yyMMddHHmmssSSS），该时间之前生成的ID均按字典序小于此前缀，可用于按时间截取ID范围
+     *
+     * @param millis 毫秒时间戳
+     * @return 16位ID前缀
+     */
+    public static String timePrefix(long millis) {
+        char[] prefix = new char[1 + TIME_PART_LENGTH];
+        prefix[0] = '9';
+        System.arraycopy(formatTime(millis), 0, prefix, 1, TIME_PART_LENGTH);
+        return new String(prefix);
+    }
+
+    private static char[] getTimePrefix(long millis) {
+        TimePrefix cached = timePrefix;
+        if (cached.millis == millis) {
+            return cached.digits;
+        }
+        char[] digits = formatTime(millis);
+        timePrefix = new TimePrefix(millis, digits);
+        return digits;
+    }
+
+    private static char[] formatTime(long millis) {
+        LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), TIME_OFFSET);
+        char[] digits = new char[TIME_PART_LENGTH];
+        writeDigits(digits, 0, 2, dateTime.getYear() % 100);
+        writeDigits(digits, 2, 2, dateTime.getMonthValue());
+        writeDigits(digits, 4, 2, dateTime.getDayOfMonth());
+        writeDigits(digits, 6, 2, dateTime.getHour());
+        writeDigits(digits, 8, 2, dateTime.getMinute());
+        writeDigits(digits, 10, 2, dateTime.getSecond());
+        writeDigits(digits, 12, 3, (int) (millis % 1000));
+        return digits;
+    }
+
+    /**
+     * 将非负整数按定长零填充写入字符数组
+     */
+    private static void writeDigits(char[] target, int offset, int length, int value) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            target[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int defaultNodeId() {
+        String processName = ManagementFactory.getRuntimeMXBean().getName();
+        return (processName.hashCode() & Integer.MAX_VALUE) % (MAX_NODE_ID + 1);
+    }
+
+    private static final class TimePrefix {
+        private final long millis;
+        private final char[] digits;
+
+        private TimePrefix(long millis, char[] digits) {
+            this.millis = millis;
+            this.digits = digits;
+        }
     }
 }
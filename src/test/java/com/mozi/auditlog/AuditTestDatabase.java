@@ -0,0 +1,147 @@
+package com.mozi.auditlog;
+
+import com.mozi.auditlog.interceptor.SQLAuditLogInterceptor;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 集成测试用的 H2 内存库（Oracle 兼容模式），每个实例一个独立的库
+ * <p>
+ * 建审计表与注释视图（见 {@link OracleModeH2}）以及业务表 TB_ITEM。
+ */
+public class AuditTestDatabase implements AutoCloseable {
+    public static final String TABLE = "TB_ITEM";
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private static final String[] ITEM_SCHEMA = {
+            "create table TB_ITEM (TC_ID VARCHAR2(24) primary key, TC_NAME VARCHAR2(64) not null, TC_AMOUNT NUMBER(12,2),"
+                    + " TC_CODE CHAR(4), TC_TIME TIMESTAMP, TC_NOTE CLOB, TC_DATA BLOB, TC_RAW RAW(16))",
+            "comment on table TB_ITEM is '测试表'",
+            "comment on column TB_ITEM.TC_NAME is '名称'"
+    };
+
+    private final String url;
+
+    /**
+     * 保持库存活，并供测试直接执行 SQL
+     */
+    private final Connection connection;
+
+    private SQLAuditLogInterceptor interceptor;
+
+    public AuditTestDatabase() throws SQLException {
+        String name = "audit" + SEQUENCE.incrementAndGet();
+        url = OracleModeH2.url(name);
+        connection = OracleModeH2.open(name);
+        OracleModeH2.createAuditSchema(connection);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : ITEM_SCHEMA) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public DataSource getDataSource() {
+        return new UnpooledDataSource("org.h2.Driver", url, "sa", "");
+    }
+
+    /**
+     * 装有审计插件的 SqlSessionFactory，默认监控 TB_ITEM
+     *
+     * @param properties 插件配置，覆盖默认值
+     * @param mappers    注册的 Mapper
+     */
+    public SqlSessionFactory sessionFactory(Properties properties, Class<?>... mappers) {
+        Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), getDataSource()));
+        for (Class<?> mapper : mappers) {
+            configuration.addMapper(mapper);
+        }
+        Properties pluginProperties = new Properties();
+        pluginProperties.setProperty("enable", "true");
+        pluginProperties.setProperty("monitorTables", TABLE);
+        pluginProperties.putAll(properties);
+        interceptor = new SQLAuditLogInterceptor();
+        interceptor.setProperties(pluginProperties);
+        configuration.addInterceptor(interceptor);
+        return new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    public SQLAuditLogInterceptor getInterceptor() {
+        return interceptor;
+    }
+
+    public void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    /**
+     * 查询结果，每行为 列名 -> 值
+     */
+    public List<Map<String, Object>> query(String sql) throws SQLException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            while (resultSet.next()) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    row.put(metaData.getColumnLabel(i), resultSet.getObject(i));
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    public int count(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    /**
+     * 审计明细：操作类型、主键值、字段名、旧值、新值，按审计日志ID与字段名排序
+     */
+    public List<String> auditDetails() throws SQLException {
+        List<String> details = new ArrayList<>();
+        for (Map<String, Object> row : query("select l.TC_OPERATION_TYPE, trim(l.TC_PRIMARY_KEY_VALUE) PK, d.TC_COLUMN_NAME, d.TC_OLD_VALUE, d.TC_NEW_VALUE"
+                + " from TB_AUDIT_DIC_LOG l left join TB_AUDIT_DIC_LOG_DTL d on d.TC_AUDIT_LOG_ID = l.TC_AUDIT_LOG_ID"
+                + " order by l.TC_AUDIT_LOG_ID, d.TC_COLUMN_NAME")) {
+            details.add(row.get("TC_OPERATION_TYPE") + " " + row.get("PK") + " " + row.get("TC_COLUMN_NAME") + " "
+                    + row.get("TC_OLD_VALUE") + " -> " + row.get("TC_NEW_VALUE"));
+        }
+        return details;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("shutdown");
+        }
+        connection.close();
+    }
+}
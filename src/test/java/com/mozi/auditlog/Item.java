@@ -0,0 +1,44 @@
+package com.mozi.auditlog;
+
+import java.math.BigDecimal;
+
+/**
+ * TB_ITEM 对应的实体，字段名为列名去掉 TC_ 前缀后的驼峰形式
+ */
+public class Item {
+    private String id;
+    private String name;
+    private BigDecimal amount;
+
+    public static Item of(String id, String name, BigDecimal amount) {
+        Item item = new Item();
+        item.id = id;
+        item.name = name;
+        item.amount = amount;
+        return item;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+}
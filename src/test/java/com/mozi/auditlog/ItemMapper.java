@@ -0,0 +1,42 @@
+package com.mozi.auditlog;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+/**
+ * 集成测试用的 TB_ITEM Mapper
+ */
+public interface ItemMapper {
+
+    @Insert("insert into TB_ITEM (TC_ID, TC_NAME, TC_AMOUNT) values (#{id}, #{name}, #{amount})")
+    int insert(Item item);
+
+    @Update("update TB_ITEM set TC_NAME = #{name} where TC_ID = #{id}")
+    int updateName(@Param("id") String id, @Param("name") String name);
+
+    @Update("update TB_ITEM set TC_AMOUNT = #{amount} where TC_ID = #{id}")
+    int updateAmount(@Param("id") String id, @Param("amount") BigDecimal amount);
+
+    @Update("update TB_ITEM set TC_AMOUNT = #{amount}, TC_CODE = #{code}, TC_TIME = #{time}, TC_NOTE = #{note}, TC_DATA = #{data}, TC_RAW = #{raw}"
+            + " where TC_ID = #{id}")
+    int updateAll(@Param("id") String id, @Param("amount") BigDecimal amount, @Param("code") String code, @Param("time") Timestamp time,
+                  @Param("note") String note, @Param("data") byte[] data, @Param("raw") byte[] raw);
+
+    @Delete("delete from TB_ITEM where TC_ID = #{id}")
+    int delete(@Param("id") String id);
+
+    @Update("merge into TB_ITEM t using (select cast(#{id} as varchar2(24)) ID, cast(#{name} as varchar2(64)) NAME from dual) s"
+            + " on (t.TC_ID = s.ID) when matched then update set t.TC_NAME = s.NAME"
+            + " when not matched then insert (TC_ID, TC_NAME) values (s.ID, s.NAME)")
+    int upsert(@Param("id") String id, @Param("name") String name);
+
+    @Update("merge into TB_ITEM t using TB_ITEM_SOURCE s on (t.TC_ID = s.TC_ID)"
+            + " when matched then update set t.TC_NAME = s.TC_NAME, t.TC_AMOUNT = s.TC_AMOUNT"
+            + " when not matched then insert (TC_ID, TC_NAME, TC_AMOUNT) values (s.TC_ID, s.TC_NAME, s.TC_AMOUNT)")
+    int mergeFromSource();
+}
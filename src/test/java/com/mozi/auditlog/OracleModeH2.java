@@ -0,0 +1,94 @@
+package com.mozi.auditlog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Oracle 兼容模式的 H2 内存库，集成测试与 benchmarks 模块（经 test-jar）共用
+ * <p>
+ * 插件按 {@code getMetaData().getUserName()} 读取元数据，因此 schema 与用户名同为 SA；
+ * 另用视图模拟 user_tab_comments / user_col_comments。
+ */
+public final class OracleModeH2 {
+    /**
+     * 审计表 DDL，构建时由 sql/auditlog.sql 复制到类路径
+     */
+    private static final String AUDIT_DDL = "/sql/auditlog.sql";
+
+    private static final String[] COMMENT_VIEWS = {
+            "create view USER_TAB_COMMENTS as select TABLE_NAME, REMARKS COMMENTS from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = 'SA'",
+            "create view USER_COL_COMMENTS as select TABLE_NAME, COLUMN_NAME, REMARKS COMMENTS from INFORMATION_SCHEMA.COLUMNS where TABLE_SCHEMA = 'SA'"
+    };
+
+    private OracleModeH2() {
+    }
+
+    public static String url(String name) {
+        return "jdbc:h2:mem:" + name + ";MODE=Oracle;DB_CLOSE_DELAY=-1;INIT=create schema if not exists SA\\;set schema SA";
+    }
+
+    /**
+     * 打开（不存在时创建）指定名称的内存库，最后一个连接关闭后库仍保留
+     *
+     * @param name 库名
+     * @return 连接
+     */
+    public static Connection open(String name) throws SQLException {
+        return DriverManager.getConnection(url(name), "sa", "");
+    }
+
+    /**
+     * 建审计表（sql/auditlog.sql）与注释视图
+     *
+     * @param connection 连接
+     */
+    public static void createAuditSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : readScript(AUDIT_DDL)) {
+                statement.execute(sql);
+            }
+            for (String sql : COMMENT_VIEWS) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * 读取以分号结尾的 SQL 脚本，忽略 -- 注释行
+     */
+    private static List<String> readScript(String resource) {
+        InputStream in = OracleModeH2.class.getResourceAsStream(resource);
+        if (in == null) {
+            throw new IllegalStateException(resource + " not found on classpath");
+        }
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                    continue;
+                }
+                statement.append(line).append('\n');
+                if (trimmed.endsWith(";")) {
+                    statements.add(statement.substring(0, statement.lastIndexOf(";")));
+                    statement.setLength(0);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,162 @@
+package com.mozi.auditlog.archive;
+
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.domain.AuditLogDtl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AuditArchiveWriterTest {
+    private static final long START = 1704067200000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void scanReturnsEveryRowInWriteOrder() throws IOException {
+        Path file = write(1000, 64);
+        try (AuditArchiveScanner scanner = new AuditArchiveScanner(file)) {
+            assertEquals(16, scanner.getBlockCount());
+            assertEquals(1000L, scanner.getRowCount());
+            assertEquals(new Date(START), scanner.getMinTime());
+            assertEquals(new Date(START + 999 * 1000L), scanner.getMaxTime());
+            List<AuditLog> auditLogs = new ArrayList<>();
+            assertEquals(1000L, scanner.scan(null, null, auditLogs::add));
+            for (int i = 0; i < 1000; i++) {
+                assertAuditLog(i, auditLogs.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void scanFiltersByTime() throws IOException {
+        Path file = write(1000, 64);
+        try (AuditArchiveScanner scanner = new AuditArchiveScanner(file)) {
+            List<AuditLog> auditLogs = new ArrayList<>();
+            long count = scanner.scan(new Date(START + 100 * 1000L), new Date(START + 200 * 1000L), auditLogs::add);
+            assertEquals(100L, count);
+            assertEquals("L100", auditLogs.get(0).getAuditLogId());
+            assertEquals("L199", auditLogs.get(99).getAuditLogId());
+        }
+    }
+
+    @Test
+    public void findHistoryReturnsNewestFirst() throws IOException {
+        Path file = write(1000, 64);
+        try (AuditArchiveScanner scanner = new AuditArchiveScanner(file)) {
+            // 主键按 i % 100 重复，每个主键 10 条，分布在不同的块里
+            List<AuditLog> history = scanner.findHistory("TB_ITEM", "K7");
+            assertEquals(10, history.size());
+            assertEquals("L907", history.get(0).getAuditLogId());
+            assertEquals("L7", history.get(9).getAuditLogId());
+            assertAuditLog(907, history.get(0));
+
+            assertEquals(2, scanner.findHistory("TB_ITEM", "K7", new Date(START + 100 * 1000L), new Date(START + 300 * 1000L)).size());
+            assertTrue(scanner.findHistory("TB_ITEM", "K100").isEmpty());
+            assertTrue(scanner.findHistory("TB_OTHER", "K7").isEmpty());
+        }
+    }
+
+    @Test
+    public void bloomFiltersAreWrittenWithTheirBlocks() throws IOException {
+        Path file = write(300, 100);
+        try (AuditArchiveScanner scanner = new AuditArchiveScanner(file);
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertEquals(3, scanner.getBlockCount());
+            // 块索引是定长的，尾部只含字典与 3 个索引项
+            ByteBuffer trailer = ByteBuffer.allocate(ArchiveFormat.TRAILER_BYTES);
+            channel.read(trailer, channel.size() - ArchiveFormat.TRAILER_BYTES);
+            trailer.flip();
+            long footerOffset = trailer.getLong();
+            long footerBytes = channel.size() - ArchiveFormat.TRAILER_BYTES - footerOffset;
+            assertTrue("footer " + footerBytes, footerBytes < 200);
+        }
+    }
+
+    @Test
+    public void emptyArchiveIsReadable() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("empty.mzaa");
+        new AuditArchiveWriter(file, 16).close();
+        try (AuditArchiveScanner scanner = new AuditArchiveScanner(file)) {
+            assertEquals(0, scanner.getBlockCount());
+            assertNull(scanner.getMinTime());
+            assertTrue(scanner.findHistory("TB_ITEM", "K1").isEmpty());
+        }
+    }
+
+    @Test
+    public void truncatedArchiveIsRejected() throws IOException {
+        Path file = write(10, 4);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+        try (AuditArchiveScanner ignored = new AuditArchiveScanner(file)) {
+            fail("truncated archive accepted");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("audit archive"));
+        }
+    }
+
+    private Path write(int rows, int blockRows) throws IOException {
+        Path file = folder.getRoot().toPath().resolve("audit-" + rows + "-" + blockRows + ".mzaa");
+        try (AuditArchiveWriter writer = new AuditArchiveWriter(file, blockRows)) {
+            for (int i = 0; i < rows; i++) {
+                writer.write(auditLog(i));
+            }
+            assertEquals(rows, writer.getRowCount());
+        }
+        return file;
+    }
+
+    private static AuditLog auditLog(int i) {
+        AuditLog auditLog = new AuditLog(i % 3 == 0 ? "insert" : "update", "TB_ITEM", "测试表", "K" + (i % 100), new Date(START + i * 1000L));
+        auditLog.setAuditLogId("L" + i);
+        auditLog.setBatchId(i % 2 == 0 ? "B" + (i / 2) : null);
+        auditLog.setCreateName("用户" + i);
+        AuditLogDtl auditLogDtl = new AuditLogDtl("L" + i, "TC_NAME", "名称", "new" + i, i % 3 == 0 ? null : "old" + i);
+        auditLogDtl.setAuditLogdId("D" + i);
+        auditLog.getAuditLogDtlList().add(auditLogDtl);
+        if (i % 5 == 0) {
+            AuditLogDtl amountDtl = new AuditLogDtl("L" + i, "TC_AMOUNT", null, String.valueOf(i), null);
+            amountDtl.setAuditLogdId("E" + i);
+            auditLog.getAuditLogDtlList().add(amountDtl);
+        }
+        return auditLog;
+    }
+
+    private static void assertAuditLog(int i, AuditLog actual) {
+        AuditLog expected = auditLog(i);
+        assertEquals(expected.getAuditLogId(), actual.getAuditLogId());
+        assertEquals(expected.getOperationType(), actual.getOperationType());
+        assertEquals(expected.getTableName(), actual.getTableName());
+        assertEquals(expected.getTableDescription(), actual.getTableDescription());
+        assertEquals(expected.getPrimaryKeyValue(), actual.getPrimaryKeyValue());
+        assertEquals(expected.getCreateTime().getTime(), actual.getCreateTime().getTime());
+        assertEquals(expected.getBatchId(), actual.getBatchId());
+        assertEquals(expected.getCreateName(), actual.getCreateName());
+        assertEquals(expected.getAuditLogDtlList().size(), actual.getAuditLogDtlList().size());
+        for (int j = 0; j < expected.getAuditLogDtlList().size(); j++) {
+            AuditLogDtl expectedDtl = expected.getAuditLogDtlList().get(j);
+            AuditLogDtl actualDtl = actual.getAuditLogDtlList().get(j);
+            assertEquals(expectedDtl.getAuditLogdId(), actualDtl.getAuditLogdId());
+            assertEquals(expectedDtl.getColumnName(), actualDtl.getColumnName());
+            assertEquals(expectedDtl.getColumnDescription(), actualDtl.getColumnDescription());
+            assertEquals(expectedDtl.getOldValue(), actualDtl.getOldValue());
+            assertEquals(expectedDtl.getNewValue(), actualDtl.getNewValue());
+        }
+    }
+}
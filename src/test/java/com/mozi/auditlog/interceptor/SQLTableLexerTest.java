@@ -0,0 +1,62 @@
+package com.mozi.auditlog.interceptor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SQLTableLexerTest {
+
+    @Test
+    public void plainStatements() {
+        assertEquals("TB_ITEM", SQLTableLexer.targetTable("insert into TB_ITEM (TC_ID) values (?)"));
+        assertEquals("tb_item", SQLTableLexer.targetTable("UPDATE tb_item set TC_NAME = ? where TC_ID = ?"));
+        assertEquals("TB_ITEM", SQLTableLexer.targetTable("delete from TB_ITEM where TC_ID = ?"));
+        assertEquals("TB_ITEM", SQLTableLexer.targetTable("DELETE TB_ITEM WHERE TC_ID = ?"));
+        assertEquals("TB_ITEM", SQLTableLexer.targetTable("merge into TB_ITEM t using dual on (t.TC_ID = ?) when matched then update set TC_NAME = ?"));
+        assertEquals("TB_ITEM", SQLTableLexer.targetTable("update TB_ITEM t set t.TC_NAME = ?"));
+        assertEquals("TB_ITEM", SQLTableLexer.targetTable("insert into TB_ITEM(TC_ID) values (?)"));
+        assertEquals("TB_ITEM", SQLTableLexer.targetTable("delete from TB_ITEM;"));
+        assertEquals("TB_ITEM", SQLTableLexer.targetTable("delete from TB_ITEM"));
+    }
+
+    @Test
+    public void commentsAndHintsAreSkipped() {
+        assertEquals("TB_ITEM", SQLTableLexer.targetTable("/*+ APPEND */ insert /*+ PARALLEL(4) */ into TB_ITEM values (?)"));
+        assertEquals("TB_ITEM", SQLTableLexer.targetTable("-- 修改名称\nupdate /* 注释 */ TB_ITEM/* 紧跟 */set TC_NAME = ?"));
+        assertEquals("TB_ITEM", SQLTableLexer.targetTable("\n\t delete\nfrom\n TB_ITEM-- 行尾注释\n where TC_ID = ?"));
+    }
+
+    @Test
+    public void quotedNamesAndSchemaPrefixes() {
+        assertEquals("Tb Item", SQLTableLexer.targetTable("update \"Tb Item\" set TC_NAME = ?"));
+        assertEquals("TB_ITEM", SQLTableLexer.targetTable("update APP.TB_ITEM set TC_NAME = ?"));
+        assertEquals("TB_ITEM", SQLTableLexer.targetTable("insert into \"APP\".\"TB_ITEM\" values (?)"));
+        assertEquals("TB$ITEM#1", SQLTableLexer.targetTable("delete from app.TB$ITEM#1 where 1 = 1"));
+        assertNull(SQLTableLexer.targetTable("update \"\" set TC_NAME = ?"));
+        assertNull(SQLTableLexer.targetTable("update \"TB_ITEM set TC_NAME = ?"));
+    }
+
+    @Test
+    public void undecidableTargetsAreLeftToTheParser() {
+        assertNull(SQLTableLexer.targetTable("update TB_ITEM@REMOTE set TC_NAME = ?"));
+        assertNull(SQLTableLexer.targetTable("delete from ONLY (TB_ITEM) where TC_ID = ?"));
+        assertNull(SQLTableLexer.targetTable("update (select * from TB_ITEM) set TC_NAME = ?"));
+        assertNull(SQLTableLexer.targetTable("insert all into TB_ITEM values (?) into TB_OTHER values (?) select * from dual"));
+        assertNull(SQLTableLexer.targetTable("insert first when 1 = 1 then into TB_ITEM values (?) select * from dual"));
+        assertNull(SQLTableLexer.targetTable("with s as (select 1 from dual) update TB_ITEM set TC_NAME = ?"));
+        assertNull(SQLTableLexer.targetTable("update TB_ITEM, TB_OTHER set TC_NAME = ?"));
+        assertNull(SQLTableLexer.targetTable("merge TB_ITEM using dual on (1 = 1)"));
+    }
+
+    @Test
+    public void otherStatementsAreNotTargets() {
+        assertNull(SQLTableLexer.targetTable(null));
+        assertNull(SQLTableLexer.targetTable(""));
+        assertNull(SQLTableLexer.targetTable("   /* 只有注释 */"));
+        assertNull(SQLTableLexer.targetTable("select * from TB_ITEM"));
+        assertNull(SQLTableLexer.targetTable("updates TB_ITEM set TC_NAME = ?"));
+        assertNull(SQLTableLexer.targetTable("update"));
+        assertNull(SQLTableLexer.targetTable("insert into 1TB values (?)"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import com.mozi.auditlog.AuditTestDatabase;
+import com.mozi.auditlog.util.UniqueIdGenerator;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.YearMonth;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AuditLogTableCreatorTest
+{
+    @Test
+    public void failedDdlIsNotRetriedOnEveryStatement() throws Exception
+    {
+        try (AuditTestDatabase database = new AuditTestDatabase())
+        {
+            AtomicInteger metaDataCalls = new AtomicInteger();
+            Connection connection = counting(database.getConnection(), metaDataCalls);
+            AuditLogTableCreator creator = new AuditLogTableCreator(true, "TB_AUDIT_DIC_LOG", "TB_AUDIT_LOG_", AuditStorageMode.row, 0);
+
+            // H2 不支持自治事务块，建表必然失败
+            creator.ensureTables(connection);
+            int firstAttempt = metaDataCalls.get();
+            for (int i = 0; i < 100; i++)
+            {
+                creator.ensureTables(connection);
+            }
+
+            assertTrue(firstAttempt > 0);
+            assertEquals(firstAttempt, metaDataCalls.get());
+        }
+    }
+
+    @Test
+    public void monthlyTablesFollowTheIdTimePrefix()
+    {
+        AuditLogTableCreator creator = new AuditLogTableCreator(true, "TB_AUDIT_DIC_LOG", "TB_AUDIT_LOG_", AuditStorageMode.row, 0);
+        for (int month = 1; month <= 12; month++)
+        {
+            long start = YearMonth.of(2024, month).atDay(1).atStartOfDay(UniqueIdGenerator.getTimeOffset()).toInstant().toEpochMilli();
+            for (long millis : new long[]{start - 1, start, start + 3600000L})
+            {
+                // 月表后缀与ID中的 yyMM 一致，按ID查找的月表即写入的月表
+                String prefix = UniqueIdGenerator.timePrefix(millis);
+                assertEquals("TB_AUDIT_LOG_20" + prefix.substring(1, 5), creator.getLogTableName(new Date(millis)));
+            }
+        }
+    }
+
+    private static Connection counting(Connection connection, AtomicInteger metaDataCalls)
+    {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) ->
+        {
+            if ("getMetaData".equals(method.getName()))
+            {
+                metaDataCalls.incrementAndGet();
+            }
+            try
+            {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e)
+            {
+                throw e.getCause();
+            }
+        });
+    }
+}
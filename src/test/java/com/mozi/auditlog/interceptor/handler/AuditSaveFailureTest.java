@@ -0,0 +1,79 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import com.mozi.auditlog.AuditTestDatabase;
+import com.mozi.auditlog.ItemMapper;
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.overload.CaptureGuard;
+import com.mozi.auditlog.sink.AuditSink;
+import com.mozi.auditlog.sink.AuditSinks;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class AuditSaveFailureTest {
+    private static final AtomicInteger WRITES = new AtomicInteger();
+
+    private AuditTestDatabase database;
+
+    @Before
+    public void setUp() throws Exception {
+        WRITES.set(0);
+        database = new AuditTestDatabase();
+        database.execute("create table TB_SINK_MARK (TC_ID VARCHAR2(24))");
+        database.execute("insert into TB_ITEM (TC_ID, TC_NAME) values ('A1', 'first')");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Test
+    public void runtimeFailureRollsBackPartialAuditRowsAndOpensTheBreaker() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(AuditSinks.AUDIT_SINK, FailingSink.class.getName());
+        properties.setProperty(CaptureGuard.BREAKER_FAILURE_THRESHOLD, "1");
+        SqlSessionFactory sessionFactory = database.sessionFactory(properties, ItemMapper.class);
+        try (SqlSession session = sessionFactory.openSession(true)) {
+            ItemMapper mapper = session.getMapper(ItemMapper.class);
+            mapper.updateName("A1", "second");
+            mapper.updateName("A1", "third");
+        }
+
+        // 业务修改照常提交，写入目标已写出的半批审计随临时事务回滚
+        assertEquals("third", database.query("select TC_NAME from TB_ITEM").get(0).get("TC_NAME"));
+        assertEquals(0, database.count("select count(*) from TB_SINK_MARK"));
+        // 第一次失败即熔断，第二条语句不再写入
+        assertEquals(1, WRITES.get());
+    }
+
+    /**
+     * 在业务连接上写出一行后抛出运行时异常
+     */
+    public static class FailingSink implements AuditSink {
+        @Override
+        public void write(Connection connection, List<AuditLog> auditLogs) throws SQLException {
+            WRITES.incrementAndGet();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("insert into TB_SINK_MARK values ('partial')");
+            }
+            throw new IllegalStateException("sink failed");
+        }
+
+        @Override
+        public boolean isTransactional() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import com.mozi.auditlog.AuditTestDatabase;
+import com.mozi.auditlog.ItemMapper;
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.domain.AuditLogDtl;
+import com.mozi.auditlog.sink.AuditSinks;
+import com.mozi.auditlog.sink.InMemoryAuditSink;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OracleMergeSqlAuditHandlerTest {
+    private AuditTestDatabase database;
+    private SqlSessionFactory sessionFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        database = new AuditTestDatabase();
+        Properties properties = new Properties();
+        properties.setProperty(AuditSinks.AUDIT_SINK, AuditSinks.MEMORY);
+        sessionFactory = database.sessionFactory(properties, ItemMapper.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Test
+    public void unmatchedSourceRowIsAnInsert() {
+        upsert("M1", "new");
+
+        List<AuditLog> auditLogs = auditLogs();
+        assertEquals(1, auditLogs.size());
+        AuditLog auditLog = auditLogs.get(0);
+        assertEquals(AuditLog.OperationEnum.insert.name(), auditLog.getOperationType());
+        assertEquals("TB_ITEM", auditLog.getTableName());
+        assertEquals("M1", auditLog.getPrimaryKeyValue());
+        Map<String, AuditLogDtl> details = details(auditLog);
+        assertEquals("new", details.get("TC_NAME").getNewValue());
+        assertNull(details.get("TC_NAME").getOldValue());
+    }
+
+    @Test
+    public void matchedRowIsAnUpdateOfTheChangedColumns() throws Exception {
+        database.execute("insert into TB_ITEM (TC_ID, TC_NAME, TC_AMOUNT) values ('M1', 'old', 1)");
+
+        upsert("M1", "renamed");
+
+        List<AuditLog> auditLogs = auditLogs();
+        assertEquals(1, auditLogs.size());
+        AuditLog auditLog = auditLogs.get(0);
+        assertEquals(AuditLog.OperationEnum.update.name(), auditLog.getOperationType());
+        assertEquals("M1", auditLog.getPrimaryKeyValue());
+        assertEquals(1, auditLog.getAuditLogDtlList().size());
+        AuditLogDtl auditLogDtl = auditLog.getAuditLogDtlList().get(0);
+        assertEquals("TC_NAME", auditLogDtl.getColumnName());
+        assertEquals("old", auditLogDtl.getOldValue());
+        assertEquals("renamed", auditLogDtl.getNewValue());
+    }
+
+    @Test
+    public void matchedRowWithoutChangesIsNotAudited() throws Exception {
+        database.execute("insert into TB_ITEM (TC_ID, TC_NAME) values ('M1', 'same')");
+
+        upsert("M1", "same");
+
+        assertTrue(auditLogs().isEmpty());
+    }
+
+    @Test
+    public void sourceTableMixesInsertsAndUpdates() throws Exception {
+        database.execute("create table TB_ITEM_SOURCE (TC_ID VARCHAR2(24), TC_NAME VARCHAR2(64), TC_AMOUNT NUMBER(12,2))");
+        database.execute("insert into TB_ITEM (TC_ID, TC_NAME, TC_AMOUNT) values ('S1', 'first', 1)");
+        database.execute("insert into TB_ITEM (TC_ID, TC_NAME, TC_AMOUNT) values ('S2', 'second', 2)");
+        database.execute("insert into TB_ITEM_SOURCE values ('S1', 'first', 1.00)");
+        database.execute("insert into TB_ITEM_SOURCE values ('S2', 'second', 20)");
+        database.execute("insert into TB_ITEM_SOURCE values ('S3', 'third', 3)");
+
+        try (SqlSession session = sessionFactory.openSession(true)) {
+            assertEquals(3, session.getMapper(ItemMapper.class).mergeFromSource());
+        }
+
+        Map<String, AuditLog> byKey = new HashMap<>();
+        for (AuditLog auditLog : auditLogs()) {
+            assertNull(auditLog.getPrimaryKeyValue(), byKey.put(auditLog.getPrimaryKeyValue(), auditLog));
+        }
+        assertEquals(2, byKey.size());
+        assertFalse(byKey.containsKey("S1"));
+        AuditLog update = byKey.get("S2");
+        assertEquals(AuditLog.OperationEnum.update.name(), update.getOperationType());
+        assertEquals(1, update.getAuditLogDtlList().size());
+        assertEquals("2", details(update).get("TC_AMOUNT").getOldValue());
+        assertEquals("20", details(update).get("TC_AMOUNT").getNewValue());
+        AuditLog insert = byKey.get("S3");
+        assertEquals(AuditLog.OperationEnum.insert.name(), insert.getOperationType());
+        assertEquals("third", details(insert).get("TC_NAME").getNewValue());
+        assertEquals("3", details(insert).get("TC_AMOUNT").getNewValue());
+    }
+
+    private void upsert(String id, String name) {
+        try (SqlSession session = sessionFactory.openSession(true)) {
+            assertEquals(1, session.getMapper(ItemMapper.class).upsert(id, name));
+        }
+    }
+
+    private List<AuditLog> auditLogs() {
+        return ((InMemoryAuditSink) database.getInterceptor().getAuditSink()).getAuditLogs();
+    }
+
+    private static Map<String, AuditLogDtl> details(AuditLog auditLog) {
+        Map<String, AuditLogDtl> details = new HashMap<>();
+        for (AuditLogDtl auditLogDtl : auditLog.getAuditLogDtlList()) {
+            details.put(auditLogDtl.getColumnName(), auditLogDtl);
+        }
+        return details;
+    }
+}
@@ -0,0 +1,217 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import com.mozi.auditlog.AuditTestDatabase;
+import com.mozi.auditlog.Item;
+import com.mozi.auditlog.ItemMapper;
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.domain.AuditLogDtl;
+import com.mozi.auditlog.sink.AuditSinks;
+import com.mozi.auditlog.sink.InMemoryAuditSink;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TransactionAuditBufferTest
+{
+    private AuditTestDatabase database;
+    private SqlSessionFactory sessionFactory;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        database = new AuditTestDatabase();
+        database.execute("insert into TB_ITEM (TC_ID, TC_NAME, TC_AMOUNT) values ('A1', 'first', 1)");
+        database.execute("insert into TB_ITEM (TC_ID, TC_NAME, TC_AMOUNT) values ('A2', 'second', 2)");
+        database.execute("insert into TB_ITEM (TC_ID, TC_NAME, TC_AMOUNT) values ('A3', 'third', 3)");
+        database.execute("insert into TB_ITEM (TC_ID, TC_NAME, TC_AMOUNT) values ('A4', 'fourth', 4)");
+        Properties properties = new Properties();
+        properties.setProperty(AuditSinks.AUDIT_SINK, AuditSinks.MEMORY);
+        properties.setProperty("coalesce", "true");
+        sessionFactory = database.sessionFactory(properties, ItemMapper.class);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        database.close();
+    }
+
+    @Test
+    public void updatesOfOneRowKeepTheFirstOldAndLastNewValue() throws Exception
+    {
+        try (SqlSession session = sessionFactory.openSession(false))
+        {
+            ItemMapper mapper = session.getMapper(ItemMapper.class);
+            mapper.updateName("A1", "x");
+            mapper.updateAmount("A1", new BigDecimal("9"));
+            mapper.updateName("A1", "y");
+            session.commit();
+        }
+        List<AuditLog> auditLogs = auditLogs();
+        assertEquals(1, auditLogs.size());
+        assertEquals(AuditLog.OperationEnum.update.name(), auditLogs.get(0).getOperationType());
+        Map<String, AuditLogDtl> details = details(auditLogs.get(0));
+        assertEquals(2, details.size());
+        assertEquals("first", details.get("TC_NAME").getOldValue());
+        assertEquals("y", details.get("TC_NAME").getNewValue());
+        assertEquals("1", details.get("TC_AMOUNT").getOldValue());
+        assertEquals("9", details.get("TC_AMOUNT").getNewValue());
+    }
+
+    @Test
+    public void updatesThatCancelOutAreDropped() throws Exception
+    {
+        try (SqlSession session = sessionFactory.openSession(false))
+        {
+            ItemMapper mapper = session.getMapper(ItemMapper.class);
+            mapper.updateName("A1", "x");
+            mapper.updateName("A1", "first");
+            mapper.updateName("A2", "x");
+            mapper.updateAmount("A2", new BigDecimal("5"));
+            mapper.updateName("A2", "second");
+            session.commit();
+        }
+        List<AuditLog> auditLogs = auditLogs();
+        assertEquals(1, auditLogs.size());
+        assertEquals("A2", auditLogs.get(0).getPrimaryKeyValue());
+        Map<String, AuditLogDtl> details = details(auditLogs.get(0));
+        assertEquals(1, details.size());
+        assertEquals("5", details.get("TC_AMOUNT").getNewValue());
+    }
+
+    @Test
+    public void insertFollowedByUpdateIsOneInsert() throws Exception
+    {
+        try (SqlSession session = sessionFactory.openSession(false))
+        {
+            ItemMapper mapper = session.getMapper(ItemMapper.class);
+            mapper.insert(Item.of("B1", "new", new BigDecimal("7")));
+            mapper.updateName("B1", "newer");
+            session.commit();
+        }
+        List<AuditLog> auditLogs = auditLogs();
+        assertEquals(1, auditLogs.size());
+        assertEquals(AuditLog.OperationEnum.insert.name(), auditLogs.get(0).getOperationType());
+        Map<String, AuditLogDtl> details = details(auditLogs.get(0));
+        assertEquals("newer", details.get("TC_NAME").getNewValue());
+        assertNull(details.get("TC_NAME").getOldValue());
+        assertEquals("7", details.get("TC_AMOUNT").getNewValue());
+    }
+
+    @Test
+    public void insertFollowedByDeleteLeavesNothing() throws Exception
+    {
+        try (SqlSession session = sessionFactory.openSession(false))
+        {
+            ItemMapper mapper = session.getMapper(ItemMapper.class);
+            mapper.insert(Item.of("B2", "temporary", new BigDecimal("1")));
+            mapper.updateName("B2", "still temporary");
+            mapper.delete("B2");
+            session.commit();
+        }
+        assertTrue(auditLogs().isEmpty());
+    }
+
+    @Test
+    public void updateFollowedByDeleteKeepsTheOriginalValues() throws Exception
+    {
+        try (SqlSession session = sessionFactory.openSession(false))
+        {
+            ItemMapper mapper = session.getMapper(ItemMapper.class);
+            mapper.updateName("A3", "changed");
+            mapper.delete("A3");
+            session.commit();
+        }
+        List<AuditLog> auditLogs = auditLogs();
+        assertEquals(1, auditLogs.size());
+        assertEquals(AuditLog.OperationEnum.delete.name(), auditLogs.get(0).getOperationType());
+        Map<String, AuditLogDtl> details = details(auditLogs.get(0));
+        assertEquals("third", details.get("TC_NAME").getOldValue());
+        assertEquals(auditLogs.get(0).getAuditLogId(), details.get("TC_NAME").getAuditLogId());
+    }
+
+    @Test
+    public void deleteFollowedByInsertIsAnUpdate() throws Exception
+    {
+        try (SqlSession session = sessionFactory.openSession(false))
+        {
+            ItemMapper mapper = session.getMapper(ItemMapper.class);
+            mapper.delete("A4");
+            mapper.insert(Item.of("A4", "fourth", new BigDecimal("40")));
+            session.commit();
+        }
+        List<AuditLog> auditLogs = auditLogs();
+        assertEquals(1, auditLogs.size());
+        assertEquals(AuditLog.OperationEnum.update.name(), auditLogs.get(0).getOperationType());
+        Map<String, AuditLogDtl> details = details(auditLogs.get(0));
+        assertFalse(details.containsKey("TC_NAME"));
+        assertFalse(details.containsKey("TC_ID"));
+        assertEquals("4", details.get("TC_AMOUNT").getOldValue());
+        assertEquals("40", details.get("TC_AMOUNT").getNewValue());
+    }
+
+    @Test
+    public void reinsertedAndDeletedAgainIsOneDeleteOfTheOriginalRow() throws Exception
+    {
+        try (SqlSession session = sessionFactory.openSession(false))
+        {
+            ItemMapper mapper = session.getMapper(ItemMapper.class);
+            mapper.delete("A1");
+            mapper.updateName("A2", "x");
+            mapper.insert(Item.of("A1", "back", null));
+            mapper.delete("A1");
+            session.commit();
+        }
+        List<AuditLog> auditLogs = auditLogs();
+        assertEquals(2, auditLogs.size());
+        assertEquals("A1", auditLogs.get(0).getPrimaryKeyValue());
+        assertEquals(AuditLog.OperationEnum.delete.name(), auditLogs.get(0).getOperationType());
+        assertEquals("first", details(auditLogs.get(0)).get("TC_NAME").getOldValue());
+        assertEquals("1", details(auditLogs.get(0)).get("TC_AMOUNT").getOldValue());
+        assertEquals("A2", auditLogs.get(1).getPrimaryKeyValue());
+    }
+
+    @Test
+    public void rollbackDiscardsTheBuffer() throws Exception
+    {
+        try (SqlSession session = sessionFactory.openSession(false))
+        {
+            ItemMapper mapper = session.getMapper(ItemMapper.class);
+            mapper.updateName("A1", "x");
+            session.rollback();
+            mapper.updateName("A2", "y");
+            session.commit();
+        }
+        List<AuditLog> auditLogs = auditLogs();
+        assertEquals(1, auditLogs.size());
+        assertEquals("A2", auditLogs.get(0).getPrimaryKeyValue());
+    }
+
+    private List<AuditLog> auditLogs()
+    {
+        return ((InMemoryAuditSink) database.getInterceptor().getAuditSink()).getAuditLogs();
+    }
+
+    private static Map<String, AuditLogDtl> details(AuditLog auditLog)
+    {
+        Map<String, AuditLogDtl> details = new HashMap<>();
+        for (AuditLogDtl auditLogDtl : auditLog.getAuditLogDtlList())
+        {
+            details.put(auditLogDtl.getColumnName(), auditLogDtl);
+        }
+        return details;
+    }
+}
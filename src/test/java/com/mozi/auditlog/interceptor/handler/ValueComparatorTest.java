@@ -0,0 +1,137 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import com.mozi.auditlog.AuditTestDatabase;
+import com.mozi.auditlog.Item;
+import com.mozi.auditlog.ItemMapper;
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.domain.AuditLogDtl;
+import com.mozi.auditlog.sink.AuditSinks;
+import com.mozi.auditlog.sink.InMemoryAuditSink;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ValueComparatorTest
+{
+    @Test
+    public void comparatorIsChosenByColumnType()
+    {
+        assertSame(ValueComparator.number, ValueComparator.of(Types.NUMERIC));
+        assertSame(ValueComparator.number, ValueComparator.of(100));
+        assertSame(ValueComparator.datetime, ValueComparator.of(Types.TIMESTAMP));
+        assertSame(ValueComparator.datetime, ValueComparator.of(-102));
+        assertSame(ValueComparator.datetime, ValueComparator.of(Types.TIME));
+        assertSame(ValueComparator.character, ValueComparator.of(Types.CHAR));
+        assertSame(ValueComparator.binary, ValueComparator.of(Types.VARBINARY));
+        assertSame(ValueComparator.generic, ValueComparator.of(Types.VARCHAR));
+        assertSame(ValueComparator.generic, ValueComparator.of(Types.CLOB));
+    }
+
+    @Test
+    public void nullsAreOnlyEqualToNull()
+    {
+        for (ValueComparator comparator : ValueComparator.values())
+        {
+            assertTrue(comparator.same(null, null));
+            assertFalse(comparator.same(null, "0"));
+            assertFalse(comparator.same(BigDecimal.ZERO, null));
+        }
+    }
+
+    @Test
+    public void numbersIgnoreScaleAndBoxing()
+    {
+        assertTrue(ValueComparator.number.same(new BigDecimal("1"), new BigDecimal("1.00")));
+        assertTrue(ValueComparator.number.same(1L, new BigDecimal("1.0")));
+        assertTrue(ValueComparator.number.same(new BigInteger("12"), 12));
+        assertTrue(ValueComparator.number.same(0.1F, new BigDecimal("0.1")));
+        assertTrue(ValueComparator.number.same(0.1D, new BigDecimal("0.10")));
+        assertFalse(ValueComparator.number.same(new BigDecimal("1.001"), new BigDecimal("1")));
+        assertFalse(ValueComparator.number.same(Double.NaN, new BigDecimal("0")));
+        assertTrue(ValueComparator.number.same(Double.NaN, Double.NaN));
+        // 值的类型与列类型不符时退回 equals
+        assertTrue(ValueComparator.number.same("1", "1"));
+        assertFalse(ValueComparator.number.same("1", "1.0"));
+    }
+
+    @Test
+    public void dateTimesCompareTheInstant()
+    {
+        Timestamp timestamp = Timestamp.valueOf("2024-03-05 07:08:09");
+        assertTrue(ValueComparator.datetime.same(new Date(timestamp.getTime()), timestamp));
+        assertTrue(ValueComparator.datetime.same(LocalDateTime.of(2024, 3, 5, 7, 8, 9), timestamp));
+        assertTrue(ValueComparator.datetime.same(timestamp.toInstant().atZone(ZoneId.systemDefault()), timestamp));
+        assertTrue(ValueComparator.datetime.same(java.sql.Date.valueOf("2024-03-05"), Timestamp.valueOf("2024-03-05 00:00:00")));
+        assertFalse(ValueComparator.datetime.same(Timestamp.valueOf("2024-03-05 07:08:09.000000001"), timestamp));
+    }
+
+    @Test
+    public void charactersIgnoreTrailingPadding()
+    {
+        assertTrue(ValueComparator.character.same("AB  ", "AB"));
+        assertTrue(ValueComparator.character.same("    ", ""));
+        assertFalse(ValueComparator.character.same(" AB", "AB"));
+        assertFalse(ValueComparator.character.same("AB\t", "AB"));
+        assertFalse(ValueComparator.generic.same("AB  ", "AB"));
+    }
+
+    @Test
+    public void binariesCompareContent()
+    {
+        assertTrue(ValueComparator.binary.same(new byte[]{1, 2}, new byte[]{1, 2}));
+        assertFalse(ValueComparator.binary.same(new byte[]{1, 2}, new byte[]{1, 2, 0}));
+        assertTrue(ValueComparator.generic.same(new byte[]{1}, new byte[]{1}));
+    }
+
+    @Test
+    public void genericNormalizesByValueType()
+    {
+        assertTrue(ValueComparator.generic.same(1, new BigDecimal("1.00")));
+        assertTrue(ValueComparator.generic.same(new Date(0), new Timestamp(0)));
+        assertTrue(ValueComparator.generic.same("a", "a"));
+        assertFalse(ValueComparator.generic.same("1", 1));
+    }
+
+    @Test
+    public void unchangedValuesAreNotAudited() throws Exception
+    {
+        try (AuditTestDatabase database = new AuditTestDatabase())
+        {
+            Properties properties = new Properties();
+            properties.setProperty(AuditSinks.AUDIT_SINK, AuditSinks.MEMORY);
+            SqlSessionFactory sessionFactory = database.sessionFactory(properties, ItemMapper.class);
+            try (SqlSession session = sessionFactory.openSession(true))
+            {
+                ItemMapper mapper = session.getMapper(ItemMapper.class);
+                mapper.insert(Item.of("A1", "first", new BigDecimal("1.5")));
+                mapper.updateAmount("A1", new BigDecimal("1.500"));
+                mapper.updateName("A1", "first");
+                mapper.updateAmount("A1", new BigDecimal("2"));
+            }
+            List<AuditLog> auditLogs = ((InMemoryAuditSink) database.getInterceptor().getAuditSink()).getAuditLogs();
+            assertEquals(2, auditLogs.size());
+            AuditLog update = auditLogs.get(1);
+            assertEquals(AuditLog.OperationEnum.update.name(), update.getOperationType());
+            assertEquals(1, update.getAuditLogDtlList().size());
+            AuditLogDtl auditLogDtl = update.getAuditLogDtlList().get(0);
+            assertEquals("TC_AMOUNT", auditLogDtl.getColumnName());
+            assertEquals("1.5", auditLogDtl.getOldValue());
+            assertEquals("2", auditLogDtl.getNewValue());
+        }
+    }
+}
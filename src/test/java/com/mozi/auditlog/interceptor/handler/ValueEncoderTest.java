@@ -0,0 +1,153 @@
+package com.mozi.auditlog.interceptor.handler;
+
+import com.mozi.auditlog.AuditTestDatabase;
+import com.mozi.auditlog.Item;
+import com.mozi.auditlog.ItemMapper;
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.domain.AuditLogDtl;
+import com.mozi.auditlog.sink.AuditSinks;
+import com.mozi.auditlog.sink.InMemoryAuditSink;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.Test;
+
+import javax.sql.rowset.serial.SerialBlob;
+import javax.sql.rowset.serial.SerialClob;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ValueEncoderTest
+{
+    @Test
+    public void encoderIsChosenByColumnType()
+    {
+        assertSame(ValueEncoder.number, ValueEncoder.of(Types.NUMERIC));
+        assertSame(ValueEncoder.number, ValueEncoder.of(Types.DOUBLE));
+        assertSame(ValueEncoder.number, ValueEncoder.of(101));
+        assertSame(ValueEncoder.datetime, ValueEncoder.of(Types.DATE));
+        assertSame(ValueEncoder.datetime, ValueEncoder.of(-101));
+        assertSame(ValueEncoder.character, ValueEncoder.of(Types.CHAR));
+        assertSame(ValueEncoder.character, ValueEncoder.of(Types.NCHAR));
+        assertSame(ValueEncoder.text, ValueEncoder.of(Types.VARCHAR));
+        assertSame(ValueEncoder.text, ValueEncoder.of(Types.TIME));
+        assertSame(ValueEncoder.binary, ValueEncoder.of(Types.VARBINARY));
+        assertSame(ValueEncoder.clob, ValueEncoder.of(Types.NCLOB));
+        assertSame(ValueEncoder.blob, ValueEncoder.of(Types.BLOB));
+    }
+
+    @Test
+    public void numbersHaveOneCanonicalText() throws Exception
+    {
+        assertEquals("1.5", ValueEncoder.number.encode(new BigDecimal("1.50"), 0));
+        assertEquals("1000", ValueEncoder.number.encode(new BigDecimal("1E+3"), 0));
+        assertEquals("0", ValueEncoder.number.encode(new BigDecimal("0.000"), 0));
+        assertEquals("-0.001", ValueEncoder.number.encode(new BigDecimal("-1E-3"), 0));
+        assertEquals("12", ValueEncoder.number.encode(12L, 0));
+        assertEquals("123456789012345678901234567890", ValueEncoder.number.encode(new BigInteger("123456789012345678901234567890"), 0));
+        assertEquals("0.1", ValueEncoder.number.encode(0.1D, 0));
+        assertEquals("0.1", ValueEncoder.number.encode(0.1F, 0));
+        assertEquals("NaN", ValueEncoder.number.encode(Double.NaN, 0));
+        // 值的类型与列类型不符时按值的类型编码
+        assertEquals("abc", ValueEncoder.number.encode("abc", 0));
+    }
+
+    @Test
+    public void dateTimesUseTimestampUtilsFormat() throws Exception
+    {
+        assertEquals("2024-03-05 07:08:09", ValueEncoder.datetime.encode(Timestamp.valueOf("2024-03-05 07:08:09"), 0));
+        assertEquals("2024-03-05 07:08:09.12", ValueEncoder.datetime.encode(Timestamp.valueOf("2024-03-05 07:08:09.120"), 0));
+        assertEquals("2024-03-05 07:08:09.000000001", ValueEncoder.datetime.encode(Timestamp.valueOf("2024-03-05 07:08:09.000000001"), 0));
+        assertEquals("2024-03-05 00:00:00", ValueEncoder.datetime.encode(LocalDate.of(2024, 3, 5), 0));
+        assertEquals("0999-12-31 23:59:59", ValueEncoder.datetime.encode(LocalDateTime.of(999, 12, 31, 23, 59, 59), 0));
+        assertEquals("2024-03-05 07:08:09", ValueEncoder.text.encode(Timestamp.valueOf("2024-03-05 07:08:09"), 0));
+    }
+
+    @Test
+    public void charactersAndBinariesAreNormalized() throws Exception
+    {
+        assertEquals("AB", ValueEncoder.character.encode("AB  ", 0));
+        assertEquals("", ValueEncoder.character.encode("   ", 0));
+        assertEquals("AB  ", ValueEncoder.text.encode("AB  ", 0));
+        assertEquals("00FF7F", ValueEncoder.binary.encode(new byte[]{0, -1, 127}, 0));
+        assertNull(ValueEncoder.binary.encode(null, 0));
+    }
+
+    @Test
+    public void lobsAreWrittenInFullUpToTheLimit() throws Exception
+    {
+        assertEquals("hello", ValueEncoder.clob.encode(new SerialClob("hello".toCharArray()), 5));
+        assertEquals("0102", ValueEncoder.blob.encode(new SerialBlob(new byte[]{1, 2}), 4));
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        assertEquals("CLOB(length=5,sha256=" + hex(digest.digest("hello".getBytes(StandardCharsets.UTF_16BE))) + ")",
+                ValueEncoder.clob.encode(new SerialClob("hello".toCharArray()), 4));
+        assertEquals("BLOB(length=2,sha256=" + hex(digest.digest(new byte[]{1, 2})) + ")",
+                ValueEncoder.blob.encode(new SerialBlob(new byte[]{1, 2}), 3));
+    }
+
+    @Test
+    public void everySinkReceivesEncodedValues() throws Exception
+    {
+        try (AuditTestDatabase database = new AuditTestDatabase())
+        {
+            Properties properties = new Properties();
+            properties.setProperty(AuditSinks.AUDIT_SINK, AuditSinks.MEMORY);
+            properties.setProperty("lobMaxLength", "8");
+            SqlSessionFactory sessionFactory = database.sessionFactory(properties, ItemMapper.class);
+            try (SqlSession session = sessionFactory.openSession(true))
+            {
+                ItemMapper mapper = session.getMapper(ItemMapper.class);
+                mapper.insert(Item.of("A1", "first", new BigDecimal("1.50")));
+                mapper.updateAll("A1", new BigDecimal("2.500"), "X", Timestamp.valueOf("2024-03-05 07:08:09.5"), "a long note",
+                        new byte[]{1, 2, 3}, new byte[]{(byte) 0xAB, 0x0C});
+            }
+            List<AuditLog> auditLogs = ((InMemoryAuditSink) database.getInterceptor().getAuditSink()).getAuditLogs();
+            assertEquals(2, auditLogs.size());
+            assertEquals("1.5", details(auditLogs.get(0)).get("TC_AMOUNT").getNewValue());
+
+            Map<String, AuditLogDtl> update = details(auditLogs.get(1));
+            assertEquals("1.5", update.get("TC_AMOUNT").getOldValue());
+            assertEquals("2.5", update.get("TC_AMOUNT").getNewValue());
+            assertEquals("X", update.get("TC_CODE").getNewValue());
+            assertEquals("2024-03-05 07:08:09.5", update.get("TC_TIME").getNewValue());
+            assertTrue(String.valueOf(update.get("TC_NOTE").getNewValue()).startsWith("CLOB(length=11,sha256="));
+            assertEquals("010203", update.get("TC_DATA").getNewValue());
+            assertEquals("AB0C", update.get("TC_RAW").getNewValue());
+        }
+    }
+
+    private static Map<String, AuditLogDtl> details(AuditLog auditLog)
+    {
+        Map<String, AuditLogDtl> details = new HashMap<>();
+        for (AuditLogDtl auditLogDtl : auditLog.getAuditLogDtlList())
+        {
+            details.put(auditLogDtl.getColumnName(), auditLogDtl);
+        }
+        return details;
+    }
+
+    private static String hex(byte[] bytes)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes)
+        {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+}
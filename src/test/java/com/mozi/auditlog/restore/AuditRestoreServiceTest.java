@@ -0,0 +1,185 @@
+package com.mozi.auditlog.restore;
+
+import com.mozi.auditlog.AuditTestDatabase;
+import com.mozi.auditlog.Item;
+import com.mozi.auditlog.ItemMapper;
+import com.mozi.auditlog.domain.AuditLogDtl;
+import com.mozi.auditlog.query.AuditLogCriteria;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AuditRestoreServiceTest {
+    private AuditTestDatabase database;
+    private AuditRestoreService restoreService;
+
+    @Before
+    public void setUp() throws Exception {
+        database = new AuditTestDatabase();
+        restoreService = new AuditRestoreService(database.getDataSource(), new Properties());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Test
+    public void fullDeleteIsReinserted() throws Exception {
+        database.execute("insert into TB_ITEM (TC_ID, TC_NAME, TC_AMOUNT) values ('A1', 'first', 12.50)");
+        deleteThroughPlugin("A1", new Properties());
+        assertEquals(0, database.count("select count(*) from TB_ITEM"));
+
+        RestoreReport report = restoreService.restore(itemAuditLogs(), false);
+
+        assertEquals(1, report.getStatements());
+        assertTrue(report.getSkippedReasons().isEmpty());
+        assertEquals("first", database.query("select TC_NAME from TB_ITEM where TC_ID = 'A1'").get(0).get("TC_NAME"));
+        assertEquals(0, new BigDecimal("12.5").compareTo((BigDecimal) database.query("select TC_AMOUNT from TB_ITEM").get(0).get("TC_AMOUNT")));
+    }
+
+    @Test
+    public void updatesAreRevertedNewestFirst() throws Exception {
+        database.execute("insert into TB_ITEM (TC_ID, TC_NAME) values ('F1', 'first')");
+        try (SqlSession session = database.sessionFactory(new Properties(), ItemMapper.class).openSession(true)) {
+            session.getMapper(ItemMapper.class).updateName("F1", "second");
+            session.getMapper(ItemMapper.class).updateName("F1", "third");
+        }
+
+        RestoreReport report = restoreService.restore(itemAuditLogs(), false);
+
+        assertEquals(2, report.getStatements());
+        assertEquals(2, report.getAffectedRows());
+        assertEquals("first", database.query("select TC_NAME from TB_ITEM where TC_ID = 'F1'").get(0).get("TC_NAME"));
+    }
+
+    @Test
+    public void insertIsDeleted() throws Exception {
+        try (SqlSession session = database.sessionFactory(new Properties(), ItemMapper.class).openSession(true)) {
+            session.getMapper(ItemMapper.class).insert(Item.of("G1", "inserted", BigDecimal.ONE));
+        }
+        assertEquals(1, database.count("select count(*) from TB_ITEM"));
+
+        RestoreReport report = restoreService.restore(itemAuditLogs(), false);
+
+        assertEquals(1, report.getStatements());
+        assertEquals(0, database.count("select count(*) from TB_ITEM"));
+    }
+
+    @Test
+    public void dryRunOnlyPreviewsStatements() throws Exception {
+        database.execute("insert into TB_ITEM (TC_ID, TC_NAME) values ('H1', 'kept')");
+        deleteThroughPlugin("H1", new Properties());
+
+        RestoreReport report = restoreService.restore(itemAuditLogs(), true);
+
+        assertTrue(report.isDryRun());
+        assertEquals(1, report.getStatements());
+        assertEquals(1, report.getPreviews().size());
+        assertTrue(report.getPreviews().get(0), report.getPreviews().get(0).startsWith("insert into TB_ITEM"));
+        assertEquals(0, database.count("select count(*) from TB_ITEM"));
+    }
+
+    @Test
+    public void missingRowIsReported() throws Exception {
+        database.execute("insert into TB_ITEM (TC_ID, TC_NAME) values ('K1', 'first')");
+        try (SqlSession session = database.sessionFactory(new Properties(), ItemMapper.class).openSession(true)) {
+            session.getMapper(ItemMapper.class).updateName("K1", "second");
+        }
+        database.execute("delete from TB_ITEM where TC_ID = 'K1'");
+
+        RestoreReport report = restoreService.restore(itemAuditLogs(), false);
+
+        assertEquals(1, report.getStatements());
+        assertEquals(1, report.getMissingRows());
+        assertEquals(0, report.getAffectedRows());
+    }
+
+    @Test
+    public void degradedDeleteIsSkipped() throws Exception {
+        auditLog("000000000000000000000001", "delete", "B1");
+        auditLogDtl("000000000000000000000001", AuditLogDtl.CAPTURE_MARKER_COLUMN, "headerOnly");
+
+        RestoreReport report = restoreService.restore(itemAuditLogs(), false);
+
+        assertEquals(0, report.getStatements());
+        assertEquals(Long.valueOf(1L), report.getSkippedReasons().get(RestoreReport.SKIP_DEGRADED));
+        assertEquals(0, database.count("select count(*) from TB_ITEM"));
+    }
+
+    @Test
+    public void deleteWithoutDetailsIsNotRestoredAsPrimaryKeyOnlyRow() throws Exception {
+        auditLog("000000000000000000000002", "delete", "C1");
+
+        RestoreReport report = restoreService.restore(itemAuditLogs(), true);
+
+        assertEquals(0, report.getStatements());
+        assertTrue(report.getPreviews().isEmpty());
+        assertEquals(Long.valueOf(1L), report.getSkippedReasons().get(RestoreReport.SKIP_NO_FULL_IMAGE));
+        assertNull(report.getSkippedReasons().get(RestoreReport.SKIP_DEGRADED));
+    }
+
+    @Test
+    public void binaryValuesAreRestoredAsBytes() throws Exception {
+        database.execute("insert into TB_ITEM (TC_ID, TC_NAME, TC_NOTE, TC_DATA, TC_RAW) values ('D1', 'binary', 'short', X'00FF10', X'AB0C')");
+        deleteThroughPlugin("D1", new Properties());
+
+        RestoreReport report = restoreService.restore(itemAuditLogs(), false);
+
+        assertEquals(1, report.getStatements());
+        Map<String, Object> row = database.query("select TC_NOTE, TC_DATA, TC_RAW from TB_ITEM where TC_ID = 'D1'").get(0);
+        assertEquals("short", database.query("select cast(TC_NOTE as varchar2(100)) NOTE from TB_ITEM").get(0).get("NOTE"));
+        assertArrayEquals(new byte[]{0, (byte) 0xFF, 0x10}, ((Blob) row.get("TC_DATA")).getBytes(1, 3));
+        assertArrayEquals(new byte[]{(byte) 0xAB, 0x0C}, (byte[]) row.get("TC_RAW"));
+    }
+
+    @Test
+    public void hashedLobIsNotRestored() throws Exception {
+        database.execute("insert into TB_ITEM (TC_ID, TC_NAME, TC_NOTE) values ('E1', 'long', 'longer than the limit')");
+        Properties properties = new Properties();
+        properties.setProperty("lobMaxLength", "8");
+        deleteThroughPlugin("E1", properties);
+        assertTrue(database.auditDetails().toString(), database.auditDetails().toString().contains("CLOB(length=21,sha256="));
+
+        RestoreReport report = restoreService.restore(itemAuditLogs(), false);
+
+        assertEquals(0, report.getStatements());
+        assertEquals(Long.valueOf(1L), report.getSkippedReasons().get(RestoreReport.SKIP_HASHED_LOB));
+        assertEquals(0, database.count("select count(*) from TB_ITEM"));
+    }
+
+    private void deleteThroughPlugin(String id, Properties properties) {
+        SqlSessionFactory sessionFactory = database.sessionFactory(properties, ItemMapper.class);
+        try (SqlSession session = sessionFactory.openSession(true)) {
+            session.getMapper(ItemMapper.class).delete(id);
+        }
+    }
+
+    private static AuditLogCriteria itemAuditLogs() {
+        AuditLogCriteria criteria = new AuditLogCriteria();
+        criteria.setTableName(AuditTestDatabase.TABLE);
+        return criteria;
+    }
+
+    private void auditLog(String id, String operation, String primaryKeyValue) throws Exception {
+        database.execute("insert into TB_AUDIT_DIC_LOG (TC_AUDIT_LOG_ID, TC_OPERATION_TYPE, TC_TABLE_NAME, TC_PRIMARY_KEY_VALUE, TC_CREATE_TIME)"
+                + " values ('" + id + "', '" + operation + "', '" + AuditTestDatabase.TABLE + "', '" + primaryKeyValue + "', sysdate)");
+    }
+
+    private void auditLogDtl(String logId, String column, String newValue) throws Exception {
+        database.execute("insert into TB_AUDIT_DIC_LOG_DTL (TC_AUDIT_LOGD_ID, TC_AUDIT_LOG_ID, TC_COLUMN_NAME, TC_NEW_VALUE)"
+                + " values ('" + logId.substring(0, 23) + "9', '" + logId + "', '" + column + "', '" + newValue + "')");
+    }
+}
@@ -0,0 +1,171 @@
+package com.mozi.auditlog.retention;
+
+import com.mozi.auditlog.AuditTestDatabase;
+import com.mozi.auditlog.util.UniqueIdGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class AuditLogPurgeJobTest {
+    private static final long NOW = System.currentTimeMillis();
+
+    private AuditTestDatabase database;
+    private int sequence;
+
+    @Before
+    public void setUp() throws Exception {
+        database = new AuditTestDatabase();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Test
+    public void expiredRowsAreDeletedInChunks() throws Exception {
+        for (int i = 0; i < 7; i++) {
+            auditLog("TB_AUDIT_DIC_LOG", "TB_A", daysAgo(40));
+        }
+        auditLog("TB_AUDIT_DIC_LOG", "TB_A", daysAgo(10));
+        auditLog("TB_AUDIT_DIC_LOG", "TB_A", daysAgo(1));
+
+        long deleted = new AuditLogPurgeJob(database.getDataSource(), properties("30", null, "3")).purge();
+
+        // 每条主表记录带一条明细、一条溢出
+        assertEquals(21L, deleted);
+        assertEquals(2, database.count("select count(*) from TB_AUDIT_DIC_LOG"));
+        assertEquals(2, database.count("select count(*) from TB_AUDIT_DIC_LOG_DTL"));
+        assertEquals(2, database.count("select count(*) from TB_AUDIT_DIC_LOG_OVF"));
+        assertEquals(21, database.count("select TC_DELETED_ROWS from TB_AUDIT_DIC_LOG_PURGE where TC_LOG_TABLE_NAME = 'TB_AUDIT_DIC_LOG' and TC_POLICY = '*'"));
+    }
+
+    @Test
+    public void purgeResumesFromProgress() throws Exception {
+        String first = auditLog("TB_AUDIT_DIC_LOG", "TB_A", daysAgo(50));
+        String second = auditLog("TB_AUDIT_DIC_LOG", "TB_A", daysAgo(45));
+        String third = auditLog("TB_AUDIT_DIC_LOG", "TB_A", daysAgo(40));
+        database.execute("insert into TB_AUDIT_DIC_LOG_PURGE (TC_LOG_TABLE_NAME, TC_POLICY, TC_LAST_ID, TC_DELETED_ROWS)"
+                + " values ('TB_AUDIT_DIC_LOG', '*', '" + second + "', 6)");
+
+        long deleted = new AuditLogPurgeJob(database.getDataSource(), properties("30", null, "1")).purge();
+
+        assertEquals(3L, deleted);
+        assertEquals(2, database.count("select count(*) from TB_AUDIT_DIC_LOG where TC_AUDIT_LOG_ID in ('" + first + "', '" + second + "')"));
+        assertEquals(0, database.count("select count(*) from TB_AUDIT_DIC_LOG where TC_AUDIT_LOG_ID = '" + third + "'"));
+        assertEquals(third, database.query("select trim(TC_LAST_ID) ID from TB_AUDIT_DIC_LOG_PURGE").get(0).get("ID"));
+        assertEquals(9, database.count("select TC_DELETED_ROWS from TB_AUDIT_DIC_LOG_PURGE"));
+    }
+
+    @Test
+    public void nothingIsDeletedOutsideWindow() throws Exception {
+        auditLog("TB_AUDIT_DIC_LOG", "TB_A", daysAgo(40));
+        Properties properties = properties("30", null, null);
+        LocalTime start = LocalTime.now().plusHours(1);
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("HH:mm");
+        properties.setProperty(AuditLogPurgeJob.PURGE_WINDOW, start.format(format) + "-" + start.plusHours(1).format(format));
+
+        assertEquals(0L, new AuditLogPurgeJob(database.getDataSource(), properties).purge());
+        assertEquals(1, database.count("select count(*) from TB_AUDIT_DIC_LOG"));
+    }
+
+    @Test
+    public void expiredPeriodTablesAreDropped() throws Exception {
+        YearMonth current = YearMonth.from(Instant.ofEpochMilli(NOW).atOffset(UniqueIdGenerator.getTimeOffset()));
+        String expiredTable = periodTable("TB_AUDIT_DIC_LOG_" + current.minusYears(2).format(DateTimeFormatter.ofPattern("yyyyMM")));
+        String currentTable = periodTable("TB_AUDIT_DIC_LOG_" + current.format(DateTimeFormatter.ofPattern("yyyyMM")));
+        auditLog(expiredTable, "TB_A", daysAgo(730));
+        auditLog(currentTable, "TB_A", NOW);
+        database.execute("insert into TB_AUDIT_DIC_LOG_PURGE (TC_LOG_TABLE_NAME, TC_POLICY, TC_LAST_ID, TC_DELETED_ROWS)"
+                + " values ('" + expiredTable + "', '*', null, 0)");
+        Properties properties = properties("30", "TB_B:365", null);
+        properties.setProperty("split", "true");
+
+        AuditLogPurgeJob job = new AuditLogPurgeJob(database.getDataSource(), properties) {
+            @Override
+            String dropTableSql(String tableName) {
+                // H2 不支持 purge
+                return "drop table " + tableName;
+            }
+        };
+
+        assertEquals(0L, job.purge());
+
+        assertEquals(0, database.count("select count(*) from INFORMATION_SCHEMA.TABLES where TABLE_NAME like '" + expiredTable + "%'"));
+        assertEquals(0, database.count("select count(*) from TB_AUDIT_DIC_LOG_PURGE"));
+        assertEquals(1, database.count("select count(*) from " + currentTable));
+    }
+
+    @Test
+    public void removedTablePolicyFallsBackToDefaultPolicy() throws Exception {
+        auditLog("TB_AUDIT_DIC_LOG", "TB_A", daysAgo(50));
+        auditLog("TB_AUDIT_DIC_LOG", "TB_B", daysAgo(40));
+
+        // TB_A 单独保留一年，默认策略的水位越过 TB_A 的记录
+        assertEquals(3L, new AuditLogPurgeJob(database.getDataSource(), properties("30", "TB_A:365", null)).purge());
+        assertEquals(1, database.count("select count(*) from TB_AUDIT_DIC_LOG where TC_TABLE_NAME = 'TB_A'"));
+
+        // 去掉 TB_A 的策略后由默认策略从头清理
+        assertEquals(3L, new AuditLogPurgeJob(database.getDataSource(), properties("30", null, null)).purge());
+        assertEquals(0, database.count("select count(*) from TB_AUDIT_DIC_LOG"));
+        assertEquals("*", database.query("select TC_POLICY from TB_AUDIT_DIC_LOG_PURGE").get(0).get("TC_POLICY"));
+        assertEquals(1, database.count("select count(*) from TB_AUDIT_DIC_LOG_PURGE"));
+    }
+
+    private static Properties properties(String retentionDays, String retentionPolicies, String chunkSize) {
+        Properties properties = new Properties();
+        properties.setProperty(AuditLogPurgeJob.RETENTION_DAYS, retentionDays);
+        if (retentionPolicies != null) {
+            properties.setProperty(AuditLogPurgeJob.RETENTION_POLICIES, retentionPolicies);
+        }
+        if (chunkSize != null) {
+            properties.setProperty(AuditLogPurgeJob.PURGE_CHUNK_SIZE, chunkSize);
+        }
+        return properties;
+    }
+
+    private static long daysAgo(int days) {
+        return NOW - TimeUnit.DAYS.toMillis(days);
+    }
+
+    private String periodTable(String logTableName) throws Exception {
+        for (String suffix : new String[]{"", "_DTL", "_OVF"}) {
+            database.execute("create table " + logTableName + suffix + " as select * from TB_AUDIT_DIC_LOG" + suffix + " where 1 = 0");
+        }
+        return logTableName;
+    }
+
+    /**
+     * 插入一条主表记录及其一条明细、一条溢出，ID 按创建时间生成
+     */
+    private String auditLog(String logTableName, String tableName, long createTime) throws Exception {
+        String id = UniqueIdGenerator.timePrefix(createTime) + String.format("%08d", ++sequence);
+        String dtlId = UniqueIdGenerator.timePrefix(createTime) + String.format("%08d", ++sequence);
+        String ovfId = UniqueIdGenerator.timePrefix(createTime) + String.format("%08d", ++sequence);
+        execute("insert into " + logTableName + " (TC_AUDIT_LOG_ID, TC_OPERATION_TYPE, TC_TABLE_NAME, TC_CREATE_TIME) values (?, 'update', ?, ?)",
+                id, tableName, new Timestamp(createTime));
+        execute("insert into " + logTableName + "_DTL (TC_AUDIT_LOGD_ID, TC_AUDIT_LOG_ID, TC_COLUMN_NAME) values (?, ?, 'TC_NAME')", dtlId, id);
+        execute("insert into " + logTableName + "_OVF (TC_OVERFLOW_ID, TC_AUDIT_LOGD_ID) values (?, ?)", ovfId, dtlId);
+        return id;
+    }
+
+    private void execute(String sql, Object... parameters) throws Exception {
+        try (PreparedStatement statement = database.getConnection().prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.mozi.auditlog.sink;
+
+import com.mozi.auditlog.domain.AuditLog;
+import com.mozi.auditlog.domain.AuditLogDtl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AuditRecordCodecTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void binaryRecordsRoundTrip() throws IOException {
+        AuditLog auditLog = auditLog("K1");
+        auditLog.setCreateBy("u01");
+        auditLog.setCreateName("张三");
+        auditLog.setIpAddress("10.0.0.1");
+        auditLog.setSessionId("s-1");
+        auditLog.setBatchId("b-1");
+        auditLog.getAuditLogDtlList().add(new AuditLogDtl(auditLog.getAuditLogId(), "TC_NAME", "名称", "新\n值", "旧值"));
+        auditLog.getAuditLogDtlList().add(new AuditLogDtl(auditLog.getAuditLogId(), "TC_AMOUNT", null, new BigDecimal("2.5"), null));
+        auditLog.getAuditLogDtlList().add(null);
+        auditLog.getAuditLogDtlList().add(new AuditLogDtl(auditLog.getAuditLogId(), "TC_TIME", null, Timestamp.valueOf("2024-03-05 07:08:09.5"), ""));
+        AuditLog bare = new AuditLog("delete", "TB_ITEM", null, null, null);
+
+        Path file = folder.getRoot().toPath().resolve("audit.bin");
+        Files.write(file, concat(AuditRecordCodec.toBinary(auditLog), AuditRecordCodec.toBinary(bare)));
+        List<AuditLog> read = AuditRecordCodec.readBinary(file);
+
+        assertEquals(2, read.size());
+        AuditLog copy = read.get(0);
+        assertEquals(auditLog.getAuditLogId(), copy.getAuditLogId());
+        assertEquals("TB_ITEM", copy.getTableName());
+        assertEquals("商品", copy.getTableDescription());
+        assertEquals("K1", copy.getPrimaryKeyValue());
+        assertEquals("update", copy.getOperationType());
+        assertEquals("u01", copy.getCreateBy());
+        assertEquals("张三", copy.getCreateName());
+        assertEquals("10.0.0.1", copy.getIpAddress());
+        assertEquals("s-1", copy.getSessionId());
+        assertEquals("b-1", copy.getBatchId());
+        assertEquals(auditLog.getCreateTime(), copy.getCreateTime());
+        assertEquals(3, copy.getAuditLogDtlList().size());
+        AuditLogDtl name = copy.getAuditLogDtlList().get(0);
+        assertEquals(auditLog.getAuditLogDtlList().get(0).getAuditLogdId(), name.getAuditLogdId());
+        assertEquals(copy.getAuditLogId(), name.getAuditLogId());
+        assertEquals("名称", name.getColumnDescription());
+        assertEquals("旧值", name.getOldValue());
+        assertEquals("新\n值", name.getNewValue());
+        assertEquals("2.5", copy.getAuditLogDtlList().get(1).getNewValue());
+        assertNull(copy.getAuditLogDtlList().get(1).getOldValue());
+        // 未经 ValueEncoder 编码的 Timestamp 按审计表的秒级格式写出
+        assertEquals("2024-03-05 07:08:09", copy.getAuditLogDtlList().get(2).getNewValue());
+        assertEquals("", copy.getAuditLogDtlList().get(2).getOldValue());
+
+        AuditLog bareCopy = read.get(1);
+        assertNull(bareCopy.getPrimaryKeyValue());
+        assertNull(bareCopy.getCreateTime());
+        assertTrue(bareCopy.getAuditLogDtlList().isEmpty());
+    }
+
+    @Test
+    public void truncatedOrForeignRecordsAreRejected() throws IOException {
+        byte[] record = AuditRecordCodec.toBinary(auditLog("K1"));
+        Path file = folder.getRoot().toPath().resolve("audit.bin");
+
+        Files.write(file, Arrays.copyOf(record, record.length - 3));
+        assertRejected(file, "Truncated");
+
+        byte[] foreign = record.clone();
+        foreign[Integer.BYTES] = 9;
+        Files.write(file, foreign);
+        assertRejected(file, "version 9");
+
+        byte[] overlong = record.clone();
+        overlong[Integer.BYTES - 1]--;
+        Files.write(file, overlong);
+        assertRejected(file, "Malformed");
+    }
+
+    @Test
+    public void jsonRecordsEscapeTextAndKeepNumbers() {
+        AuditLog auditLog = auditLog("K\"1");
+        auditLog.getAuditLogDtlList().add(new AuditLogDtl(auditLog.getAuditLogId(), "TC_NOTE", null, "a\tb\\c\u0001", null));
+        auditLog.getAuditLogDtlList().add(new AuditLogDtl(auditLog.getAuditLogId(), "TC_AMOUNT", null, new BigDecimal("1E+3"), Double.NaN));
+        auditLog.getAuditLogDtlList().add(new AuditLogDtl(auditLog.getAuditLogId(), "TC_RAW", null, new byte[]{1, 2, 3}, 7L));
+        StringBuilder builder = new StringBuilder();
+
+        AuditRecordCodec.appendJson(builder, auditLog);
+        String json = builder.toString();
+
+        assertTrue(json, json.startsWith("{\"auditLogId\":\"" + auditLog.getAuditLogId() + "\",\"tableName\":\"TB_ITEM\""));
+        assertTrue(json, json.contains("\"primaryKeyValue\":\"K\\\"1\""));
+        assertTrue(json, json.contains("\"newValue\":\"a\\tb\\\\c\\u0001\""));
+        assertTrue(json, json.contains("\"oldValue\":\"NaN\",\"newValue\":1000}"));
+        assertTrue(json, json.contains("\"oldValue\":7,\"newValue\":\"AQID\"}"));
+        assertTrue(json, json.contains("\"createBy\":null"));
+        assertTrue(json, json.endsWith("}]}"));
+    }
+
+    @Test
+    public void fileSinkWritesReadableBinaryFilesAndRolls() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(FileAuditSink.DIR, folder.getRoot().getPath());
+        properties.setProperty(FileAuditSink.FORMAT, "binary");
+        properties.setProperty(FileAuditSink.MAX_FILE_BYTES, "1");
+        properties.setProperty(FileAuditSink.BUFFER_BYTES, "16");
+        FileAuditSink sink = new FileAuditSink();
+        sink.configure(properties);
+        try {
+            AuditLog first = auditLog("K1");
+            first.getAuditLogDtlList().add(new AuditLogDtl(first.getAuditLogId(), "TC_NAME", null, "a value longer than the buffer", null));
+            sink.write(null, Arrays.asList(first, auditLog("K2")));
+            sink.write(null, Collections.singletonList(auditLog("K3")));
+        } finally {
+            sink.close();
+        }
+
+        // 同一毫秒内滚动的文件名带序号后缀，不按文件名排序，按内容区分
+        List<List<AuditLog>> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(folder.getRoot().toPath())) {
+            for (Path file : list.collect(Collectors.toList())) {
+                assertTrue(file.toString(), file.getFileName().toString().endsWith(".bin"));
+                files.add(AuditRecordCodec.readBinary(file));
+            }
+        }
+        files.sort(Comparator.comparingInt(List::size));
+        assertEquals(2, files.size());
+        assertEquals("K3", files.get(0).get(0).getPrimaryKeyValue());
+        assertEquals(2, files.get(1).size());
+        assertEquals("a value longer than the buffer", files.get(1).get(0).getAuditLogDtlList().get(0).getNewValue());
+        assertEquals("K2", files.get(1).get(1).getPrimaryKeyValue());
+    }
+
+    private static AuditLog auditLog(String primaryKeyValue) {
+        return new AuditLog("update", "TB_ITEM", "商品", primaryKeyValue, new Date(1700000000123L));
+    }
+
+    private static void assertRejected(Path file, String message) {
+        try {
+            AuditRecordCodec.readBinary(file);
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] bytes = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+        return bytes;
+    }
+}
@@ -0,0 +1,60 @@
+package com.mozi.auditlog.sink;
+
+import com.mozi.auditlog.domain.AuditLog;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryAuditSinkTest {
+
+    @Test
+    public void oldestRecordsAreEvictedAtCapacity() {
+        InMemoryAuditSink sink = sink("2");
+
+        sink.write(null, Arrays.asList(auditLog("K1"), auditLog("K2")));
+        sink.write(null, Arrays.asList(auditLog("K3")));
+
+        List<AuditLog> auditLogs = sink.getAuditLogs();
+        assertEquals(2, sink.size());
+        assertEquals("K2", auditLogs.get(0).getPrimaryKeyValue());
+        assertEquals("K3", auditLogs.get(1).getPrimaryKeyValue());
+        // 返回副本，修改不影响 sink
+        auditLogs.clear();
+        assertEquals(2, sink.size());
+        sink.clear();
+        assertTrue(sink.getAuditLogs().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBePositive() {
+        sink("0");
+    }
+
+    @Test
+    public void sinksAreChosenByName() {
+        Properties properties = new Properties();
+        properties.setProperty(AuditSinks.AUDIT_SINK, " Memory ");
+        AuditSink sink = AuditSinks.of(properties, null);
+        assertTrue(sink instanceof InMemoryAuditSink);
+        assertFalse(sink.isTransactional());
+    }
+
+    private static InMemoryAuditSink sink(String capacity) {
+        Properties properties = new Properties();
+        properties.setProperty(InMemoryAuditSink.CAPACITY, capacity);
+        InMemoryAuditSink sink = new InMemoryAuditSink();
+        sink.configure(properties);
+        return sink;
+    }
+
+    private static AuditLog auditLog(String primaryKeyValue) {
+        return new AuditLog("insert", "TB_ITEM", null, primaryKeyValue, new Date());
+    }
+}
@@ -0,0 +1,81 @@
+package com.mozi.auditlog.util;
+
+import com.mozi.auditlog.domain.AuditLogDtl;
+import com.mozi.auditlog.interceptor.TimestampUtils;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChangeSetCodecTest {
+
+    @Test
+    public void roundTripKeepsColumnsNullsAndSeparators() {
+        List<AuditLogDtl> auditLogDtlList = Arrays.asList(
+                dtl("TC_NAME", "old", "new"),
+                dtl("TC_NOTE", null, "含 ~ 与 12:34; 的文本"),
+                dtl("TC_EMPTY", "", null),
+                dtl("TC_MULTI", "line1\nline2", "9:abc"));
+
+        String changeSet = ChangeSetCodec.encode(auditLogDtlList);
+        List<AuditLogDtl> decoded = ChangeSetCodec.decode("L1", changeSet);
+
+        assertEquals(auditLogDtlList.size(), decoded.size());
+        for (int i = 0; i < decoded.size(); i++) {
+            AuditLogDtl expected = auditLogDtlList.get(i);
+            AuditLogDtl actual = decoded.get(i);
+            assertEquals("L1", actual.getAuditLogId());
+            assertNull(actual.getAuditLogdId());
+            assertNull(actual.getColumnDescription());
+            assertEquals(expected.getColumnName(), actual.getColumnName());
+            assertEquals(expected.getOldValue(), actual.getOldValue());
+            assertEquals(expected.getNewValue(), actual.getNewValue());
+        }
+    }
+
+    @Test
+    public void encodingIsLengthPrefixed() {
+        assertEquals("1;7:TC_NAME~1:x", ChangeSetCodec.encode(Collections.singletonList(dtl("TC_NAME", null, "x"))));
+    }
+
+    @Test
+    public void timestampsUseTimestampUtilsText() {
+        Timestamp timestamp = Timestamp.valueOf("2024-03-05 07:08:09");
+        String changeSet = ChangeSetCodec.encode(Collections.singletonList(dtl("TC_TIME", timestamp, 12)));
+        AuditLogDtl decoded = ChangeSetCodec.decode("L1", changeSet).get(0);
+        assertEquals(TimestampUtils.timestampToString(timestamp), decoded.getOldValue());
+        assertEquals("12", decoded.getNewValue());
+    }
+
+    @Test
+    public void emptyInputs() {
+        assertNull(ChangeSetCodec.encode(null));
+        assertNull(ChangeSetCodec.encode(new ArrayList<>()));
+        assertTrue(ChangeSetCodec.decode("L1", null).isEmpty());
+        assertTrue(ChangeSetCodec.decode("L1", "").isEmpty());
+    }
+
+    @Test
+    public void malformedChangeSetsAreRejected() {
+        for (String changeSet : new String[]{"2;7:TC_NAME~~", "1;7:TC_NAME~", "1;9:TC_NAME~~", "1;x:TC_NAME~~", "1;:~~"}) {
+            try {
+                ChangeSetCodec.decode("L1", changeSet);
+                fail("accepted " + changeSet);
+            } catch (IllegalArgumentException expected) {
+                // 格式错误
+            }
+        }
+    }
+
+    private static AuditLogDtl dtl(String columnName, Object oldValue, Object newValue) {
+        return new AuditLogDtl("L1", columnName, "描述", newValue, oldValue);
+    }
+}
@@ -0,0 +1,99 @@
+package com.mozi.auditlog.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UniqueIdGeneratorTest {
+
+    @Test
+    public void idsAreUniqueAcrossThreads() throws Exception {
+        final int threads = 8;
+        final int perThread = 50000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(new Callable<List<String>>() {
+                    @Override
+                    public List<String> call() {
+                        List<String> ids = new ArrayList<>(perThread);
+                        for (int i = 0; i < perThread; i++) {
+                            ids.add(UniqueIdGenerator.generateUniqueId());
+                        }
+                        return ids;
+                    }
+                }));
+            }
+            Set<String> all = new HashSet<>();
+            for (Future<List<String>> future : futures) {
+                for (String id : future.get()) {
+                    assertEquals(24, id.length());
+                    assertTrue("duplicate id " + id, all.add(id));
+                }
+            }
+            assertEquals(threads * perThread, all.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void idsIncreaseWithinAThread() {
+        String previous = UniqueIdGenerator.generateUniqueId();
+        for (int i = 0; i < 10000; i++) {
+            String id = UniqueIdGenerator.generateUniqueId();
+            assertTrue(previous + " >= " + id, id.compareTo(previous) > 0);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void sequenceOverflowBorrowsTheNextMillisecond() {
+        long now = System.currentTimeMillis() + 1000L;
+        String first = UniqueIdGenerator.generateUniqueId(now);
+        Set<String> ids = new HashSet<>();
+        ids.add(first);
+        String last = first;
+        // 一毫秒内最多 100000 个，第 100001 个进位到下一毫秒、序列归零
+        for (int i = 1; i <= 100000; i++) {
+            last = UniqueIdGenerator.generateUniqueId(now);
+            assertTrue("duplicate id " + last, ids.add(last));
+        }
+        assertEquals(UniqueIdGenerator.timePrefix(now), first.substring(0, 16));
+        assertEquals("00000", first.substring(19));
+        assertEquals(UniqueIdGenerator.timePrefix(now + 1), last.substring(0, 16));
+        assertEquals("00000", last.substring(19));
+    }
+
+    @Test
+    public void clockRegressionKeepsIdsIncreasing() {
+        long now = System.currentTimeMillis() + 5000L;
+        String before = UniqueIdGenerator.generateUniqueId(now);
+        String after = UniqueIdGenerator.generateUniqueId(now - 3600000L);
+        assertTrue(after.compareTo(before) > 0);
+        assertEquals(before.substring(0, 16), after.substring(0, 16));
+    }
+
+    @Test
+    public void timePrefixIsMonotonic() {
+        long start = 1700000000000L;
+        String previous = UniqueIdGenerator.timePrefix(start);
+        // 跨越一整年，任何夏令时切换都在其中
+        for (long millis = start; millis < start + 366L * 24 * 3600 * 1000; millis += 15L * 60 * 1000 + 1) {
+            String prefix = UniqueIdGenerator.timePrefix(millis);
+            assertTrue(previous + " > " + prefix, prefix.compareTo(previous) >= 0);
+            previous = prefix;
+        }
+    }
+}